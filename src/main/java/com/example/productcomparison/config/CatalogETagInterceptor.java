@@ -0,0 +1,120 @@
+package com.example.productcomparison.config;
+
+import com.example.productcomparison.controller.ProductController;
+import com.example.productcomparison.repository.IProductRepository;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Adds strong ETags to the product read endpoints and answers {@code If-None-Match} with 304 Not Modified.
+ * <p>
+ * The ETag of {@code GET /api/products/{id}} is the version of that product, and the ETag of every other
+ * {@code GET /api/products/**} endpoint is the catalog version, both read from {@link IProductRepository}
+ * without running the query. When the client already has the current version the request is answered
+ * before it reaches {@link com.example.productcomparison.controller.ProductController}, so nothing is
+ * queried or serialized.
+ * </p>
+ * <p>
+ * Versions are read before the controller runs, so a response is never older than its ETag. Versions
+ * restart when the application does, so every ETag also carries a value drawn at startup, and ETags
+ * issued by an earlier run, or by another instance, never match.
+ * </p>
+ * <p>
+ * The ETag header is only added to successful responses, as a {@link ResponseBodyAdvice} just before the
+ * body is written, so a 400 or 404 never hands out an ETag a client could send back. The 304 check still
+ * runs before the request parameters are bound: a client that sends a current catalog ETag with invalid
+ * parameters gets a 304 rather than a 400.
+ * </p>
+ * <p>
+ * Not registered on a router ({@code product.routing.enabled=true}), whose own repository does not hold the
+ * catalog it serves.
+ * </p>
+ */
+@ControllerAdvice(assignableTypes = ProductController.class)
+@ConditionalOnLocalCatalog
+@RequiredArgsConstructor
+public class CatalogETagInterceptor implements HandlerInterceptor, ResponseBodyAdvice<Object> {
+
+    private static final String PRODUCT_PATTERN = "/api/products/{id}";
+    private static final String ETAG_ATTRIBUTE = CatalogETagInterceptor.class.getName() + ".etag";
+
+    private final IProductRepository productRepository;
+    private final String epoch = Long.toString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE, 36);
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!HttpMethod.GET.matches(request.getMethod()) || !(handler instanceof HandlerMethod)) {
+            return true;
+        }
+        String etag = etagFor(request);
+        if (etag == null) {
+            return true;
+        }
+        // Without a response the check only compares; the header waits for beforeBodyWrite.
+        if (new ServletWebRequest(request).checkNotModified(etag)) {
+            // Sets the 304 status and the ETag header.
+            new ServletWebRequest(request, response).checkNotModified(etag);
+            return false;
+        }
+        request.setAttribute(ETAG_ATTRIBUTE, etag);
+        return true;
+    }
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        if (request instanceof ServletServerHttpRequest servletRequest
+                && response instanceof ServletServerHttpResponse servletResponse
+                && servletRequest.getServletRequest().getAttribute(ETAG_ATTRIBUTE) instanceof String etag
+                && HttpStatusCode.valueOf(servletResponse.getServletResponse().getStatus()).is2xxSuccessful()) {
+            response.getHeaders().setETag(etag);
+        }
+        return body;
+    }
+
+    private String etagFor(HttpServletRequest request) {
+        if (!PRODUCT_PATTERN.equals(request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE))) {
+            return etag(productRepository.catalogVersion());
+        }
+        @SuppressWarnings("unchecked")
+        Map<String, String> variables =
+                (Map<String, String>) request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        String id = variables == null ? null : variables.get("id");
+        if (id == null || id.isBlank()) {
+            return null;
+        }
+        OptionalLong version = productRepository.productVersion(id);
+        // Unknown products get no ETag, so the 404 is not cached.
+        return version.isPresent() ? etag(version.getAsLong()) : null;
+    }
+
+    private String etag(long version) {
+        return "\"" + epoch + "-" + version + "\"";
+    }
+}
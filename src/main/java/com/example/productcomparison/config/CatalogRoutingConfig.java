@@ -0,0 +1,64 @@
+package com.example.productcomparison.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Configuration of the category-partitioned catalog, loaded from the {@code product.routing.*} properties.
+ * <p>
+ * The router and every node share {@link #nodes} and {@link #categories}, so that they agree on which node
+ * owns which category; each node also sets its own {@link #nodeIndex}.
+ * </p>
+ *
+ * @see com.example.productcomparison.service.RoutingProductService
+ * @see com.example.productcomparison.repository.CatalogPartition
+ */
+@Configuration
+@ConfigurationProperties(prefix = "product.routing")
+@Data
+public class CatalogRoutingConfig {
+
+    /**
+     * Whether this instance routes product requests to the catalog nodes instead of answering them itself.
+     */
+    private boolean enabled;
+
+    /**
+     * Base URLs of the catalog nodes, such as {@code http://catalog-1:8080}.
+     */
+    private List<String> nodes = new ArrayList<>();
+
+    /**
+     * Categories assigned to a node explicitly, by position in {@link #nodes}. Other categories are assigned
+     * by hash.
+     */
+    private Map<String, Integer> categories = new LinkedHashMap<>();
+
+    /**
+     * Position of this instance in {@link #nodes} when it is one of the catalog nodes, so that it only holds
+     * the categories it owns. Not set on the router and on instances that hold the whole catalog.
+     */
+    private Integer nodeIndex;
+
+    /**
+     * How long to wait for a node to answer.
+     */
+    private long timeoutMs = 2000;
+
+    /**
+     * How long the router reuses the token it signs for the nodes before signing a new one. Must be shorter
+     * than {@code jwt.expiration-time}.
+     */
+    private long tokenRefreshMs = 600_000;
+
+    /**
+     * Whether queries sent to every node answer with the results of the nodes that did, when some do not.
+     */
+    private boolean allowPartialResults = true;
+}
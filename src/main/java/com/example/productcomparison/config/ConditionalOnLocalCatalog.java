@@ -0,0 +1,25 @@
+package com.example.productcomparison.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Creates the annotated bean only on instances that hold products themselves.
+ * <p>
+ * A router ({@code product.routing.enabled=true}) answers the product API from the catalog nodes, so the
+ * repositories, their files and logs, and the services reading them are not created on it.
+ * </p>
+ *
+ * @see com.example.productcomparison.service.RoutingProductService
+ */
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@ConditionalOnProperty(name = "product.routing.enabled", havingValue = "false", matchIfMissing = true)
+public @interface ConditionalOnLocalCatalog {
+}
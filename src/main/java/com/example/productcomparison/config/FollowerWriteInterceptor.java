@@ -0,0 +1,34 @@
+package com.example.productcomparison.config;
+
+import com.example.productcomparison.exception.repository.ReadOnlyCatalogException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Rejects the product write endpoints of a replication follower with 405, since only the leader's writes
+ * reach the followers. Clients send writes to the leader given by {@code product.replication.leader-url}.
+ *
+ * @see com.example.productcomparison.service.ReplicationFollower
+ */
+@Component
+@ConditionalOnProperty(name = "product.replication.role", havingValue = "follower")
+public class FollowerWriteInterceptor implements HandlerInterceptor {
+
+    @Value("${product.replication.leader-url:}")
+    private String leaderUrl;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        String method = request.getMethod();
+        if (HttpMethod.GET.matches(method) || HttpMethod.HEAD.matches(method) || HttpMethod.OPTIONS.matches(method)) {
+            return true;
+        }
+        throw new ReadOnlyCatalogException(
+                "This instance is a read replica; send writes to the replication leader " + leaderUrl);
+    }
+}
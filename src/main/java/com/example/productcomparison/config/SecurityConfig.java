@@ -54,6 +54,10 @@ public class SecurityConfig {
                         .requestMatchers(HttpMethod.POST, "/api/products/**").hasAuthority("ROLE_ADMIN")
                         .requestMatchers(HttpMethod.PUT, "/api/products/**").hasAuthority("ROLE_ADMIN")
                         .requestMatchers(HttpMethod.DELETE, "/api/products/**").hasAuthority("ROLE_ADMIN")
+
+                        // Change stream of a replication leader - followers and ADMIN
+                        .requestMatchers(HttpMethod.GET, "/api/replication/**")
+                        .hasAnyAuthority("ROLE_ADMIN", "ROLE_REPLICATION")
                         
                         .anyRequest().authenticated()
                 )
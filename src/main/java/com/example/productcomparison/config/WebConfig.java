@@ -0,0 +1,23 @@
+package com.example.productcomparison.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+@RequiredArgsConstructor
+public class WebConfig implements WebMvcConfigurer {
+
+    private final ObjectProvider<CatalogETagInterceptor> catalogETagInterceptor;
+    private final ObjectProvider<FollowerWriteInterceptor> followerWriteInterceptor;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        followerWriteInterceptor.ifAvailable(interceptor ->
+                registry.addInterceptor(interceptor).addPathPatterns("/api/products/**"));
+        catalogETagInterceptor.ifAvailable(interceptor ->
+                registry.addInterceptor(interceptor).addPathPatterns("/api/products/**"));
+    }
+}
@@ -1,9 +1,18 @@
 package com.example.productcomparison.controller;
 
 import com.example.productcomparison.exception.ErrorResponse;
+import com.example.productcomparison.exception.service.InvalidParameterException;
+import com.example.productcomparison.model.BatchResponse;
 import com.example.productcomparison.model.CreateProductRequest;
+import com.example.productcomparison.model.MutationResult;
 import com.example.productcomparison.model.Product;
+import com.example.productcomparison.model.ProductMutation;
+import com.example.productcomparison.model.ProductQuery;
+import com.example.productcomparison.model.ProductQueryResult;
 import com.example.productcomparison.service.IProductService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -14,10 +23,17 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 
 /**
  * REST controller for product endpoints.
@@ -33,6 +49,7 @@ import java.util.List;
 public class ProductController {
 
     private final IProductService productService;
+    private final ObjectMapper objectMapper;
 
     @Operation(
             summary = "Get all products",
@@ -137,6 +154,30 @@ public class ProductController {
         return ResponseEntity.noContent().build();
     }
 
+    @Operation(
+            summary = "Create, update and delete products in bulk",
+            description = "Applies up to 10,000 creates, updates and deletes in order, given as a JSON array or as "
+                    + "newline-delimited JSON (application/x-ndjson), one item per line. Each item succeeds or fails "
+                    + "on its own and its outcome is reported in the response; the changes become visible together."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Batch applied; see the per-item results",
+                    content = @Content(schema = @Schema(implementation = BatchResponse.class))),
+            @ApiResponse(responseCode = "400", description = "Empty, oversized or unreadable batch",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<BatchResponse> applyBatch(@RequestBody List<ProductMutation> mutations) {
+        List<MutationResult> results = productService.applyBatch(mutations);
+        return ResponseEntity.ok(BatchResponse.of(results));
+    }
+
+    @Operation(hidden = true)
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<BatchResponse> applyBatchNdjson(InputStream body) throws IOException {
+        return applyBatch(readNdjson(body));
+    }
+
     @Operation(
             summary = "Get product by ID",
             description = "Retrieves detailed information about a specific product"
@@ -157,6 +198,22 @@ public class ProductController {
         return ResponseEntity.ok(product);
     }
 
+    @Operation(
+            summary = "Check which product IDs exist",
+            description = "Returns the given IDs that belong to a product, in request order, so that up to 10,000 "
+                    + "IDs can be checked in one request"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "IDs checked successfully"),
+            @ApiResponse(responseCode = "400", description = "Too many IDs",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    @PostMapping("/exists")
+    public ResponseEntity<List<String>> findExistingIds(@RequestBody List<String> ids) {
+        List<String> existing = productService.findExistingIds(ids);
+        return ResponseEntity.ok(existing);
+    }
+
     @Operation(
             summary = "Search products by name",
             description = "Performs a case-insensitive partial match search on product names"
@@ -341,5 +398,114 @@ public class ProductController {
         List<Product> products = productService.findBySpecification(specKey, specValue);
         return ResponseEntity.ok(products);
     }
-}
 
+    @Operation(
+            summary = "Query products with several predicates",
+            description = "Returns the products matching every given predicate, optionally sorted and limited, in "
+                    + "one request. The query starts from the most selective predicate and checks the others on "
+                    + "its candidates. With explain=true the response also shows the chosen plan and its cost."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Query answered successfully",
+                    content = @Content(schema = @Schema(implementation = ProductQueryResult.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid predicate, sort or limit",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    @GetMapping("/query")
+    public ResponseEntity<ProductQueryResult> queryProducts(
+            @Parameter(description = "Minimum price, inclusive", example = "500")
+            @RequestParam(value = "minPrice", required = false) Double minPrice,
+            @Parameter(description = "Maximum price, inclusive", example = "1500")
+            @RequestParam(value = "maxPrice", required = false) Double maxPrice,
+            @Parameter(description = "Minimum rating (0.0 - 5.0)", example = "4.0")
+            @RequestParam(value = "minRating", required = false) Double minRating,
+            @Parameter(description = "Category (case-insensitive)", example = "Laptops")
+            @RequestParam(value = "category", required = false) String category,
+            @Parameter(description = "Specification as key:value (value case-insensitive); repeat for several",
+                    example = "ram:16GB DDR5")
+            @RequestParam(value = "spec", required = false) List<String> specs,
+            @Parameter(description = "Text the name contains (case-insensitive)", example = "pro")
+            @RequestParam(value = "name", required = false) String name,
+            @Parameter(description = "Sort by 'price' or 'rating'", example = "price")
+            @RequestParam(value = "sort", required = false) String sort,
+            @Parameter(description = "Sort order: 'asc' or 'desc'; defaults to asc for price and desc for rating",
+                    example = "asc")
+            @RequestParam(value = "order", required = false) String order,
+            @Parameter(description = "Maximum number of products to return (1-10000)", example = "20")
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @Parameter(description = "Whether to include the chosen plan and its estimated cost", example = "false")
+            @RequestParam(value = "explain", defaultValue = "false") boolean explain) {
+        ProductQuery.Sort sortField = parseSort(sort);
+        ProductQuery query = ProductQuery.builder()
+                .minPrice(minPrice)
+                .maxPrice(maxPrice)
+                .minRating(minRating)
+                .category(category)
+                .specifications(parseSpecifications(specs))
+                .name(name)
+                .sort(sortField)
+                .ascending(parseAscending(order, sortField))
+                .limit(limit)
+                .build();
+        return ResponseEntity.ok(productService.query(query, explain));
+    }
+
+    private static ProductQuery.Sort parseSort(String sort) {
+        if (sort == null) {
+            return null;
+        }
+        try {
+            return ProductQuery.Sort.of(sort);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidParameterException("sort", sort, "Sort must be 'price' or 'rating'");
+        }
+    }
+
+    private static boolean parseAscending(String order, ProductQuery.Sort sort) {
+        if (order == null) {
+            return sort != ProductQuery.Sort.RATING;
+        }
+        return switch (order.toLowerCase(Locale.ROOT)) {
+            case "asc" -> true;
+            case "desc" -> false;
+            default -> throw new InvalidParameterException("order", order, "Order must be 'asc' or 'desc'");
+        };
+    }
+
+    private static Map<String, String> parseSpecifications(List<String> specs) {
+        Map<String, String> specifications = new LinkedHashMap<>();
+        if (specs == null) {
+            return specifications;
+        }
+        for (String spec : specs) {
+            int separator = spec.indexOf(':');
+            if (separator <= 0) {
+                throw new InvalidParameterException("spec", spec, "Specification must be given as key:value");
+            }
+            specifications.put(spec.substring(0, separator).trim(), spec.substring(separator + 1).trim());
+        }
+        return specifications;
+    }
+
+    /**
+     * Reads the items of an NDJSON batch, and stops at the first item over the batch size limit rather than
+     * buffering an oversized body.
+     */
+    private List<ProductMutation> readNdjson(InputStream body) throws IOException {
+        List<ProductMutation> mutations = new ArrayList<>();
+        try (MappingIterator<ProductMutation> items = objectMapper.readerFor(ProductMutation.class).readValues(body)) {
+            while (items.hasNextValue()) {
+                if (mutations.size() == IProductService.MAX_BATCH_SIZE) {
+                    throw new InvalidParameterException("batch", "more than " + IProductService.MAX_BATCH_SIZE,
+                            "Batch cannot contain more than " + IProductService.MAX_BATCH_SIZE
+                                    + " items. Please split it");
+                }
+                mutations.add(items.nextValue());
+            }
+        } catch (JsonProcessingException e) {
+            Object line = e.getLocation() == null ? "unknown" : e.getLocation().getLineNr();
+            throw new InvalidParameterException("batch", "line " + line, "Malformed NDJSON: " + e.getOriginalMessage());
+        }
+        return mutations;
+    }
+}
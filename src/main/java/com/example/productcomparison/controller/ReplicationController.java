@@ -0,0 +1,78 @@
+package com.example.productcomparison.controller;
+
+import com.example.productcomparison.config.ConditionalOnLocalCatalog;
+import com.example.productcomparison.exception.ErrorResponse;
+import com.example.productcomparison.exception.service.InvalidParameterException;
+import com.example.productcomparison.model.ChangeFeed;
+import com.example.productcomparison.model.ReplicationSnapshot;
+import com.example.productcomparison.repository.CatalogChangeLog;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * REST controller a replication leader serves its change stream from.
+ * Only registered with {@code product.replication.role=leader}.
+ */
+@RestController
+@RequestMapping("/api/replication")
+@ConditionalOnProperty(name = "product.replication.role", havingValue = "leader")
+@ConditionalOnLocalCatalog
+@RequiredArgsConstructor
+@Tag(name = "C. Replication", description = "Change stream followed by read replicas")
+public class ReplicationController {
+
+    static final int MAX_CHANGES = 10_000;
+
+    private final CatalogChangeLog changeLog;
+
+    @Operation(
+            summary = "Read the change stream",
+            description = "Returns the catalog changes after the given sequence number, oldest first. "
+                    + "resyncRequired is set when they are no longer kept and the catalog has to be copied again."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved the changes",
+                    content = @Content(schema = @Schema(implementation = ChangeFeed.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid sequence number or limit",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    @GetMapping("/changes")
+    public ResponseEntity<ChangeFeed> getChanges(
+            @Parameter(description = "Sequence number of the last applied change, 0 for none", example = "0")
+            @RequestParam(defaultValue = "0") long after,
+            @Parameter(description = "Maximum number of changes to return (1-10000)", example = "1000")
+            @RequestParam(defaultValue = "1000") int limit) {
+        if (after < 0) {
+            throw new InvalidParameterException("after", after, "must not be negative");
+        }
+        if (limit <= 0 || limit > MAX_CHANGES) {
+            throw new InvalidParameterException("limit", limit, "must be between 1 and " + MAX_CHANGES);
+        }
+        return ResponseEntity.ok(changeLog.changesAfter(after, limit));
+    }
+
+    @Operation(
+            summary = "Copy the catalog",
+            description = "Returns every product together with the sequence number to resume the change stream after"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully copied the catalog",
+                    content = @Content(schema = @Schema(implementation = ReplicationSnapshot.class)))
+    })
+    @GetMapping("/snapshot")
+    public ResponseEntity<ReplicationSnapshot> getSnapshot() {
+        return ResponseEntity.ok(changeLog.snapshot());
+    }
+}
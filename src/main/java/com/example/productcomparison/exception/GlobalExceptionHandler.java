@@ -134,6 +134,26 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
     }
 
+    /**
+     * Handle ReadOnlyCatalogException - Returns 405 Method Not Allowed
+     */
+    @ExceptionHandler(ReadOnlyCatalogException.class)
+    public ResponseEntity<ErrorResponse> handleReadOnlyCatalogException(
+            ReadOnlyCatalogException ex, HttpServletRequest request) {
+        
+        log.warn("Write rejected: {}", ex.getMessage());
+        
+        ErrorResponse errorResponse = ErrorResponse.builderWithTimestamp()
+                .status(HttpStatus.METHOD_NOT_ALLOWED.value())
+                .error(HttpStatus.METHOD_NOT_ALLOWED.getReasonPhrase())
+                .message(ex.getMessage())
+                .path(request.getRequestURI())
+                .errorCode("CATALOG_READ_ONLY")
+                .build();
+        
+        return ResponseEntity.status(HttpStatus.METHOD_NOT_ALLOWED).body(errorResponse);
+    }
+
     /**
      * Handle ProductValidationException - Returns 400 Bad Request
      */
@@ -194,6 +214,26 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(errorResponse);
     }
 
+    /**
+     * Handle CategoryNotOwnedException - Returns 409 Conflict
+     */
+    @ExceptionHandler(CategoryNotOwnedException.class)
+    public ResponseEntity<ErrorResponse> handleCategoryNotOwnedException(
+            CategoryNotOwnedException ex, HttpServletRequest request) {
+        
+        log.warn("Write rejected: {}", ex.getMessage());
+        
+        ErrorResponse errorResponse = ErrorResponse.builderWithTimestamp()
+                .status(HttpStatus.CONFLICT.value())
+                .error(HttpStatus.CONFLICT.getReasonPhrase())
+                .message(ex.getMessage())
+                .path(request.getRequestURI())
+                .errorCode("CATEGORY_NOT_OWNED")
+                .build();
+        
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(errorResponse);
+    }
+
     /**
      * Handle InvalidParameterException - Returns 400 Bad Request
      */
@@ -275,6 +315,70 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(errorResponse);
     }
 
+    /**
+     * Handle PartitionUnavailableException - Returns 503 Service Unavailable
+     */
+    @ExceptionHandler(PartitionUnavailableException.class)
+    public ResponseEntity<ErrorResponse> handlePartitionUnavailableException(
+            PartitionUnavailableException ex, HttpServletRequest request) {
+        
+        log.error("Catalog partition unavailable: {}", ex.getMessage(), ex);
+        
+        ErrorResponse errorResponse = ErrorResponse.builderWithTimestamp()
+                .status(HttpStatus.SERVICE_UNAVAILABLE.value())
+                .error(HttpStatus.SERVICE_UNAVAILABLE.getReasonPhrase())
+                .message(ex.getMessage())
+                .path(request.getRequestURI())
+                .errorCode("CATALOG_PARTITION_UNAVAILABLE")
+                .build();
+        
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(errorResponse);
+    }
+
+    /**
+     * Handle PartitionMoveException - Returns 500 Internal Server Error
+     */
+    @ExceptionHandler(PartitionMoveException.class)
+    public ResponseEntity<ErrorResponse> handlePartitionMoveException(
+            PartitionMoveException ex, HttpServletRequest request) {
+        
+        log.error("Product left on several catalog nodes: {}", ex.getMessage(), ex);
+        
+        ErrorResponse errorResponse = ErrorResponse.builderWithTimestamp()
+                .status(HttpStatus.INTERNAL_SERVER_ERROR.value())
+                .error(HttpStatus.INTERNAL_SERVER_ERROR.getReasonPhrase())
+                .message(ex.getMessage())
+                .path(request.getRequestURI())
+                .errorCode("PRODUCT_ON_SEVERAL_NODES")
+                .build();
+        
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
+    }
+
+    /**
+     * Handle PartitionRequestException - Returns the status of the catalog node that rejected the request
+     */
+    @ExceptionHandler(PartitionRequestException.class)
+    public ResponseEntity<ErrorResponse> handlePartitionRequestException(
+            PartitionRequestException ex, HttpServletRequest request) {
+        
+        log.warn("Catalog node {} rejected the request: {}", ex.getNode(), ex.getMessage());
+        
+        HttpStatus status = HttpStatus.resolve(ex.getStatus());
+        if (status == null) {
+            status = HttpStatus.BAD_GATEWAY;
+        }
+        ErrorResponse errorResponse = ErrorResponse.builderWithTimestamp()
+                .status(status.value())
+                .error(status.getReasonPhrase())
+                .message(ex.getMessage())
+                .path(request.getRequestURI())
+                .errorCode(ex.getErrorCode() != null ? ex.getErrorCode() : "CATALOG_PARTITION_ERROR")
+                .build();
+        
+        return ResponseEntity.status(status).body(errorResponse);
+    }
+
     /**
      * Handle ProductDataAccessException - Returns 500 Internal Server Error
      */
@@ -0,0 +1,29 @@
+package com.example.productcomparison.exception.repository;
+
+import com.example.productcomparison.repository.MappedProductRepository;
+import lombok.Getter;
+
+/**
+ * Exception thrown when a write is attempted against a read-only catalog.
+ *
+ * <p>Used by repository implementations that serve a prebuilt catalog and cannot change it, and by
+ * replication followers, whose catalog only the leader changes. Handled globally and returns HTTP 405.</p>
+ *
+ * @see MappedProductRepository
+ */
+@Getter
+public class ReadOnlyCatalogException extends RuntimeException {
+
+    private final String productId;
+
+    public ReadOnlyCatalogException(String operation, String productId) {
+        super(String.format("Cannot %s product '%s': the catalog is read-only", operation, productId));
+        this.productId = productId;
+    }
+
+    public ReadOnlyCatalogException(String message) {
+        super(message);
+        this.productId = null;
+    }
+
+}
@@ -0,0 +1,29 @@
+package com.example.productcomparison.exception.service;
+
+import com.example.productcomparison.exception.GlobalExceptionHandler;
+import com.example.productcomparison.repository.CatalogPartition;
+import lombok.Getter;
+
+/**
+ * Exception thrown when a catalog node is asked to hold a product of a category another node owns.
+ *
+ * <p>Used in the service layer of a catalog node, which only creates and updates products of its own
+ * categories; the router sends those writes to the owning node. Handled in the controller layer and
+ * returned as HTTP 409 Conflict.</p>
+ *
+ * @see CatalogPartition
+ * @see GlobalExceptionHandler
+ */
+@Getter
+public class CategoryNotOwnedException extends RuntimeException {
+
+    private final String category;
+    private final int owner;
+
+    public CategoryNotOwnedException(String category, int owner, int node) {
+        super(String.format("Category '%s' belongs to catalog node %d, not to this node (%d)", category, owner, node));
+        this.category = category;
+        this.owner = owner;
+    }
+
+}
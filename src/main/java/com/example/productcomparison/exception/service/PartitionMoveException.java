@@ -0,0 +1,33 @@
+package com.example.productcomparison.exception.service;
+
+import com.example.productcomparison.exception.GlobalExceptionHandler;
+import com.example.productcomparison.service.RoutingProductService;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Exception thrown when moving a product between catalog nodes may have left it on both of them.
+ *
+ * <p>Used by the routing layer when an update that changed the category of a product created it on the
+ * new node, but the old copy could not be removed and the new one could not be removed either, or the old
+ * node did not answer. Handled in the controller layer and returned as HTTP 500 Internal Server Error, so
+ * that the product can be deleted from one of the nodes.</p>
+ *
+ * @see RoutingProductService
+ * @see GlobalExceptionHandler
+ */
+@Getter
+public class PartitionMoveException extends RuntimeException {
+
+    private final String productId;
+    private final List<String> nodes;
+
+    public PartitionMoveException(String productId, List<String> nodes, Throwable cause) {
+        super(String.format("Product '%s' may now be on both catalog nodes %s: moving it failed and was not undone",
+                productId, nodes), cause);
+        this.productId = productId;
+        this.nodes = List.copyOf(nodes);
+    }
+
+}
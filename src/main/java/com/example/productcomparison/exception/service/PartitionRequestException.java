@@ -0,0 +1,33 @@
+package com.example.productcomparison.exception.service;
+
+import com.example.productcomparison.exception.ErrorResponse;
+import com.example.productcomparison.exception.GlobalExceptionHandler;
+import com.example.productcomparison.service.RoutingProductService;
+import lombok.Getter;
+
+/**
+ * Exception thrown when a catalog node rejects a request routed to it, such as an invalid product.
+ *
+ * <p>Used by the routing layer to pass on the error of the node that owns the data. Handled in the
+ * controller layer and returned with the status and error code the node answered with.</p>
+ *
+ * @see RoutingProductService
+ * @see GlobalExceptionHandler
+ */
+@Getter
+public class PartitionRequestException extends RuntimeException {
+
+    private final String node;
+    private final int status;
+    private final String errorCode;
+
+    public PartitionRequestException(String node, int status, ErrorResponse error) {
+        super(error != null && error.getMessage() != null
+                ? error.getMessage()
+                : String.format("Catalog node %s answered %d", node, status));
+        this.node = node;
+        this.status = status;
+        this.errorCode = error == null ? null : error.getErrorCode();
+    }
+
+}
@@ -0,0 +1,28 @@
+package com.example.productcomparison.exception.service;
+
+import com.example.productcomparison.exception.GlobalExceptionHandler;
+import com.example.productcomparison.service.RoutingProductService;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Exception thrown when the catalog nodes a query needs did not answer in time.
+ *
+ * <p>Used by the routing layer when a node cannot be reached, times out or fails, and the query cannot be
+ * answered without it. Handled in the controller layer and returned as HTTP 503 Service Unavailable.</p>
+ *
+ * @see RoutingProductService
+ * @see GlobalExceptionHandler
+ */
+@Getter
+public class PartitionUnavailableException extends RuntimeException {
+
+    private final List<String> nodes;
+
+    public PartitionUnavailableException(List<String> nodes, Throwable cause) {
+        super(String.format("Catalog nodes unavailable: %s", nodes), cause);
+        this.nodes = List.copyOf(nodes);
+    }
+
+}
@@ -0,0 +1,34 @@
+package com.example.productcomparison.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Response of the batch endpoint: a summary and the outcome of every item, in request order.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Outcome of a batch of product mutations")
+public class BatchResponse {
+
+    @Schema(description = "Number of items applied", example = "998")
+    private int applied;
+
+    @Schema(description = "Number of items that failed", example = "2")
+    private int failed;
+
+    @Schema(description = "Outcome of every item, in request order")
+    private List<MutationResult> results;
+
+    public static BatchResponse of(List<MutationResult> results) {
+        int applied = (int) results.stream().filter(MutationResult::isApplied).count();
+        return new BatchResponse(applied, results.size() - applied, results);
+    }
+}
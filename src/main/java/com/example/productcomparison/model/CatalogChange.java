@@ -0,0 +1,37 @@
+package com.example.productcomparison.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One entry of the change stream a replication leader serves to its followers.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Schema(description = "A single change of the leader's catalog")
+public class CatalogChange {
+
+    @Schema(description = "Position of the change in the leader's stream, starting at 1", example = "42")
+    private long sequence;
+
+    @Schema(description = "PUT carries the new state of a created or updated product, DELETE only its ID",
+            example = "PUT")
+    private Operation op;
+
+    @Schema(description = "ID of the changed product", example = "laptop-001")
+    private String id;
+
+    @Schema(description = "New state of the product, for PUT")
+    private Product product;
+
+    public enum Operation {
+        PUT, DELETE
+    }
+}
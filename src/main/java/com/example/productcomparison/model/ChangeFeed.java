@@ -0,0 +1,34 @@
+package com.example.productcomparison.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * A page of the leader's change stream.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Changes of the leader's catalog after a given sequence number")
+public class ChangeFeed {
+
+    @Schema(description = "Identifies the leader's change stream; it changes when the leader restarts",
+            example = "3kq9v1x0c7d2")
+    private String epoch;
+
+    @Schema(description = "Sequence number of the leader's latest change", example = "42")
+    private long lastSequence;
+
+    @Schema(description = "Whether the requested changes are no longer available, so the follower has to "
+            + "copy the whole catalog again", example = "false")
+    private boolean resyncRequired;
+
+    @Schema(description = "Changes in stream order")
+    private List<CatalogChange> changes;
+}
@@ -0,0 +1,93 @@
+package com.example.productcomparison.model;
+
+import com.example.productcomparison.exception.repository.ProductAlreadyExistsException;
+import com.example.productcomparison.exception.repository.ProductValidationException;
+import com.example.productcomparison.exception.repository.ReadOnlyCatalogException;
+import com.example.productcomparison.exception.service.CategoryNotOwnedException;
+import com.example.productcomparison.exception.service.ProductNotFoundException;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of one {@link ProductMutation} of a batch.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Schema(description = "Outcome of a single item of a batch")
+public class MutationResult {
+
+    @Schema(description = "Position of the item in the batch, starting at 0", example = "0")
+    private int index;
+
+    @Schema(description = "Operation of the item", example = "UPDATE")
+    private ProductMutation.Operation op;
+
+    @Schema(description = "ID of the product the item applied to", example = "laptop-001")
+    private String id;
+
+    @Schema(description = "Whether the item was applied", example = "true")
+    private boolean applied;
+
+    @Schema(description = "Error code of a failed item, as for the single-product endpoints",
+            example = "PRODUCT_NOT_FOUND")
+    private String errorCode;
+
+    @Schema(description = "Error message of a failed item", example = "Product not found: laptop-001")
+    private String message;
+
+    public static MutationResult applied(int index, ProductMutation mutation) {
+        return MutationResult.builder()
+                .index(index)
+                .op(mutation.getOp())
+                .id(mutation.targetId())
+                .applied(true)
+                .build();
+    }
+
+    public static MutationResult failed(int index, ProductMutation mutation, String errorCode, String message) {
+        return MutationResult.builder()
+                .index(index)
+                .op(mutation.getOp())
+                .id(mutation.targetId())
+                .applied(false)
+                .errorCode(errorCode)
+                .message(message)
+                .build();
+    }
+
+    /**
+     * Failure of an item, with the error code the single-product endpoints return for the same exception.
+     */
+    public static MutationResult failed(int index, ProductMutation mutation, RuntimeException cause) {
+        return failed(index, mutation, errorCodeOf(mutation, cause), cause.getMessage());
+    }
+
+    private static String errorCodeOf(ProductMutation mutation, RuntimeException cause) {
+        if (cause instanceof ProductAlreadyExistsException) {
+            return "PRODUCT_ALREADY_EXISTS";
+        }
+        if (cause instanceof ProductNotFoundException) {
+            return "PRODUCT_NOT_FOUND";
+        }
+        if (cause instanceof ProductValidationException || cause instanceof IllegalArgumentException) {
+            return "PRODUCT_VALIDATION_ERROR";
+        }
+        if (cause instanceof ReadOnlyCatalogException) {
+            return "CATALOG_READ_ONLY";
+        }
+        if (cause instanceof CategoryNotOwnedException) {
+            return "CATEGORY_NOT_OWNED";
+        }
+        if (mutation.getOp() == ProductMutation.Operation.DELETE) {
+            return "PRODUCT_DELETE_ERROR";
+        }
+        return mutation.getOp() == ProductMutation.Operation.UPDATE ? "PRODUCT_UPDATE_ERROR" : "PRODUCT_SAVE_ERROR";
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.productcomparison.model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Locale;
+
+/**
+ * One create, update or delete of a batch request.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "A single create, update or delete within a batch")
+public class ProductMutation {
+
+    @Schema(description = "Operation to apply (create, update or delete)",
+            example = "update",
+            requiredMode = Schema.RequiredMode.REQUIRED)
+    private Operation op;
+
+    @Schema(description = "ID of the product to update or delete; creates take the ID from the product",
+            example = "laptop-001")
+    private String id;
+
+    @Schema(description = "Product data for creates and updates")
+    private Product product;
+
+    public enum Operation {
+        CREATE, UPDATE, DELETE;
+
+        @JsonCreator
+        public static Operation of(String value) {
+            return value == null ? null : valueOf(value.toUpperCase(Locale.ROOT));
+        }
+    }
+
+    /**
+     * @return the ID of the product this mutation applies to
+     */
+    public String targetId() {
+        if (op == Operation.CREATE) {
+            return product == null ? null : product.getId();
+        }
+        return id;
+    }
+
+    /**
+     * Checks that the mutation carries what its operation needs.
+     *
+     * @throws IllegalArgumentException if the operation, the product of a create or update,
+     *                                  or the ID of an update or delete is missing
+     */
+    public void validate() {
+        if (op == null) {
+            throw new IllegalArgumentException("Operation is required");
+        }
+        if (op != Operation.DELETE && product == null) {
+            throw new IllegalArgumentException("Product is required for " + op);
+        }
+        if (op != Operation.CREATE && (id == null || id.isBlank())) {
+            throw new IllegalArgumentException("Product ID is required for " + op);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.productcomparison.model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Conjunction of product predicates, with an optional order and limit, answered by the query endpoint.
+ * Predicates left {@code null} are not applied.
+ */
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Products matching every given predicate, optionally sorted and limited")
+public class ProductQuery {
+
+    @Schema(description = "Minimum price, inclusive", example = "500")
+    private Double minPrice;
+
+    @Schema(description = "Maximum price, inclusive", example = "1500")
+    private Double maxPrice;
+
+    @Schema(description = "Minimum rating, inclusive", example = "4.0")
+    private Double minRating;
+
+    @Schema(description = "Category, ignoring case", example = "Laptops")
+    private String category;
+
+    @Schema(description = "Specification values by key; keys match exactly and values ignoring case")
+    @Builder.Default
+    private Map<String, String> specifications = new LinkedHashMap<>();
+
+    @Schema(description = "Text the product name contains, ignoring case", example = "pro")
+    private String name;
+
+    @Schema(description = "Field to sort by (price or rating); unsorted if absent", example = "price")
+    private Sort sort;
+
+    @Schema(description = "Whether to sort in ascending order", example = "true")
+    private boolean ascending;
+
+    @Schema(description = "Maximum number of products to return", example = "20")
+    private Integer limit;
+
+    public enum Sort {
+        PRICE, RATING;
+
+        @JsonCreator
+        public static Sort of(String value) {
+            return value == null ? null : valueOf(value.toUpperCase(Locale.ROOT));
+        }
+    }
+}
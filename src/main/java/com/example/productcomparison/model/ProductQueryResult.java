@@ -0,0 +1,31 @@
+package com.example.productcomparison.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Products matching a {@link ProductQuery}, with the plan used to find them in explain mode.
+ */
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Schema(description = "Result of a product query")
+public class ProductQueryResult {
+
+    @Schema(description = "Number of products returned", example = "3")
+    private int count;
+
+    @Schema(description = "Matching products, in the requested order")
+    private List<Product> products;
+
+    @Schema(description = "Plan used to answer the query; only in explain mode")
+    private QueryPlan plan;
+}
@@ -0,0 +1,69 @@
+package com.example.productcomparison.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * How a {@link ProductQuery} was answered, as returned by the query endpoint in explain mode.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Schema(description = "Plan chosen for a product query and its estimated cost")
+public class QueryPlan {
+
+    @Schema(description = "How the candidate products were read", example = "CATEGORY")
+    private String accessPath;
+
+    @Schema(description = "Estimated number of candidate products read by the access path", example = "12")
+    private long estimatedRows;
+
+    @Schema(description = "Estimated cost of the plan, in products read, checked and sorted", example = "31.5")
+    private double estimatedCost;
+
+    @Schema(description = "Predicates checked against every candidate",
+            example = "[\"price between 500.0 and 1500.0\"]")
+    private List<String> filters;
+
+    @Schema(description = "How the results are ordered", example = "sort by price asc")
+    private String order;
+
+    @Schema(description = "Number of candidate products actually read", example = "12")
+    private Long examinedRows;
+
+    @Schema(description = "Catalog version the estimates were computed at", example = "42")
+    private Long statisticsVersion;
+
+    @Schema(description = "Access paths that were considered, cheapest first")
+    private List<Alternative> alternatives;
+
+    @Schema(description = "Plans of the catalog nodes the query was sent to, when the catalog is partitioned")
+    private List<QueryPlan> partitions;
+
+    /**
+     * An access path the planner considered, with its estimated cost.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Schema(description = "Access path considered by the planner")
+    public static class Alternative {
+
+        @Schema(description = "Access path", example = "PRICE_RANGE")
+        private String accessPath;
+
+        @Schema(description = "Estimated number of candidate products", example = "30")
+        private long estimatedRows;
+
+        @Schema(description = "Estimated cost of the plan using this access path", example = "95.0")
+        private double estimatedCost;
+    }
+}
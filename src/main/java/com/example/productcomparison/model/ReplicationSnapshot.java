@@ -0,0 +1,30 @@
+package com.example.productcomparison.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * The leader's whole catalog, for a follower that starts or has fallen too far behind the change stream.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Copy of the leader's catalog to resume the change stream from")
+public class ReplicationSnapshot {
+
+    @Schema(description = "Identifies the leader's change stream", example = "3kq9v1x0c7d2")
+    private String epoch;
+
+    @Schema(description = "Sequence number to resume the change stream after; "
+            + "the products may already include later changes", example = "42")
+    private long sequence;
+
+    @Schema(description = "Every product of the catalog")
+    private List<Product> products;
+}
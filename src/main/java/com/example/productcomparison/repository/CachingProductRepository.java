@@ -0,0 +1,288 @@
+package com.example.productcomparison.repository;
+
+import com.example.productcomparison.config.ConditionalOnLocalCatalog;
+import com.example.productcomparison.model.MutationResult;
+import com.example.productcomparison.model.Product;
+import com.example.productcomparison.model.ProductMutation;
+import com.example.productcomparison.repository.storage.WriteAheadLog;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Keeps the most requested products in memory in front of a slower repository.
+ * <p>
+ * This is a decorator for the repositories that keep the catalog out of the heap, such as
+ * {@link JdbcProductRepository}: the hot set of products is answered by {@link #findById(String)} and
+ * {@link #productVersion(String)} from memory, and only the long tail reaches the underlying store.
+ * Every other read goes straight to the underlying repository.
+ * </p>
+ *
+ * <h2>Eviction and admission:</h2>
+ * <p>
+ * The cache holds at most {@code product.repository.cache.maximum-size} products. It is a Caffeine cache,
+ * whose W-TinyLFU policy keeps a compact frequency sketch of recent lookups: a product that is read once,
+ * as in a scan over the long tail, only replaces a cached product if it has been requested more often, so
+ * one-off reads do not flush the hot set.
+ * </p>
+ *
+ * <h2>Consistency:</h2>
+ * <p>
+ * Writes go to the underlying repository first and then invalidate the products they touched. Invalidating
+ * a product waits for a lookup of the same product that is still loading, so a lookup that read the product
+ * before the write cannot put it back in the cache afterwards. Absent products are not cached.
+ * </p>
+ * <p>
+ * When the underlying repository is a {@link ProductRepository}, this bean also subscribes to its change
+ * listeners, which report the changes that bypass it: reloads of the source by {@link CatalogFileWatcher} and
+ * changes undone after the write-ahead log failed. Listeners run under the repository's write lock, where
+ * invalidating could wait for a lookup that waits for the lock, so they only queue the changed IDs; every read
+ * invalidates the queued IDs before it looks at the cache. Since the listeners run before the change becomes
+ * visible, a read that starts after it never gets the previous product.
+ * </p>
+ *
+ * <h2>Metrics:</h2>
+ * <p>
+ * Hits, misses, evictions, loads and the cache size are published as the Micrometer {@code cache.*} meters
+ * with the tag {@code cache=products}, and are available from {@link #stats()}.
+ * </p>
+ *
+ * <h2>Required configuration:</h2>
+ * <p>
+ * Enabled with {@code product.repository.cache.enabled=true}, on top of whichever repository
+ * {@code product.repository.type} selects.
+ * </p>
+ *
+ * @see IProductRepository
+ */
+@Repository
+@Primary
+@ConditionalOnProperty(name = "product.repository.cache.enabled", havingValue = "true")
+@ConditionalOnLocalCatalog
+@Slf4j
+public class CachingProductRepository implements IProductRepository {
+
+    private static final String CACHE_NAME = "products";
+
+    private final IProductRepository delegate;
+    private final LoadingCache<String, CachedProduct> cache;
+
+    /** IDs the underlying repository changed without going through this bean, not yet invalidated. */
+    private final Queue<String> changedElsewhere = new ConcurrentLinkedQueue<>();
+
+    /**
+     * @param delegate    the repository to cache; Spring injects the repository selected by
+     *                    {@code product.repository.type}, never this bean
+     * @param maximumSize maximum number of cached products
+     */
+    public CachingProductRepository(IProductRepository delegate, MeterRegistry meterRegistry,
+                                    @Value("${product.repository.cache.maximum-size:10000}") long maximumSize) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException(
+                    "product.repository.cache.maximum-size must be positive, was " + maximumSize);
+        }
+        this.delegate = delegate;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build(this::load);
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+        if (delegate instanceof ProductRepository repository) {
+            repository.addChangeListener(new WriteAheadLog.MutationHandler() {
+                @Override
+                public void put(Product product) {
+                    changedElsewhere.add(product.getId());
+                }
+
+                @Override
+                public void delete(String id) {
+                    changedElsewhere.add(id);
+                }
+            });
+        }
+        log.info("Caching up to {} products in front of {}", maximumSize, delegate.getClass().getSimpleName());
+    }
+
+    /**
+     * Reads the version before the product, so a cached product is never older than its cached version.
+     */
+    private CachedProduct load(String id) {
+        OptionalLong version = delegate.productVersion(id);
+        if (version.isEmpty()) {
+            return null;
+        }
+        return delegate.findById(id)
+                .map(product -> new CachedProduct(product, version.getAsLong()))
+                .orElse(null);
+    }
+
+    /**
+     * Invalidates the products changed behind this bean's back. Drains are serialized, so that an ID leaves the
+     * queue only once it has been invalidated, and a read that finds the queue empty has nothing stale to see.
+     */
+    private void invalidateChangedElsewhere() {
+        if (changedElsewhere.isEmpty()) {
+            return;
+        }
+        synchronized (changedElsewhere) {
+            String id;
+            while ((id = changedElsewhere.peek()) != null) {
+                cache.invalidate(id);
+                changedElsewhere.poll();
+            }
+        }
+    }
+
+    /**
+     * @return hit, miss, load and eviction counts since startup
+     */
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    /**
+     * @return the number of products currently cached
+     */
+    public long size() {
+        invalidateChangedElsewhere();
+        return cache.estimatedSize();
+    }
+
+    @Override
+    public Optional<Product> findById(String id) {
+        if (id == null || id.isBlank()) {
+            return Optional.empty();
+        }
+        invalidateChangedElsewhere();
+        return Optional.ofNullable(cache.get(id)).map(CachedProduct::product);
+    }
+
+    @Override
+    public OptionalLong productVersion(String id) {
+        if (id == null || id.isBlank()) {
+            return OptionalLong.empty();
+        }
+        invalidateChangedElsewhere();
+        CachedProduct cached = cache.get(id);
+        return cached == null ? OptionalLong.empty() : OptionalLong.of(cached.version());
+    }
+
+    @Override
+    public Product save(Product product) {
+        try {
+            return delegate.save(product);
+        } finally {
+            cache.invalidate(product.getId());
+        }
+    }
+
+    @Override
+    public Product update(String id, Product product) {
+        try {
+            return delegate.update(id, product);
+        } finally {
+            cache.invalidate(id);
+        }
+    }
+
+    @Override
+    public void deleteById(String id) {
+        try {
+            delegate.deleteById(id);
+        } finally {
+            cache.invalidate(id);
+        }
+    }
+
+    @Override
+    public List<MutationResult> applyBatch(List<ProductMutation> mutations) {
+        try {
+            return delegate.applyBatch(mutations);
+        } finally {
+            List<String> ids = new ArrayList<>(mutations.size());
+            for (ProductMutation mutation : mutations) {
+                if (mutation.targetId() != null) {
+                    ids.add(mutation.targetId());
+                }
+            }
+            cache.invalidateAll(ids);
+        }
+    }
+
+    @Override
+    public List<Product> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public CatalogSnapshot snapshot() {
+        return delegate.snapshot();
+    }
+
+    @Override
+    public long catalogVersion() {
+        return delegate.catalogVersion();
+    }
+
+    @Override
+    public List<Product> findByCategory(String category) {
+        return delegate.findByCategory(category);
+    }
+
+    @Override
+    public List<String> findAllCategories() {
+        return delegate.findAllCategories();
+    }
+
+    @Override
+    public List<Product> findByPriceRange(double minPrice, double maxPrice) {
+        return delegate.findByPriceRange(minPrice, maxPrice);
+    }
+
+    @Override
+    public List<Product> findAllOrderedByPrice(boolean ascending) {
+        return delegate.findAllOrderedByPrice(ascending);
+    }
+
+    @Override
+    public List<Product> findByMinRating(double minRating) {
+        return delegate.findByMinRating(minRating);
+    }
+
+    @Override
+    public List<Product> findAllOrderedByRating(boolean ascending) {
+        return delegate.findAllOrderedByRating(ascending);
+    }
+
+    @Override
+    public List<Product> findTopRated(int limit) {
+        return delegate.findTopRated(limit);
+    }
+
+    @Override
+    public List<Product> findBySpecification(String specKey, String specValue) {
+        return delegate.findBySpecification(specKey, specValue);
+    }
+
+    @Override
+    public List<Product> findByNameContaining(String query) {
+        return delegate.findByNameContaining(query);
+    }
+
+    private record CachedProduct(Product product, long version) {
+    }
+}
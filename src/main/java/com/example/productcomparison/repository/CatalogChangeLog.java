@@ -0,0 +1,130 @@
+package com.example.productcomparison.repository;
+
+import com.example.productcomparison.config.ConditionalOnLocalCatalog;
+import com.example.productcomparison.exception.repository.ProductDataAccessException;
+import com.example.productcomparison.model.CatalogChange;
+import com.example.productcomparison.model.ChangeFeed;
+import com.example.productcomparison.model.Product;
+import com.example.productcomparison.model.ReplicationSnapshot;
+import com.example.productcomparison.repository.storage.WriteAheadLog;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Ordered stream of the mutations of {@link ProductRepository}, served to followers by a replication leader.
+ * <p>
+ * Every save, update, delete, batch item and reloaded change is numbered from 1 without gaps as it is applied,
+ * and the latest {@code product.replication.change-log-capacity} changes are kept in memory in a ring.
+ * Each change carries the full new state of its product, so applying a change twice is harmless.
+ * </p>
+ * <p>
+ * Followers read the stream with {@link #changesAfter(long, int)}. A follower that asks for changes that have
+ * already left the ring, or that follows a previous run of the leader, is told to copy the catalog again with
+ * {@link #snapshot()}. The stream starts again from 1 when the leader restarts, under a new epoch.
+ * </p>
+ *
+ * <h2>Required configuration:</h2>
+ * <p>
+ * Enabled with {@code product.replication.role=leader}, with the default in-memory repository.
+ * </p>
+ *
+ * @see ProductRepository#addChangeListener(WriteAheadLog.MutationHandler)
+ */
+@Component
+@ConditionalOnProperty(name = "product.replication.role", havingValue = "leader")
+@ConditionalOnLocalCatalog
+@Slf4j
+public class CatalogChangeLog implements WriteAheadLog.MutationHandler {
+
+    private final ProductRepository productRepository;
+    private final CatalogChange[] ring;
+    private final String epoch = Long.toString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE, 36);
+
+    /** Guarded by {@code this}. */
+    private long lastSequence;
+
+    public CatalogChangeLog(ProductRepository productRepository,
+                            @Value("${product.replication.change-log-capacity:100000}") int capacity) {
+        if (capacity <= 0) {
+            throw new ProductDataAccessException(
+                    "product.replication.change-log-capacity must be positive, was " + capacity);
+        }
+        this.productRepository = productRepository;
+        this.ring = new CatalogChange[capacity];
+    }
+
+    @PostConstruct
+    public void start() {
+        productRepository.addChangeListener(this);
+        log.info("Serving the catalog change stream as leader, epoch {}, keeping {} changes", epoch, ring.length);
+    }
+
+    @Override
+    public void put(Product product) {
+        append(CatalogChange.Operation.PUT, product.getId(), product);
+    }
+
+    @Override
+    public void delete(String id) {
+        append(CatalogChange.Operation.DELETE, id, null);
+    }
+
+    private synchronized void append(CatalogChange.Operation op, String id, Product product) {
+        long sequence = lastSequence + 1;
+        ring[slot(sequence)] = new CatalogChange(sequence, op, id, product);
+        lastSequence = sequence;
+    }
+
+    /**
+     * Returns the changes that follow {@code after}, oldest first.
+     *
+     * @param after sequence number of the last change the follower has applied, 0 for none
+     * @param limit maximum number of changes to return
+     * @return the changes, or a feed asking the follower to resync if they are no longer available
+     */
+    public synchronized ChangeFeed changesAfter(long after, int limit) {
+        long oldestKept = Math.max(1, lastSequence - ring.length + 1);
+        if (after < oldestKept - 1 || after > lastSequence) {
+            return new ChangeFeed(epoch, lastSequence, true, List.of());
+        }
+        long to = Math.min(lastSequence, after + Math.max(limit, 0));
+        List<CatalogChange> changes = new ArrayList<>((int) (to - after));
+        for (long sequence = after + 1; sequence <= to; sequence++) {
+            changes.add(ring[slot(sequence)]);
+        }
+        return new ChangeFeed(epoch, lastSequence, false, changes);
+    }
+
+    /**
+     * Copies the catalog for a follower to resume the stream from.
+     * <p>
+     * The sequence number and the catalog are read while no write is in progress, so the copy includes every
+     * change up to that sequence number and none after it.
+     * </p>
+     *
+     * @return the catalog and the sequence number to resume after
+     */
+    public ReplicationSnapshot snapshot() {
+        return productRepository.readConsistently(() ->
+                new ReplicationSnapshot(epoch, lastSequence(), productRepository.snapshot().getProducts()));
+    }
+
+    public synchronized long lastSequence() {
+        return lastSequence;
+    }
+
+    public String epoch() {
+        return epoch;
+    }
+
+    private int slot(long sequence) {
+        return (int) (sequence % ring.length);
+    }
+}
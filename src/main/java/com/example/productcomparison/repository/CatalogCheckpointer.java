@@ -0,0 +1,155 @@
+package com.example.productcomparison.repository;
+
+import com.example.productcomparison.config.ConditionalOnLocalCatalog;
+import com.example.productcomparison.repository.storage.WriteAheadLog;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checkpoints {@link ProductRepository} in the background so that the write-ahead log stays short.
+ * <p>
+ * A checkpoint is taken when the current log file has grown past {@code product.wal.checkpoint.log-size-mb},
+ * or when {@code product.wal.checkpoint.interval-seconds} have passed since the last one and something was
+ * logged since. Either way the log that has to be replayed on startup never grows much beyond the size
+ * threshold, however long the instance has been running.
+ * </p>
+ *
+ * <h2>Metrics:</h2>
+ * <ul>
+ *   <li>{@code catalog.checkpoint.duration} - time taken by each checkpoint</li>
+ *   <li>{@code catalog.checkpoint.size} - bytes written by each checkpoint</li>
+ *   <li>{@code catalog.checkpoint.failures} - checkpoints that failed</li>
+ *   <li>{@code catalog.wal.size} - bytes in the current write-ahead log file</li>
+ * </ul>
+ *
+ * <h2>Required configuration:</h2>
+ * <p>
+ * Runs when both {@code product.wal.directory} and {@code product.data.snapshot-file} are set, with the
+ * default in-memory repository.
+ * </p>
+ *
+ * @see ProductRepository#checkpoint()
+ * @see WriteAheadLog
+ */
+@Component
+@ConditionalOnProperty(name = "product.repository.type", havingValue = "memory", matchIfMissing = true)
+@ConditionalOnLocalCatalog
+@Slf4j
+public class CatalogCheckpointer {
+
+    private static final long BYTES_PER_MB = 1024L * 1024L;
+    private static final long POLL_INTERVAL_MS = 1000;
+
+    private final ProductRepository productRepository;
+    private final WriteAheadLog writeAheadLog;
+    private final Timer duration;
+    private final DistributionSummary size;
+    private final Counter failures;
+
+    @Value("${product.wal.checkpoint.interval-seconds:300}")
+    private long intervalSeconds = 300;
+
+    @Value("${product.wal.checkpoint.log-size-mb:64}")
+    private long logSizeMb = 64;
+
+    private ScheduledExecutorService scheduler;
+    private long lastCheckpointNanos = System.nanoTime();
+    private long lastCheckpointSequence = -1;
+
+    public CatalogCheckpointer(ProductRepository productRepository, WriteAheadLog writeAheadLog,
+                               MeterRegistry meterRegistry) {
+        this.productRepository = productRepository;
+        this.writeAheadLog = writeAheadLog;
+        this.duration = Timer.builder("catalog.checkpoint.duration")
+                .description("Time taken to write a catalog checkpoint")
+                .register(meterRegistry);
+        this.size = DistributionSummary.builder("catalog.checkpoint.size")
+                .description("Size of the catalog snapshot written by a checkpoint")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        this.failures = Counter.builder("catalog.checkpoint.failures")
+                .description("Catalog checkpoints that failed")
+                .register(meterRegistry);
+        Gauge.builder("catalog.wal.size", writeAheadLog, WriteAheadLog::activeFileBytes)
+                .description("Bytes in the current write-ahead log file")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!writeAheadLog.isEnabled() || !productRepository.isCheckpointEnabled()) {
+            if (writeAheadLog.isEnabled()) {
+                log.warn("product.data.snapshot-file is not set: the write-ahead log will not be checkpointed "
+                        + "and will grow until the next restart");
+            }
+            return;
+        }
+        lastCheckpointSequence = writeAheadLog.lastSequence();
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "catalog-checkpointer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::checkpointIfDue, POLL_INTERVAL_MS, POLL_INTERVAL_MS,
+                TimeUnit.MILLISECONDS);
+        log.info("Checkpointing the catalog every {} s or {} MB of write-ahead log", intervalSeconds, logSizeMb);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.shutdown();
+        try {
+            if (!scheduler.awaitTermination(30, TimeUnit.SECONDS)) {
+                log.warn("Catalog checkpoint still running at shutdown");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Checkpoints the repository if the log has reached the size threshold, or if the interval has passed and
+     * something was logged since the last checkpoint. Failures are logged and counted, never thrown, so that the
+     * next run tries again.
+     *
+     * @return whether a checkpoint was written
+     */
+    public boolean checkpointIfDue() {
+        long sequence = writeAheadLog.lastSequence();
+        boolean logFull = writeAheadLog.activeFileBytes() >= logSizeMb * BYTES_PER_MB;
+        boolean intervalPassed = System.nanoTime() - lastCheckpointNanos >= TimeUnit.SECONDS.toNanos(intervalSeconds);
+        if (sequence == lastCheckpointSequence || !(logFull || intervalPassed)) {
+            return false;
+        }
+        long started = System.nanoTime();
+        try {
+            ProductRepository.Checkpoint checkpoint = productRepository.checkpoint();
+            duration.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            size.record(checkpoint.bytes());
+            lastCheckpointSequence = sequence;
+            lastCheckpointNanos = System.nanoTime();
+            return true;
+        } catch (RuntimeException e) {
+            failures.increment();
+            log.error("Catalog checkpoint failed; the write-ahead log keeps every entry until the next one", e);
+            return false;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.productcomparison.repository;
+
+import com.example.productcomparison.config.ConditionalOnLocalCatalog;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reloads {@link ProductRepository} when {@code product.data.json-file} changes on disk.
+ * <p>
+ * The file is polled for its modification time and size rather than watched with a {@code WatchService}, which
+ * misses changes on some network and container file systems and reports atomic renames inconsistently. A change
+ * is applied once the file has looked the same on two consecutive polls, so a feed that is still being written is
+ * not read half way. A reload that fails, for example on a malformed file, is retried on the next change.
+ * </p>
+ *
+ * <h2>Required configuration:</h2>
+ * <p>
+ * Enabled with {@code product.data.reload.enabled=true}; the poll interval is set with
+ * {@code product.data.reload.poll-interval-ms}. The source must be a file on disk, such as
+ * {@code file:/data/products.json}; resources packaged inside the application cannot change and are not watched.
+ * </p>
+ *
+ * @see ProductRepository#reload()
+ */
+@Component
+@ConditionalOnProperty(name = "product.repository.type", havingValue = "memory", matchIfMissing = true)
+@ConditionalOnLocalCatalog
+@RequiredArgsConstructor
+@Slf4j
+public class CatalogFileWatcher {
+
+    private final ProductRepository productRepository;
+    private final ResourceLoader resourceLoader;
+
+    @Value("${product.data.json-file}")
+    private String jsonFilePath;
+
+    @Value("${product.data.reload.enabled:false}")
+    private boolean enabled;
+
+    @Value("${product.data.reload.poll-interval-ms:5000}")
+    private long pollIntervalMs = 5000;
+
+    private ScheduledExecutorService scheduler;
+    private Path file;
+    private Fingerprint applied;
+    private Fingerprint candidate;
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        file = resolveFile();
+        if (file == null) {
+            log.warn("Not watching {}: it is not a file on disk", jsonFilePath);
+            return;
+        }
+        applied = fingerprint();
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "catalog-file-watcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::checkForChanges, pollIntervalMs, pollIntervalMs, TimeUnit.MILLISECONDS);
+        log.info("Watching {} for changes every {} ms", file, pollIntervalMs);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * Reloads the repository if the file changed and has stayed the same since the previous poll.
+     * Failures are logged, never thrown, so that polling carries on.
+     *
+     * @return whether the repository was reloaded
+     */
+    public boolean checkForChanges() {
+        Fingerprint current = fingerprint();
+        if (current == null || current.equals(applied)) {
+            candidate = null;
+            return false;
+        }
+        if (!current.equals(candidate)) {
+            // Changed since the last poll; wait for it to settle.
+            candidate = current;
+            return false;
+        }
+        try {
+            productRepository.reload();
+            applied = current;
+            return true;
+        } catch (RuntimeException e) {
+            log.warn("Failed to reload {}; keeping the current catalog until the file changes again", file, e);
+            applied = current;
+            return false;
+        } finally {
+            candidate = null;
+        }
+    }
+
+    private Path resolveFile() {
+        try {
+            Resource resource = resourceLoader.getResource(jsonFilePath);
+            return resource.isFile() ? resource.getFile().toPath() : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private Fingerprint fingerprint() {
+        try {
+            return new Fingerprint(Files.getLastModifiedTime(file), Files.size(file));
+        } catch (IOException e) {
+            // Missing while the feed replaces it; look again on the next poll.
+            return null;
+        }
+    }
+
+    private record Fingerprint(FileTime modified, long size) {
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.productcomparison.repository;
+
+import com.example.productcomparison.config.CatalogRoutingConfig;
+import com.example.productcomparison.exception.service.CategoryNotOwnedException;
+import com.example.productcomparison.model.Product;
+import com.example.productcomparison.repository.index.CategoryIndex;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Tells which catalog node owns a category, for a catalog partitioned by category across several instances.
+ * <p>
+ * A category belongs to the node it is assigned to in {@code product.routing.categories}, by position in
+ * {@code product.routing.nodes}, or otherwise to the node its lower-cased name hashes to. Products without a
+ * category belong to the first node. The router sends every request to the owning node with it, and every
+ * node uses it to hold only its own categories.
+ * </p>
+ *
+ * <h2>Catalog nodes:</h2>
+ * <p>
+ * An instance with {@code product.routing.node-index} set is the node at that position: it only loads the
+ * products of the categories it owns, and refuses to create products in, or move products to, the others.
+ * Every other instance owns every category.
+ * </p>
+ *
+ * @see CatalogRoutingConfig
+ */
+@Component
+public class CatalogPartition {
+
+    private final List<String> nodes;
+    private final Map<String, Integer> assignedCategories = new HashMap<>();
+    private final Integer nodeIndex;
+
+    public CatalogPartition(CatalogRoutingConfig config) {
+        this.nodes = config.getNodes().stream().filter(url -> url != null && !url.isBlank()).toList();
+        this.nodeIndex = config.getNodeIndex();
+        if (nodeIndex != null && (nodeIndex < 0 || nodeIndex >= nodes.size())) {
+            throw new IllegalStateException(String.format(
+                    "product.routing.node-index must be a position in product.routing.nodes from 0 to %d, was %d",
+                    nodes.size() - 1, nodeIndex));
+        }
+        if (nodeIndex != null && config.isEnabled()) {
+            throw new IllegalStateException("product.routing.node-index cannot be set on the router");
+        }
+        if (nodes.isEmpty()) {
+            return;
+        }
+        config.getCategories().forEach((category, node) -> {
+            if (node == null || node < 0 || node >= nodes.size()) {
+                throw new IllegalStateException(String.format(
+                        "product.routing.categories.%s must be a node position from 0 to %d, was %s",
+                        category, nodes.size() - 1, node));
+            }
+            assignedCategories.put(category.toLowerCase(Locale.ROOT), node);
+        });
+    }
+
+    /**
+     * @return the base URLs of the catalog nodes, in position order
+     */
+    public List<String> nodes() {
+        return nodes;
+    }
+
+    /**
+     * @return whether this instance is a catalog node holding only the categories it owns
+     */
+    public boolean isNode() {
+        return nodeIndex != null;
+    }
+
+    /**
+     * @return the position of the node that owns the category
+     */
+    public int ownerOf(String category) {
+        if (category == null || category.isBlank()) {
+            return 0;
+        }
+        String key = category.toLowerCase(Locale.ROOT);
+        Integer assigned = assignedCategories.get(key);
+        return assigned != null ? assigned : Math.floorMod(key.hashCode(), nodes.size());
+    }
+
+    /**
+     * @return the position of the node that owns the category of the product
+     */
+    public int ownerOf(Product product) {
+        return ownerOf(categoryOf(product));
+    }
+
+    /**
+     * @return whether this instance holds the products of the category of the product
+     */
+    public boolean owns(Product product) {
+        return nodeIndex == null || ownerOf(product) == nodeIndex;
+    }
+
+    /**
+     * @throws CategoryNotOwnedException if the category of the product belongs to another node
+     */
+    public void requireOwned(Product product) {
+        if (!owns(product)) {
+            throw new CategoryNotOwnedException(categoryOf(product), ownerOf(product), nodeIndex);
+        }
+    }
+
+    private static String categoryOf(Product product) {
+        Map<String, String> specifications = product.getSpecifications();
+        return specifications == null ? null : specifications.get(CategoryIndex.CATEGORY_KEY);
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.productcomparison.repository;
+
+import com.example.productcomparison.model.Product;
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * Immutable, versioned view of the whole catalog.
+ * <p>
+ * A snapshot is published by the repository for a given catalog version and never changes afterwards,
+ * so callers can share its product list without copying it and can read it for as long as a query
+ * needs a stable view. The version increases with every mutation of the catalog.
+ * </p>
+ *
+ * @see IProductRepository#snapshot()
+ */
+@Value
+public class CatalogSnapshot {
+
+    public static final CatalogSnapshot EMPTY = new CatalogSnapshot(0L, List.of());
+
+    /**
+     * Catalog version this snapshot was taken at.
+     */
+    long version;
+
+    /**
+     * Unmodifiable list of every product in the catalog at {@link #version}.
+     */
+    List<Product> products;
+
+    public int size() {
+        return products.size();
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.productcomparison.repository;
+
+import com.example.productcomparison.config.ConditionalOnLocalCatalog;
+import com.example.productcomparison.repository.storage.SpecificationDictionary;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compacts the {@link SpecificationDictionary} in the background, so that the strings of deleted and updated
+ * products do not accumulate however long the instance runs.
+ * <p>
+ * Every {@code product.repository.dictionary.compaction-interval-ms} it asks each
+ * {@link DictionaryEncodedRepository} to compact the dictionary, which only happens once most of its codes are
+ * unused. This runs whether or not checkpoints are enabled.
+ * </p>
+ *
+ * @see DictionaryEncodedRepository#compactDictionary()
+ */
+@Component
+@ConditionalOnLocalCatalog
+@Slf4j
+public class DictionaryCompactor {
+
+    private final List<DictionaryEncodedRepository> repositories;
+
+    @Value("${product.repository.dictionary.compaction-interval-ms:10000}")
+    private long intervalMs = 10_000;
+
+    private ScheduledExecutorService scheduler;
+
+    public DictionaryCompactor(ObjectProvider<DictionaryEncodedRepository> repositories) {
+        this.repositories = repositories.orderedStream().toList();
+    }
+
+    @PostConstruct
+    public void start() {
+        if (repositories.isEmpty()) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "dictionary-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::compactIfNeeded, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.shutdown();
+        try {
+            if (!scheduler.awaitTermination(30, TimeUnit.SECONDS)) {
+                log.warn("Specification dictionary compaction still running at shutdown");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Compacts the dictionary of every repository that needs it. Failures are logged, never thrown, so that the
+     * next run tries again.
+     *
+     * @return the number of repositories whose dictionary was compacted
+     */
+    public int compactIfNeeded() {
+        int compacted = 0;
+        for (DictionaryEncodedRepository repository : repositories) {
+            try {
+                if (repository.compactDictionary()) {
+                    compacted++;
+                }
+            } catch (RuntimeException e) {
+                log.error("Specification dictionary compaction failed; the next run tries again", e);
+            }
+        }
+        return compacted;
+    }
+}
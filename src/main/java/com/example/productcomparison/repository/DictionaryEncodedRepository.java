@@ -0,0 +1,19 @@
+package com.example.productcomparison.repository;
+
+import com.example.productcomparison.repository.storage.SpecificationDictionary;
+
+/**
+ * Repository that keeps product specifications encoded with the shared {@link SpecificationDictionary}.
+ *
+ * @see DictionaryCompactor
+ */
+public interface DictionaryEncodedRepository {
+
+    /**
+     * Re-encodes the stored products with a new dictionary generation if most codes of the current one are
+     * no longer used, without holding up readers and writers for the whole catalog.
+     *
+     * @return whether the dictionary needed compaction and was compacted
+     */
+    boolean compactDictionary();
+}
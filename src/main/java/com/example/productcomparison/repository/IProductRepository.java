@@ -1,9 +1,13 @@
 package com.example.productcomparison.repository;
 
+import com.example.productcomparison.model.MutationResult;
 import com.example.productcomparison.model.Product;
+import com.example.productcomparison.model.ProductMutation;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.OptionalLong;
 
 /**
  * Repository interface for Product domain objects.
@@ -13,6 +17,36 @@ public interface IProductRepository {
 
     List<Product> findAll();
 
+    /**
+     * Returns the immutable snapshot of the catalog at its current version.
+     * Repeated calls between two mutations return the same instance.
+     *
+     * @return the current catalog snapshot
+     */
+    CatalogSnapshot snapshot();
+
+    /**
+     * Returns the current catalog version without materializing a snapshot.
+     * It is the version {@link #snapshot()} would return and increases with every mutation.
+     *
+     * @return the current catalog version
+     */
+    long catalogVersion();
+
+    /**
+     * Returns a version of the product that increases whenever the product is written.
+     * <p>
+     * This default returns the catalog version, which also changes when other products are written;
+     * implementations that track the version of each product return that instead.
+     * </p>
+     *
+     * @param id product ID
+     * @return the product's version, empty if the product does not exist
+     */
+    default OptionalLong productVersion(String id) {
+        return findById(id).isPresent() ? OptionalLong.of(catalogVersion()) : OptionalLong.empty();
+    }
+
     Optional<Product> findById(String id);
 
     Product save(Product product);
@@ -21,4 +55,106 @@ public interface IProductRepository {
 
     void deleteById(String id);
 
+    /**
+     * Finds the products whose {@code category} specification matches the given name, ignoring case.
+     *
+     * @param category category name
+     * @return the products in the category, empty if the category does not exist
+     */
+    List<Product> findByCategory(String category);
+
+    /**
+     * Returns the distinct, non-empty category names in natural order.
+     *
+     * @return the categories currently present in the catalog
+     */
+    List<String> findAllCategories();
+
+    /**
+     * Finds the products whose price lies in the inclusive range {@code [minPrice, maxPrice]}.
+     *
+     * @param minPrice inclusive lower bound
+     * @param maxPrice inclusive upper bound
+     * @return the matching products in ascending price order
+     */
+    List<Product> findByPriceRange(double minPrice, double maxPrice);
+
+    /**
+     * Returns every product ordered by price.
+     *
+     * @param ascending {@code true} for cheapest first, {@code false} for most expensive first
+     * @return all products in price order
+     */
+    List<Product> findAllOrderedByPrice(boolean ascending);
+
+    /**
+     * Finds the products rated at least {@code minRating}.
+     *
+     * @param minRating inclusive lower bound
+     * @return the matching products, highest rated first
+     */
+    List<Product> findByMinRating(double minRating);
+
+    /**
+     * Returns every product ordered by rating.
+     *
+     * @param ascending {@code true} for lowest rated first, {@code false} for highest rated first
+     * @return all products in rating order
+     */
+    List<Product> findAllOrderedByRating(boolean ascending);
+
+    /**
+     * Returns the highest rated products without ordering the rest of the catalog.
+     *
+     * @param limit maximum number of products to return
+     * @return up to {@code limit} products, highest rated first
+     */
+    List<Product> findTopRated(int limit);
+
+    /**
+     * Finds the products whose specification {@code specKey} equals {@code specValue}, ignoring the value's case.
+     *
+     * @param specKey   specification key, matched exactly
+     * @param specValue specification value, matched ignoring case
+     * @return the matching products
+     */
+    List<Product> findBySpecification(String specKey, String specValue);
+
+    /**
+     * Finds the products whose name contains {@code query}, ignoring case.
+     *
+     * @param query text to look for in product names
+     * @return the matching products
+     */
+    List<Product> findByNameContaining(String query);
+
+    /**
+     * Applies the mutations in order. Each one succeeds or fails on its own, as if it were a single
+     * {@link #save}, {@link #update} or {@link #deleteById}, and later mutations see the effect of earlier ones.
+     * <p>
+     * This default applies them one by one; implementations override it to publish the whole batch at once.
+     * </p>
+     *
+     * @param mutations creates, updates and deletes to apply
+     * @return the outcome of every mutation, in the same order
+     */
+    default List<MutationResult> applyBatch(List<ProductMutation> mutations) {
+        List<MutationResult> results = new ArrayList<>(mutations.size());
+        for (int i = 0; i < mutations.size(); i++) {
+            ProductMutation mutation = mutations.get(i);
+            try {
+                mutation.validate();
+                switch (mutation.getOp()) {
+                    case CREATE -> save(mutation.getProduct());
+                    case UPDATE -> update(mutation.getId(), mutation.getProduct());
+                    case DELETE -> deleteById(mutation.getId());
+                }
+                results.add(MutationResult.applied(i, mutation));
+            } catch (RuntimeException e) {
+                results.add(MutationResult.failed(i, mutation, e));
+            }
+        }
+        return results;
+    }
+
 }
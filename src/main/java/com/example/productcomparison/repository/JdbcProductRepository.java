@@ -0,0 +1,823 @@
+package com.example.productcomparison.repository;
+
+import com.example.productcomparison.config.ConditionalOnLocalCatalog;
+import com.example.productcomparison.exception.repository.*;
+import com.example.productcomparison.exception.service.ProductNotFoundException;
+import com.example.productcomparison.model.MutationResult;
+import com.example.productcomparison.model.Product;
+import com.example.productcomparison.model.ProductMutation;
+import com.example.productcomparison.repository.index.CategoryIndex;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.h2.jdbcx.JdbcConnectionPool;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Product repository backed by an embedded H2 database running in-process.
+ * <p>
+ * Products are stored relationally: one {@code product} row per product, with its price, rating and lower-cased
+ * category and name, and one {@code product_specification} row per specification. The catalog lives in the
+ * database file rather than on the heap, survives restarts and can be larger than memory, and no external
+ * database server is needed.
+ * </p>
+ *
+ * <h2>Queries:</h2>
+ * <p>
+ * Every finder is a single prepared statement that filters and orders in the database, on indexes over price,
+ * rating, category and specification key/value, and returns each product together with its specifications.
+ * Results follow the same ordering and matching rules as {@link ProductRepository}; ties, and results without
+ * an ordering of their own, come in insertion order. {@link #findAll()} and {@link #snapshot()} materialize
+ * the whole catalog on the heap, once per catalog version, because their contract returns every product.
+ * </p>
+ *
+ * <h2>Writes:</h2>
+ * <p>
+ * Writers are serialized by a lock, so the existence checks of a write and the write itself see the same
+ * catalog, and every write is one transaction. Rows are sent with JDBC batching: seeding the database and
+ * {@link #applyBatch(List)} send up to {@code product.repository.jdbc.batch-size} rows per round trip, and a
+ * batch of mutations is committed, and published as a catalog version, as a whole. Readers are not locked;
+ * they see committed data only.
+ * </p>
+ *
+ * <h2>Required configuration:</h2>
+ * <p>
+ * Enabled with {@code product.repository.type=jdbc}. The database is set with
+ * {@code product.repository.jdbc.url} and defaults to the file {@code ./data/catalog}. When the database has
+ * no products yet it is seeded from {@code product.data.json-file}, like {@link ProductRepository}; otherwise
+ * the stored catalog is used as is.
+ * </p>
+ *
+ * @see ProductCatalogLoader
+ * @see IProductRepository
+ */
+@Repository
+@ConditionalOnProperty(name = "product.repository.type", havingValue = "jdbc")
+@ConditionalOnLocalCatalog
+@RequiredArgsConstructor
+@Slf4j
+public class JdbcProductRepository implements IProductRepository {
+
+    private static final String[] SCHEMA = {
+            """
+            CREATE TABLE IF NOT EXISTS product (
+                id VARCHAR PRIMARY KEY,
+                seq BIGINT NOT NULL,
+                product_version BIGINT NOT NULL,
+                name VARCHAR,
+                name_lower VARCHAR,
+                image_url VARCHAR,
+                description VARCHAR,
+                price DOUBLE PRECISION NOT NULL,
+                rating DOUBLE PRECISION NOT NULL,
+                category VARCHAR,
+                category_lower VARCHAR,
+                specification_count INT
+            )""",
+            "CREATE UNIQUE INDEX IF NOT EXISTS product_seq ON product (seq)",
+            "CREATE INDEX IF NOT EXISTS product_price ON product (price, seq)",
+            "CREATE INDEX IF NOT EXISTS product_rating ON product (rating, seq)",
+            "CREATE INDEX IF NOT EXISTS product_category ON product (category_lower, seq)",
+            """
+            CREATE TABLE IF NOT EXISTS product_specification (
+                product_id VARCHAR NOT NULL REFERENCES product (id) ON DELETE CASCADE,
+                spec_position INT NOT NULL,
+                spec_key VARCHAR NOT NULL,
+                spec_value VARCHAR,
+                spec_value_lower VARCHAR,
+                PRIMARY KEY (product_id, spec_position)
+            )""",
+            "CREATE INDEX IF NOT EXISTS product_specification_value ON product_specification (spec_key, spec_value_lower)"
+    };
+
+    private static final String BY_INSERTION = "p.seq";
+    private static final String BY_PRICE = "p.price, p.seq";
+    private static final String BY_PRICE_DESCENDING = "p.price DESC, p.seq DESC";
+    private static final String BY_RATING = "p.rating, p.seq";
+    private static final String BY_RATING_DESCENDING = "p.rating DESC, p.seq DESC";
+
+    private static final String FIND_ALL = select("TRUE", BY_INSERTION, false);
+    private static final String FIND_BY_ID = select("p.id = ?", BY_INSERTION, false);
+    private static final String FIND_BY_CATEGORY = select("p.category_lower = ?", BY_INSERTION, false);
+    private static final String FIND_BY_PRICE_RANGE = select("p.price BETWEEN ? AND ?", BY_PRICE, false);
+    private static final String FIND_ALL_BY_PRICE = select("TRUE", BY_PRICE, false);
+    private static final String FIND_ALL_BY_PRICE_DESCENDING = select("TRUE", BY_PRICE_DESCENDING, false);
+    private static final String FIND_BY_MIN_RATING = select("p.rating >= ?", BY_RATING_DESCENDING, false);
+    private static final String FIND_ALL_BY_RATING = select("TRUE", BY_RATING, false);
+    private static final String FIND_ALL_BY_RATING_DESCENDING = select("TRUE", BY_RATING_DESCENDING, false);
+    private static final String FIND_TOP_RATED = select("TRUE", BY_RATING_DESCENDING, true);
+    private static final String FIND_BY_SPECIFICATION = select(
+            "p.id IN (SELECT product_id FROM product_specification WHERE spec_key = ? AND spec_value_lower = ?)",
+            BY_INSERTION, false);
+    private static final String FIND_BY_NAME = select("p.name_lower LIKE ? ESCAPE '\\'", BY_INSERTION, false);
+
+    private static final String FIND_CATEGORIES = "SELECT DISTINCT category FROM product WHERE category IS NOT NULL";
+    private static final String FIND_VERSION = "SELECT product_version FROM product WHERE id = ?";
+    private static final String FIND_EXISTING_IDS = "SELECT id FROM product WHERE id = ANY(?)";
+    private static final String CATALOG_STATE =
+            "SELECT COUNT(*), COALESCE(MAX(seq), 0), COALESCE(MAX(product_version), 0) FROM product";
+
+    private static final String PRODUCT_COLUMNS = "product_version = ?, name = ?, name_lower = ?, image_url = ?, "
+            + "description = ?, price = ?, rating = ?, category = ?, category_lower = ?, specification_count = ?";
+    private static final String INSERT_PRODUCT = "INSERT INTO product (product_version, name, name_lower, "
+            + "image_url, description, price, rating, category, category_lower, specification_count, id, seq) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String UPDATE_PRODUCT = "UPDATE product SET " + PRODUCT_COLUMNS + " WHERE id = ?";
+    private static final String DELETE_PRODUCT = "DELETE FROM product WHERE id = ?";
+    private static final String DELETE_SPECIFICATIONS = "DELETE FROM product_specification WHERE product_id = ?";
+    private static final String INSERT_SPECIFICATION = "INSERT INTO product_specification "
+            + "(product_id, spec_position, spec_key, spec_value, spec_value_lower) VALUES (?, ?, ?, ?, ?)";
+
+    private final ProductCatalogLoader productCatalogLoader;
+    private final ProductMapper productMapper;
+    private final ProductValidator productValidator;
+
+    @Value("${product.data.json-file}")
+    private String jsonFilePath;
+
+    @Value("${product.repository.jdbc.url:jdbc:h2:file:./data/catalog}")
+    private String url = "jdbc:h2:file:./data/catalog";
+
+    @Value("${product.repository.jdbc.username:sa}")
+    private String username = "sa";
+
+    @Value("${product.repository.jdbc.password:}")
+    private String password = "";
+
+    @Value("${product.repository.jdbc.max-connections:10}")
+    private int maxConnections = 10;
+
+    @Value("${product.repository.jdbc.batch-size:512}")
+    private int batchSize = 512;
+
+    private JdbcConnectionPool pool;
+
+    /**
+     * Serializes writers. Guards {@link #nextSequence} and the increments of {@link #version}.
+     */
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private long nextSequence;
+
+    /**
+     * Incremented after every committed write; read without locking to validate {@link #currentSnapshot}.
+     */
+    private volatile long version;
+    private volatile CatalogSnapshot currentSnapshot = CatalogSnapshot.EMPTY;
+
+    private static final String ERROR_PRODUCT_EXISTS = "Product with ID %s already exists";
+    private static final String ERROR_PRODUCT_NOT_FOUND = "Product with ID %s not found";
+    private static final String ERROR_LOG_MESSAGE_FORMAT = "{} for product: {}";
+
+
+    @PostConstruct
+    public void init() {
+        if (maxConnections <= 0 || batchSize <= 0) {
+            throw new ProductDataAccessException("product.repository.jdbc.max-connections and batch-size "
+                    + "must be positive, were " + maxConnections + " and " + batchSize);
+        }
+        pool = JdbcConnectionPool.create(url, username, password);
+        pool.setMaxConnections(maxConnections);
+        writeLock.lock();
+        try (Connection connection = pool.getConnection()) {
+            try (Statement statement = connection.createStatement()) {
+                for (String ddl : SCHEMA) {
+                    statement.execute(ddl);
+                }
+            }
+            long productCount;
+            try (Statement statement = connection.createStatement();
+                 ResultSet resultSet = statement.executeQuery(CATALOG_STATE)) {
+                resultSet.next();
+                productCount = resultSet.getLong(1);
+                nextSequence = resultSet.getLong(2) + 1;
+                version = resultSet.getLong(3) + 1;
+            }
+            if (productCount == 0) {
+                seed(connection);
+            } else {
+                log.info("Opened catalog of {} products at {}", productCount, url);
+            }
+        } catch (ProductDataAccessException e) {
+            log.error("Failed to load initial product data", e);
+            throw e;
+        } catch (Exception e) {
+            String errorMessage = "Unexpected error during initial data load";
+            log.error(errorMessage, e);
+            throw new ProductDataAccessException(errorMessage, e);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Fills the empty database from the JSON source in one transaction. Must be called while holding the write lock.
+     */
+    private void seed(Connection connection) throws SQLException {
+        Set<String> seeded = new HashSet<>();
+        try (CatalogWriter writer = new CatalogWriter(connection)) {
+            productCatalogLoader.load(jsonFilePath, product -> {
+                try {
+                    if (seeded.add(product.getId())) {
+                        writer.insert(product, nextSequence++, version);
+                    } else {
+                        // A later duplicate replaces the earlier product, as in the in-memory catalog.
+                        writer.flush();
+                        writer.update(product, version);
+                    }
+                } catch (SQLException e) {
+                    throw new ProductDataAccessException("Failed to store product " + product.getId(), e);
+                }
+            });
+            writer.commit();
+        }
+        log.info("Successfully loaded {} products into {}", seeded.size(), url);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (pool != null) {
+            pool.dispose();
+        }
+    }
+
+
+    @Override
+    public List<Product> findAll() {
+        return snapshot().getProducts();
+    }
+
+    /**
+     * Materializes the catalog once per version. The version is read before the query, so a snapshot may
+     * already include a write that commits during it; the next call then materializes it again.
+     */
+    @Override
+    public CatalogSnapshot snapshot() {
+        CatalogSnapshot snapshot = currentSnapshot;
+        long current = version;
+        if (snapshot.getVersion() == current) {
+            return snapshot;
+        }
+        snapshot = new CatalogSnapshot(current, List.copyOf(query(FIND_ALL)));
+        if (currentSnapshot.getVersion() < current) {
+            currentSnapshot = snapshot;
+        }
+        return snapshot;
+    }
+
+    @Override
+    public long catalogVersion() {
+        return version;
+    }
+
+    @Override
+    public OptionalLong productVersion(String id) {
+        try (Connection connection = pool.getConnection();
+             PreparedStatement statement = connection.prepareStatement(FIND_VERSION)) {
+            statement.setString(1, id);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() ? OptionalLong.of(resultSet.getLong(1)) : OptionalLong.empty();
+            }
+        } catch (SQLException e) {
+            throw new ProductDataAccessException("Failed to read the version of product " + id, e);
+        }
+    }
+
+    @Override
+    public Optional<Product> findById(String id) {
+        if (id == null || id.isBlank()) {
+            return Optional.empty();
+        }
+        return query(FIND_BY_ID, id).stream().findFirst();
+    }
+
+    @Override
+    public List<Product> findByCategory(String category) {
+        if (category == null) {
+            return List.of();
+        }
+        return query(FIND_BY_CATEGORY, category.toLowerCase(Locale.ROOT));
+    }
+
+    @Override
+    public List<String> findAllCategories() {
+        TreeSet<String> categories = new TreeSet<>();
+        try (Connection connection = pool.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(FIND_CATEGORIES)) {
+            while (resultSet.next()) {
+                categories.add(resultSet.getString(1));
+            }
+        } catch (SQLException e) {
+            throw new ProductDataAccessException("Failed to read the product categories", e);
+        }
+        return new ArrayList<>(categories);
+    }
+
+    @Override
+    public List<Product> findByPriceRange(double minPrice, double maxPrice) {
+        if (Double.isNaN(minPrice) || Double.isNaN(maxPrice) || minPrice > maxPrice) {
+            return new ArrayList<>();
+        }
+        return query(FIND_BY_PRICE_RANGE, minPrice, maxPrice);
+    }
+
+    @Override
+    public List<Product> findAllOrderedByPrice(boolean ascending) {
+        return query(ascending ? FIND_ALL_BY_PRICE : FIND_ALL_BY_PRICE_DESCENDING);
+    }
+
+    @Override
+    public List<Product> findByMinRating(double minRating) {
+        if (Double.isNaN(minRating)) {
+            return new ArrayList<>();
+        }
+        return query(FIND_BY_MIN_RATING, minRating);
+    }
+
+    @Override
+    public List<Product> findAllOrderedByRating(boolean ascending) {
+        return query(ascending ? FIND_ALL_BY_RATING : FIND_ALL_BY_RATING_DESCENDING);
+    }
+
+    @Override
+    public List<Product> findTopRated(int limit) {
+        if (limit <= 0) {
+            return List.of();
+        }
+        return query(FIND_TOP_RATED, limit);
+    }
+
+    @Override
+    public List<Product> findBySpecification(String specKey, String specValue) {
+        if (specKey == null || specValue == null) {
+            return List.of();
+        }
+        return query(FIND_BY_SPECIFICATION, specKey, specValue.toLowerCase(Locale.ROOT));
+    }
+
+    @Override
+    public List<Product> findByNameContaining(String query) {
+        String pattern = "%" + query.toLowerCase()
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_") + "%";
+        return query(FIND_BY_NAME, pattern);
+    }
+
+    @Override
+    public Product save(Product product) {
+        writeLock.lock();
+        try (Connection connection = pool.getConnection()) {
+            productValidator.validateDto(productMapper.toDto(product));
+
+            if (!existingIds(connection, List.of(product.getId())).isEmpty()) {
+                String errorMessage = String.format(ERROR_PRODUCT_EXISTS, product.getId());
+                log.error(errorMessage);
+                throw new ProductAlreadyExistsException(product.getId());
+            }
+
+            try (CatalogWriter writer = new CatalogWriter(connection)) {
+                writer.insert(product, nextSequence++, version + 1);
+                writer.commit();
+            }
+            version++;
+            log.info("Product saved successfully: {}", product.getId());
+            return product;
+        } catch (ProductAlreadyExistsException e) {
+            throw e;
+        } catch (IllegalArgumentException e) {
+            log.error("Validation failed for product: {}", product.getId(), e);
+            throw new ProductValidationException("Product validation failed: " + e.getMessage(), e);
+        } catch (Exception e) {
+            String errorMessage = "Unexpected error during product save";
+            log.error(ERROR_LOG_MESSAGE_FORMAT, errorMessage, product.getId(), e);
+            throw new ProductSaveException(product.getId(), errorMessage, e);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public Product update(String id, Product product) {
+        writeLock.lock();
+        try (Connection connection = pool.getConnection()) {
+            if (existingIds(connection, List.of(id)).isEmpty()) {
+                String errorMessage = String.format(ERROR_PRODUCT_NOT_FOUND, id);
+                log.error(errorMessage);
+                throw new ProductNotFoundException(id);
+            }
+
+            Product updatedProduct = product.toBuilder().id(id).build();
+            productValidator.validateDto(productMapper.toDto(updatedProduct));
+
+            try (CatalogWriter writer = new CatalogWriter(connection)) {
+                writer.update(updatedProduct, version + 1);
+                writer.commit();
+            }
+            version++;
+            log.info("Product updated successfully: {}", id);
+            return updatedProduct;
+        } catch (ProductNotFoundException e) {
+            throw e;
+        } catch (IllegalArgumentException e) {
+            log.error("Validation failed for product update: {}", id, e);
+            throw new ProductValidationException("Product validation failed: " + e.getMessage(), e);
+        } catch (Exception e) {
+            String errorMessage = "Unexpected error during product update";
+            log.error(ERROR_LOG_MESSAGE_FORMAT, errorMessage, id, e);
+            throw new ProductUpdateException(id, errorMessage, e);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void deleteById(String id) {
+        writeLock.lock();
+        try (Connection connection = pool.getConnection()) {
+            if (existingIds(connection, List.of(id)).isEmpty()) {
+                String errorMessage = String.format(ERROR_PRODUCT_NOT_FOUND, id);
+                log.error(errorMessage);
+                throw new ProductNotFoundException(id);
+            }
+
+            try (CatalogWriter writer = new CatalogWriter(connection)) {
+                writer.delete(id);
+                writer.commit();
+            }
+            version++;
+            log.info("Product deleted successfully: {}", id);
+        } catch (ProductNotFoundException e) {
+            throw e;
+        } catch (Exception e) {
+            String errorMessage = "Unexpected error during product deletion";
+            log.error(ERROR_LOG_MESSAGE_FORMAT, errorMessage, id, e);
+            throw new ProductDeleteException(id, errorMessage, e);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Applies the batch in one transaction and publishes it as one new catalog version.
+     * <p>
+     * Every mutation is validated like a single write and fails on its own, against the catalog as left by
+     * the mutations before it. Only the net change of each product is written, with batched statements, so a
+     * product created and then updated in the same batch is inserted once. If the transaction fails, every
+     * mutation that had succeeded is reported as failed and nothing is written.
+     * </p>
+     */
+    @Override
+    public List<MutationResult> applyBatch(List<ProductMutation> mutations) {
+        List<MutationResult> results = new ArrayList<>(mutations.size());
+        int applied = 0;
+        writeLock.lock();
+        try (Connection connection = pool.getConnection()) {
+            List<String> ids = new ArrayList<>(mutations.size());
+            for (ProductMutation mutation : mutations) {
+                if (mutation.targetId() != null) {
+                    ids.add(mutation.targetId());
+                }
+            }
+            Set<String> existing = existingIds(connection, ids);
+            Map<String, Change> changes = new LinkedHashMap<>();
+            for (int i = 0; i < mutations.size(); i++) {
+                ProductMutation mutation = mutations.get(i);
+                try {
+                    apply(mutation, existing, changes);
+                    results.add(MutationResult.applied(i, mutation));
+                    applied++;
+                } catch (RuntimeException e) {
+                    log.warn("Batch item {} ({} {}) failed: {}", i, mutation.getOp(), mutation.targetId(),
+                            e.getMessage());
+                    results.add(MutationResult.failed(i, mutation, e));
+                }
+            }
+            if (applied > 0) {
+                write(connection, changes.values());
+                version++;
+            }
+        } catch (SQLException | ProductDataAccessException e) {
+            log.error("Failed to write batch of {} mutations", mutations.size(), e);
+            ProductDataAccessException cause = new ProductDataAccessException("Failed to write the batch", e);
+            for (int i = 0; i < results.size(); i++) {
+                if (results.get(i).isApplied()) {
+                    results.set(i, MutationResult.failed(i, mutations.get(i), cause));
+                }
+            }
+            for (int i = results.size(); i < mutations.size(); i++) {
+                results.add(MutationResult.failed(i, mutations.get(i), cause));
+            }
+            applied = 0;
+        } finally {
+            writeLock.unlock();
+        }
+        log.info("Applied batch of {} mutations: {} applied, {} failed",
+                mutations.size(), applied, mutations.size() - applied);
+        return results;
+    }
+
+    /**
+     * Validates one mutation of a batch and records its effect in {@code changes}, without writing it.
+     *
+     * @param existing IDs of the products that existed before the batch
+     * @param changes  net change of every product written by the batch so far, by product ID
+     */
+    private void apply(ProductMutation mutation, Set<String> existing, Map<String, Change> changes) {
+        mutation.validate();
+        String id = mutation.targetId();
+        Change change = changes.get(id);
+        boolean exists = change != null ? change.product != null : existing.contains(id);
+        if (mutation.getOp() == ProductMutation.Operation.DELETE) {
+            if (!exists) {
+                throw new ProductNotFoundException(id);
+            }
+            changes.computeIfAbsent(id, key -> new Change(key, true)).delete();
+            return;
+        }
+
+        Product product = mutation.getProduct();
+        if (mutation.getOp() == ProductMutation.Operation.UPDATE) {
+            if (!exists) {
+                throw new ProductNotFoundException(id);
+            }
+            product = product.toBuilder().id(id).build();
+        }
+        productValidator.validateDto(productMapper.toDto(product));
+        if (!productValidator.validateProduct(product)) {
+            throw new ProductValidationException(
+                    "Product validation failed: price must be >= 0 and rating between 0 and 5");
+        }
+        if (mutation.getOp() == ProductMutation.Operation.CREATE && exists) {
+            throw new ProductAlreadyExistsException(id);
+        }
+        changes.computeIfAbsent(id, key -> new Change(key, existing.contains(key))).product = product;
+    }
+
+    /**
+     * Writes the net changes of a batch in one transaction, at the next catalog version.
+     * Must be called while holding the write lock.
+     */
+    private void write(Connection connection, Iterable<Change> changes) throws SQLException {
+        try (CatalogWriter writer = new CatalogWriter(connection)) {
+            for (Change change : changes) {
+                // A product deleted and created again in the same batch is inserted as a new product.
+                boolean replaced = change.existed && change.deleted;
+                if (change.existed && (change.product == null || replaced)) {
+                    writer.delete(change.id);
+                }
+                if (change.product == null) {
+                    continue;
+                }
+                if (change.existed && !replaced) {
+                    writer.update(change.product, version + 1);
+                } else {
+                    writer.insert(change.product, nextSequence++, version + 1);
+                }
+            }
+            writer.commit();
+        }
+    }
+
+    private Set<String> existingIds(Connection connection, List<String> ids) throws SQLException {
+        Set<String> existing = new HashSet<>();
+        if (ids.isEmpty()) {
+            return existing;
+        }
+        try (PreparedStatement statement = connection.prepareStatement(FIND_EXISTING_IDS)) {
+            statement.setArray(1, connection.createArrayOf("VARCHAR", ids.toArray()));
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    existing.add(resultSet.getString(1));
+                }
+            }
+        }
+        return existing;
+    }
+
+    private List<Product> query(String sql, Object... parameters) {
+        try (Connection connection = pool.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (int i = 0; i < parameters.length; i++) {
+                statement.setObject(i + 1, parameters[i]);
+            }
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return readProducts(resultSet);
+            }
+        } catch (SQLException e) {
+            throw new ProductDataAccessException("Failed to query products", e);
+        }
+    }
+
+    /**
+     * Builds the query of a finder: the matching products in the given order, joined with their specifications.
+     * The rows of one product are adjacent because the ordering always ends with the unique insertion sequence.
+     */
+    private static String select(String where, String orderBy, boolean limited) {
+        return "SELECT p.id, p.name, p.image_url, p.description, p.price, p.rating, p.specification_count, "
+                + "s.spec_key, s.spec_value "
+                + "FROM (SELECT * FROM product p WHERE " + where + " ORDER BY " + orderBy
+                + (limited ? " LIMIT ?" : "") + ") p "
+                + "LEFT JOIN product_specification s ON s.product_id = p.id "
+                + "ORDER BY " + orderBy + ", s.spec_position";
+    }
+
+    private static List<Product> readProducts(ResultSet resultSet) throws SQLException {
+        List<Product> products = new ArrayList<>();
+        String currentId = null;
+        Map<String, String> specifications = null;
+        while (resultSet.next()) {
+            String id = resultSet.getString(1);
+            if (!id.equals(currentId)) {
+                currentId = id;
+                int specificationCount = resultSet.getInt(7);
+                specifications = resultSet.wasNull() ? null : new LinkedHashMap<>(Math.max(4, specificationCount * 2));
+                products.add(Product.builder()
+                        .id(id)
+                        .name(resultSet.getString(2))
+                        .imageUrl(resultSet.getString(3))
+                        .description(resultSet.getString(4))
+                        .price(resultSet.getDouble(5))
+                        .rating(resultSet.getDouble(6))
+                        .specifications(specifications)
+                        .build());
+            }
+            String key = resultSet.getString(8);
+            if (key != null && specifications != null) {
+                specifications.put(key, resultSet.getString(9));
+            }
+        }
+        return products;
+    }
+
+    private static void bindColumns(PreparedStatement statement, Product product, long productVersion)
+            throws SQLException {
+        Map<String, String> specifications = product.getSpecifications();
+        String category = specifications == null ? null : specifications.get(CategoryIndex.CATEGORY_KEY);
+        if (category != null && category.isEmpty()) {
+            category = null;
+        }
+        statement.setLong(1, productVersion);
+        statement.setString(2, product.getName());
+        statement.setString(3, product.getName() == null ? null : product.getName().toLowerCase());
+        statement.setString(4, product.getImageUrl());
+        statement.setString(5, product.getDescription());
+        statement.setDouble(6, product.getPrice());
+        statement.setDouble(7, product.getRating());
+        statement.setString(8, category);
+        statement.setString(9, category == null ? null : category.toLowerCase(Locale.ROOT));
+        if (specifications == null) {
+            statement.setNull(10, Types.INTEGER);
+        } else {
+            statement.setInt(10, specifications.size());
+        }
+    }
+
+    /**
+     * Net effect of a batch on one product.
+     */
+    private static final class Change {
+
+        private final String id;
+        private final boolean existed;
+        private boolean deleted;
+        private Product product;
+
+        private Change(String id, boolean existed) {
+            this.id = id;
+            this.existed = existed;
+        }
+
+        private void delete() {
+            deleted = true;
+            product = null;
+        }
+    }
+
+    /**
+     * Batched writes of one transaction. Rows are sent every {@link #batchSize} statements; within a flush,
+     * deletes run first and specifications last, so every product is written at most once per flush.
+     */
+    private final class CatalogWriter implements AutoCloseable {
+
+        private final Connection connection;
+        private final PreparedStatement deleteProduct;
+        private final PreparedStatement deleteSpecifications;
+        private final PreparedStatement updateProduct;
+        private final PreparedStatement insertProduct;
+        private final PreparedStatement insertSpecification;
+        private int pending;
+        private boolean committed;
+
+        private CatalogWriter(Connection connection) throws SQLException {
+            this.connection = connection;
+            connection.setAutoCommit(false);
+            deleteProduct = connection.prepareStatement(DELETE_PRODUCT);
+            deleteSpecifications = connection.prepareStatement(DELETE_SPECIFICATIONS);
+            updateProduct = connection.prepareStatement(UPDATE_PRODUCT);
+            insertProduct = connection.prepareStatement(INSERT_PRODUCT);
+            insertSpecification = connection.prepareStatement(INSERT_SPECIFICATION);
+        }
+
+        private void insert(Product product, long sequence, long productVersion) throws SQLException {
+            bindColumns(insertProduct, product, productVersion);
+            insertProduct.setString(11, product.getId());
+            insertProduct.setLong(12, sequence);
+            insertProduct.addBatch();
+            addSpecifications(product);
+        }
+
+        private void update(Product product, long productVersion) throws SQLException {
+            bindColumns(updateProduct, product, productVersion);
+            updateProduct.setString(11, product.getId());
+            updateProduct.addBatch();
+            deleteSpecifications.setString(1, product.getId());
+            deleteSpecifications.addBatch();
+            pending++;
+            addSpecifications(product);
+        }
+
+        private void delete(String id) throws SQLException {
+            // Specifications go with the product through ON DELETE CASCADE.
+            deleteProduct.setString(1, id);
+            deleteProduct.addBatch();
+            added(1);
+        }
+
+        private void addSpecifications(Product product) throws SQLException {
+            Map<String, String> specifications = product.getSpecifications();
+            int position = 0;
+            if (specifications != null) {
+                for (Map.Entry<String, String> entry : specifications.entrySet()) {
+                    String value = entry.getValue();
+                    insertSpecification.setString(1, product.getId());
+                    insertSpecification.setInt(2, position++);
+                    insertSpecification.setString(3, entry.getKey());
+                    insertSpecification.setString(4, value);
+                    insertSpecification.setString(5, value == null ? null : value.toLowerCase(Locale.ROOT));
+                    insertSpecification.addBatch();
+                }
+            }
+            added(1 + position);
+        }
+
+        private void added(int statements) throws SQLException {
+            pending += statements;
+            if (pending >= batchSize) {
+                flush();
+            }
+        }
+
+        private void flush() throws SQLException {
+            deleteProduct.executeBatch();
+            deleteSpecifications.executeBatch();
+            updateProduct.executeBatch();
+            insertProduct.executeBatch();
+            insertSpecification.executeBatch();
+            pending = 0;
+        }
+
+        private void commit() throws SQLException {
+            flush();
+            connection.commit();
+            committed = true;
+        }
+
+        @Override
+        public void close() throws SQLException {
+            try {
+                if (!committed) {
+                    connection.rollback();
+                }
+                connection.setAutoCommit(true);
+            } finally {
+                deleteProduct.close();
+                deleteSpecifications.close();
+                updateProduct.close();
+                insertProduct.close();
+                insertSpecification.close();
+            }
+        }
+    }
+}
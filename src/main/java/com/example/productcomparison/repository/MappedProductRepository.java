@@ -0,0 +1,230 @@
+package com.example.productcomparison.repository;
+
+import com.example.productcomparison.config.ConditionalOnLocalCatalog;
+import com.example.productcomparison.exception.repository.ProductDataAccessException;
+import com.example.productcomparison.exception.repository.ReadOnlyCatalogException;
+import com.example.productcomparison.model.Product;
+import com.example.productcomparison.repository.index.CategoryIndex;
+import com.example.productcomparison.repository.storage.CatalogFile;
+import com.example.productcomparison.repository.storage.MappedCatalog;
+import com.example.productcomparison.repository.storage.OffHeapProductStore;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.PriorityQueue;
+
+/**
+ * Read-only product repository served from a memory-mapped catalog file.
+ * <p>
+ * Maps a {@link CatalogFile} written by another instance, see {@link ProductRepository#writeSnapshot(Path)} and
+ * {@code product.data.snapshot-file}, through {@link MappedCatalog}. Startup only reads the dictionary and the
+ * record IDs, and products are decoded from the mapped bytes when a read needs them, so the catalog costs almost
+ * no heap and several instances on the same host share the operating system's page cache for the file.
+ * {@link #findAll()} returns a list that decodes each product as it is read instead of copying the catalog.
+ * </p>
+ *
+ * <h2>Queries:</h2>
+ * <p>
+ * Queries scan the mapped records. Price and rating filters are evaluated on the encoded records, and
+ * specification and category filters on the dictionary codes, so only matching products are decoded.
+ * Results follow the same ordering and matching rules as {@link ProductRepository}.
+ * </p>
+ *
+ * <h2>Writes:</h2>
+ * <p>
+ * {@link #save}, {@link #update} and {@link #deleteById} throw {@link ReadOnlyCatalogException}.
+ * The catalog changes only when the instance is restarted with a new file.
+ * </p>
+ *
+ * <h2>Required configuration:</h2>
+ * <p>
+ * Enabled with {@code product.repository.type=mapped}. The file is set with {@code product.repository.mapped.file}.
+ * {@code product.repository.mapped.verify-checksum} checks the file's CRC32 on startup, at the cost of reading
+ * it once; it is off by default because catalog files are only ever renamed into place once complete.
+ * </p>
+ *
+ * @see MappedCatalog
+ * @see IProductRepository
+ */
+@Repository
+@ConditionalOnProperty(name = "product.repository.type", havingValue = "mapped")
+@ConditionalOnLocalCatalog
+@Slf4j
+public class MappedProductRepository implements IProductRepository {
+
+    @Value("${product.repository.mapped.file:}")
+    private String catalogFilePath;
+
+    @Value("${product.repository.mapped.verify-checksum:false}")
+    private boolean verifyChecksum;
+
+    private MappedCatalog catalog;
+    private CatalogSnapshot snapshot = CatalogSnapshot.EMPTY;
+
+
+    @PostConstruct
+    public void init() {
+        if (catalogFilePath == null || catalogFilePath.isBlank()) {
+            throw new ProductDataAccessException("product.repository.mapped.file is required in mapped mode");
+        }
+        try {
+            catalog = MappedCatalog.open(Path.of(catalogFilePath), verifyChecksum);
+        } catch (IOException e) {
+            String errorMessage = "Failed to map catalog file " + catalogFilePath;
+            log.error(errorMessage, e);
+            throw new ProductDataAccessException(errorMessage, e);
+        }
+        snapshot = new CatalogSnapshot(catalog.header().catalogVersion(), catalog.products());
+        log.info("Mapped {} products from {} (catalog version {}, {} region(s))",
+                catalog.size(), catalogFilePath, catalog.header().catalogVersion(), catalog.regionCount());
+    }
+
+
+    @Override
+    public List<Product> findAll() {
+        return snapshot.getProducts();
+    }
+
+    @Override
+    public CatalogSnapshot snapshot() {
+        return snapshot;
+    }
+
+    @Override
+    public long catalogVersion() {
+        return snapshot.getVersion();
+    }
+
+    @Override
+    public Optional<Product> findById(String id) {
+        if (id == null || id.isBlank()) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(catalog.find(id));
+    }
+
+    @Override
+    public List<Product> findByCategory(String category) {
+        if (category == null) {
+            return List.of();
+        }
+        List<Product> products = new ArrayList<>();
+        catalog.forEachWithSpecification(CategoryIndex.CATEGORY_KEY, category::equalsIgnoreCase, products::add);
+        return products;
+    }
+
+    @Override
+    public List<String> findAllCategories() {
+        List<String> categories = new ArrayList<>(catalog.specificationValues(CategoryIndex.CATEGORY_KEY));
+        categories.removeIf(String::isEmpty);
+        categories.sort(Comparator.naturalOrder());
+        return categories;
+    }
+
+    @Override
+    public List<Product> findByPriceRange(double minPrice, double maxPrice) {
+        List<Product> products = scanNumeric((price, rating) -> price >= minPrice && price <= maxPrice);
+        products.sort(Comparator.comparingDouble(Product::getPrice));
+        return products;
+    }
+
+    @Override
+    public List<Product> findAllOrderedByPrice(boolean ascending) {
+        Comparator<Product> comparator = Comparator.comparingDouble(Product::getPrice);
+        List<Product> products = new ArrayList<>(catalog.products());
+        products.sort(ascending ? comparator : comparator.reversed());
+        return products;
+    }
+
+    @Override
+    public List<Product> findByMinRating(double minRating) {
+        List<Product> products = scanNumeric((price, rating) -> rating >= minRating);
+        products.sort(Comparator.comparingDouble(Product::getRating).reversed());
+        return products;
+    }
+
+    @Override
+    public List<Product> findAllOrderedByRating(boolean ascending) {
+        Comparator<Product> comparator = Comparator.comparingDouble(Product::getRating);
+        List<Product> products = new ArrayList<>(catalog.products());
+        products.sort(ascending ? comparator : comparator.reversed());
+        return products;
+    }
+
+    @Override
+    public List<Product> findTopRated(int limit) {
+        if (limit <= 0) {
+            return List.of();
+        }
+        // Ranks on the encoded ratings and decodes only the winners; on equal ratings the later product loses.
+        PriorityQueue<Ranked> best = new PriorityQueue<>(Comparator.comparingDouble(Ranked::rating)
+                .thenComparing(Comparator.comparingInt(Ranked::index).reversed()));
+        catalog.forEachIndexMatching((price, rating) -> true, index -> {
+            best.add(new Ranked(index, catalog.ratingAt(index)));
+            if (best.size() > limit) {
+                best.poll();
+            }
+        });
+        List<Ranked> ranked = new ArrayList<>(best);
+        ranked.sort(Comparator.comparingDouble(Ranked::rating).reversed().thenComparingInt(Ranked::index));
+        return ranked.stream().map(candidate -> catalog.get(candidate.index())).toList();
+    }
+
+    @Override
+    public List<Product> findBySpecification(String specKey, String specValue) {
+        if (specKey == null || specValue == null) {
+            return List.of();
+        }
+        List<Product> products = new ArrayList<>();
+        catalog.forEachWithSpecification(specKey, specValue::equalsIgnoreCase, products::add);
+        return products;
+    }
+
+    @Override
+    public List<Product> findByNameContaining(String query) {
+        String needle = query.toLowerCase();
+        List<Product> products = new ArrayList<>();
+        for (Product product : catalog.products()) {
+            if (product.getName() != null && product.getName().toLowerCase().contains(needle)) {
+                products.add(product);
+            }
+        }
+        return products;
+    }
+
+    @Override
+    public Product save(Product product) {
+        throw new ReadOnlyCatalogException("save", product.getId());
+    }
+
+    @Override
+    public Product update(String id, Product product) {
+        throw new ReadOnlyCatalogException("update", id);
+    }
+
+    @Override
+    public void deleteById(String id) {
+        throw new ReadOnlyCatalogException("delete", id);
+    }
+
+    /**
+     * Decodes only the products whose encoded price and rating pass the filter, in file order.
+     */
+    private List<Product> scanNumeric(OffHeapProductStore.NumericFilter filter) {
+        List<Product> products = new ArrayList<>();
+        catalog.forEachMatching(filter, products::add);
+        return products;
+    }
+
+    private record Ranked(int index, double rating) {
+    }
+}
@@ -0,0 +1,454 @@
+package com.example.productcomparison.repository;
+
+import com.example.productcomparison.config.ConditionalOnLocalCatalog;
+import com.example.productcomparison.exception.repository.*;
+import com.example.productcomparison.exception.service.ProductNotFoundException;
+import com.example.productcomparison.model.MutationResult;
+import com.example.productcomparison.model.Product;
+import com.example.productcomparison.model.ProductMutation;
+import com.example.productcomparison.repository.index.CategoryIndex;
+import com.example.productcomparison.repository.storage.OffHeapProductStore;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+/**
+ * Product repository that keeps the catalog outside the Java heap.
+ * <p>
+ * Products are stored as compact binary records in direct memory segments managed by
+ * {@link OffHeapProductStore}, with a primitive ID-to-address table on the heap. Nothing is kept per product
+ * as Java objects, so the heap stays small and garbage collection pauses do not grow with the catalog.
+ * Products are decoded only when a read needs them.
+ * </p>
+ *
+ * <h2>Queries:</h2>
+ * <p>
+ * There are no secondary indexes; queries scan the segments sequentially. Price and rating filters are
+ * evaluated on the encoded records, so only matching products are decoded. Results match the same products
+ * as {@link ProductRepository} and are sorted by the same keys, but ties, and results without an ordering of
+ * their own, come in storage order, where a replaced product moves to the end, so they may come in a
+ * different order than from {@link ProductRepository}.
+ * {@link #findAll()} and {@link #snapshot()} still materialize the whole catalog on the heap, once per
+ * catalog version, because their contract returns every product.
+ * </p>
+ *
+ * <h2>Required configuration:</h2>
+ * <p>
+ * Enabled with {@code product.repository.type=offheap}. The segment size is set with
+ * {@code product.repository.offheap.segment-size-mb} and defaults to 64 MB.
+ * The catalog is seeded from {@code product.data.json-file}, like {@link ProductRepository}.
+ * </p>
+ *
+ * @see OffHeapProductStore
+ * @see ProductCatalogLoader
+ * @see IProductRepository
+ */
+@Repository
+@ConditionalOnProperty(name = "product.repository.type", havingValue = "offheap")
+@ConditionalOnLocalCatalog
+@RequiredArgsConstructor
+@Slf4j
+public class OffHeapProductRepository implements IProductRepository {
+
+    private static final long BYTES_PER_MB = 1024L * 1024L;
+
+    private final ProductCatalogLoader productCatalogLoader;
+    private final ProductMapper productMapper;
+    private final ProductValidator productValidator;
+
+    @Value("${product.data.json-file}")
+    private String jsonFilePath;
+
+    @Value("${product.repository.offheap.segment-size-mb:64}")
+    private int segmentSizeMb = 64;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private OffHeapProductStore store;
+
+    /**
+     * Incremented under the write lock on every mutation; read without locking to validate {@link #currentSnapshot}.
+     */
+    private volatile long version;
+    private volatile CatalogSnapshot currentSnapshot = CatalogSnapshot.EMPTY;
+
+    private static final String ERROR_PRODUCT_EXISTS = "Product with ID %s already exists";
+    private static final String ERROR_PRODUCT_NOT_FOUND = "Product with ID %s not found";
+    private static final String ERROR_LOG_MESSAGE_FORMAT = "{} for product: {}";
+
+
+    @PostConstruct
+    public void init() {
+        long segmentSize = segmentSizeMb * BYTES_PER_MB;
+        if (segmentSizeMb <= 0 || segmentSize > Integer.MAX_VALUE) {
+            throw new ProductDataAccessException(
+                    "product.repository.offheap.segment-size-mb must be between 1 and 2047, was " + segmentSizeMb);
+        }
+        store = new OffHeapProductStore((int) segmentSize);
+        loadInitialData();
+    }
+
+    private void loadInitialData() {
+        lock.writeLock().lock();
+        try {
+            productCatalogLoader.load(jsonFilePath, store::put);
+            version++;
+            log.info("Successfully loaded {} products off-heap ({} bytes live, {} bytes reserved)",
+                    store.size(), store.liveBytes(), store.reservedBytes());
+        } catch (ProductDataAccessException e) {
+            log.error("Failed to load initial product data", e);
+            throw e;
+        } catch (Exception e) {
+            String errorMessage = "Unexpected error during initial data load";
+            log.error(errorMessage, e);
+            throw new ProductDataAccessException(errorMessage, e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+
+    @Override
+    public List<Product> findAll() {
+        return snapshot().getProducts();
+    }
+
+    @Override
+    public CatalogSnapshot snapshot() {
+        CatalogSnapshot snapshot = currentSnapshot;
+        if (snapshot.getVersion() == version) {
+            return snapshot;
+        }
+        lock.readLock().lock();
+        try {
+            snapshot = currentSnapshot;
+            if (snapshot.getVersion() != version) {
+                List<Product> products = new ArrayList<>(store.size());
+                store.forEach(products::add);
+                snapshot = new CatalogSnapshot(version, List.copyOf(products));
+                currentSnapshot = snapshot;
+            }
+            return snapshot;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public long catalogVersion() {
+        return version;
+    }
+
+    @Override
+    public Optional<Product> findById(String id) {
+        if (id == null || id.isBlank()) {
+            return Optional.empty();
+        }
+        lock.readLock().lock();
+        try {
+            return Optional.ofNullable(store.get(id));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Product> findByCategory(String category) {
+        if (category == null) {
+            return List.of();
+        }
+        return scan(product -> category.equalsIgnoreCase(specification(product, CategoryIndex.CATEGORY_KEY)));
+    }
+
+    @Override
+    public List<String> findAllCategories() {
+        TreeSet<String> categories = new TreeSet<>();
+        lock.readLock().lock();
+        try {
+            store.forEach(product -> {
+                String category = specification(product, CategoryIndex.CATEGORY_KEY);
+                if (category != null && !category.isEmpty()) {
+                    categories.add(category);
+                }
+            });
+        } finally {
+            lock.readLock().unlock();
+        }
+        return new ArrayList<>(categories);
+    }
+
+    @Override
+    public List<Product> findByPriceRange(double minPrice, double maxPrice) {
+        List<Product> products = scanNumeric((price, rating) -> price >= minPrice && price <= maxPrice);
+        products.sort(Comparator.comparingDouble(Product::getPrice));
+        return products;
+    }
+
+    @Override
+    public List<Product> findAllOrderedByPrice(boolean ascending) {
+        Comparator<Product> comparator = Comparator.comparingDouble(Product::getPrice);
+        List<Product> products = scanNumeric((price, rating) -> true);
+        products.sort(ascending ? comparator : comparator.reversed());
+        return products;
+    }
+
+    @Override
+    public List<Product> findByMinRating(double minRating) {
+        List<Product> products = scanNumeric((price, rating) -> rating >= minRating);
+        products.sort(Comparator.comparingDouble(Product::getRating).reversed());
+        return products;
+    }
+
+    @Override
+    public List<Product> findAllOrderedByRating(boolean ascending) {
+        Comparator<Product> comparator = Comparator.comparingDouble(Product::getRating);
+        List<Product> products = scanNumeric((price, rating) -> true);
+        products.sort(ascending ? comparator : comparator.reversed());
+        return products;
+    }
+
+    @Override
+    public List<Product> findTopRated(int limit) {
+        if (limit <= 0) {
+            return List.of();
+        }
+        // Min-heap of the best candidates so far; on equal ratings the later product is evicted first.
+        PriorityQueue<Ranked> best = new PriorityQueue<>(Comparator.comparingDouble(Ranked::rating)
+                .thenComparing(Comparator.comparingLong(Ranked::sequence).reversed()));
+        long[] sequence = {0};
+        lock.readLock().lock();
+        try {
+            store.forEach(product -> {
+                best.add(new Ranked(product, product.getRating(), sequence[0]++));
+                if (best.size() > limit) {
+                    best.poll();
+                }
+            });
+        } finally {
+            lock.readLock().unlock();
+        }
+        List<Ranked> ranked = new ArrayList<>(best);
+        ranked.sort(Comparator.comparingDouble(Ranked::rating).reversed().thenComparingLong(Ranked::sequence));
+        return ranked.stream().map(Ranked::product).toList();
+    }
+
+    @Override
+    public List<Product> findBySpecification(String specKey, String specValue) {
+        if (specKey == null || specValue == null) {
+            return List.of();
+        }
+        return scan(product -> specValue.equalsIgnoreCase(specification(product, specKey)));
+    }
+
+    @Override
+    public List<Product> findByNameContaining(String query) {
+        String needle = query.toLowerCase();
+        return scan(product -> product.getName() != null && product.getName().toLowerCase().contains(needle));
+    }
+
+    @Override
+    public Product save(Product product) {
+        lock.writeLock().lock();
+        try {
+            productValidator.validateDto(productMapper.toDto(product));
+
+            if (store.contains(product.getId())) {
+                String errorMessage = String.format(ERROR_PRODUCT_EXISTS, product.getId());
+                log.error(errorMessage);
+                throw new ProductAlreadyExistsException(product.getId());
+            }
+
+            store.put(product);
+            version++;
+            log.info("Product saved successfully: {}", product.getId());
+            return product;
+        } catch (ProductAlreadyExistsException e) {
+            throw e;
+        } catch (IllegalArgumentException e) {
+            log.error("Validation failed for product: {}", product.getId(), e);
+            throw new ProductValidationException("Product validation failed: " + e.getMessage(), e);
+        } catch (Exception e) {
+            String errorMessage = "Unexpected error during product save";
+            log.error(ERROR_LOG_MESSAGE_FORMAT, errorMessage, product.getId(), e);
+            throw new ProductSaveException(product.getId(), errorMessage, e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Product update(String id, Product product) {
+        lock.writeLock().lock();
+        try {
+            if (!store.contains(id)) {
+                String errorMessage = String.format(ERROR_PRODUCT_NOT_FOUND, id);
+                log.error(errorMessage);
+                throw new ProductNotFoundException(id);
+            }
+
+            Product updatedProduct = product.toBuilder().id(id).build();
+            productValidator.validateDto(productMapper.toDto(updatedProduct));
+
+            store.put(updatedProduct);
+            version++;
+            log.info("Product updated successfully: {}", id);
+            return updatedProduct;
+        } catch (ProductNotFoundException e) {
+            throw e;
+        } catch (IllegalArgumentException e) {
+            log.error("Validation failed for product update: {}", id, e);
+            throw new ProductValidationException("Product validation failed: " + e.getMessage(), e);
+        } catch (Exception e) {
+            String errorMessage = "Unexpected error during product update";
+            log.error(ERROR_LOG_MESSAGE_FORMAT, errorMessage, id, e);
+            throw new ProductUpdateException(id, errorMessage, e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void deleteById(String id) {
+        lock.writeLock().lock();
+        try {
+            if (!store.contains(id)) {
+                String errorMessage = String.format(ERROR_PRODUCT_NOT_FOUND, id);
+                log.error(errorMessage);
+                throw new ProductNotFoundException(id);
+            }
+
+            store.remove(id);
+            version++;
+            log.info("Product deleted successfully: {}", id);
+        } catch (ProductNotFoundException e) {
+            throw e;
+        } catch (Exception e) {
+            String errorMessage = "Unexpected error during product deletion";
+            log.error(ERROR_LOG_MESSAGE_FORMAT, errorMessage, id, e);
+            throw new ProductDeleteException(id, errorMessage, e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Applies the batch under a single write lock acquisition and publishes it as one new catalog version.
+     * <p>
+     * Every mutation is validated like a single write and fails on its own; the ones that succeed are applied
+     * in order. Every read takes the read lock, so readers never see part of a batch.
+     * </p>
+     */
+    @Override
+    public List<MutationResult> applyBatch(List<ProductMutation> mutations) {
+        List<MutationResult> results = new ArrayList<>(mutations.size());
+        int applied = 0;
+        lock.writeLock().lock();
+        try {
+            for (int i = 0; i < mutations.size(); i++) {
+                ProductMutation mutation = mutations.get(i);
+                try {
+                    apply(mutation);
+                    results.add(MutationResult.applied(i, mutation));
+                    applied++;
+                } catch (RuntimeException e) {
+                    log.warn("Batch item {} ({} {}) failed: {}", i, mutation.getOp(), mutation.targetId(),
+                            e.getMessage());
+                    results.add(MutationResult.failed(i, mutation, e));
+                }
+            }
+            if (applied > 0) {
+                version++;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Applied batch of {} mutations: {} applied, {} failed",
+                mutations.size(), applied, mutations.size() - applied);
+        return results;
+    }
+
+    /**
+     * Validates and stores one mutation of a batch, without publishing it.
+     * Must be called while holding the write lock.
+     */
+    private void apply(ProductMutation mutation) {
+        mutation.validate();
+        String id = mutation.targetId();
+        if (mutation.getOp() == ProductMutation.Operation.DELETE) {
+            if (!store.contains(id)) {
+                throw new ProductNotFoundException(id);
+            }
+            store.remove(id);
+            return;
+        }
+
+        Product product = mutation.getProduct();
+        if (mutation.getOp() == ProductMutation.Operation.UPDATE) {
+            if (!store.contains(id)) {
+                throw new ProductNotFoundException(id);
+            }
+            product = product.toBuilder().id(id).build();
+        }
+        productValidator.validateDto(productMapper.toDto(product));
+        if (!productValidator.validateProduct(product)) {
+            throw new ProductValidationException(
+                    "Product validation failed: price must be >= 0 and rating between 0 and 5");
+        }
+        if (mutation.getOp() == ProductMutation.Operation.CREATE && store.contains(id)) {
+            throw new ProductAlreadyExistsException(id);
+        }
+        store.put(product);
+    }
+
+    /**
+     * Decodes every product and keeps those matching the predicate, in storage order.
+     */
+    private List<Product> scan(Predicate<Product> predicate) {
+        List<Product> products = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            store.forEach(product -> {
+                if (predicate.test(product)) {
+                    products.add(product);
+                }
+            });
+        } finally {
+            lock.readLock().unlock();
+        }
+        return products;
+    }
+
+    /**
+     * Decodes only the products whose encoded price and rating pass the filter, in storage order.
+     */
+    private List<Product> scanNumeric(OffHeapProductStore.NumericFilter filter) {
+        List<Product> products = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            store.forEachMatching(filter, products::add);
+        } finally {
+            lock.readLock().unlock();
+        }
+        return products;
+    }
+
+    private static String specification(Product product, String key) {
+        Map<String, String> specifications = product.getSpecifications();
+        return specifications == null ? null : specifications.get(key);
+    }
+
+    private record Ranked(Product product, double rating, long sequence) {
+    }
+}
@@ -0,0 +1,297 @@
+package com.example.productcomparison.repository;
+
+import com.example.productcomparison.exception.repository.DataSourceInitializationException;
+import com.example.productcomparison.exception.repository.ProductDataAccessException;
+import com.example.productcomparison.model.Product;
+import com.example.productcomparison.model.ProductDTO;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Loads the initial product catalog for the repository implementations.
+ * <p>
+ * Reads the product DTOs through {@link ProductDataSource}, maps them with {@link ProductMapper}
+ * and hands every product that passes {@link ProductValidator#validateProduct(Product)} to a sink.
+ * Invalid products are logged and skipped, and so are, on a catalog node, the products of the categories other
+ * nodes own ({@link CatalogPartition}). Keeping this in one place lets every
+ * {@link IProductRepository} implementation seed itself from the same source with the same rules.
+ * </p>
+ *
+ * <h2>Parallel loading:</h2>
+ * <p>
+ * With more than one worker the load runs as a three-stage pipeline: one thread parses the file into
+ * batches, a pool of workers maps and validates the batches, and the calling thread inserts the results
+ * into the sink. Bounded queues between the stages keep memory flat when one stage is slower than the
+ * others. Batches carry their position in the file and are inserted in that order, so the sink sees the
+ * same products in the same order as with a single worker, and it is only ever called from the calling thread.
+ * Batches that finish before an earlier one wait for it; to keep them bounded too, the parser only hands out
+ * a batch while fewer than {@code queue-capacity} plus one per worker are on their way to the sink.
+ * </p>
+ *
+ * <h2>Configuration:</h2>
+ * <ul>
+ *   <li>{@code product.data.load.workers} - mapping and validation threads; {@code 0} uses one per available
+ *   processor and {@code 1} loads everything on the calling thread</li>
+ *   <li>{@code product.data.load.queue-capacity} - batches buffered between two stages</li>
+ *   <li>{@code product.data.load.batch-size} - products per batch</li>
+ * </ul>
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProductCatalogLoader {
+
+    private final ProductDataSource productDataSource;
+    private final ProductMapper productMapper;
+    private final ProductValidator productValidator;
+    private final CatalogPartition catalogPartition;
+
+    @Value("${product.data.load.workers:0}")
+    private int workers;
+
+    @Value("${product.data.load.queue-capacity:64}")
+    private int queueCapacity = 64;
+
+    @Value("${product.data.load.batch-size:512}")
+    private int batchSize = 512;
+
+    private static final String ERROR_LOAD_PRODUCTS = "Failed to load products from ";
+    private static final DtoBatch END_OF_INPUT = new DtoBatch(-1, List.of());
+    private static final ProductBatch WORKER_DONE = new ProductBatch(-1, List.of(), 0);
+
+    /**
+     * Streams, maps and validates the products of the JSON source.
+     * <p>
+     * Products are mapped, validated and handed to the sink while the file is still being parsed,
+     * so the whole file is never held in memory at once.
+     * </p>
+     *
+     * @param jsonFilePath path to the JSON file
+     * @param sink         receives every valid product, in file order, on the calling thread
+     * @return the number of products handed to the sink
+     * @throws ProductDataAccessException if the source cannot be read
+     */
+    public int load(String jsonFilePath, Consumer<Product> sink) {
+        int workerCount = workers > 0 ? workers : Runtime.getRuntime().availableProcessors();
+        if (catalogPartition.isNode()) {
+            log.info("Loading only the categories this catalog node owns from {}", jsonFilePath);
+        }
+        int[] counts;
+        try {
+            counts = workerCount <= 1
+                    ? loadSequentially(jsonFilePath, sink)
+                    : loadInParallel(jsonFilePath, sink, workerCount);
+        } catch (DataSourceInitializationException e) {
+            String errorMessage = ERROR_LOAD_PRODUCTS + jsonFilePath;
+            log.error(errorMessage, e);
+            throw new ProductDataAccessException(errorMessage, e);
+        }
+        log.info("Loaded {} products from {}, skipped {}", counts[0], jsonFilePath, counts[1]);
+        return counts[0];
+    }
+
+    private int[] loadSequentially(String jsonFilePath, Consumer<Product> sink) {
+        int[] counts = new int[2];
+        productDataSource.streamProductsFromJson(jsonFilePath, dto -> {
+            Product product = map(dto);
+            if (product != null) {
+                sink.accept(product);
+                counts[0]++;
+            } else {
+                counts[1]++;
+            }
+        });
+        return counts;
+    }
+
+    private int[] loadInParallel(String jsonFilePath, Consumer<Product> sink, int workerCount) {
+        BlockingQueue<DtoBatch> parsed = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        BlockingQueue<ProductBatch> mapped = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        // Batches between the parser and the sink: the queued ones, one per worker, and those waiting to be reordered
+        Semaphore inFlight = new Semaphore(Math.max(1, queueCapacity) + workerCount);
+        AtomicReference<Throwable> workerFailure = new AtomicReference<>();
+        AtomicInteger threadNumber = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(workerCount + 1, runnable -> {
+            Thread thread = new Thread(runnable, "catalog-loader-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        try {
+            Future<?> parser = executor.submit(() -> parse(jsonFilePath, parsed, workerCount, inFlight));
+            for (int i = 0; i < workerCount; i++) {
+                executor.submit(() -> mapBatches(parsed, mapped, workerFailure));
+            }
+
+            int[] counts = new int[2];
+            Map<Long, ProductBatch> pending = new HashMap<>();
+            long nextSequence = 0;
+            int finishedWorkers = 0;
+            while (finishedWorkers < workerCount) {
+                ProductBatch batch = mapped.take();
+                if (batch == WORKER_DONE) {
+                    // A worker that failed lost its batch; stop instead of buffering everything after it.
+                    rethrow(workerFailure.get());
+                    finishedWorkers++;
+                    continue;
+                }
+                pending.put(batch.sequence(), batch);
+                for (ProductBatch ready; (ready = pending.remove(nextSequence)) != null; nextSequence++) {
+                    ready.products().forEach(sink);
+                    counts[0] += ready.products().size();
+                    counts[1] += ready.skipped();
+                    inFlight.release();
+                }
+            }
+
+            try {
+                parser.get();
+            } catch (ExecutionException e) {
+                rethrow(e.getCause());
+            }
+            return counts;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ProductDataAccessException(ERROR_LOAD_PRODUCTS + jsonFilePath + ": interrupted", e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Parser stage: streams the file into numbered batches, then tells every worker that the input has ended.
+     * Every batch takes one of the {@code inFlight} permits, which the calling thread returns once it has
+     * inserted the batch.
+     */
+    private void parse(String jsonFilePath, BlockingQueue<DtoBatch> parsed, int workerCount, Semaphore inFlight) {
+        int size = Math.max(1, batchSize);
+        List<ProductDTO> buffer = new ArrayList<>(size);
+        long[] sequence = {0};
+        try {
+            productDataSource.streamProductsFromJson(jsonFilePath, dto -> {
+                buffer.add(dto);
+                if (buffer.size() >= size) {
+                    acquire(inFlight);
+                    put(parsed, new DtoBatch(sequence[0]++, new ArrayList<>(buffer)));
+                    buffer.clear();
+                }
+            });
+            if (!buffer.isEmpty()) {
+                acquire(inFlight);
+                put(parsed, new DtoBatch(sequence[0], new ArrayList<>(buffer)));
+            }
+        } finally {
+            for (int i = 0; i < workerCount; i++) {
+                put(parsed, END_OF_INPUT);
+            }
+        }
+    }
+
+    /**
+     * Worker stage: maps and validates batches until the input ends, then signals that it is done.
+     * A failure stops this worker and is reported to the calling thread.
+     */
+    private void mapBatches(BlockingQueue<DtoBatch> parsed, BlockingQueue<ProductBatch> mapped,
+                            AtomicReference<Throwable> failure) {
+        try {
+            for (DtoBatch batch = parsed.take(); batch != END_OF_INPUT; batch = parsed.take()) {
+                List<Product> products = new ArrayList<>(batch.dtos().size());
+                for (ProductDTO dto : batch.dtos()) {
+                    Product product = map(dto);
+                    if (product != null) {
+                        products.add(product);
+                    }
+                }
+                mapped.put(new ProductBatch(batch.sequence(), products, batch.dtos().size() - products.size()));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Throwable e) {
+            failure.compareAndSet(null, e);
+        } finally {
+            try {
+                mapped.put(WORKER_DONE);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Maps and validates a single product.
+     *
+     * @return the product, or {@code null} if it was skipped or belongs to another catalog node
+     */
+    private Product map(ProductDTO dto) {
+        if (dto == null) {
+            log.warn("Null product entry in source, skipping");
+            return null;
+        }
+        try {
+            Product product = productMapper.toDomain(dto);
+            if (!productValidator.validateProduct(product)) {
+                log.warn("Product {} ignored: validation failed", product.getId());
+                return null;
+            }
+            return catalogPartition.owns(product) ? product : null;
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid product data from source, skipping product with ID: {}",
+                    dto.getId(), e);
+        }
+        return null;
+    }
+
+    private static <T> void put(BlockingQueue<T> queue, T item) {
+        try {
+            queue.put(item);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while queueing parsed products", e);
+        }
+    }
+
+    private static void acquire(Semaphore permits) {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for parsed products to be inserted", e);
+        }
+    }
+
+    private static void rethrow(Throwable failure) {
+        if (failure == null) {
+            return;
+        }
+        if (failure instanceof RuntimeException runtimeException) {
+            throw runtimeException;
+        }
+        if (failure instanceof Error error) {
+            throw error;
+        }
+        throw new IllegalStateException(failure);
+    }
+
+    private record DtoBatch(long sequence, List<ProductDTO> dtos) {
+    }
+
+    private record ProductBatch(long sequence, List<Product> products, int skipped) {
+    }
+}
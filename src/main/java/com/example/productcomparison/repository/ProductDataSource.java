@@ -2,15 +2,20 @@ package com.example.productcomparison.repository;
 
 import com.example.productcomparison.exception.repository.DataSourceInitializationException;
 import com.example.productcomparison.model.ProductDTO;
-import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.ResourceLoader;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Data source for products that handles loading from JSON files.
@@ -19,9 +24,14 @@ import java.util.List;
  * from JSON files using Spring's resource system.
  * It is separated from the repository to maintain a clear separation of responsibilities.
  * </p>
+ * <p>
+ * {@link #streamProductsFromJson(String, Consumer)} reads the file as a token stream and hands each product
+ * over as soon as it is parsed, so only one {@link ProductDTO} is held at a time regardless of the file size.
+ * </p>
  */
 @Component
 @RequiredArgsConstructor
+@Slf4j
 public class ProductDataSource {
 
     private final ObjectMapper objectMapper;
@@ -30,17 +40,78 @@ public class ProductDataSource {
     private static final String FILE_NOT_FOUND_ERROR = "The data source file was not found at path: ";
     private static final String FILE_READ_ERROR = "Error reading data source file at path: ";
     private static final String INVALID_PATH_ERROR = "jsonFilePath cannot be null or empty";
+    private static final String NOT_AN_ARRAY_ERROR = "The data source file must contain a JSON array of products: ";
+    private static final String TRUNCATED_FILE_ERROR = "The data source file ended before its product array was closed: ";
+    private static final long PROGRESS_INTERVAL = 100_000;
 
     /**
      * Loads product data from a JSON file located at the specified path.
+     * <p>
+     * Collects {@link #streamProductsFromJson(String, Consumer)} into a list, so the whole file is held in
+     * memory; the catalog loaders stream instead.
+     * </p>
      *
      * @param jsonFilePath path to the JSON file (e.g., "classpath:data/products.json")
-     * @return a list of deserialized ProductDTO objects
+     * @return a list of deserialized ProductDTO objects, in file order and without {@code null} elements
      * @throws IllegalArgumentException if the path is null or empty
-     * @throws DataSourceInitializationException if the file is missing or unreadable
+     * @throws DataSourceInitializationException if the file is missing, unreadable or not a JSON array
      */
     public List<ProductDTO> loadProductsFromJson(String jsonFilePath) {
+        List<ProductDTO> products = new ArrayList<>();
+        streamProductsFromJson(jsonFilePath, dto -> {
+            if (dto != null) {
+                products.add(dto);
+            }
+        });
+        return products;
+    }
+
+    /**
+     * Streams the products of a JSON array file to a consumer, one at a time, in file order.
+     * <p>
+     * The file is read with a {@link JsonParser}; each array element is bound to a {@link ProductDTO} and passed
+     * to the consumer before the next one is parsed. {@code null} elements are passed on as {@code null}, so that
+     * the consumer can report them. Progress is logged every {@value #PROGRESS_INTERVAL} products.
+     * </p>
+     *
+     * @param jsonFilePath path to the JSON file (e.g., "classpath:data/products.json")
+     * @param consumer     receives every parsed product, or {@code null} for a {@code null} element
+     * @return the number of elements passed to the consumer
+     * @throws IllegalArgumentException if the path is null or empty
+     * @throws DataSourceInitializationException if the file is missing, unreadable or not a JSON array
+     */
+    public long streamProductsFromJson(String jsonFilePath, Consumer<ProductDTO> consumer) {
+        Resource resource = resolve(jsonFilePath);
+
+        try (InputStream inputStream = resource.getInputStream();
+             JsonParser parser = objectMapper.getFactory().createParser(inputStream)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new DataSourceInitializationException(NOT_AN_ARRAY_ERROR + jsonFilePath);
+            }
+
+            long count = 0;
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (token == null) {
+                    throw new DataSourceInitializationException(TRUNCATED_FILE_ERROR + jsonFilePath);
+                }
+                consumer.accept(token == JsonToken.VALUE_NULL
+                        ? null
+                        : objectMapper.readValue(parser, ProductDTO.class));
+                count++;
+                if (count % PROGRESS_INTERVAL == 0) {
+                    log.info("Parsed {} products from {}", count, jsonFilePath);
+                }
+            }
+            log.info("Finished parsing {} products from {}", count, jsonFilePath);
+            return count;
+        }
+        catch (IOException e) {
+            throw new DataSourceInitializationException(FILE_READ_ERROR + jsonFilePath, e);
+        }
+    }
 
+    private Resource resolve(String jsonFilePath) {
         if (jsonFilePath == null || jsonFilePath.trim().isEmpty()) {
             throw new IllegalArgumentException(INVALID_PATH_ERROR);
         }
@@ -50,17 +121,6 @@ public class ProductDataSource {
         if (!resource.exists()) {
             throw new DataSourceInitializationException(FILE_NOT_FOUND_ERROR + jsonFilePath);
         }
-
-        try {
-            return objectMapper.readValue(
-                    resource.getInputStream(),
-                    new TypeReference<>() {
-                    }
-            );
-        }
-        catch (IOException e) {
-            throw new DataSourceInitializationException(FILE_READ_ERROR + jsonFilePath, e);
-        }
+        return resource;
     }
 }
-
@@ -1,19 +1,46 @@
 package com.example.productcomparison.repository;
 
+import com.example.productcomparison.config.ConditionalOnLocalCatalog;
 import com.example.productcomparison.exception.repository.*;
 import com.example.productcomparison.exception.service.ProductNotFoundException;
+import com.example.productcomparison.model.MutationResult;
 import com.example.productcomparison.model.Product;
 import com.example.productcomparison.model.ProductDTO;
+import com.example.productcomparison.model.ProductMutation;
+import com.example.productcomparison.repository.index.CategoryIndex;
+import com.example.productcomparison.repository.index.NumericIndex;
+import com.example.productcomparison.repository.index.PersistentProductList;
+import com.example.productcomparison.repository.index.ProductColumns;
+import com.example.productcomparison.repository.index.SpecificationIndex;
+import com.example.productcomparison.repository.index.TrigramIndex;
+import com.example.productcomparison.repository.storage.CatalogFile;
+import com.example.productcomparison.repository.storage.EncodedSpecifications;
+import com.example.productcomparison.repository.storage.SpecificationDictionary;
+import com.example.productcomparison.repository.storage.WriteAheadLog;
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Repository;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
 
 /**
  * Product repository that manages in-memory storage of products.
@@ -28,19 +55,82 @@ import java.util.concurrent.ConcurrentHashMap;
  *   <li>CRUD operations (Create, Read, Update, Delete) on products</li>
  *   <li>Product validation through {@link ProductMapper}</li>
  *   <li>Thread-safe in-memory storage</li>
+ *   <li>Case-insensitive category index maintained on every write</li>
+ *   <li>Columnar store with dense price and rating columns addressed by product ordinal</li>
+ *   <li>Ordered price index for range queries and price sorting</li>
+ *   <li>Ordered rating index for top-rated, minimum rating and rating sorting queries</li>
+ *   <li>Inverted specification index for key/value lookups</li>
+ *   <li>Trigram index for case-insensitive substring search on product names</li>
+ *   <li>Versioned, immutable catalog snapshots shared by readers without copying</li>
+ *   <li>Dictionary-encoded specifications shared across products, compacted by {@link DictionaryCompactor}</li>
+ *   <li>Binary catalog snapshots for fast restarts</li>
+ *   <li>Write-ahead log of every mutation, replayed on startup</li>
+ *   <li>Incremental reload of the JSON source, applied as a single version switch</li>
+ *   <li>Batches of creates, updates and deletes published as a single version</li>
+ *   <li>Change listeners notified of every mutation in order, which feed replication</li>
  * </ul>
  *
+ * <h2>Indexes:</h2>
+ * <p>
+ * Secondary indexes are updated together with {@link #inMemoryProducts} under a write lock,
+ * and index lookups and lookups by ID run under the matching read lock, so a query never observes a product
+ * map and an index that disagree, nor some of the changes of a reload or batch but not the others.
+ * </p>
+ *
+ * <h2>Snapshots:</h2>
+ * <p>
+ * Every mutation increments the catalog version and publishes an immutable {@link CatalogSnapshot} for it.
+ * The products are also kept in a {@link PersistentProductList}, whose published views share every chunk of
+ * the list that did not change, so publishing a version only copies what the write touched. {@link #findAll()}
+ * and {@link #snapshot()} return the published snapshot without locking or copying anything.
+ * </p>
+ *
+ * <h2>Binary catalog snapshots:</h2>
+ * <p>
+ * When {@code product.data.snapshot-file} is set, the catalog is loaded from that {@link CatalogFile} on boot
+ * instead of the JSON source. If the file is missing or fails its checksum, the JSON source is used and a fresh
+ * snapshot is written right after loading it. The snapshot is rewritten on shutdown if the catalog changed,
+ * and can be written at any time with {@link #writeSnapshot(Path)}. JSON remains the seed and interchange format.
+ * </p>
+ *
+ * <h2>Write-ahead log:</h2>
+ * <p>
+ * When {@code product.wal.directory} is set, every save, update and delete is appended to the
+ * {@link WriteAheadLog} under the write lock, before it is applied, and the log is replayed on top of the
+ * snapshot or JSON catalog on startup. Writers wait for the log to reach the configured durability only after
+ * releasing the write lock, so concurrent writers share one {@code fsync} and readers are never held up by it.
+ * If the log fails before it has persisted a change, every change it did not persist is undone, in reverse
+ * order, reported to the change listeners and published as a new version, and the writers waiting for them fail.
+ * The catalog therefore never keeps a change the log lost, although readers may have seen it in the meantime.
+ * {@link #checkpoint()} writes the snapshot once the log has persisted every change in it and drops the log files
+ * it covers, which keeps the log, and the replay on the next start, bounded; {@link CatalogCheckpointer} runs it in
+ * the background.
+ * </p>
+ *
+ * <h2>Reloading the source:</h2>
+ * <p>
+ * {@link #reload()} re-reads {@code product.data.json-file} and compares it with the catalog by ID and content.
+ * Only products that were added, changed or removed are logged and applied to the map and the indexes, all under
+ * one write lock and one version increment, so readers and snapshots switch from the old catalog to the new one
+ * in a single step. Products that are not in the file any more are deleted, including ones created through the
+ * API. {@link CatalogFileWatcher} calls it when the file changes.
+ * </p>
+ *
  * <h2>Required configuration:</h2>
  * <p>
  * The {@code product.data.json-file} property must be defined in the Spring Boot
  * configuration file (application.properties or application.yml) specifying the path
  * to the JSON file with initial product data.
+ * This is the default implementation; it is active unless {@code product.repository.type}
+ * selects another one, such as {@link OffHeapProductRepository}.
  * </p>
  *
  * <h2>Dependencies:</h2>
  * <ul>
- *   <li>{@link ProductDataSource} - Data source to load products from JSON</li>
+ *   <li>{@link ProductCatalogLoader} - Loads and validates the initial products from JSON</li>
  *   <li>{@link ProductMapper} - Mapper between DTOs and domain entities</li>
+ *   <li>{@link SpecificationDictionary} - Shared codes for specification keys and values</li>
+ *   <li>{@link WriteAheadLog} - Durable log of mutations</li>
  * </ul>
  *
  * <h2>Exception handling:</h2>
@@ -52,25 +142,95 @@ import java.util.concurrent.ConcurrentHashMap;
  * @see Product
  * @see ProductDTO
  * @see IProductRepository
- * @see ProductDataSource
+ * @see ProductCatalogLoader
  * @see ProductMapper
  */
 @Repository
+@ConditionalOnProperty(name = "product.repository.type", havingValue = "memory", matchIfMissing = true)
+@ConditionalOnLocalCatalog
 @RequiredArgsConstructor
 @Slf4j
-public class ProductRepository implements IProductRepository {
+public class ProductRepository implements IProductRepository, DictionaryEncodedRepository {
 
-    private final ProductDataSource productDataSource;
+    private final ProductCatalogLoader productCatalogLoader;
     private final ProductMapper productMapper;
     private final ProductValidator productValidator;
+    private final SpecificationDictionary specificationDictionary;
+    private final WriteAheadLog writeAheadLog;
 
 
     @Value("${product.data.json-file}")
     private String jsonFilePath;
 
+    @Value("${product.data.snapshot-file:}")
+    private String snapshotFilePath;
+
     private final ConcurrentHashMap<String, Product> inMemoryProducts = new ConcurrentHashMap<>();
+    private final CategoryIndex categoryIndex = new CategoryIndex();
+    private final ProductColumns columns = new ProductColumns();
+    private final NumericIndex priceIndex = new NumericIndex(columns::price);
+    private final NumericIndex ratingIndex = new NumericIndex(columns::rating);
+    private final SpecificationIndex specificationIndex = new SpecificationIndex();
+    private final TrigramIndex nameIndex = new TrigramIndex();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final List<WriteAheadLog.MutationHandler> changeListeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Logged changes the write-ahead log may not have persisted yet, oldest first, with the state they replaced.
+     * Only kept when writers wait for the log. Guarded by the write lock.
+     */
+    private final ArrayDeque<Undo> undoLog = new ArrayDeque<>();
+
+    private final PersistentProductList productList = new PersistentProductList();
+
+    /**
+     * Incremented under the write lock on every mutation, together with {@link #currentSnapshot}.
+     */
+    private volatile long version;
+    private volatile CatalogSnapshot currentSnapshot = CatalogSnapshot.EMPTY;
+    private volatile long snapshotFileVersion = -1;
+    private final Object checkpointLock = new Object();
+    private final Object compactionLock = new Object();
+
+    /**
+     * Result of a {@link #reload()}.
+     *
+     * @param inserted       products that were not in the catalog
+     * @param updated        products whose content changed
+     * @param deleted        products that are no longer in the source
+     * @param catalogVersion catalog version after the reload
+     */
+    public record Reload(int inserted, int updated, int deleted, long catalogVersion) {
+
+        public boolean changed() {
+            return inserted + updated + deleted > 0;
+        }
+    }
+
+    /**
+     * Result of a {@link #checkpoint()}.
+     *
+     * @param catalogVersion catalog version written to the snapshot
+     * @param bytes          size of the snapshot file
+     */
+    public record Checkpoint(long catalogVersion, long bytes) {
+    }
+
+    /**
+     * State of a product before a logged change, restored if the log fails to persist the change.
+     *
+     * @param sequence write-ahead log sequence of the change
+     * @param previous the product before the change, {@code null} if it did not exist
+     */
+    private record Undo(long sequence, String id, Product previous) {
+    }
+
+    /** Reloads that change more than 1/8 of the catalog rebuild the ordered indexes instead of patching them. */
+    private static final int REBUILD_FRACTION = 8;
+
+    /** Products re-encoded per write lock acquisition when the specification dictionary is compacted. */
+    static final int COMPACTION_CHUNK_SIZE = 1024;
 
-    private static final String ERROR_LOAD_PRODUCTS = "Failed to load products from ";
     private static final String ERROR_PRODUCT_EXISTS = "Product with ID %s already exists";
     private static final String ERROR_PRODUCT_NOT_FOUND = "Product with ID %s not found";
     private static final String ERROR_LOG_MESSAGE_FORMAT = "{} for product: {}";
@@ -81,36 +241,31 @@ public class ProductRepository implements IProductRepository {
         loadInitialData();
     }
 
-    private List<ProductDTO> loadProductsFromFile() {
+    private void loadInitialData() {
+        boolean loadedFromSnapshot;
+        lock.writeLock().lock();
         try {
-            List<ProductDTO> dtos = productDataSource.loadProductsFromJson(jsonFilePath);
-            if (dtos == null || dtos.isEmpty()) {
-                return List.of();
+            loadedFromSnapshot = loadFromSnapshotFile();
+            if (!loadedFromSnapshot) {
+                productCatalogLoader.load(jsonFilePath, product -> store(product, false));
             }
-            return dtos;
-        } catch (DataSourceInitializationException e) {
-            String errorMessage = ERROR_LOAD_PRODUCTS + jsonFilePath;
-            log.error(errorMessage, e);
-            throw new ProductDataAccessException(errorMessage, e);
-        }
-    }
+            writeAheadLog.replay(new WriteAheadLog.MutationHandler() {
+                @Override
+                public void put(Product product) {
+                    store(product, false);
+                }
 
-    private void loadInitialData() {
-        try {
-            List<ProductDTO> dtos = loadProductsFromFile();
-            dtos.forEach(dto -> {
-                try {
-                    Product product = productMapper.toDomain(dto);
-                    if (productValidator.validateProduct(product)) {
-                        inMemoryProducts.put(product.getId(), product);
-                    } else {
-                        log.warn("Product {} ignored: validation failed", product.getId());
-                    }
-                } catch (IllegalArgumentException e) {
-                    log.warn("Invalid product data from source, skipping product with ID: {}",
-                            dto.getId(), e);
+                @Override
+                public void delete(String id) {
+                    evict(id);
                 }
             });
+            writeAheadLog.open();
+            rebuildOrderedIndexes();
+            publish();
+            if (loadedFromSnapshot) {
+                snapshotFileVersion = version;
+            }
             log.info("Successfully loaded {} products into memory", inMemoryProducts.size());
         } catch (ProductDataAccessException e) {
             log.error("Failed to load initial product data", e);
@@ -119,25 +274,757 @@ public class ProductRepository implements IProductRepository {
             String errorMessage = "Unexpected error during initial data load";
             log.error(errorMessage, e);
             throw new ProductDataAccessException(errorMessage, e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        if (!loadedFromSnapshot) {
+            writeConfiguredSnapshot();
+        }
+    }
+
+    /**
+     * Loads the configured binary snapshot, if there is one.
+     * A snapshot that cannot be read is discarded so the caller can fall back to the JSON source.
+     * Must be called while holding the write lock.
+     *
+     * @return {@code true} if the catalog was loaded from the snapshot
+     */
+    private boolean loadFromSnapshotFile() {
+        Path snapshotFile = snapshotFile();
+        if (snapshotFile == null || !Files.isRegularFile(snapshotFile)) {
+            return false;
+        }
+        try {
+            CatalogFile.Header header = CatalogFile.read(snapshotFile, product -> store(product, false));
+            log.info("Loaded {} products from catalog snapshot {} written at version {}",
+                    header.productCount(), snapshotFile, header.catalogVersion());
+            return true;
+        } catch (IOException | RuntimeException e) {
+            log.warn("Ignoring unreadable catalog snapshot {}, loading {} instead", snapshotFile, jsonFilePath, e);
+            clear();
+            return false;
+        }
+    }
+
+    /**
+     * Writes the current catalog to {@code target} as a binary {@link CatalogFile}.
+     *
+     * @param target file to write; it is replaced atomically where the file system allows it
+     * @return the catalog version that was written
+     * @throws ProductDataAccessException if the file cannot be written
+     */
+    public long writeSnapshot(Path target) {
+        CatalogSnapshot snapshot = snapshot();
+        try {
+            CatalogFile.write(target, snapshot.getVersion(), snapshot.getProducts());
+            log.info("Wrote catalog snapshot of {} products at version {} to {}",
+                    snapshot.size(), snapshot.getVersion(), target);
+            return snapshot.getVersion();
+        } catch (IOException e) {
+            throw new ProductDataAccessException("Failed to write catalog snapshot to " + target, e);
+        }
+    }
+
+    /**
+     * Re-reads the JSON source and applies the difference with the catalog as one change.
+     * <p>
+     * The file is parsed and compared outside the lock; only the products that differ are kept in memory.
+     * They are compared again under a single write lock acquisition, since writers may have changed the catalog
+     * meanwhile, and what still differs is logged, applied and published as one new version. Small changes
+     * update the ordered indexes in place; large ones rebuild them once.
+     * </p>
+     *
+     * @return what changed
+     * @throws ProductDataAccessException if the source cannot be read or the changes cannot be logged; the catalog
+     *                                    is left untouched, or restored if the log fails after they were applied
+     */
+    public Reload reload() {
+        List<Product> candidates = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        productCatalogLoader.load(jsonFilePath, product -> {
+            seen.add(product.getId());
+            if (!product.equals(inMemoryProducts.get(product.getId()))) {
+                candidates.add(product);
+            }
+        });
+
+        long logSequence = 0;
+        int inserted = 0;
+        int deleted = 0;
+        long newVersion;
+        List<Product> upserts = new ArrayList<>(candidates.size());
+        lock.writeLock().lock();
+        try {
+            for (Product product : candidates) {
+                Product current = inMemoryProducts.get(product.getId());
+                if (current == null) {
+                    inserted++;
+                    upserts.add(product);
+                } else if (!current.equals(product)) {
+                    upserts.add(product);
+                }
+            }
+            List<String> deletes = new ArrayList<>();
+            for (String id : inMemoryProducts.keySet()) {
+                if (!seen.contains(id)) {
+                    deletes.add(id);
+                }
+            }
+            if (upserts.isEmpty() && deletes.isEmpty()) {
+                return new Reload(0, 0, 0, version);
+            }
+
+            // Log everything first, so that a failing log leaves the catalog untouched.
+            long[] sequences = new long[upserts.size() + deletes.size()];
+            int next = 0;
+            for (Product product : upserts) {
+                sequences[next++] = writeAheadLog.appendPut(product);
+            }
+            for (String id : deletes) {
+                sequences[next++] = writeAheadLog.appendDelete(id);
+            }
+            next = 0;
+            for (Product product : upserts) {
+                logged(sequences[next++], product.getId());
+            }
+            for (String id : deletes) {
+                logged(sequences[next++], id);
+            }
+            logSequence = sequences[sequences.length - 1];
+
+            boolean rebuild = upserts.size() + deletes.size() > inMemoryProducts.size() / REBUILD_FRACTION;
+            for (Product product : upserts) {
+                store(product, !rebuild);
+            }
+            deletes.forEach(this::evict);
+            upserts.forEach(this::notifyPut);
+            deletes.forEach(this::notifyDelete);
+            if (rebuild) {
+                rebuildOrderedIndexes();
+            }
+            publish();
+            deleted = deletes.size();
+            newVersion = version;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        awaitDurable(logSequence);
+
+        Reload reload = new Reload(inserted, upserts.size() - inserted, deleted, newVersion);
+        log.info("Reloaded {}: {} inserted, {} updated, {} deleted, now at version {}",
+                jsonFilePath, reload.inserted(), reload.updated(), reload.deleted(), newVersion);
+        return reload;
+    }
+
+    /**
+     * Writes the catalog to the configured snapshot file and drops the write-ahead log files it covers.
+     * <p>
+     * The log is rolled first, then the catalog is captured under the read lock, so the snapshot contains every
+     * entry of the files that are dropped. The published snapshot is taken as is, so writers are only held up
+     * while the read lock is acquired; the file is written outside the lock. Checkpoints are serialized with each
+     * other.
+     * </p>
+     * <p>
+     * Writers publish their changes before the log has persisted them, so the captured snapshot may contain
+     * changes that are not durable yet. The checkpoint waits for the log to persist the last entry the snapshot
+     * contains before writing the file; if the log fails instead, those changes are undone and the checkpoint is
+     * aborted, so a snapshot file never brings back a change the caller was told had failed.
+     * </p>
+     *
+     * @return the catalog version and size of the written snapshot
+     * @throws ProductDataAccessException if no snapshot file is configured, the log fails before persisting every
+     *                                    change in the snapshot, or the file cannot be written
+     */
+    public Checkpoint checkpoint() {
+        Path snapshotFile = snapshotFile();
+        if (snapshotFile == null) {
+            throw new ProductDataAccessException("No catalog snapshot file configured (product.data.snapshot-file)");
+        }
+        synchronized (checkpointLock) {
+            long firstUncoveredEntry = writeAheadLog.roll();
+            CatalogSnapshot snapshot;
+            long lastIncludedEntry;
+            lock.readLock().lock();
+            try {
+                // Taking the lock waits for a writer that logged an entry but has not published it yet.
+                snapshot = snapshot();
+                lastIncludedEntry = writeAheadLog.lastSequence();
+            } finally {
+                lock.readLock().unlock();
+            }
+            try {
+                awaitDurable(lastIncludedEntry);
+            } catch (ProductDataAccessException e) {
+                throw new ProductDataAccessException("Checkpoint at version " + snapshot.getVersion()
+                        + " aborted: the write-ahead log did not persist every change it contains", e);
+            }
+            long bytes;
+            try {
+                CatalogFile.write(snapshotFile, snapshot.getVersion(), snapshot.getProducts());
+                bytes = Files.size(snapshotFile);
+            } catch (IOException e) {
+                throw new ProductDataAccessException("Failed to write catalog snapshot to " + snapshotFile, e);
+            }
+            snapshotFileVersion = snapshot.getVersion();
+            int deleted = writeAheadLog.deleteBefore(firstUncoveredEntry);
+            log.info("Checkpointed {} products at version {} to {} ({} bytes), dropped {} write-ahead log file(s)",
+                    snapshot.size(), snapshot.getVersion(), snapshotFile, bytes, deleted);
+            return new Checkpoint(snapshot.getVersion(), bytes);
+        }
+    }
+
+    /**
+     * @return whether a snapshot file is configured, so that {@link #checkpoint()} can run
+     */
+    public boolean isCheckpointEnabled() {
+        return snapshotFile() != null;
+    }
+
+    /**
+     * Checkpoints on shutdown if the catalog changed since the snapshot was last written.
+     */
+    @PreDestroy
+    public void flushSnapshot() {
+        if (snapshotFileVersion != version) {
+            writeConfiguredSnapshot();
+        }
+    }
+
+    private void writeConfiguredSnapshot() {
+        if (!isCheckpointEnabled()) {
+            return;
+        }
+        try {
+            checkpoint();
+        } catch (ProductDataAccessException e) {
+            log.warn("Could not write catalog snapshot; the next start will load {}", jsonFilePath, e);
+        }
+    }
+
+    private Path snapshotFile() {
+        return snapshotFilePath == null || snapshotFilePath.isBlank() ? null : Path.of(snapshotFilePath);
+    }
+
+    /**
+     * Applies the batch under a single write lock acquisition and publishes it as one new catalog version.
+     * <p>
+     * Every mutation is validated and logged like a single write and fails on its own; the ones that succeed
+     * are applied in order. Every read, including {@link #findById(String)}, takes the read lock, so readers
+     * never see part of a batch, and the caller waits for one write-ahead log flush instead of one per mutation.
+     * Batches that touch more than 1/8 of the catalog rebuild the ordered indexes once at the end instead of
+     * repositioning them for every product. If the log fails before the flush, the applied mutations are undone
+     * and reported as failed.
+     * </p>
+     */
+    @Override
+    public List<MutationResult> applyBatch(List<ProductMutation> mutations) {
+        List<MutationResult> results = new ArrayList<>(mutations.size());
+        long logSequence = 0;
+        int applied = 0;
+        lock.writeLock().lock();
+        try {
+            boolean rebuild = mutations.size() > inMemoryProducts.size() / REBUILD_FRACTION;
+            for (int i = 0; i < mutations.size(); i++) {
+                ProductMutation mutation = mutations.get(i);
+                try {
+                    logSequence = apply(mutation, !rebuild);
+                    results.add(MutationResult.applied(i, mutation));
+                    applied++;
+                } catch (RuntimeException e) {
+                    log.warn("Batch item {} ({} {}) failed: {}", i, mutation.getOp(), mutation.targetId(),
+                            e.getMessage());
+                    results.add(MutationResult.failed(i, mutation, e));
+                }
+            }
+            if (applied > 0) {
+                if (rebuild) {
+                    rebuildOrderedIndexes();
+                }
+                publish();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        try {
+            awaitDurable(logSequence);
+        } catch (ProductDataAccessException e) {
+            log.error("Batch of {} mutations was not persisted and has been undone", mutations.size(), e);
+            for (int i = 0; i < results.size(); i++) {
+                if (results.get(i).isApplied()) {
+                    results.set(i, MutationResult.failed(i, mutations.get(i), e));
+                }
+            }
+            return results;
+        }
+        log.info("Applied batch of {} mutations: {} applied, {} failed",
+                mutations.size(), applied, mutations.size() - applied);
+        return results;
+    }
+
+    /**
+     * Validates, logs and stores one mutation of a batch, without publishing it.
+     * Must be called while holding the write lock.
+     *
+     * @return the write-ahead log sequence of the mutation
+     */
+    private long apply(ProductMutation mutation, boolean maintainOrder) {
+        mutation.validate();
+        String id = mutation.targetId();
+        if (mutation.getOp() == ProductMutation.Operation.DELETE) {
+            if (!inMemoryProducts.containsKey(id)) {
+                throw new ProductNotFoundException(id);
+            }
+            long logSequence = logged(writeAheadLog.appendDelete(id), id);
+            evict(id);
+            notifyDelete(id);
+            return logSequence;
+        }
+
+        Product product = mutation.getProduct();
+        if (mutation.getOp() == ProductMutation.Operation.UPDATE) {
+            if (!inMemoryProducts.containsKey(id)) {
+                throw new ProductNotFoundException(id);
+            }
+            product = product.toBuilder().id(id).build();
+        }
+        productValidator.validateDto(productMapper.toDto(product));
+        if (!productValidator.validateProduct(product)) {
+            throw new ProductValidationException(
+                    "Product validation failed: price must be >= 0 and rating between 0 and 5");
+        }
+        if (mutation.getOp() == ProductMutation.Operation.CREATE && inMemoryProducts.containsKey(id)) {
+            throw new ProductAlreadyExistsException(id);
+        }
+        long logSequence = logged(writeAheadLog.appendPut(product), id);
+        store(product, maintainOrder);
+        notifyPut(product);
+        return logSequence;
+    }
+
+    /**
+     * Remembers the current state of the product, so that the logged change can be undone if the write-ahead log
+     * fails before persisting it, and forgets the changes it has persisted meanwhile.
+     * Must be called while holding the write lock, after the change was logged and before it is applied.
+     *
+     * @return {@code sequence}
+     */
+    private long logged(long sequence, String id) {
+        if (writeAheadLog.waitsForDurability()) {
+            long durable = writeAheadLog.durableSequence();
+            while (!undoLog.isEmpty() && undoLog.peekFirst().sequence() <= durable) {
+                undoLog.pollFirst();
+            }
+            undoLog.addLast(new Undo(sequence, id, inMemoryProducts.get(id)));
+        }
+        return sequence;
+    }
+
+    /**
+     * Waits for the write-ahead log to persist the entry, and undoes every change it did not persist if it fails.
+     * Must be called without holding the lock.
+     *
+     * @throws ProductDataAccessException if the log failed; the change has been undone
+     */
+    private void awaitDurable(long sequence) {
+        try {
+            writeAheadLog.awaitDurable(sequence);
+        } catch (ProductDataAccessException e) {
+            undoUnpersistedChanges();
+            throw e;
+        }
+    }
+
+    /**
+     * Restores, newest first, the state before every change the failed log did not persist, reports the
+     * restored state to the change listeners and publishes it. The first writer that notices the failure undoes
+     * the changes of every writer; since a failed log rejects further appends, no change can follow them.
+     */
+    private void undoUnpersistedChanges() {
+        lock.writeLock().lock();
+        try {
+            long durable = writeAheadLog.durableSequence();
+            int undone = 0;
+            while (!undoLog.isEmpty() && undoLog.peekLast().sequence() > durable) {
+                Undo undo = undoLog.pollLast();
+                if (undo.previous() == null) {
+                    evict(undo.id());
+                    notifyDelete(undo.id());
+                } else {
+                    store(undo.previous());
+                    notifyPut(undo.previous());
+                }
+                undone++;
+            }
+            if (undone > 0) {
+                publish();
+                log.warn("Undid {} change(s) the write-ahead log did not persist", undone);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Drops every product from the map, the columns and the indexes.
+     * Must be called while holding the write lock.
+     */
+    private void clear() {
+        inMemoryProducts.clear();
+        specificationDictionary.startGeneration();
+        productList.clear();
+        columns.clear();
+        priceIndex.clear();
+        ratingIndex.clear();
+        categoryIndex.clear();
+        specificationIndex.clear();
+        nameIndex.clear();
+    }
+
+    private void store(Product product) {
+        store(product, true);
+    }
+
+    /**
+     * Puts the product in the map, the columns and the indexes, replacing any previous version.
+     * The stored copy carries {@link EncodedSpecifications} instead of the caller's specification map.
+     * Bulk loads pass {@code maintainOrder = false} and call {@link #rebuildOrderedIndexes()} once at the end,
+     * instead of repositioning the ordered indexes for every product.
+     * Must be called while holding the write lock.
+     */
+    private void store(Product source, boolean maintainOrder) {
+        Product product = encodeSpecifications(source);
+        retain(product);
+        Product previous = inMemoryProducts.put(product.getId(), product);
+        if (previous != null) {
+            unindex(previous);
+            release(previous);
+        }
+        productList.put(product);
+        // Written at the version the next publish() makes visible.
+        int ordinal = columns.put(product, version + 1);
+        if (maintainOrder) {
+            priceIndex.add(ordinal);
+            ratingIndex.add(ordinal);
+        }
+        categoryIndex.add(product);
+        specificationIndex.add(product);
+        nameIndex.add(product);
+    }
+
+    /**
+     * Removes the product from the map, the columns and the indexes.
+     * Must be called while holding the write lock.
+     */
+    private void evict(String id) {
+        Product previous = inMemoryProducts.remove(id);
+        if (previous != null) {
+            unindex(previous);
+            release(previous);
+            columns.remove(id);
+            productList.remove(id);
+        }
+    }
+
+    /**
+     * Encodes the specifications with the current dictionary generation, unless they already are.
+     */
+    private Product encodeSpecifications(Product product) {
+        Map<String, String> specifications = product.getSpecifications();
+        if (specifications == null) {
+            return product;
         }
+        EncodedSpecifications encoded = EncodedSpecifications.of(specifications, specificationDictionary);
+        return encoded == specifications ? product : product.toBuilder().specifications(encoded).build();
+    }
+
+    private static void retain(Product product) {
+        if (product.getSpecifications() instanceof EncodedSpecifications encoded) {
+            encoded.retain();
+        }
+    }
+
+    private static void release(Product product) {
+        if (product.getSpecifications() instanceof EncodedSpecifications encoded) {
+            encoded.release();
+        }
+    }
+
+    /**
+     * Re-encodes every product with a new dictionary generation once most codes of the current one are no longer
+     * used, so that strings of deleted and updated products do not accumulate. Products keep their rows, their
+     * versions and their index entries; only their specification codes change.
+     * <p>
+     * The new generation is started under the write lock, and products written from then on are encoded with it.
+     * The other products are re-encoded outside the lock, in chunks of {@value #COMPACTION_CHUNK_SIZE}, and each
+     * chunk is swapped in under one short write lock acquisition, skipping the products written meanwhile.
+     * Until then they keep decoding with the previous generation. Compactions are serialized with each other.
+     * </p>
+     *
+     * @return whether the dictionary needed compaction and was compacted
+     */
+    @Override
+    public boolean compactDictionary() {
+        synchronized (compactionLock) {
+            List<Product> products;
+            int before;
+            lock.writeLock().lock();
+            try {
+                if (!specificationDictionary.needsCompaction()) {
+                    return false;
+                }
+                before = specificationDictionary.size();
+                specificationDictionary.startGeneration();
+                products = currentSnapshot.getProducts();
+            } finally {
+                lock.writeLock().unlock();
+            }
+            int reencoded = 0;
+            for (int from = 0; from < products.size(); from += COMPACTION_CHUNK_SIZE) {
+                List<Product> chunk = products.subList(from, Math.min(from + COMPACTION_CHUNK_SIZE, products.size()));
+                List<Product> encoded = new ArrayList<>(chunk.size());
+                for (Product product : chunk) {
+                    encoded.add(encodeSpecifications(product));
+                }
+                lock.writeLock().lock();
+                try {
+                    for (int i = 0; i < chunk.size(); i++) {
+                        Product product = encoded.get(i);
+                        if (product == chunk.get(i) || inMemoryProducts.get(product.getId()) != chunk.get(i)) {
+                            continue;
+                        }
+                        retain(product);
+                        inMemoryProducts.put(product.getId(), product);
+                        columns.put(product, columns.version(columns.ordinalOf(product.getId())));
+                        productList.put(product);
+                        reencoded++;
+                    }
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+            log.info("Compacted the specification dictionary from {} to {} strings, re-encoding {} products",
+                    before, specificationDictionary.size(), reencoded);
+            return true;
+        }
+    }
+
+    private void rebuildOrderedIndexes() {
+        int[] live = columns.liveOrdinals();
+        priceIndex.rebuild(live);
+        ratingIndex.rebuild(live);
+    }
+
+    /**
+     * Registers a listener that receives every save, update, delete and reloaded change of the catalog,
+     * in the order they are applied. Listeners are called while the write lock is held, so they must be fast.
+     * Products loaded on startup, from the source, a snapshot or the write-ahead log, are not reported.
+     *
+     * @param listener receives the new state of every changed product and the ID of every deleted one
+     */
+    public void addChangeListener(WriteAheadLog.MutationHandler listener) {
+        changeListeners.add(listener);
+    }
+
+    /**
+     * Runs {@code action} while holding the read lock. No write is in progress meanwhile, so every change
+     * reported to the change listeners so far is part of the catalog, and of the {@link #snapshot()}, it sees.
+     *
+     * @param action reads the catalog
+     * @return the result of the action
+     */
+    public <T> T readConsistently(Supplier<T> action) {
+        lock.readLock().lock();
+        try {
+            return action.get();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void notifyPut(Product product) {
+        for (WriteAheadLog.MutationHandler listener : changeListeners) {
+            listener.put(product);
+        }
+    }
+
+    private void notifyDelete(String id) {
+        for (WriteAheadLog.MutationHandler listener : changeListeners) {
+            listener.delete(id);
+        }
+    }
+
+    /**
+     * Publishes the current products as the snapshot of a new catalog version.
+     * Must be called while holding the write lock.
+     */
+    private void publish() {
+        currentSnapshot = new CatalogSnapshot(version + 1, productList.publish());
+        version++;
+    }
+
+    /**
+     * Removes the product from the indexes. The ordered indexes locate their entries through the columns,
+     * so this must run before the product's row is overwritten or released.
+     */
+    private void unindex(Product product) {
+        int ordinal = columns.ordinalOf(product.getId());
+        priceIndex.remove(ordinal);
+        ratingIndex.remove(ordinal);
+        categoryIndex.remove(product);
+        specificationIndex.remove(product);
+        nameIndex.remove(product);
+    }
+
+    /**
+     * Resolves index hits to products, preserving the index order.
+     * Must be called while holding the read or write lock.
+     */
+    private List<Product> resolve(Collection<String> ids) {
+        List<Product> products = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            products.add(inMemoryProducts.get(id));
+        }
+        return products;
     }
 
 
     @Override
     public List<Product> findAll() {
-        return new ArrayList<>(inMemoryProducts.values());
+        return snapshot().getProducts();
+    }
+
+    @Override
+    public CatalogSnapshot snapshot() {
+        return currentSnapshot;
     }
 
+    /**
+     * Reads under the read lock, so a lookup never sees part of a reload or batch that is still being applied.
+     */
     @Override
     public Optional<Product> findById(String id) {
         if (id == null || id.isBlank()) {
             return Optional.empty();
         }
-        return Optional.ofNullable(inMemoryProducts.get(id));
+        lock.readLock().lock();
+        try {
+            return Optional.ofNullable(inMemoryProducts.get(id));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public long catalogVersion() {
+        return version;
+    }
+
+    @Override
+    public OptionalLong productVersion(String id) {
+        lock.readLock().lock();
+        try {
+            int ordinal = columns.ordinalOf(id);
+            return ordinal < 0 ? OptionalLong.empty() : OptionalLong.of(columns.version(ordinal));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Product> findByCategory(String category) {
+        lock.readLock().lock();
+        try {
+            return resolve(categoryIndex.findIds(category));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<String> findAllCategories() {
+        lock.readLock().lock();
+        try {
+            return categoryIndex.categories();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Product> findByPriceRange(double minPrice, double maxPrice) {
+        lock.readLock().lock();
+        try {
+            return columns.rows(priceIndex.range(minPrice, maxPrice));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Product> findAllOrderedByPrice(boolean ascending) {
+        lock.readLock().lock();
+        try {
+            return columns.rows(priceIndex.ordered(ascending));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Product> findByMinRating(double minRating) {
+        lock.readLock().lock();
+        try {
+            return columns.rows(ratingIndex.atLeastDescending(minRating));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Product> findAllOrderedByRating(boolean ascending) {
+        lock.readLock().lock();
+        try {
+            return columns.rows(ratingIndex.ordered(ascending));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Product> findTopRated(int limit) {
+        lock.readLock().lock();
+        try {
+            return columns.rows(ratingIndex.top(limit));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Product> findBySpecification(String specKey, String specValue) {
+        lock.readLock().lock();
+        try {
+            return resolve(specificationIndex.findIds(specKey, specValue));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Product> findByNameContaining(String query) {
+        lock.readLock().lock();
+        try {
+            return resolve(nameIndex.search(query));
+        } finally {
+            lock.readLock().unlock();
+        }
     }
 
     @Override
     public Product save(Product product) {
+        long logSequence;
+        lock.writeLock().lock();
         try {
             productValidator.validateDto(productMapper.toDto(product));
 
@@ -147,9 +1034,10 @@ public class ProductRepository implements IProductRepository {
                 throw new ProductAlreadyExistsException(product.getId());
             }
 
-            inMemoryProducts.put(product.getId(), product);
-            log.info("Product saved successfully: {}", product.getId());
-            return product;
+            logSequence = logged(writeAheadLog.appendPut(product), product.getId());
+            store(product);
+            notifyPut(product);
+            publish();
         } catch (ProductAlreadyExistsException e) {
             throw e;
         } catch (IllegalArgumentException e) {
@@ -159,11 +1047,25 @@ public class ProductRepository implements IProductRepository {
             String errorMessage = "Unexpected error during product save";
             log.error(ERROR_LOG_MESSAGE_FORMAT, errorMessage, product.getId(), e);
             throw new ProductSaveException(product.getId(), errorMessage, e);
+        } finally {
+            lock.writeLock().unlock();
         }
+        try {
+            awaitDurable(logSequence);
+        } catch (ProductDataAccessException e) {
+            String errorMessage = "Product save was not persisted and has been undone";
+            log.error(ERROR_LOG_MESSAGE_FORMAT, errorMessage, product.getId(), e);
+            throw new ProductSaveException(product.getId(), errorMessage, e);
+        }
+        log.info("Product saved successfully: {}", product.getId());
+        return product;
     }
 
     @Override
     public Product update(String id, Product product) {
+        Product updatedProduct;
+        long logSequence;
+        lock.writeLock().lock();
         try {
             if (!inMemoryProducts.containsKey(id)) {
                 String errorMessage = String.format(ERROR_PRODUCT_NOT_FOUND, id);
@@ -171,12 +1073,13 @@ public class ProductRepository implements IProductRepository {
                 throw new ProductNotFoundException(id);
             }
 
-            Product updatedProduct = product.toBuilder().id(id).build();
+            updatedProduct = product.toBuilder().id(id).build();
             productValidator.validateDto(productMapper.toDto(updatedProduct));
 
-            inMemoryProducts.put(id, updatedProduct);
-            log.info("Product updated successfully: {}", id);
-            return updatedProduct;
+            logSequence = logged(writeAheadLog.appendPut(updatedProduct), id);
+            store(updatedProduct);
+            notifyPut(updatedProduct);
+            publish();
         } catch (ProductNotFoundException e) {
             throw e;
         } catch (IllegalArgumentException e) {
@@ -186,11 +1089,24 @@ public class ProductRepository implements IProductRepository {
             String errorMessage = "Unexpected error during product update";
             log.error(ERROR_LOG_MESSAGE_FORMAT, errorMessage, id, e);
             throw new ProductUpdateException(id, errorMessage, e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        try {
+            awaitDurable(logSequence);
+        } catch (ProductDataAccessException e) {
+            String errorMessage = "Product update was not persisted and has been undone";
+            log.error(ERROR_LOG_MESSAGE_FORMAT, errorMessage, id, e);
+            throw new ProductUpdateException(id, errorMessage, e);
         }
+        log.info("Product updated successfully: {}", id);
+        return updatedProduct;
     }
 
     @Override
     public void deleteById(String id) {
+        long logSequence;
+        lock.writeLock().lock();
         try {
             if (!inMemoryProducts.containsKey(id)) {
                 String errorMessage = String.format(ERROR_PRODUCT_NOT_FOUND, id);
@@ -198,15 +1114,28 @@ public class ProductRepository implements IProductRepository {
                 throw new ProductNotFoundException(id);
             }
 
-            inMemoryProducts.remove(id);
-            log.info("Product deleted successfully: {}", id);
+            logSequence = logged(writeAheadLog.appendDelete(id), id);
+            evict(id);
+            notifyDelete(id);
+            publish();
         } catch (ProductNotFoundException e) {
             throw e;
         } catch (Exception e) {
             String errorMessage = "Unexpected error during product deletion";
             log.error(ERROR_LOG_MESSAGE_FORMAT, errorMessage, id, e);
             throw new ProductDeleteException(id, errorMessage, e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        try {
+            awaitDurable(logSequence);
+        } catch (ProductDataAccessException e) {
+            String errorMessage = "Product deletion was not persisted and has been undone";
+            log.error(ERROR_LOG_MESSAGE_FORMAT, errorMessage, id, e);
+            throw new ProductDeleteException(id, errorMessage, e);
         }
+        log.info("Product deleted successfully: {}", id);
     }
 
+
 }
\ No newline at end of file
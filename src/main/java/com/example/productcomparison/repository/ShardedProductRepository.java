@@ -0,0 +1,705 @@
+package com.example.productcomparison.repository;
+
+import com.example.productcomparison.config.ConditionalOnLocalCatalog;
+import com.example.productcomparison.exception.repository.*;
+import com.example.productcomparison.exception.service.ProductNotFoundException;
+import com.example.productcomparison.model.MutationResult;
+import com.example.productcomparison.model.Product;
+import com.example.productcomparison.model.ProductMutation;
+import com.example.productcomparison.repository.index.CategoryIndex;
+import com.example.productcomparison.repository.index.NumericIndex;
+import com.example.productcomparison.repository.index.ProductColumns;
+import com.example.productcomparison.repository.index.SpecificationIndex;
+import com.example.productcomparison.repository.index.TrigramIndex;
+import com.example.productcomparison.repository.storage.EncodedSpecifications;
+import com.example.productcomparison.repository.storage.SpecificationDictionary;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+import static com.example.productcomparison.repository.SortedMerge.concatenate;
+import static com.example.productcomparison.repository.SortedMerge.merge;
+
+/**
+ * Product repository that partitions the catalog into shards queried in parallel.
+ * <p>
+ * Every product is assigned to one of N shards by the hash of its ID. Each shard is a small copy of
+ * {@link ProductRepository}: its own product map, {@link ProductColumns} and indexes, guarded by its own
+ * read-write lock. A write locks only the shard that owns the product, so writes to different shards do not
+ * wait for each other, and a query never waits for a write to another shard.
+ * </p>
+ *
+ * <h2>Queries:</h2>
+ * <p>
+ * Queries are scattered to every shard on a dedicated {@link ForkJoinPool}, with the calling thread answering
+ * the first shard itself, and the partial results are gathered when all shards have answered. Ordered results,
+ * by price or rating, are combined with a k-way merge of the already sorted shard results, and the top rated
+ * products with a merge that stops after {@code limit} products, so nothing is sorted again after the gather.
+ * Products with the same price or rating come out in shard order. Unordered results are concatenated.
+ * Lookups by ID go straight to the owning shard without locking.
+ * </p>
+ * <p>
+ * A batch write-locks every shard, in shard order, and is published as one catalog version. Queries, snapshots
+ * and product versions lock the shards they read, so they see the whole batch or none of it; lookups by ID do
+ * not lock, and may see the products of a batch that is still being applied.
+ * </p>
+ * <p>
+ * Catalogs smaller than {@code product.repository.sharded.parallel-threshold} are queried shard by shard on
+ * the calling thread, where handing the work to the pool would cost more than the scan it saves.
+ * </p>
+ *
+ * <h2>Specifications:</h2>
+ * <p>
+ * Specifications are encoded with the shared {@link SpecificationDictionary}, whose codes every shard counts as
+ * they store and drop products, and {@link #compactDictionary()} re-encodes the shards with a new generation once
+ * most codes are unused, like {@link ProductRepository} does.
+ * </p>
+ *
+ * <h2>Snapshots:</h2>
+ * <p>
+ * The catalog version is shared by all shards. {@link #snapshot()} read-locks every shard, in shard order,
+ * to copy a consistent catalog; it is materialized once per version like in {@link ProductRepository}.
+ * </p>
+ *
+ * <h2>Required configuration:</h2>
+ * <p>
+ * Enabled with {@code product.repository.type=sharded}. The number of shards is set with
+ * {@code product.repository.sharded.shards}; {@code 0} uses one per available processor.
+ * The catalog is seeded from {@code product.data.json-file}, like {@link ProductRepository}.
+ * </p>
+ *
+ * @see ProductRepository
+ * @see IProductRepository
+ */
+@Repository
+@ConditionalOnProperty(name = "product.repository.type", havingValue = "sharded")
+@ConditionalOnLocalCatalog
+@RequiredArgsConstructor
+@Slf4j
+public class ShardedProductRepository implements IProductRepository, DictionaryEncodedRepository {
+
+    private static final Comparator<Product> BY_PRICE = Comparator.comparingDouble(Product::getPrice);
+    private static final Comparator<Product> BY_RATING = Comparator.comparingDouble(Product::getRating);
+
+    private final ProductCatalogLoader productCatalogLoader;
+    private final ProductMapper productMapper;
+    private final ProductValidator productValidator;
+    private final SpecificationDictionary specificationDictionary;
+
+    @Value("${product.data.json-file}")
+    private String jsonFilePath;
+
+    @Value("${product.repository.sharded.shards:0}")
+    private int shardCount;
+
+    @Value("${product.repository.sharded.parallel-threshold:4096}")
+    private int parallelThreshold = 4096;
+
+    private Shard[] shards;
+    private ForkJoinPool pool;
+    private final AtomicInteger productCount = new AtomicInteger();
+    private final Object compactionLock = new Object();
+
+    /**
+     * Incremented under the owning shard's write lock on every mutation; read without locking to validate
+     * {@link #currentSnapshot}.
+     */
+    private final AtomicLong version = new AtomicLong();
+    private volatile CatalogSnapshot currentSnapshot = CatalogSnapshot.EMPTY;
+
+    private static final String ERROR_PRODUCT_EXISTS = "Product with ID %s already exists";
+    private static final String ERROR_PRODUCT_NOT_FOUND = "Product with ID %s not found";
+    private static final String ERROR_LOG_MESSAGE_FORMAT = "{} for product: {}";
+
+
+    @PostConstruct
+    public void init() {
+        if (shardCount < 0) {
+            throw new ProductDataAccessException(
+                    "product.repository.sharded.shards must be 0 or positive, was " + shardCount);
+        }
+        int processors = Runtime.getRuntime().availableProcessors();
+        int count = shardCount > 0 ? shardCount : processors;
+        shards = new Shard[count];
+        for (int i = 0; i < count; i++) {
+            shards[i] = new Shard();
+        }
+        pool = new ForkJoinPool(Math.min(count, processors));
+        loadInitialData();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    private void loadInitialData() {
+        try {
+            productCatalogLoader.load(jsonFilePath, product -> {
+                Shard shard = shardFor(product.getId());
+                shard.lock.writeLock().lock();
+                try {
+                    if (shard.store(encodeSpecifications(product), version.get() + 1, false) == null) {
+                        productCount.incrementAndGet();
+                    }
+                } finally {
+                    shard.lock.writeLock().unlock();
+                }
+            });
+            scatter(shard -> {
+                shard.lock.writeLock().lock();
+                try {
+                    shard.rebuildOrderedIndexes();
+                    return null;
+                } finally {
+                    shard.lock.writeLock().unlock();
+                }
+            }, true);
+            version.incrementAndGet();
+            log.info("Successfully loaded {} products into {} shards", productCount.get(), shards.length);
+        } catch (ProductDataAccessException e) {
+            log.error("Failed to load initial product data", e);
+            throw e;
+        } catch (Exception e) {
+            String errorMessage = "Unexpected error during initial data load";
+            log.error(errorMessage, e);
+            throw new ProductDataAccessException(errorMessage, e);
+        }
+    }
+
+
+    @Override
+    public List<Product> findAll() {
+        return snapshot().getProducts();
+    }
+
+    @Override
+    public CatalogSnapshot snapshot() {
+        CatalogSnapshot snapshot = currentSnapshot;
+        if (snapshot.getVersion() == version.get()) {
+            return snapshot;
+        }
+        // Shards are locked in a fixed order, as batches lock them, and writers hold one otherwise,
+        // so this cannot deadlock.
+        for (Shard shard : shards) {
+            shard.lock.readLock().lock();
+        }
+        try {
+            snapshot = currentSnapshot;
+            long current = version.get();
+            if (snapshot.getVersion() != current) {
+                List<Product> products = new ArrayList<>(productCount.get());
+                for (Shard shard : shards) {
+                    products.addAll(shard.products.values());
+                }
+                snapshot = new CatalogSnapshot(current, List.copyOf(products));
+                currentSnapshot = snapshot;
+            }
+            return snapshot;
+        } finally {
+            for (Shard shard : shards) {
+                shard.lock.readLock().unlock();
+            }
+        }
+    }
+
+    @Override
+    public Optional<Product> findById(String id) {
+        if (id == null || id.isBlank()) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(shardFor(id).products.get(id));
+    }
+
+    @Override
+    public long catalogVersion() {
+        return version.get();
+    }
+
+    @Override
+    public OptionalLong productVersion(String id) {
+        if (id == null) {
+            return OptionalLong.empty();
+        }
+        Shard shard = shardFor(id);
+        shard.lock.readLock().lock();
+        try {
+            int ordinal = shard.columns.ordinalOf(id);
+            return ordinal < 0 ? OptionalLong.empty() : OptionalLong.of(shard.columns.version(ordinal));
+        } finally {
+            shard.lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Product> findByCategory(String category) {
+        return concatenate(scatter(shard -> shard.resolve(shard.categoryIndex.findIds(category))));
+    }
+
+    @Override
+    public List<String> findAllCategories() {
+        TreeSet<String> categories = new TreeSet<>();
+        scatter(shard -> shard.categoryIndex.categories()).forEach(categories::addAll);
+        return new ArrayList<>(categories);
+    }
+
+    @Override
+    public List<Product> findByPriceRange(double minPrice, double maxPrice) {
+        return merge(scatter(shard -> shard.columns.rows(shard.priceIndex.range(minPrice, maxPrice))),
+                BY_PRICE, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<Product> findAllOrderedByPrice(boolean ascending) {
+        return merge(scatter(shard -> shard.columns.rows(shard.priceIndex.ordered(ascending))),
+                ascending ? BY_PRICE : BY_PRICE.reversed(), Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<Product> findByMinRating(double minRating) {
+        return merge(scatter(shard -> shard.columns.rows(shard.ratingIndex.atLeastDescending(minRating))),
+                BY_RATING.reversed(), Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<Product> findAllOrderedByRating(boolean ascending) {
+        return merge(scatter(shard -> shard.columns.rows(shard.ratingIndex.ordered(ascending))),
+                ascending ? BY_RATING : BY_RATING.reversed(), Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<Product> findTopRated(int limit) {
+        if (limit <= 0) {
+            return List.of();
+        }
+        return merge(scatter(shard -> shard.columns.rows(shard.ratingIndex.top(limit))),
+                BY_RATING.reversed(), limit);
+    }
+
+    @Override
+    public List<Product> findBySpecification(String specKey, String specValue) {
+        return concatenate(scatter(shard -> shard.resolve(shard.specificationIndex.findIds(specKey, specValue))));
+    }
+
+    @Override
+    public List<Product> findByNameContaining(String query) {
+        return concatenate(scatter(shard -> shard.resolve(shard.nameIndex.search(query))));
+    }
+
+    @Override
+    public Product save(Product product) {
+        Shard shard = shardFor(product.getId());
+        shard.lock.writeLock().lock();
+        try {
+            productValidator.validateDto(productMapper.toDto(product));
+
+            if (shard.products.containsKey(product.getId())) {
+                String errorMessage = String.format(ERROR_PRODUCT_EXISTS, product.getId());
+                log.error(errorMessage);
+                throw new ProductAlreadyExistsException(product.getId());
+            }
+
+            shard.store(encodeSpecifications(product), version.get() + 1, true);
+            productCount.incrementAndGet();
+            version.incrementAndGet();
+            log.info("Product saved successfully: {}", product.getId());
+            return product;
+        } catch (ProductAlreadyExistsException e) {
+            throw e;
+        } catch (IllegalArgumentException e) {
+            log.error("Validation failed for product: {}", product.getId(), e);
+            throw new ProductValidationException("Product validation failed: " + e.getMessage(), e);
+        } catch (Exception e) {
+            String errorMessage = "Unexpected error during product save";
+            log.error(ERROR_LOG_MESSAGE_FORMAT, errorMessage, product.getId(), e);
+            throw new ProductSaveException(product.getId(), errorMessage, e);
+        } finally {
+            shard.lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Product update(String id, Product product) {
+        Shard shard = shardFor(id);
+        shard.lock.writeLock().lock();
+        try {
+            if (!shard.products.containsKey(id)) {
+                String errorMessage = String.format(ERROR_PRODUCT_NOT_FOUND, id);
+                log.error(errorMessage);
+                throw new ProductNotFoundException(id);
+            }
+
+            Product updatedProduct = product.toBuilder().id(id).build();
+            productValidator.validateDto(productMapper.toDto(updatedProduct));
+
+            shard.store(encodeSpecifications(updatedProduct), version.get() + 1, true);
+            version.incrementAndGet();
+            log.info("Product updated successfully: {}", id);
+            return updatedProduct;
+        } catch (ProductNotFoundException e) {
+            throw e;
+        } catch (IllegalArgumentException e) {
+            log.error("Validation failed for product update: {}", id, e);
+            throw new ProductValidationException("Product validation failed: " + e.getMessage(), e);
+        } catch (Exception e) {
+            String errorMessage = "Unexpected error during product update";
+            log.error(ERROR_LOG_MESSAGE_FORMAT, errorMessage, id, e);
+            throw new ProductUpdateException(id, errorMessage, e);
+        } finally {
+            shard.lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void deleteById(String id) {
+        Shard shard = shardFor(id);
+        shard.lock.writeLock().lock();
+        try {
+            if (!shard.products.containsKey(id)) {
+                String errorMessage = String.format(ERROR_PRODUCT_NOT_FOUND, id);
+                log.error(errorMessage);
+                throw new ProductNotFoundException(id);
+            }
+
+            shard.evict(id);
+            productCount.decrementAndGet();
+            version.incrementAndGet();
+            log.info("Product deleted successfully: {}", id);
+        } catch (ProductNotFoundException e) {
+            throw e;
+        } catch (Exception e) {
+            String errorMessage = "Unexpected error during product deletion";
+            log.error(ERROR_LOG_MESSAGE_FORMAT, errorMessage, id, e);
+            throw new ProductDeleteException(id, errorMessage, e);
+        } finally {
+            shard.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Applies the batch while holding every shard's write lock and publishes it as one new catalog version.
+     * <p>
+     * Every mutation is validated like a single write and fails on its own; the ones that succeed are applied
+     * in order.
+     * </p>
+     */
+    @Override
+    public List<MutationResult> applyBatch(List<ProductMutation> mutations) {
+        List<MutationResult> results = new ArrayList<>(mutations.size());
+        int applied = 0;
+        for (Shard shard : shards) {
+            shard.lock.writeLock().lock();
+        }
+        try {
+            long newVersion = version.get() + 1;
+            for (int i = 0; i < mutations.size(); i++) {
+                ProductMutation mutation = mutations.get(i);
+                try {
+                    apply(mutation, newVersion);
+                    results.add(MutationResult.applied(i, mutation));
+                    applied++;
+                } catch (RuntimeException e) {
+                    log.warn("Batch item {} ({} {}) failed: {}", i, mutation.getOp(), mutation.targetId(),
+                            e.getMessage());
+                    results.add(MutationResult.failed(i, mutation, e));
+                }
+            }
+            if (applied > 0) {
+                version.incrementAndGet();
+            }
+        } finally {
+            for (int i = shards.length - 1; i >= 0; i--) {
+                shards[i].lock.writeLock().unlock();
+            }
+        }
+        log.info("Applied batch of {} mutations: {} applied, {} failed",
+                mutations.size(), applied, mutations.size() - applied);
+        return results;
+    }
+
+    /**
+     * Validates and stores one mutation of a batch at {@code newVersion}, without publishing it.
+     * Must be called while holding every shard's write lock.
+     */
+    private void apply(ProductMutation mutation, long newVersion) {
+        mutation.validate();
+        String id = mutation.targetId();
+        if (mutation.getOp() == ProductMutation.Operation.DELETE) {
+            Shard shard = shardFor(id);
+            if (!shard.products.containsKey(id)) {
+                throw new ProductNotFoundException(id);
+            }
+            shard.evict(id);
+            productCount.decrementAndGet();
+            return;
+        }
+
+        Product product = mutation.getProduct();
+        if (mutation.getOp() == ProductMutation.Operation.UPDATE) {
+            if (!shardFor(id).products.containsKey(id)) {
+                throw new ProductNotFoundException(id);
+            }
+            product = product.toBuilder().id(id).build();
+        }
+        productValidator.validateDto(productMapper.toDto(product));
+        if (!productValidator.validateProduct(product)) {
+            throw new ProductValidationException(
+                    "Product validation failed: price must be >= 0 and rating between 0 and 5");
+        }
+        Shard shard = shardFor(id);
+        if (mutation.getOp() == ProductMutation.Operation.CREATE && shard.products.containsKey(id)) {
+            throw new ProductAlreadyExistsException(id);
+        }
+        if (shard.store(encodeSpecifications(product), newVersion, true) == null) {
+            productCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * Re-encodes every product with a new dictionary generation once most codes of the current one are no longer
+     * used. Products keep their rows, versions and index entries; only their specification codes change.
+     * <p>
+     * The new generation is started while every shard is write-locked, and products written from then on are
+     * encoded with it. Each shard's other products are then re-encoded outside its lock, in chunks of
+     * {@value ProductRepository#COMPACTION_CHUNK_SIZE}, and each chunk is swapped in under one short acquisition
+     * of the shard's write lock, skipping the products written meanwhile. Compactions are serialized with each
+     * other.
+     * </p>
+     *
+     * @return whether the dictionary needed compaction and was compacted
+     */
+    @Override
+    public boolean compactDictionary() {
+        synchronized (compactionLock) {
+            int before;
+            List<List<Product>> products = new ArrayList<>(shards.length);
+            for (Shard shard : shards) {
+                shard.lock.writeLock().lock();
+            }
+            try {
+                if (!specificationDictionary.needsCompaction()) {
+                    return false;
+                }
+                before = specificationDictionary.size();
+                specificationDictionary.startGeneration();
+                for (Shard shard : shards) {
+                    products.add(new ArrayList<>(shard.products.values()));
+                }
+            } finally {
+                for (int i = shards.length - 1; i >= 0; i--) {
+                    shards[i].lock.writeLock().unlock();
+                }
+            }
+            int reencoded = 0;
+            for (int i = 0; i < shards.length; i++) {
+                reencoded += shards[i].reencode(products.get(i), this::encodeSpecifications);
+            }
+            log.info("Compacted the specification dictionary from {} to {} strings, re-encoding {} products",
+                    before, specificationDictionary.size(), reencoded);
+            return true;
+        }
+    }
+
+    /**
+     * @return the number of shards the catalog is partitioned into
+     */
+    public int shardCount() {
+        return shards.length;
+    }
+
+    private Shard shardFor(String id) {
+        int hash = id.hashCode();
+        return shards[Math.floorMod(hash ^ (hash >>> 16), shards.length)];
+    }
+
+    private <T> List<T> scatter(Function<Shard, T> query) {
+        return scatter(shard -> {
+            Lock readLock = shard.lock.readLock();
+            readLock.lock();
+            try {
+                return query.apply(shard);
+            } finally {
+                readLock.unlock();
+            }
+        }, productCount.get() >= parallelThreshold);
+    }
+
+    /**
+     * Runs the task on every shard and returns the results in shard order. In parallel, the other shards are
+     * submitted to the pool and the calling thread runs the first one while they execute.
+     */
+    private <T> List<T> scatter(Function<Shard, T> task, boolean parallel) {
+        List<T> results = new ArrayList<>(shards.length);
+        if (!parallel || shards.length == 1) {
+            for (Shard shard : shards) {
+                results.add(task.apply(shard));
+            }
+            return results;
+        }
+        List<ForkJoinTask<T>> forked = new ArrayList<>(shards.length - 1);
+        for (int i = 1; i < shards.length; i++) {
+            Shard shard = shards[i];
+            forked.add(pool.submit(() -> task.apply(shard)));
+        }
+        results.add(task.apply(shards[0]));
+        for (ForkJoinTask<T> result : forked) {
+            results.add(result.join());
+        }
+        return results;
+    }
+
+    /**
+     * Encodes the specifications with the current dictionary generation, unless they already are.
+     */
+    private Product encodeSpecifications(Product product) {
+        Map<String, String> specifications = product.getSpecifications();
+        if (specifications == null) {
+            return product;
+        }
+        EncodedSpecifications encoded = EncodedSpecifications.of(specifications, specificationDictionary);
+        return encoded == specifications ? product : product.toBuilder().specifications(encoded).build();
+    }
+
+    private static void retain(Product product) {
+        if (product.getSpecifications() instanceof EncodedSpecifications encoded) {
+            encoded.retain();
+        }
+    }
+
+    private static void release(Product product) {
+        if (product.getSpecifications() instanceof EncodedSpecifications encoded) {
+            encoded.release();
+        }
+    }
+
+    /**
+     * One partition of the catalog with its own indexes, maintained like those of {@link ProductRepository}.
+     * Everything except {@link #products} must be accessed while holding {@link #lock}.
+     */
+    private static final class Shard {
+
+        private final ConcurrentHashMap<String, Product> products = new ConcurrentHashMap<>();
+        private final CategoryIndex categoryIndex = new CategoryIndex();
+        private final ProductColumns columns = new ProductColumns();
+        private final NumericIndex priceIndex = new NumericIndex(columns::price);
+        private final NumericIndex ratingIndex = new NumericIndex(columns::rating);
+        private final SpecificationIndex specificationIndex = new SpecificationIndex();
+        private final TrigramIndex nameIndex = new TrigramIndex();
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+        /**
+         * Puts the product in the map, the columns and the indexes, replacing any previous version.
+         * Writes to one product are serialized by the shard lock, so its versions only increase.
+         *
+         * @return the replaced product, or {@code null} if the ID was new
+         */
+        Product store(Product product, long version, boolean maintainOrder) {
+            retain(product);
+            Product previous = products.put(product.getId(), product);
+            if (previous != null) {
+                unindex(previous);
+                release(previous);
+            }
+            int ordinal = columns.put(product, version);
+            if (maintainOrder) {
+                priceIndex.add(ordinal);
+                ratingIndex.add(ordinal);
+            }
+            categoryIndex.add(product);
+            specificationIndex.add(product);
+            nameIndex.add(product);
+            return previous;
+        }
+
+        void evict(String id) {
+            Product previous = products.remove(id);
+            if (previous != null) {
+                unindex(previous);
+                release(previous);
+                columns.remove(id);
+            }
+        }
+
+        /**
+         * Swaps in the re-encoded copies of {@code stored}, in chunks of
+         * {@value ProductRepository#COMPACTION_CHUNK_SIZE} per write lock acquisition. Products replaced or
+         * removed since {@code stored} was read are skipped. Must be called without holding {@link #lock}.
+         *
+         * @return the number of products swapped in
+         */
+        int reencode(List<Product> stored, UnaryOperator<Product> encoder) {
+            int reencoded = 0;
+            for (int from = 0; from < stored.size(); from += ProductRepository.COMPACTION_CHUNK_SIZE) {
+                List<Product> chunk = stored.subList(from,
+                        Math.min(from + ProductRepository.COMPACTION_CHUNK_SIZE, stored.size()));
+                List<Product> encoded = new ArrayList<>(chunk.size());
+                for (Product product : chunk) {
+                    encoded.add(encoder.apply(product));
+                }
+                lock.writeLock().lock();
+                try {
+                    for (int i = 0; i < chunk.size(); i++) {
+                        Product product = encoded.get(i);
+                        if (product == chunk.get(i) || products.get(product.getId()) != chunk.get(i)) {
+                            continue;
+                        }
+                        retain(product);
+                        products.put(product.getId(), product);
+                        columns.put(product, columns.version(columns.ordinalOf(product.getId())));
+                        reencoded++;
+                    }
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+            return reencoded;
+        }
+
+        void rebuildOrderedIndexes() {
+            int[] live = columns.liveOrdinals();
+            priceIndex.rebuild(live);
+            ratingIndex.rebuild(live);
+        }
+
+        List<Product> resolve(Collection<String> ids) {
+            List<Product> resolved = new ArrayList<>(ids.size());
+            for (String id : ids) {
+                resolved.add(products.get(id));
+            }
+            return resolved;
+        }
+
+        private void unindex(Product product) {
+            int ordinal = columns.ordinalOf(product.getId());
+            priceIndex.remove(ordinal);
+            ratingIndex.remove(ordinal);
+            categoryIndex.remove(product);
+            specificationIndex.remove(product);
+            nameIndex.remove(product);
+        }
+    }
+}
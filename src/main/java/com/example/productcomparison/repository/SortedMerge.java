@@ -0,0 +1,86 @@
+package com.example.productcomparison.repository;
+
+import com.example.productcomparison.model.Product;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Combines the partial results of a query that was answered by several partitions of the catalog.
+ *
+ * @see ShardedProductRepository
+ */
+public final class SortedMerge {
+
+    private SortedMerge() {
+    }
+
+    /**
+     * Appends the partial results in order.
+     */
+    public static List<Product> concatenate(List<List<Product>> partials) {
+        int total = 0;
+        for (List<Product> partial : partials) {
+            total += partial.size();
+        }
+        List<Product> products = new ArrayList<>(total);
+        partials.forEach(products::addAll);
+        return products;
+    }
+
+    /**
+     * K-way merge of partial results that are each sorted by {@code order}, stopping after {@code limit} products.
+     * Equal products are taken from the earlier partial result first.
+     */
+    public static List<Product> merge(List<List<Product>> runs, Comparator<Product> order, int limit) {
+        int total = 0;
+        for (List<Product> run : runs) {
+            total += run.size();
+        }
+        List<Product> merged = new ArrayList<>(Math.min(total, limit));
+        PriorityQueue<Cursor> heads = new PriorityQueue<>(Math.max(runs.size(), 1),
+                Comparator.comparing(Cursor::head, order).thenComparingInt(Cursor::run));
+        for (int run = 0; run < runs.size(); run++) {
+            if (!runs.get(run).isEmpty()) {
+                heads.add(new Cursor(runs.get(run), run));
+            }
+        }
+        while (merged.size() < limit && !heads.isEmpty()) {
+            Cursor cursor = heads.poll();
+            merged.add(cursor.head());
+            if (cursor.advance()) {
+                heads.add(cursor);
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Read position in one sorted partial result.
+     */
+    private static final class Cursor {
+
+        private final List<Product> products;
+        private final int run;
+        private int position;
+
+        Cursor(List<Product> products, int run) {
+            this.products = products;
+            this.run = run;
+        }
+
+        Product head() {
+            return products.get(position);
+        }
+
+        int run() {
+            return run;
+        }
+
+        boolean advance() {
+            return ++position < products.size();
+        }
+    }
+}
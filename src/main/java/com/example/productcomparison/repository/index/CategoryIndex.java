@@ -0,0 +1,104 @@
+package com.example.productcomparison.repository.index;
+
+import com.example.productcomparison.model.Product;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Case-insensitive index from product category to the IDs of the products in that category.
+ * <p>
+ * Category keys are normalized to lower case, so lookups behave like {@code equalsIgnoreCase}.
+ * The category names exactly as written in the products are kept in natural order together
+ * with a reference count, so listing the categories never requires scanning the catalog.
+ * </p>
+ * <p>
+ * This class is not thread-safe; {@link com.example.productcomparison.repository.ProductRepository}
+ * guards it with the same lock that protects the product map.
+ * </p>
+ */
+public class CategoryIndex {
+
+    public static final String CATEGORY_KEY = "category";
+
+    private final Map<String, Set<String>> idsByCategory = new HashMap<>();
+    private final TreeMap<String, Integer> categoryNames = new TreeMap<>();
+
+    /**
+     * Adds the product to the entry of its category, if it has one.
+     *
+     * @param product product to index
+     */
+    public void add(Product product) {
+        String category = categoryOf(product);
+        if (category == null) {
+            return;
+        }
+        idsByCategory.computeIfAbsent(normalize(category), key -> new LinkedHashSet<>()).add(product.getId());
+        categoryNames.merge(category, 1, Integer::sum);
+    }
+
+    /**
+     * Removes the product from the entry of its category, dropping the entry when it becomes empty.
+     *
+     * @param product product previously passed to {@link #add(Product)}
+     */
+    public void remove(Product product) {
+        String category = categoryOf(product);
+        if (category == null) {
+            return;
+        }
+        String key = normalize(category);
+        Set<String> ids = idsByCategory.get(key);
+        if (ids != null && ids.remove(product.getId()) && ids.isEmpty()) {
+            idsByCategory.remove(key);
+        }
+        categoryNames.computeIfPresent(category, (name, count) -> count > 1 ? count - 1 : null);
+    }
+
+    /**
+     * Returns the IDs of the products in the given category, ignoring case.
+     *
+     * @param category category name
+     * @return the matching product IDs, empty if the category does not exist
+     */
+    public Set<String> findIds(String category) {
+        if (category == null) {
+            return Set.of();
+        }
+        return idsByCategory.getOrDefault(normalize(category), Set.of());
+    }
+
+    /**
+     * Returns the distinct category names in natural order.
+     *
+     * @return the category names currently in use
+     */
+    public List<String> categories() {
+        return new ArrayList<>(categoryNames.keySet());
+    }
+
+    public void clear() {
+        idsByCategory.clear();
+        categoryNames.clear();
+    }
+
+    private static String categoryOf(Product product) {
+        Map<String, String> specifications = product.getSpecifications();
+        if (specifications == null) {
+            return null;
+        }
+        String category = specifications.get(CATEGORY_KEY);
+        return category == null || category.isEmpty() ? null : category;
+    }
+
+    private static String normalize(String category) {
+        return category.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,425 @@
+package com.example.productcomparison.repository.index;
+
+import java.util.Arrays;
+import java.util.function.IntToDoubleFunction;
+
+/**
+ * Ordered index over a numeric column of {@link ProductColumns}, such as price or rating.
+ * <p>
+ * The index is a sequence of blocks sorted by {@code (value, ordinal)}, each a pair of parallel primitive
+ * arrays: a {@code double[]} of values and an {@code int[]} of product ordinals, holding up to
+ * {@value #BLOCK_SIZE} entries. Range bounds are found by binary search over the last entry of every block
+ * and then within one block, and the hits are copied block by block, so range lookups cost O(log n + k),
+ * ordered traversals never sort, and no per-entry objects are allocated or chased.
+ * The ordinal breaks ties, which keeps entries unique and the ordering deterministic.
+ * </p>
+ * <p>
+ * Writes reposition a single entry with a binary search and a shift within its block, so they cost
+ * O(log n) plus a bounded shift instead of moving the whole array. Full blocks are split in half and
+ * neighbouring blocks that have shrunk to half a block are merged. Bulk loads append nothing and call
+ * {@link #rebuild(int[])} once instead, which sorts the whole column in one pass over primitive arrays.
+ * </p>
+ * <p>
+ * This class is not thread-safe; {@link com.example.productcomparison.repository.ProductRepository}
+ * guards it with the same lock that protects the product map.
+ * </p>
+ */
+public class NumericIndex {
+
+    /** Maximum number of entries of a block. */
+    private static final int BLOCK_SIZE = 512;
+    /** Blocks written by {@link #rebuild(int[])} are left partly empty, so the next inserts do not split them. */
+    private static final int REBUILD_FILL = BLOCK_SIZE * 3 / 4;
+    private static final int INITIAL_BLOCKS = 4;
+
+    private final IntToDoubleFunction column;
+    private double[][] values = new double[INITIAL_BLOCKS][];
+    private int[][] ordinals = new int[INITIAL_BLOCKS][];
+    private int[] counts = new int[INITIAL_BLOCKS];
+    /** Number of blocks in use; every one of them holds at least one entry. */
+    private int blocks;
+    private int size;
+
+    /**
+     * @param column function reading the indexed value of a product ordinal
+     */
+    public NumericIndex(IntToDoubleFunction column) {
+        this.column = column;
+    }
+
+    /**
+     * Inserts the ordinal at the position of its current column value.
+     *
+     * @param ordinal product ordinal
+     */
+    public void add(int ordinal) {
+        double value = normalize(column.applyAsDouble(ordinal));
+        int block = Math.min(blockOf(value, ordinal), blocks - 1);
+        if (block < 0) {
+            insertBlock(0, new double[BLOCK_SIZE], new int[BLOCK_SIZE], 0);
+            block = 0;
+        }
+        int position = search(block, value, ordinal);
+        if (position >= 0) {
+            return;
+        }
+        int insertAt = -position - 1;
+        if (counts[block] == BLOCK_SIZE) {
+            split(block);
+            if (insertAt > counts[block]) {
+                insertAt -= counts[block];
+                block++;
+            }
+        }
+        int count = counts[block];
+        System.arraycopy(values[block], insertAt, values[block], insertAt + 1, count - insertAt);
+        System.arraycopy(ordinals[block], insertAt, ordinals[block], insertAt + 1, count - insertAt);
+        values[block][insertAt] = value;
+        ordinals[block][insertAt] = ordinal;
+        counts[block]++;
+        size++;
+    }
+
+    /**
+     * Removes the ordinal. Must be called before its column value is overwritten,
+     * because the entry is located by that value.
+     *
+     * @param ordinal product ordinal, ignored if negative or not indexed
+     */
+    public void remove(int ordinal) {
+        if (ordinal < 0) {
+            return;
+        }
+        double value = normalize(column.applyAsDouble(ordinal));
+        int block = blockOf(value, ordinal);
+        if (block == blocks) {
+            return;
+        }
+        int position = search(block, value, ordinal);
+        if (position < 0) {
+            return;
+        }
+        int count = counts[block];
+        System.arraycopy(values[block], position + 1, values[block], position, count - position - 1);
+        System.arraycopy(ordinals[block], position + 1, ordinals[block], position, count - position - 1);
+        counts[block]--;
+        size--;
+        if (counts[block] == 0) {
+            removeBlock(block);
+        } else if (block + 1 < blocks && counts[block] + counts[block + 1] <= BLOCK_SIZE / 2) {
+            merge(block);
+        } else if (block > 0 && counts[block - 1] + counts[block] <= BLOCK_SIZE / 2) {
+            merge(block - 1);
+        }
+    }
+
+    /**
+     * Replaces the whole index with the given ordinals, sorted once by their column values.
+     *
+     * @param live ordinals of every product to index
+     */
+    public void rebuild(int[] live) {
+        int[] sortedOrdinals = live.clone();
+        double[] sortedValues = new double[live.length];
+        for (int i = 0; i < live.length; i++) {
+            sortedValues[i] = normalize(column.applyAsDouble(live[i]));
+        }
+        sort(sortedValues, sortedOrdinals);
+
+        int capacity = Math.max(INITIAL_BLOCKS, (live.length + REBUILD_FILL - 1) / REBUILD_FILL);
+        values = new double[capacity][];
+        ordinals = new int[capacity][];
+        counts = new int[capacity];
+        blocks = 0;
+        for (int from = 0; from < live.length; from += REBUILD_FILL) {
+            int count = Math.min(REBUILD_FILL, live.length - from);
+            values[blocks] = new double[BLOCK_SIZE];
+            ordinals[blocks] = new int[BLOCK_SIZE];
+            System.arraycopy(sortedValues, from, values[blocks], 0, count);
+            System.arraycopy(sortedOrdinals, from, ordinals[blocks], 0, count);
+            counts[blocks] = count;
+            blocks++;
+        }
+        size = live.length;
+    }
+
+    public void clear() {
+        Arrays.fill(values, 0, blocks, null);
+        Arrays.fill(ordinals, 0, blocks, null);
+        blocks = 0;
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the ordinals whose value lies in {@code [min, max]}, in ascending order.
+     *
+     * @param min inclusive lower bound
+     * @param max inclusive upper bound
+     * @return matching ordinals, empty if the range is empty or not a number
+     */
+    public int[] range(double min, double max) {
+        if (Double.isNaN(min) || Double.isNaN(max) || min > max) {
+            return new int[0];
+        }
+        int fromBlock = blockAbove(normalize(min), false);
+        int toBlock = blockAbove(normalize(max), true);
+        return slice(fromBlock, positionAbove(fromBlock, normalize(min), false),
+                toBlock, positionAbove(toBlock, normalize(max), true));
+    }
+
+    /**
+     * Returns the ordinals whose value is at least {@code min}, highest value first.
+     *
+     * @param min inclusive lower bound
+     * @return matching ordinals in descending order
+     */
+    public int[] atLeastDescending(double min) {
+        if (Double.isNaN(min)) {
+            return new int[0];
+        }
+        int fromBlock = blockAbove(normalize(min), false);
+        return reverse(slice(fromBlock, positionAbove(fromBlock, normalize(min), false), blocks, 0));
+    }
+
+    /**
+     * Returns every indexed ordinal ordered by value.
+     *
+     * @param ascending {@code true} for lowest value first, {@code false} for highest value first
+     * @return all ordinals in the requested order
+     */
+    public int[] ordered(boolean ascending) {
+        int[] all = slice(0, 0, blocks, 0);
+        return ascending ? all : reverse(all);
+    }
+
+    /**
+     * Returns up to {@code limit} ordinals with the highest values, reading only that end of the index.
+     *
+     * @param limit maximum number of ordinals to return
+     * @return the top ordinals, highest value first
+     */
+    public int[] top(int limit) {
+        int[] result = new int[Math.min(Math.max(limit, 0), size)];
+        int written = 0;
+        for (int block = blocks - 1; block >= 0 && written < result.length; block--) {
+            for (int position = counts[block] - 1; position >= 0 && written < result.length; position--) {
+                result[written++] = ordinals[block][position];
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Copies the ordinals from {@code (fromBlock, from)} up to, but excluding, {@code (toBlock, to)}.
+     * The end of the index is {@code (blocks, 0)}.
+     */
+    private int[] slice(int fromBlock, int from, int toBlock, int to) {
+        int count = to - from;
+        for (int block = fromBlock; block < toBlock; block++) {
+            count += counts[block];
+        }
+        int[] result = new int[Math.max(count, 0)];
+        int written = 0;
+        for (int block = fromBlock; written < result.length; block++) {
+            int start = block == fromBlock ? from : 0;
+            int end = block == toBlock ? to : counts[block];
+            System.arraycopy(ordinals[block], start, result, written, end - start);
+            written += end - start;
+        }
+        return result;
+    }
+
+    private static int[] reverse(int[] array) {
+        for (int i = 0, j = array.length - 1; i < j; i++, j--) {
+            int swap = array[i];
+            array[i] = array[j];
+            array[j] = swap;
+        }
+        return array;
+    }
+
+    /**
+     * @return the first block whose last entry is not before {@code (value, ordinal)}, or {@link #blocks}
+     */
+    private int blockOf(double value, int ordinal) {
+        int low = 0;
+        int high = blocks;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            int last = counts[mid] - 1;
+            if (compare(values[mid][last], ordinals[mid][last], value, ordinal) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @return the first block whose last value is at least {@code value}, or greater than it if {@code strict},
+     *         or {@link #blocks} if there is none
+     */
+    private int blockAbove(double value, boolean strict) {
+        int low = 0;
+        int high = blocks;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            int cmp = Double.compare(values[mid][counts[mid] - 1], value);
+            if (cmp < 0 || strict && cmp == 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @return the first position of the block whose value is at least {@code value}, or greater than it if
+     *         {@code strict}; 0 past the last block
+     */
+    private int positionAbove(int block, double value, boolean strict) {
+        if (block == blocks) {
+            return 0;
+        }
+        int low = 0;
+        int high = counts[block];
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            int cmp = Double.compare(values[block][mid], value);
+            if (cmp < 0 || strict && cmp == 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Binary search for the exact {@code (value, ordinal)} entry within a block.
+     *
+     * @return the entry position, or {@code -(insertionPoint) - 1} if it is not indexed
+     */
+    private int search(int block, double value, int ordinal) {
+        int low = 0;
+        int high = counts[block] - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = compare(values[block][mid], ordinals[block][mid], value, ordinal);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    /**
+     * Moves the upper half of a full block to a new block right after it.
+     */
+    private void split(int block) {
+        int keep = counts[block] / 2;
+        int moved = counts[block] - keep;
+        double[] movedValues = new double[BLOCK_SIZE];
+        int[] movedOrdinals = new int[BLOCK_SIZE];
+        System.arraycopy(values[block], keep, movedValues, 0, moved);
+        System.arraycopy(ordinals[block], keep, movedOrdinals, 0, moved);
+        counts[block] = keep;
+        insertBlock(block + 1, movedValues, movedOrdinals, moved);
+    }
+
+    /**
+     * Appends the entries of the next block to the given one and drops the next block.
+     */
+    private void merge(int block) {
+        int count = counts[block];
+        int next = counts[block + 1];
+        System.arraycopy(values[block + 1], 0, values[block], count, next);
+        System.arraycopy(ordinals[block + 1], 0, ordinals[block], count, next);
+        counts[block] = count + next;
+        removeBlock(block + 1);
+    }
+
+    private void insertBlock(int block, double[] blockValues, int[] blockOrdinals, int count) {
+        if (blocks == counts.length) {
+            int capacity = blocks * 2;
+            values = Arrays.copyOf(values, capacity);
+            ordinals = Arrays.copyOf(ordinals, capacity);
+            counts = Arrays.copyOf(counts, capacity);
+        }
+        System.arraycopy(values, block, values, block + 1, blocks - block);
+        System.arraycopy(ordinals, block, ordinals, block + 1, blocks - block);
+        System.arraycopy(counts, block, counts, block + 1, blocks - block);
+        values[block] = blockValues;
+        ordinals[block] = blockOrdinals;
+        counts[block] = count;
+        blocks++;
+    }
+
+    private void removeBlock(int block) {
+        System.arraycopy(values, block + 1, values, block, blocks - block - 1);
+        System.arraycopy(ordinals, block + 1, ordinals, block, blocks - block - 1);
+        System.arraycopy(counts, block + 1, counts, block, blocks - block - 1);
+        blocks--;
+        values[blocks] = null;
+        ordinals[blocks] = null;
+    }
+
+    /**
+     * Sorts the entries by {@code (value, ordinal)} with a bottom-up merge sort of the primitive arrays,
+     * so that rebuilding the index allocates two buffers instead of one boxed object per entry.
+     */
+    private static void sort(double[] values, int[] ordinals) {
+        int length = values.length;
+        double[] sourceValues = values;
+        int[] sourceOrdinals = ordinals;
+        double[] targetValues = new double[length];
+        int[] targetOrdinals = new int[length];
+        for (int width = 1; width < length; width *= 2) {
+            for (int low = 0; low < length; low += 2 * width) {
+                int mid = Math.min(low + width, length);
+                int high = Math.min(low + 2 * width, length);
+                int left = low;
+                int right = mid;
+                for (int target = low; target < high; target++) {
+                    boolean takeLeft = right >= high || left < mid && compare(sourceValues[left],
+                            sourceOrdinals[left], sourceValues[right], sourceOrdinals[right]) <= 0;
+                    int from = takeLeft ? left++ : right++;
+                    targetValues[target] = sourceValues[from];
+                    targetOrdinals[target] = sourceOrdinals[from];
+                }
+            }
+            double[] swapValues = sourceValues;
+            sourceValues = targetValues;
+            targetValues = swapValues;
+            int[] swapOrdinals = sourceOrdinals;
+            sourceOrdinals = targetOrdinals;
+            targetOrdinals = swapOrdinals;
+        }
+        if (sourceValues != values) {
+            System.arraycopy(sourceValues, 0, values, 0, length);
+            System.arraycopy(sourceOrdinals, 0, ordinals, 0, length);
+        }
+    }
+
+    private static int compare(double value, int ordinal, double otherValue, int otherOrdinal) {
+        int cmp = Double.compare(value, otherValue);
+        return cmp != 0 ? cmp : Integer.compare(ordinal, otherOrdinal);
+    }
+
+    /**
+     * Folds {@code -0.0} into {@code 0.0}, matching the {@code >=}/{@code <=} semantics of the original filters.
+     */
+    private static double normalize(double value) {
+        return value + 0.0;
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.productcomparison.repository.index;
+
+import com.example.productcomparison.model.Product;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * Dense list of every product of the catalog that publishes immutable views of itself cheaply.
+ * <p>
+ * Products are kept in fixed-size chunks. {@link #publish()} returns a view that shares the chunks and marks
+ * them as shared; the next write to a shared chunk copies it first, and the chunk table is copied on the first
+ * write after a publish. Publishing a version therefore costs one chunk per chunk the writes touched plus the
+ * chunk table, independently of how many products did not change, and a published view never changes.
+ * A deleted product is replaced by the last one, so the list stays dense; the order of the list is not
+ * meaningful.
+ * </p>
+ * <p>
+ * This class is not thread-safe; {@link com.example.productcomparison.repository.ProductRepository}
+ * guards it with the same lock that protects the product map. Published views can be read from any thread.
+ * </p>
+ */
+public class PersistentProductList {
+
+    private static final int CHUNK_SHIFT = 10;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private final Map<String, Integer> positions = new HashMap<>();
+    private Product[][] chunks = new Product[0][];
+    /** Whether a published view references the chunk, which must then be copied before it is written. */
+    private boolean[] sharedChunks = new boolean[0];
+    private boolean sharedTable;
+    private int size;
+
+    /**
+     * Adds the product, or replaces the product with the same ID.
+     */
+    public void put(Product product) {
+        Integer position = positions.get(product.getId());
+        if (position == null) {
+            position = size++;
+            positions.put(product.getId(), position);
+        }
+        set(position, product);
+    }
+
+    /**
+     * Removes the product with the given ID, if there is one, moving the last product into its place.
+     */
+    public void remove(String id) {
+        Integer position = positions.remove(id);
+        if (position == null) {
+            return;
+        }
+        int last = --size;
+        if (position != last) {
+            Product moved = get(last);
+            set(position, moved);
+            positions.put(moved.getId(), position);
+        }
+        set(last, null);
+    }
+
+    /**
+     * Removes every product. Published views keep theirs.
+     */
+    public void clear() {
+        positions.clear();
+        chunks = new Product[0][];
+        sharedChunks = new boolean[0];
+        sharedTable = false;
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return an unmodifiable view of the current products, unaffected by later writes
+     */
+    public List<Product> publish() {
+        sharedTable = true;
+        Arrays.fill(sharedChunks, true);
+        return new View(chunks, size);
+    }
+
+    private Product get(int position) {
+        return chunks[position >>> CHUNK_SHIFT][position & CHUNK_MASK];
+    }
+
+    private void set(int position, Product product) {
+        int chunk = position >>> CHUNK_SHIFT;
+        if (chunk == chunks.length) {
+            chunks = Arrays.copyOf(chunks, chunk + 1);
+            chunks[chunk] = new Product[CHUNK_SIZE];
+            sharedChunks = Arrays.copyOf(sharedChunks, chunk + 1);
+            sharedTable = false;
+        } else if (sharedTable) {
+            chunks = chunks.clone();
+            sharedTable = false;
+        }
+        if (sharedChunks[chunk]) {
+            chunks[chunk] = chunks[chunk].clone();
+            sharedChunks[chunk] = false;
+        }
+        chunks[chunk][position & CHUNK_MASK] = product;
+    }
+
+    private static final class View extends AbstractList<Product> implements RandomAccess {
+
+        private final Product[][] chunks;
+        private final int size;
+
+        private View(Product[][] chunks, int size) {
+            this.chunks = chunks;
+            this.size = size;
+        }
+
+        @Override
+        public Product get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size);
+            }
+            return chunks[index >>> CHUNK_SHIFT][index & CHUNK_MASK];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.example.productcomparison.repository.index;
+
+import com.example.productcomparison.model.Product;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Columnar backing store kept alongside the product map.
+ * <p>
+ * Every product is assigned a dense integer ordinal. The ordinal addresses the row table, which holds
+ * the {@link Product} itself, and the primitive {@code price}, {@code rating} and {@code version} columns. The
+ * version is the catalog version at which the row was last written, as passed by the repository. Ordinals of
+ * deleted products are recycled, so the arrays stay as dense as the catalog.
+ * Ordered indexes store ordinals rather than IDs: they compare plain {@code double}s while scanning
+ * and only touch the row table to materialize the products they return.
+ * </p>
+ * <p>
+ * This class is not thread-safe; {@link com.example.productcomparison.repository.ProductRepository}
+ * guards it with the same lock that protects the product map.
+ * </p>
+ */
+public class ProductColumns {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final Map<String, Integer> ordinals = new HashMap<>();
+    private Product[] rows = new Product[INITIAL_CAPACITY];
+    private double[] prices = new double[INITIAL_CAPACITY];
+    private double[] ratings = new double[INITIAL_CAPACITY];
+    private long[] versions = new long[INITIAL_CAPACITY];
+    private int[] freeOrdinals = new int[INITIAL_CAPACITY];
+    private int freeCount;
+    private int highWaterMark;
+
+    /**
+     * Stores the product in its existing row, or in a new one if its ID is not known yet, with version 0.
+     *
+     * @param product product to store
+     * @return the ordinal of the product's row
+     */
+    public int put(Product product) {
+        return put(product, 0);
+    }
+
+    /**
+     * Stores the product in its existing row, or in a new one if its ID is not known yet.
+     *
+     * @param product product to store
+     * @param version catalog version the product is written at
+     * @return the ordinal of the product's row
+     */
+    public int put(Product product, long version) {
+        Integer existing = ordinals.get(product.getId());
+        int ordinal = existing != null ? existing : allocate(product.getId());
+        rows[ordinal] = product;
+        prices[ordinal] = product.getPrice();
+        ratings[ordinal] = product.getRating();
+        versions[ordinal] = version;
+        return ordinal;
+    }
+
+    /**
+     * Releases the row of the given product for reuse.
+     *
+     * @param id product ID
+     * @return the released ordinal, or {@code -1} if the ID is not stored
+     */
+    public int remove(String id) {
+        Integer ordinal = ordinals.remove(id);
+        if (ordinal == null) {
+            return -1;
+        }
+        rows[ordinal] = null;
+        if (freeCount == freeOrdinals.length) {
+            freeOrdinals = Arrays.copyOf(freeOrdinals, freeCount * 2);
+        }
+        freeOrdinals[freeCount++] = ordinal;
+        return ordinal;
+    }
+
+    /**
+     * @param id product ID
+     * @return the ordinal of the product, or {@code -1} if the ID is not stored
+     */
+    public int ordinalOf(String id) {
+        Integer ordinal = ordinals.get(id);
+        return ordinal != null ? ordinal : -1;
+    }
+
+    public Product row(int ordinal) {
+        return rows[ordinal];
+    }
+
+    public double price(int ordinal) {
+        return prices[ordinal];
+    }
+
+    public double rating(int ordinal) {
+        return ratings[ordinal];
+    }
+
+    public long version(int ordinal) {
+        return versions[ordinal];
+    }
+
+    /**
+     * Materializes the products of the given ordinals, in the same order.
+     *
+     * @param selection ordinals to read
+     * @return the products stored at those ordinals
+     */
+    public List<Product> rows(int[] selection) {
+        List<Product> products = new ArrayList<>(selection.length);
+        for (int ordinal : selection) {
+            products.add(rows[ordinal]);
+        }
+        return products;
+    }
+
+    /**
+     * @return the ordinals of every stored product, in ascending ordinal order
+     */
+    public int[] liveOrdinals() {
+        int[] live = new int[ordinals.size()];
+        int count = 0;
+        for (int ordinal = 0; ordinal < highWaterMark; ordinal++) {
+            if (rows[ordinal] != null) {
+                live[count++] = ordinal;
+            }
+        }
+        return live;
+    }
+
+    public int size() {
+        return ordinals.size();
+    }
+
+    public void clear() {
+        ordinals.clear();
+        Arrays.fill(rows, 0, highWaterMark, null);
+        freeCount = 0;
+        highWaterMark = 0;
+    }
+
+    private int allocate(String id) {
+        int ordinal;
+        if (freeCount > 0) {
+            ordinal = freeOrdinals[--freeCount];
+        } else {
+            if (highWaterMark == rows.length) {
+                int capacity = rows.length * 2;
+                rows = Arrays.copyOf(rows, capacity);
+                prices = Arrays.copyOf(prices, capacity);
+                ratings = Arrays.copyOf(ratings, capacity);
+                versions = Arrays.copyOf(versions, capacity);
+            }
+            ordinal = highWaterMark++;
+        }
+        ordinals.put(id, ordinal);
+        return ordinal;
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.productcomparison.repository.index;
+
+import com.example.productcomparison.model.Product;
+
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Inverted index from specification key and value to the IDs of the products that have that pair.
+ * <p>
+ * Keys are matched exactly and values are normalized to lower case, which mirrors the
+ * {@code specValue.equalsIgnoreCase(specifications.get(specKey))} semantics of the specification filter.
+ * A lookup is two hash probes followed by reading the posting list.
+ * </p>
+ * <p>
+ * This class is not thread-safe; {@link com.example.productcomparison.repository.ProductRepository}
+ * guards it with the same lock that protects the product map.
+ * </p>
+ */
+public class SpecificationIndex {
+
+    private final Map<String, Map<String, Set<String>>> postings = new HashMap<>();
+
+    public void add(Product product) {
+        Map<String, String> specifications = product.getSpecifications();
+        if (specifications == null) {
+            return;
+        }
+        specifications.forEach((key, value) -> {
+            if (key != null && value != null) {
+                postings.computeIfAbsent(key, k -> new HashMap<>())
+                        .computeIfAbsent(normalize(value), v -> new LinkedHashSet<>())
+                        .add(product.getId());
+            }
+        });
+    }
+
+    public void remove(Product product) {
+        Map<String, String> specifications = product.getSpecifications();
+        if (specifications == null) {
+            return;
+        }
+        specifications.forEach((key, value) -> {
+            if (key == null || value == null) {
+                return;
+            }
+            Map<String, Set<String>> values = postings.get(key);
+            if (values == null) {
+                return;
+            }
+            String normalized = normalize(value);
+            Set<String> ids = values.get(normalized);
+            if (ids != null && ids.remove(product.getId()) && ids.isEmpty()) {
+                values.remove(normalized);
+                if (values.isEmpty()) {
+                    postings.remove(key);
+                }
+            }
+        });
+    }
+
+    /**
+     * Returns the IDs of the products whose specification {@code key} equals {@code value}, ignoring the value's case.
+     *
+     * @param key   specification key, matched exactly
+     * @param value specification value, matched ignoring case
+     * @return the posting list for the pair, empty if there is none
+     */
+    public Set<String> findIds(String key, String value) {
+        if (key == null || value == null) {
+            return Set.of();
+        }
+        Map<String, Set<String>> values = postings.get(key);
+        if (values == null) {
+            return Set.of();
+        }
+        return values.getOrDefault(normalize(value), Set.of());
+    }
+
+    public void clear() {
+        postings.clear();
+    }
+
+    private static String normalize(String value) {
+        return value.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.productcomparison.repository.index;
+
+import com.example.productcomparison.model.Product;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Trigram index over lower-cased product names for case-insensitive substring search.
+ * <p>
+ * Every name is lower-cased once when the product is indexed and split into its distinct
+ * three-character grams. A query of three or more characters is answered by intersecting the
+ * posting lists of its own trigrams, smallest first, and then verifying each candidate with
+ * {@link String#contains(CharSequence)} against the stored name. Any name containing the query also
+ * contains all of its trigrams, so the result is exactly the one of a full {@code contains} scan.
+ * Shorter queries have no trigrams and fall back to scanning the pre-normalized names.
+ * </p>
+ * <p>
+ * Names are lower-cased with {@link String#toLowerCase()}, the same normalization the search
+ * endpoint has always applied to both the query and the names.
+ * </p>
+ * <p>
+ * This class is not thread-safe; {@link com.example.productcomparison.repository.ProductRepository}
+ * guards it with the same lock that protects the product map.
+ * </p>
+ */
+public class TrigramIndex {
+
+    private static final int GRAM_LENGTH = 3;
+
+    private final Map<String, String> normalizedNames = new LinkedHashMap<>();
+    private final Map<String, Set<String>> postings = new HashMap<>();
+
+    public void add(Product product) {
+        if (product.getName() == null) {
+            return;
+        }
+        String name = product.getName().toLowerCase();
+        normalizedNames.put(product.getId(), name);
+        for (String gram : trigrams(name)) {
+            postings.computeIfAbsent(gram, g -> new LinkedHashSet<>()).add(product.getId());
+        }
+    }
+
+    public void remove(Product product) {
+        String name = normalizedNames.remove(product.getId());
+        if (name == null) {
+            return;
+        }
+        for (String gram : trigrams(name)) {
+            Set<String> ids = postings.get(gram);
+            if (ids != null && ids.remove(product.getId()) && ids.isEmpty()) {
+                postings.remove(gram);
+            }
+        }
+    }
+
+    /**
+     * Returns the IDs of the products whose name contains {@code query}, ignoring case.
+     *
+     * @param query text to look for
+     * @return matching product IDs
+     */
+    public List<String> search(String query) {
+        String needle = query.toLowerCase();
+        if (needle.length() < GRAM_LENGTH) {
+            return scan(needle);
+        }
+
+        List<Set<String>> lists = new ArrayList<>();
+        for (String gram : trigrams(needle)) {
+            Set<String> ids = postings.get(gram);
+            if (ids == null) {
+                return List.of();
+            }
+            lists.add(ids);
+        }
+        lists.sort(Comparator.comparingInt(Set::size));
+
+        List<String> matches = new ArrayList<>();
+        Set<String> smallest = lists.get(0);
+        List<Set<String>> others = lists.subList(1, lists.size());
+        for (String id : smallest) {
+            if (containsAll(others, id) && normalizedNames.get(id).contains(needle)) {
+                matches.add(id);
+            }
+        }
+        return matches;
+    }
+
+    public void clear() {
+        normalizedNames.clear();
+        postings.clear();
+    }
+
+    private List<String> scan(String needle) {
+        List<String> matches = new ArrayList<>();
+        normalizedNames.forEach((id, name) -> {
+            if (name.contains(needle)) {
+                matches.add(id);
+            }
+        });
+        return matches;
+    }
+
+    private static boolean containsAll(List<Set<String>> lists, String id) {
+        for (Set<String> ids : lists) {
+            if (!ids.contains(id)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Set<String> trigrams(String text) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM_LENGTH <= text.length(); i++) {
+            grams.add(text.substring(i, i + GRAM_LENGTH));
+        }
+        return grams;
+    }
+}
@@ -0,0 +1,299 @@
+package com.example.productcomparison.repository.storage;
+
+import com.example.productcomparison.model.Product;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Compact binary snapshot of the product catalog, used to restart without re-parsing the JSON seed file.
+ * <p>
+ * Layout, all integers big-endian:
+ * </p>
+ * <ol>
+ *   <li>Header: magic {@code "PCAT"}, format version ({@code int}), catalog version ({@code long}),
+ *   product count ({@code int})</li>
+ *   <li>Dictionary: string count ({@code int}) followed by every distinct specification key and value</li>
+ *   <li>Records: one per product, an {@code int} byte length followed by {@code id}, {@code price},
+ *   {@code rating}, {@code name}, {@code imageUrl}, {@code description}, the specification count and
+ *   alternating key and value dictionary codes</li>
+ *   <li>Trailer: CRC32 of everything before it ({@code long})</li>
+ * </ol>
+ * <p>
+ * Strings are written as in {@link ProductRecordCodec}: an {@code int} byte length, {@code -1} for {@code null},
+ * followed by UTF-8 bytes. Specification codes are {@code -1} for {@code null}.
+ * Files are written to a temporary sibling, forced to disk and renamed into place, so readers never see a partial
+ * file, and the checksum is verified before any product is handed out. The directory is forced after the rename,
+ * so the new file is still in place after a crash once {@link #write} returns.
+ * </p>
+ */
+public final class CatalogFile {
+
+    public static final int MAGIC = 0x50434154;
+    public static final int FORMAT_VERSION = 1;
+
+    static final int NULL_CODE = -1;
+    static final int HEADER_BYTES = Integer.BYTES * 3 + Long.BYTES;
+    static final int TRAILER_BYTES = Long.BYTES;
+    private static final int IO_BUFFER_SIZE = 1 << 16;
+    private static final boolean WINDOWS = System.getProperty("os.name", "").startsWith("Windows");
+
+    private CatalogFile() {
+    }
+
+    /**
+     * Header of a catalog file.
+     *
+     * @param catalogVersion catalog version the file was written at
+     * @param productCount   number of products in the file
+     */
+    public record Header(long catalogVersion, int productCount) {
+    }
+
+    /**
+     * Writes the products to {@code target}, replacing any existing file atomically where the file system allows it.
+     *
+     * @param target         file to write
+     * @param catalogVersion catalog version stored in the header
+     * @param products       products to write
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(Path target, long catalogVersion, Collection<Product> products) throws IOException {
+        Map<String, Integer> dictionary = new LinkedHashMap<>();
+        for (Product product : products) {
+            if (product.getSpecifications() != null) {
+                product.getSpecifications().forEach((key, value) -> {
+                    code(dictionary, key);
+                    code(dictionary, value);
+                });
+            }
+        }
+
+        Path directory = target.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temporary = Files.createTempFile(directory, target.getFileName().toString(), ".tmp");
+        try {
+            CRC32 checksum = new CRC32();
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE);
+                 OutputStream file = Channels.newOutputStream(channel);
+                 CheckedOutputStream checked = new CheckedOutputStream(new BufferedOutputStream(file, IO_BUFFER_SIZE), checksum);
+                 DataOutputStream out = new DataOutputStream(checked)) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeLong(catalogVersion);
+                out.writeInt(products.size());
+
+                out.writeInt(dictionary.size());
+                for (String value : dictionary.keySet()) {
+                    writeString(out, value);
+                }
+
+                ByteBuffer record = ByteBuffer.allocate(1024);
+                for (Product product : products) {
+                    record = encode(product, dictionary, record);
+                    out.writeInt(record.position());
+                    out.write(record.array(), 0, record.position());
+                }
+
+                out.flush();
+                // The trailer is written past the checked stream so it is not part of its own checksum.
+                new DataOutputStream(file).writeLong(checksum.getValue());
+                // Checkpoints delete the write-ahead log this file replaces, so it must be on disk first.
+                channel.force(true);
+            }
+            move(temporary, target);
+            forceDirectory(directory);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Verifies the checksum of {@code source} and then reads its products in file order.
+     *
+     * @param source file to read
+     * @param sink   receives every product
+     * @return the header of the file
+     * @throws IOException if the file cannot be read, is not a catalog file, or fails its checksum
+     */
+    public static Header read(Path source, Consumer<Product> sink) throws IOException {
+        verifyChecksum(source);
+
+        try (InputStream file = Files.newInputStream(source);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(file, IO_BUFFER_SIZE))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a catalog file: " + source);
+            }
+            int formatVersion = in.readInt();
+            if (formatVersion != FORMAT_VERSION) {
+                throw new IOException("Unsupported catalog file version " + formatVersion + ": " + source);
+            }
+            Header header = new Header(in.readLong(), in.readInt());
+
+            String[] dictionary = new String[in.readInt()];
+            for (int i = 0; i < dictionary.length; i++) {
+                dictionary[i] = readString(in);
+            }
+
+            byte[] record = new byte[1024];
+            for (int i = 0; i < header.productCount(); i++) {
+                int length = in.readInt();
+                if (length > record.length) {
+                    record = new byte[Math.max(length, record.length * 2)];
+                }
+                in.readFully(record, 0, length);
+                sink.accept(decode(ByteBuffer.wrap(record, 0, length), dictionary));
+            }
+            return header;
+        }
+    }
+
+    static void verifyChecksum(Path source) throws IOException {
+        try (FileChannel channel = FileChannel.open(source, StandardOpenOption.READ)) {
+            long payload = channel.size() - TRAILER_BYTES;
+            if (payload < HEADER_BYTES) {
+                throw new IOException("Catalog file is truncated: " + source);
+            }
+            CRC32 checksum = new CRC32();
+            ByteBuffer buffer = ByteBuffer.allocateDirect(IO_BUFFER_SIZE);
+            long position = 0;
+            while (position < payload) {
+                buffer.clear().limit((int) Math.min(buffer.capacity(), payload - position));
+                int read = channel.read(buffer, position);
+                if (read < 0) {
+                    throw new IOException("Catalog file is truncated: " + source);
+                }
+                position += read;
+                checksum.update(buffer.flip());
+            }
+            ByteBuffer trailer = ByteBuffer.allocate(TRAILER_BYTES);
+            while (trailer.hasRemaining()) {
+                if (channel.read(trailer, payload + trailer.position()) < 0) {
+                    throw new IOException("Catalog file is truncated: " + source);
+                }
+            }
+            if (trailer.getLong(0) != checksum.getValue()) {
+                throw new IOException("Catalog file checksum mismatch: " + source);
+            }
+        }
+    }
+
+    private static ByteBuffer encode(Product product, Map<String, Integer> dictionary, ByteBuffer buffer) {
+        Map<String, String> specifications = product.getSpecifications();
+        int size = ProductRecordCodec.sizeOf(product.getId()) + 2 * Double.BYTES
+                + ProductRecordCodec.sizeOf(product.getName())
+                + ProductRecordCodec.sizeOf(product.getImageUrl())
+                + ProductRecordCodec.sizeOf(product.getDescription())
+                + Integer.BYTES + (specifications == null ? 0 : specifications.size() * 2 * Integer.BYTES);
+        ByteBuffer record = size <= buffer.capacity() ? buffer.clear() : ByteBuffer.allocate(Math.max(size, buffer.capacity() * 2));
+
+        ProductRecordCodec.writeString(record, product.getId());
+        record.putDouble(product.getPrice());
+        record.putDouble(product.getRating());
+        ProductRecordCodec.writeString(record, product.getName());
+        ProductRecordCodec.writeString(record, product.getImageUrl());
+        ProductRecordCodec.writeString(record, product.getDescription());
+        if (specifications == null) {
+            record.putInt(NULL_CODE);
+        } else {
+            record.putInt(specifications.size());
+            specifications.forEach((key, value) -> {
+                record.putInt(key == null ? NULL_CODE : dictionary.get(key));
+                record.putInt(value == null ? NULL_CODE : dictionary.get(value));
+            });
+        }
+        return record;
+    }
+
+    static Product decode(ByteBuffer record, String[] dictionary) {
+        Product.ProductBuilder builder = Product.builder()
+                .id(ProductRecordCodec.readString(record))
+                .price(record.getDouble())
+                .rating(record.getDouble())
+                .name(ProductRecordCodec.readString(record))
+                .imageUrl(ProductRecordCodec.readString(record))
+                .description(ProductRecordCodec.readString(record));
+        int count = record.getInt();
+        if (count != NULL_CODE) {
+            Map<String, String> specifications = new LinkedHashMap<>(Math.max(4, count * 2));
+            for (int i = 0; i < count; i++) {
+                specifications.put(lookup(dictionary, record.getInt()), lookup(dictionary, record.getInt()));
+            }
+            builder.specifications(specifications);
+        }
+        return builder.build();
+    }
+
+    private static String lookup(String[] dictionary, int code) {
+        return code == NULL_CODE ? null : dictionary[code];
+    }
+
+    private static void code(Map<String, Integer> dictionary, String value) {
+        if (value != null) {
+            dictionary.putIfAbsent(value, dictionary.size());
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(NULL_CODE);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length == NULL_CODE) {
+            return null;
+        }
+        byte[] bytes = in.readNBytes(length);
+        if (bytes.length != length) {
+            throw new IOException("Unexpected end of catalog file");
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void move(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Forces the entries of {@code directory} to disk, so that a file created or renamed in it survives a crash.
+     * Windows cannot open a directory and persists its entries with the files, so nothing is done there.
+     */
+    static void forceDirectory(Path directory) throws IOException {
+        if (WINDOWS) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        }
+    }
+}
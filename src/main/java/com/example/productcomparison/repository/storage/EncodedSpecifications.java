@@ -0,0 +1,187 @@
+package com.example.productcomparison.repository.storage;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Immutable specification map backed by a single {@code int[]} of dictionary codes.
+ * <p>
+ * Entries are stored as alternating key and value codes of a {@link SpecificationDictionary}, in the
+ * iteration order of the source map. Compared with a {@code HashMap}, a product pays for one small array
+ * instead of a table, an entry object per specification and its own copies of the strings.
+ * {@link #get(Object)} resolves the key to its code once and then compares integers, and so does
+ * {@link #matcher(String, String)} for the value, ignoring case.
+ * </p>
+ * <p>
+ * It is a regular {@link Map}: it serializes, compares and hashes like any other map with the same entries.
+ * Mutating methods throw {@link UnsupportedOperationException}.
+ * </p>
+ */
+public final class EncodedSpecifications extends AbstractMap<String, String> {
+
+    private final SpecificationDictionary.Generation dictionary;
+    private final int[] codes;
+
+    private EncodedSpecifications(SpecificationDictionary.Generation dictionary, int[] codes) {
+        this.dictionary = dictionary;
+        this.codes = codes;
+    }
+
+    /**
+     * Encodes the specifications with the current generation of the dictionary. Maps already encoded with it
+     * are returned as they are.
+     *
+     * @param specifications specifications to encode
+     * @param dictionary     dictionary that assigns the codes
+     * @return the encoded specifications
+     */
+    public static EncodedSpecifications of(Map<String, String> specifications, SpecificationDictionary dictionary) {
+        SpecificationDictionary.Generation generation = dictionary.generation();
+        if (specifications instanceof EncodedSpecifications encoded && encoded.dictionary == generation) {
+            return encoded;
+        }
+        int[] codes = new int[specifications.size() * 2];
+        int i = 0;
+        for (Map.Entry<String, String> entry : specifications.entrySet()) {
+            codes[i++] = generation.encode(entry.getKey());
+            codes[i++] = generation.encode(entry.getValue());
+        }
+        return new EncodedSpecifications(generation, codes);
+    }
+
+    /**
+     * Returns a test of whether a specification map has {@code value} under {@code key}, ignoring the value's
+     * case like the specification and category indexes. On encoded maps the key and value are resolved to
+     * codes once per dictionary generation and every map is then checked by comparing integers; other maps
+     * are checked with {@link String#equalsIgnoreCase(String)}.
+     *
+     * @param key   specification key, matched exactly
+     * @param value specification value, matched ignoring case
+     * @return the test; {@code null} maps never match
+     */
+    public static Predicate<Map<String, String>> matcher(String key, String value) {
+        return new Predicate<>() {
+            private Resolved resolved;
+
+            @Override
+            public boolean test(Map<String, String> specifications) {
+                if (!(specifications instanceof EncodedSpecifications encoded)) {
+                    return specifications != null && value != null && value.equalsIgnoreCase(specifications.get(key));
+                }
+                Resolved current = resolved;
+                if (current == null || current.dictionary() != encoded.dictionary) {
+                    current = new Resolved(encoded.dictionary, encoded.dictionary.find(key),
+                            encoded.dictionary.findFolded(value));
+                    resolved = current;
+                }
+                if (current.keyCode() == SpecificationDictionary.ABSENT
+                        || current.valueCode() == SpecificationDictionary.ABSENT
+                        || current.valueCode() == SpecificationDictionary.NULL_CODE) {
+                    return false;
+                }
+                int[] codes = encoded.codes;
+                for (int i = 0; i < codes.length; i += 2) {
+                    if (codes[i] == current.keyCode()) {
+                        return encoded.dictionary.fold(codes[i + 1]) == current.valueCode();
+                    }
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Counts this product as a user of its codes, so that {@link SpecificationDictionary#needsCompaction()}
+     * knows they are live. Each retained map must be released once it is no longer stored.
+     */
+    public void retain() {
+        dictionary.retain(codes);
+    }
+
+    /**
+     * Stops counting this product as a user of its codes.
+     */
+    public void release() {
+        dictionary.release(codes);
+    }
+
+    @Override
+    public String get(Object key) {
+        int index = indexOf(key);
+        return index < 0 ? null : dictionary.decode(codes[index + 1]);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return indexOf(key) >= 0;
+    }
+
+    @Override
+    public int size() {
+        return codes.length / 2;
+    }
+
+    @Override
+    public Set<Map.Entry<String, String>> entrySet() {
+        return new EntrySet();
+    }
+
+    private int indexOf(Object key) {
+        if (key != null && !(key instanceof String)) {
+            return -1;
+        }
+        int code = dictionary.find((String) key);
+        if (code == SpecificationDictionary.ABSENT) {
+            return -1;
+        }
+        for (int i = 0; i < codes.length; i += 2) {
+            if (codes[i] == code) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Codes of a {@link #matcher(String, String)} in one dictionary generation; immutable, so it can be shared
+     * between threads without synchronization.
+     */
+    private record Resolved(SpecificationDictionary.Generation dictionary, int keyCode, int valueCode) {
+    }
+
+    private final class EntrySet extends AbstractSet<Map.Entry<String, String>> {
+
+        @Override
+        public Iterator<Map.Entry<String, String>> iterator() {
+            return new Iterator<>() {
+                private int next;
+
+                @Override
+                public boolean hasNext() {
+                    return next < codes.length;
+                }
+
+                @Override
+                public Map.Entry<String, String> next() {
+                    if (next >= codes.length) {
+                        throw new NoSuchElementException();
+                    }
+                    Map.Entry<String, String> entry = new SimpleImmutableEntry<>(
+                            dictionary.decode(codes[next]), dictionary.decode(codes[next + 1]));
+                    next += 2;
+                    return entry;
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return EncodedSpecifications.this.size();
+        }
+    }
+}
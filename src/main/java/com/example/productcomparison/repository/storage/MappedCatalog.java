@@ -0,0 +1,409 @@
+package com.example.productcomparison.repository.storage;
+
+import com.example.productcomparison.model.Product;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.function.Predicate;
+
+/**
+ * Read-only view of a {@link CatalogFile} memory-mapped with {@link FileChannel#map}.
+ * <p>
+ * Opening the file maps it, reads the header and the specification dictionary, and makes one pass over the
+ * records to note where each one starts and to build a primitive ID table. No product is decoded while
+ * opening; products are decoded from the mapped bytes only when they are read, and nothing is kept for them
+ * on the heap besides a {@code long} address and a table slot. The mapped pages belong to the operating system's
+ * page cache, so several processes mapping the same file share one copy of it.
+ * </p>
+ * <p>
+ * A single mapping cannot exceed 2 GB, so larger files are mapped as several regions. A region always starts
+ * at a record boundary and is cut before the first record that does not fit completely, so every record can
+ * be decoded from one buffer. Addresses pack the region number in the high 32 bits and the offset of the
+ * record body in the low 32 bits.
+ * </p>
+ * <p>
+ * Instances are immutable once opened and safe for concurrent readers.
+ * </p>
+ */
+public final class MappedCatalog {
+
+    private static final long MAX_REGION_BYTES = Integer.MAX_VALUE;
+
+    /** Code of a string the file does not contain, or of a specification a product does not have. */
+    private static final int MISSING = -2;
+
+    private final long maxRegionBytes;
+    private final List<MappedByteBuffer> regions = new ArrayList<>();
+    private final CatalogFile.Header header;
+    private final String[] dictionary;
+    private final long[] addresses;
+
+    /** Open-addressing table of record index + 1, 0 marks an empty slot. */
+    private final int[] slots;
+    private final int[] hashes;
+
+    private long regionStart = -1;
+    private long regionEnd = -1;
+
+    private MappedCatalog(FileChannel channel, Path source, long maxRegionBytes) throws IOException {
+        this.maxRegionBytes = maxRegionBytes;
+        long end = channel.size() - CatalogFile.TRAILER_BYTES;
+        if (end < CatalogFile.HEADER_BYTES) {
+            throw new IOException("Catalog file is truncated: " + source);
+        }
+
+        long position = 0;
+        ByteBuffer region = region(channel, position, CatalogFile.HEADER_BYTES, end, source);
+        int offset = offset(position);
+        if (region.getInt(offset) != CatalogFile.MAGIC) {
+            throw new IOException("Not a catalog file: " + source);
+        }
+        int formatVersion = region.getInt(offset + Integer.BYTES);
+        if (formatVersion != CatalogFile.FORMAT_VERSION) {
+            throw new IOException("Unsupported catalog file version " + formatVersion + ": " + source);
+        }
+        header = new CatalogFile.Header(region.getLong(offset + 2 * Integer.BYTES),
+                region.getInt(offset + 2 * Integer.BYTES + Long.BYTES));
+        position += CatalogFile.HEADER_BYTES;
+
+        region = region(channel, position, Integer.BYTES, end, source);
+        dictionary = new String[region.getInt(offset(position))];
+        position += Integer.BYTES;
+        for (int i = 0; i < dictionary.length; i++) {
+            int length = region(channel, position, Integer.BYTES, end, source).getInt(offset(position));
+            int size = Integer.BYTES + Math.max(length, 0);
+            ByteBuffer string = region(channel, position, size, end, source).duplicate();
+            string.position(offset(position));
+            dictionary[i] = ProductRecordCodec.readString(string);
+            position += size;
+        }
+
+        int count = header.productCount();
+        addresses = new long[count];
+        int capacity = Integer.highestOneBit(Math.max(4, count * 2 - 1)) << 1;
+        slots = new int[capacity];
+        hashes = new int[capacity];
+        for (int i = 0; i < count; i++) {
+            int length = region(channel, position, Integer.BYTES, end, source).getInt(offset(position));
+            if (length < 0) {
+                throw new IOException("Corrupt record " + i + " in catalog file: " + source);
+            }
+            region = region(channel, position, Integer.BYTES + (long) length, end, source);
+            int start = offset(position) + Integer.BYTES;
+            addresses[i] = (long) (regions.size() - 1) << 32 | start;
+            index(region, start, i);
+            position += Integer.BYTES + (long) length;
+        }
+        if (position != end) {
+            throw new IOException("Catalog file has unexpected trailing data: " + source);
+        }
+    }
+
+    /**
+     * Maps a catalog file.
+     *
+     * @param source         catalog file written by {@link CatalogFile#write}
+     * @param verifyChecksum whether to check the CRC32 trailer first, which reads the whole file once
+     * @return the mapped catalog
+     * @throws IOException if the file cannot be mapped, is not a catalog file or fails its checksum
+     */
+    public static MappedCatalog open(Path source, boolean verifyChecksum) throws IOException {
+        return open(source, verifyChecksum, MAX_REGION_BYTES);
+    }
+
+    /**
+     * Maps a catalog file with regions of at most {@code maxRegionBytes}.
+     *
+     * @param source         catalog file written by {@link CatalogFile#write}
+     * @param verifyChecksum whether to check the CRC32 trailer first
+     * @param maxRegionBytes largest single mapping, at most {@link Integer#MAX_VALUE}; every record must fit in one
+     * @return the mapped catalog
+     * @throws IOException if the file cannot be mapped, is not a catalog file or fails its checksum
+     */
+    public static MappedCatalog open(Path source, boolean verifyChecksum, long maxRegionBytes) throws IOException {
+        if (maxRegionBytes <= 0 || maxRegionBytes > MAX_REGION_BYTES) {
+            throw new IllegalArgumentException("maxRegionBytes must be between 1 and " + MAX_REGION_BYTES);
+        }
+        if (verifyChecksum) {
+            CatalogFile.verifyChecksum(source);
+        }
+        // The mappings stay valid after the channel is closed.
+        try (FileChannel channel = FileChannel.open(source, StandardOpenOption.READ)) {
+            return new MappedCatalog(channel, source, maxRegionBytes);
+        }
+    }
+
+    public CatalogFile.Header header() {
+        return header;
+    }
+
+    public int size() {
+        return addresses.length;
+    }
+
+    /**
+     * @return the number of regions the file is mapped as
+     */
+    public int regionCount() {
+        return regions.size();
+    }
+
+    /**
+     * Decodes the product at {@code index} in file order.
+     */
+    public Product get(int index) {
+        long address = addresses[index];
+        ByteBuffer record = regions.get((int) (address >>> 32)).duplicate();
+        record.position((int) address);
+        return CatalogFile.decode(record, dictionary);
+    }
+
+    /**
+     * Finds and decodes the product with the given ID.
+     *
+     * @return the product, or {@code null} if the catalog has no product with that ID
+     */
+    public Product find(String id) {
+        int index = indexOf(id);
+        return index < 0 ? null : get(index);
+    }
+
+    public boolean contains(String id) {
+        return indexOf(id) >= 0;
+    }
+
+    /**
+     * @return every product in file order, decoded one by one as the list is read
+     */
+    public List<Product> products() {
+        return new ProductList();
+    }
+
+    /**
+     * Decodes the products whose encoded price and rating pass the filter, in file order.
+     */
+    public void forEachMatching(OffHeapProductStore.NumericFilter filter, Consumer<Product> action) {
+        forEachIndexMatching(filter, index -> action.accept(get(index)));
+    }
+
+    /**
+     * Passes the file position of every product whose encoded price and rating pass the filter, without decoding it.
+     */
+    public void forEachIndexMatching(OffHeapProductStore.NumericFilter filter, IntConsumer action) {
+        for (int i = 0; i < addresses.length; i++) {
+            ByteBuffer region = regions.get((int) (addresses[i] >>> 32));
+            int start = (int) addresses[i];
+            if (filter.test(ProductRecordCodec.priceAt(region, start), ProductRecordCodec.ratingAt(region, start))) {
+                action.accept(i);
+            }
+        }
+    }
+
+    /**
+     * @return the encoded rating of the product at {@code index}
+     */
+    public double ratingAt(int index) {
+        return ProductRecordCodec.ratingAt(regions.get((int) (addresses[index] >>> 32)), (int) addresses[index]);
+    }
+
+    /**
+     * Decodes the products that have a specification {@code key} whose value passes {@code valueMatches}.
+     * <p>
+     * The predicate is evaluated once per distinct dictionary string instead of once per product, and records
+     * are matched on their specification codes, so only matching products are decoded.
+     * </p>
+     */
+    public void forEachWithSpecification(String key, Predicate<String> valueMatches, Consumer<Product> action) {
+        int keyCode = codeOf(key);
+        if (keyCode == MISSING) {
+            return;
+        }
+        BitSet values = new BitSet(dictionary.length);
+        for (int i = 0; i < dictionary.length; i++) {
+            if (valueMatches.test(dictionary[i])) {
+                values.set(i);
+            }
+        }
+        boolean matchesNull = valueMatches.test(null);
+        for (int i = 0; i < addresses.length; i++) {
+            int valueCode = specificationCode(i, keyCode);
+            if (valueCode == CatalogFile.NULL_CODE ? matchesNull : valueCode >= 0 && values.get(valueCode)) {
+                action.accept(get(i));
+            }
+        }
+    }
+
+    /**
+     * Collects the distinct values of specification {@code key} without decoding any product.
+     */
+    public List<String> specificationValues(String key) {
+        int keyCode = codeOf(key);
+        if (keyCode == MISSING) {
+            return List.of();
+        }
+        BitSet values = new BitSet(dictionary.length);
+        for (int i = 0; i < addresses.length; i++) {
+            int valueCode = specificationCode(i, keyCode);
+            if (valueCode >= 0) {
+                values.set(valueCode);
+            }
+        }
+        List<String> result = new ArrayList<>(values.cardinality());
+        values.stream().forEach(code -> result.add(dictionary[code]));
+        return result;
+    }
+
+    /**
+     * Returns the value code of specification {@code keyCode} of the product at {@code index},
+     * or {@link #MISSING} if the product does not have it.
+     */
+    private int specificationCode(int index, int keyCode) {
+        ByteBuffer region = regions.get((int) (addresses[index] >>> 32));
+        int position = (int) addresses[index];
+        position = skipString(region, position);
+        position += 2 * Double.BYTES;
+        position = skipString(region, position);
+        position = skipString(region, position);
+        position = skipString(region, position);
+        int count = region.getInt(position);
+        position += Integer.BYTES;
+        for (int i = 0; i < count; i++, position += 2 * Integer.BYTES) {
+            if (region.getInt(position) == keyCode) {
+                return region.getInt(position + Integer.BYTES);
+            }
+        }
+        return MISSING;
+    }
+
+    /**
+     * @return the dictionary code of {@code value}, {@code NULL_CODE} for {@code null},
+     * or {@link #MISSING} if the file does not contain it
+     */
+    private int codeOf(String value) {
+        if (value == null) {
+            return CatalogFile.NULL_CODE;
+        }
+        for (int i = 0; i < dictionary.length; i++) {
+            if (dictionary[i].equals(value)) {
+                return i;
+            }
+        }
+        return MISSING;
+    }
+
+    private int indexOf(String id) {
+        if (id == null) {
+            return -1;
+        }
+        byte[] bytes = id.getBytes(StandardCharsets.UTF_8);
+        int hash = hash(ByteBuffer.wrap(bytes), 0, bytes.length);
+        int mask = slots.length - 1;
+        for (int slot = hash & mask; slots[slot] != 0; slot = (slot + 1) & mask) {
+            int index = slots[slot] - 1;
+            if (hashes[slot] == hash && idEquals(index, bytes)) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    private void index(ByteBuffer region, int start, int index) throws IOException {
+        int length = region.getInt(start);
+        if (length < 0) {
+            throw new IOException("Catalog record " + index + " has no ID");
+        }
+        int hash = hash(region, start + Integer.BYTES, length);
+        int mask = slots.length - 1;
+        int slot = hash & mask;
+        while (slots[slot] != 0) {
+            // A duplicate ID keeps the last record, as loading the file into a map would.
+            if (hashes[slot] == hash && idEquals(slots[slot] - 1, region, start)) {
+                break;
+            }
+            slot = (slot + 1) & mask;
+        }
+        slots[slot] = index + 1;
+        hashes[slot] = hash;
+    }
+
+    private boolean idEquals(int index, byte[] id) {
+        ByteBuffer region = regions.get((int) (addresses[index] >>> 32));
+        int start = (int) addresses[index];
+        return region.getInt(start) == id.length
+                && region.slice(start + Integer.BYTES, id.length).equals(ByteBuffer.wrap(id));
+    }
+
+    private boolean idEquals(int index, ByteBuffer region, int start) {
+        int length = region.getInt(start);
+        ByteBuffer other = regions.get((int) (addresses[index] >>> 32));
+        int otherStart = (int) addresses[index];
+        return other.getInt(otherStart) == length
+                && other.slice(otherStart + Integer.BYTES, length).equals(region.slice(start + Integer.BYTES, length));
+    }
+
+    /**
+     * Returns the region holding {@code [position, position + length)}, mapping a new one that starts at
+     * {@code position} if the current region does not cover it.
+     */
+    private ByteBuffer region(FileChannel channel, long position, long length, long end, Path source)
+            throws IOException {
+        if (position + length > end) {
+            throw new IOException("Catalog file is truncated: " + source);
+        }
+        if (position < regionStart || position + length > regionEnd) {
+            if (length > maxRegionBytes) {
+                throw new IOException("Catalog record at " + position + " is larger than a mapped region: " + source);
+            }
+            long size = Math.min(maxRegionBytes, end - position);
+            regions.add(channel.map(FileChannel.MapMode.READ_ONLY, position, size));
+            regionStart = position;
+            regionEnd = position + size;
+        }
+        return regions.get(regions.size() - 1);
+    }
+
+    private int offset(long position) {
+        return (int) (position - regionStart);
+    }
+
+    private static int skipString(ByteBuffer buffer, int position) {
+        int length = buffer.getInt(position);
+        return position + Integer.BYTES + Math.max(length, 0);
+    }
+
+    private static int hash(ByteBuffer buffer, int start, int length) {
+        int hash = 1;
+        for (int i = start; i < start + length; i++) {
+            hash = 31 * hash + buffer.get(i);
+        }
+        // Spread the bits so that linear probing on the low bits stays short.
+        return hash ^ (hash >>> 16);
+    }
+
+    private final class ProductList extends AbstractList<Product> implements RandomAccess {
+
+        @Override
+        public Product get(int index) {
+            Objects.checkIndex(index, addresses.length);
+            return MappedCatalog.this.get(index);
+        }
+
+        @Override
+        public int size() {
+            return addresses.length;
+        }
+    }
+}
@@ -0,0 +1,374 @@
+package com.example.productcomparison.repository.storage;
+
+import com.example.productcomparison.model.Product;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Product store that keeps every record outside the Java heap.
+ * <p>
+ * Records are encoded with {@link ProductRecordCodec} and appended, each behind an {@code int} length prefix,
+ * to direct {@link ByteBuffer} segments. A record is addressed by {@code (segment << 32) | offset}.
+ * Replacing or removing a product only flips the sign of its length prefix, which turns the old record into
+ * dead space; once dead space outweighs live data the store compacts itself into other segments.
+ * </p>
+ * <p>
+ * Direct buffers are slow to allocate and are only freed by the garbage collector, so segments are recycled:
+ * the segments a compaction empties are kept as spares, up to as many as it filled, and later appends and
+ * compactions take their segments from the spares before allocating new ones.
+ * </p>
+ * <p>
+ * The ID-to-address index is an open-addressing hash table of two primitive arrays, a {@code long[]} of
+ * addresses and an {@code int[]} of ID hashes. Keys are compared against the ID bytes stored in the record
+ * itself, so the heap holds no {@link String} or {@link Product} per entry and the garbage collector has
+ * nothing to trace but a handful of arrays and segment handles. Products are only decoded when they are read,
+ * and price or rating filters are evaluated on the raw record before anything is decoded.
+ * </p>
+ * <p>
+ * Reads only use absolute accessors or private buffer views and may run concurrently with each other.
+ * Writes are not thread-safe; callers must serialize them against reads.
+ * </p>
+ */
+public class OffHeapProductStore {
+
+    private static final int INITIAL_TABLE_CAPACITY = 1024;
+    private static final long EMPTY = 0L;
+
+    private final int segmentSize;
+    private final List<ByteBuffer> segments = new ArrayList<>();
+    /** Empty segments of {@link #segmentSize} bytes, left by earlier compactions. */
+    private final ArrayDeque<ByteBuffer> spareSegments = new ArrayDeque<>();
+
+    /** Record address plus one, so that {@code 0} marks an empty slot. */
+    private long[] slots = new long[INITIAL_TABLE_CAPACITY];
+    private int[] hashes = new int[INITIAL_TABLE_CAPACITY];
+    private int size;
+    private long liveBytes;
+    private long deadBytes;
+
+    /**
+     * @param segmentSize capacity in bytes of each off-heap segment; records larger than this get a segment of their own
+     */
+    public OffHeapProductStore(int segmentSize) {
+        if (segmentSize <= Integer.BYTES) {
+            throw new IllegalArgumentException("Segment size must be larger than " + Integer.BYTES + " bytes");
+        }
+        this.segmentSize = segmentSize;
+    }
+
+    /**
+     * Filter evaluated on the numeric fields of a record before it is decoded.
+     */
+    @FunctionalInterface
+    public interface NumericFilter {
+        boolean test(double price, double rating);
+    }
+
+    public boolean contains(String id) {
+        return id != null && find(id) >= 0;
+    }
+
+    /**
+     * Decodes the product with the given ID.
+     *
+     * @param id product ID
+     * @return the product, or {@code null} if the ID is not stored
+     */
+    public Product get(String id) {
+        if (id == null) {
+            return null;
+        }
+        int slot = find(id);
+        return slot < 0 ? null : decode(slots[slot] - 1);
+    }
+
+    /**
+     * Stores the product, replacing any previous record with the same ID.
+     *
+     * @param product product to store
+     */
+    public void put(Product product) {
+        byte[] record = ProductRecordCodec.encode(product);
+        int slot = find(product.getId());
+        if (slot >= 0) {
+            release(slots[slot] - 1);
+            slots[slot] = append(record) + 1;
+        } else {
+            if ((size + 1) * 2L > slots.length) {
+                resize(slots.length * 2);
+                slot = find(product.getId());
+            }
+            int insertAt = -slot - 1;
+            slots[insertAt] = append(record) + 1;
+            hashes[insertAt] = hash(product.getId());
+            size++;
+        }
+        compactIfNeeded();
+    }
+
+    /**
+     * Removes the product with the given ID.
+     *
+     * @param id product ID
+     * @return {@code true} if a product was removed
+     */
+    public boolean remove(String id) {
+        int slot = id == null ? -1 : find(id);
+        if (slot < 0) {
+            return false;
+        }
+        release(slots[slot] - 1);
+        deleteSlot(slot);
+        size--;
+        compactIfNeeded();
+        return true;
+    }
+
+    /**
+     * Decodes every stored product, in storage order.
+     *
+     * @param action consumer of the decoded products
+     */
+    public void forEach(Consumer<Product> action) {
+        forEachMatching((price, rating) -> true, action);
+    }
+
+    /**
+     * Decodes, in storage order, only the products whose price and rating pass the filter.
+     *
+     * @param filter numeric filter evaluated on the encoded record
+     * @param action consumer of the decoded products
+     */
+    public void forEachMatching(NumericFilter filter, Consumer<Product> action) {
+        for (ByteBuffer segment : segments) {
+            int end = segment.position();
+            int offset = 0;
+            while (offset < end) {
+                int length = segment.getInt(offset);
+                int start = offset + Integer.BYTES;
+                if (length > 0 && filter.test(ProductRecordCodec.priceAt(segment, start),
+                        ProductRecordCodec.ratingAt(segment, start))) {
+                    ByteBuffer view = segment.duplicate();
+                    view.position(start);
+                    action.accept(ProductRecordCodec.decode(view));
+                }
+                offset = start + Math.abs(length);
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return bytes reserved off-heap by all segments, including spare ones
+     */
+    public long reservedBytes() {
+        long reserved = (long) spareSegments.size() * segmentSize;
+        for (ByteBuffer segment : segments) {
+            reserved += segment.capacity();
+        }
+        return reserved;
+    }
+
+    /**
+     * @return bytes held by live records, including their length prefixes
+     */
+    public long liveBytes() {
+        return liveBytes;
+    }
+
+    /**
+     * @return bytes held by replaced or removed records that the next compaction will reclaim
+     */
+    public long deadBytes() {
+        return deadBytes;
+    }
+
+    /**
+     * Drops every record. The segments, spare ones included, are released once their buffers become unreachable.
+     */
+    public void clear() {
+        segments.clear();
+        spareSegments.clear();
+        slots = new long[INITIAL_TABLE_CAPACITY];
+        hashes = new int[INITIAL_TABLE_CAPACITY];
+        size = 0;
+        liveBytes = 0;
+        deadBytes = 0;
+    }
+
+    /**
+     * Rewrites the live records, in storage order, into spare or new segments and repoints the index at them.
+     * The emptied segments become spares.
+     */
+    public void compact() {
+        List<ByteBuffer> fresh = new ArrayList<>();
+        long[] relocated = new long[slots.length];
+        liveBytes = 0;
+        deadBytes = 0;
+        for (ByteBuffer segment : segments) {
+            int end = segment.position();
+            int offset = 0;
+            while (offset < end) {
+                int length = segment.getInt(offset);
+                int start = offset + Integer.BYTES;
+                if (length > 0) {
+                    byte[] record = new byte[length];
+                    segment.get(start, record);
+                    int slot = find(ProductRecordCodec.readId(ByteBuffer.wrap(record)));
+                    relocated[slot] = append(fresh, record) + 1;
+                }
+                offset = start + Math.abs(length);
+            }
+        }
+        // Lookups above still compare against the old segments, so the index is repointed only at the end.
+        for (int slot = 0; slot < slots.length; slot++) {
+            if (slots[slot] != EMPTY) {
+                slots[slot] = relocated[slot];
+            }
+        }
+        for (ByteBuffer segment : segments) {
+            if (segment.capacity() == segmentSize && spareSegments.size() < fresh.size()) {
+                spareSegments.push(segment.clear());
+            }
+        }
+        while (spareSegments.size() > fresh.size()) {
+            spareSegments.pop();
+        }
+        segments.clear();
+        segments.addAll(fresh);
+    }
+
+    private void compactIfNeeded() {
+        if (deadBytes >= segmentSize && deadBytes > liveBytes) {
+            compact();
+        }
+    }
+
+    private long append(byte[] record) {
+        return append(segments, record);
+    }
+
+    private long append(List<ByteBuffer> target, byte[] record) {
+        int required = Integer.BYTES + record.length;
+        ByteBuffer segment = target.isEmpty() ? null : target.get(target.size() - 1);
+        if (segment == null || segment.remaining() < required) {
+            segment = required <= segmentSize && !spareSegments.isEmpty()
+                    ? spareSegments.pop()
+                    : ByteBuffer.allocateDirect(Math.max(segmentSize, required));
+            target.add(segment);
+        }
+        long address = ((long) (target.size() - 1) << 32) | segment.position();
+        segment.putInt(record.length);
+        segment.put(record);
+        liveBytes += required;
+        return address;
+    }
+
+    /**
+     * Marks the record at the address as dead by negating its length prefix.
+     */
+    private void release(long address) {
+        ByteBuffer segment = segments.get((int) (address >>> 32));
+        int offset = (int) address;
+        int length = segment.getInt(offset);
+        segment.putInt(offset, -length);
+        liveBytes -= Integer.BYTES + length;
+        deadBytes += Integer.BYTES + length;
+    }
+
+    private Product decode(long address) {
+        ByteBuffer view = segments.get((int) (address >>> 32)).duplicate();
+        view.position((int) address + Integer.BYTES);
+        return ProductRecordCodec.decode(view);
+    }
+
+    /**
+     * Linear probe for the ID.
+     *
+     * @return the slot holding the ID, or {@code -(emptySlot) - 1} if it is not stored
+     */
+    private int find(String id) {
+        int hash = hash(id);
+        byte[] key = id.getBytes(StandardCharsets.UTF_8);
+        int mask = slots.length - 1;
+        int slot = hash & mask;
+        while (slots[slot] != EMPTY) {
+            if (hashes[slot] == hash && idEquals(slots[slot] - 1, key)) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -slot - 1;
+    }
+
+    private boolean idEquals(long address, byte[] key) {
+        ByteBuffer segment = segments.get((int) (address >>> 32));
+        int offset = (int) address + Integer.BYTES;
+        if (segment.getInt(offset) != key.length) {
+            return false;
+        }
+        offset += Integer.BYTES;
+        for (int i = 0; i < key.length; i++) {
+            if (segment.get(offset + i) != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Empties the slot and shifts back any following entries of the probe chain, so lookups never need tombstones.
+     */
+    private void deleteSlot(int slot) {
+        int mask = slots.length - 1;
+        int hole = slot;
+        int next = slot;
+        while (true) {
+            next = (next + 1) & mask;
+            if (slots[next] == EMPTY) {
+                break;
+            }
+            int home = hashes[next] & mask;
+            boolean movable = hole <= next
+                    ? home <= hole || home > next
+                    : home <= hole && home > next;
+            if (movable) {
+                slots[hole] = slots[next];
+                hashes[hole] = hashes[next];
+                hole = next;
+            }
+        }
+        slots[hole] = EMPTY;
+    }
+
+    private void resize(int capacity) {
+        long[] oldSlots = slots;
+        int[] oldHashes = hashes;
+        slots = new long[capacity];
+        hashes = new int[capacity];
+        int mask = capacity - 1;
+        for (int i = 0; i < oldSlots.length; i++) {
+            if (oldSlots[i] != EMPTY) {
+                int slot = oldHashes[i] & mask;
+                while (slots[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                slots[slot] = oldSlots[i];
+                hashes[slot] = oldHashes[i];
+            }
+        }
+    }
+
+    private static int hash(String id) {
+        int h = id.hashCode();
+        return h ^ (h >>> 16);
+    }
+}
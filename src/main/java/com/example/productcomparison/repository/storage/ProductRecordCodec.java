@@ -0,0 +1,188 @@
+package com.example.productcomparison.repository.storage;
+
+import com.example.productcomparison.model.Product;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Compact binary encoding of a single {@link Product}.
+ * <p>
+ * Layout, in order: {@code id} as a string, {@code price} and {@code rating} as 8-byte doubles,
+ * {@code name}, {@code imageUrl} and {@code description} as strings, then the specification count followed
+ * by alternating key and value strings. A string is an {@code int} byte length followed by its UTF-8 bytes,
+ * with length {@code -1} for {@code null}; a {@code null} specification map has count {@code -1}.
+ * The ID and the numeric fields come first, so stores can index a record or filter it by price or rating
+ * without decoding the rest of it.
+ * </p>
+ * <p>
+ * Records carry no framing of their own; callers prefix them with their length.
+ * </p>
+ */
+public final class ProductRecordCodec {
+
+    private static final int NULL_LENGTH = -1;
+
+    private ProductRecordCodec() {
+    }
+
+    /**
+     * Encodes the product into a new array sized exactly to the record.
+     *
+     * @param product product to encode
+     * @return the encoded record
+     */
+    public static byte[] encode(Product product) {
+        byte[] id = bytes(product.getId());
+        byte[] name = bytes(product.getName());
+        byte[] imageUrl = bytes(product.getImageUrl());
+        byte[] description = bytes(product.getDescription());
+        Map<String, String> specifications = product.getSpecifications();
+
+        int size = sizeOf(id) + sizeOf(name) + sizeOf(imageUrl) + sizeOf(description)
+                + 2 * Double.BYTES + Integer.BYTES;
+        byte[][] specificationBytes = null;
+        if (specifications != null) {
+            specificationBytes = new byte[specifications.size() * 2][];
+            int i = 0;
+            for (Map.Entry<String, String> entry : specifications.entrySet()) {
+                specificationBytes[i] = bytes(entry.getKey());
+                specificationBytes[i + 1] = bytes(entry.getValue());
+                size += sizeOf(specificationBytes[i]) + sizeOf(specificationBytes[i + 1]);
+                i += 2;
+            }
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        put(buffer, id);
+        buffer.putDouble(product.getPrice());
+        buffer.putDouble(product.getRating());
+        put(buffer, name);
+        put(buffer, imageUrl);
+        put(buffer, description);
+        if (specificationBytes == null) {
+            buffer.putInt(NULL_LENGTH);
+        } else {
+            buffer.putInt(specificationBytes.length / 2);
+            for (byte[] part : specificationBytes) {
+                put(buffer, part);
+            }
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Decodes a product starting at the buffer's position and advances the position past the record.
+     *
+     * @param buffer buffer positioned at the start of a record
+     * @return the decoded product
+     */
+    public static Product decode(ByteBuffer buffer) {
+        Product.ProductBuilder builder = Product.builder()
+                .id(readString(buffer))
+                .price(buffer.getDouble())
+                .rating(buffer.getDouble())
+                .name(readString(buffer))
+                .imageUrl(readString(buffer))
+                .description(readString(buffer));
+        int count = buffer.getInt();
+        if (count != NULL_LENGTH) {
+            Map<String, String> specifications = new LinkedHashMap<>(Math.max(4, count * 2));
+            for (int i = 0; i < count; i++) {
+                specifications.put(readString(buffer), readString(buffer));
+            }
+            builder.specifications(specifications);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Reads only the product ID at the buffer's position, advancing the position past it.
+     *
+     * @param buffer buffer positioned at the start of a record
+     * @return the product ID
+     */
+    public static String readId(ByteBuffer buffer) {
+        return readString(buffer);
+    }
+
+    /**
+     * Reads the price of the record starting at the given index, without moving the buffer's position.
+     *
+     * @param buffer buffer holding the record
+     * @param start  index of the first byte of the record
+     * @return the product price
+     */
+    public static double priceAt(ByteBuffer buffer, int start) {
+        return buffer.getDouble(numericOffset(buffer, start));
+    }
+
+    /**
+     * Reads the rating of the record starting at the given index, without moving the buffer's position.
+     *
+     * @param buffer buffer holding the record
+     * @param start  index of the first byte of the record
+     * @return the product rating
+     */
+    public static double ratingAt(ByteBuffer buffer, int start) {
+        return buffer.getDouble(numericOffset(buffer, start) + Double.BYTES);
+    }
+
+    /**
+     * Reads a length-prefixed UTF-8 string at the buffer's position.
+     *
+     * @param buffer source buffer
+     * @return the string, or {@code null} if it was encoded as null
+     */
+    public static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes a length-prefixed UTF-8 string at the buffer's position.
+     *
+     * @param buffer target buffer
+     * @param value  string to write, may be {@code null}
+     */
+    public static void writeString(ByteBuffer buffer, String value) {
+        put(buffer, bytes(value));
+    }
+
+    /**
+     * @param value string to measure, may be {@code null}
+     * @return the number of bytes {@link #writeString(ByteBuffer, String)} uses for the value
+     */
+    public static int sizeOf(String value) {
+        return sizeOf(bytes(value));
+    }
+
+    private static int numericOffset(ByteBuffer buffer, int start) {
+        int idLength = buffer.getInt(start);
+        return start + Integer.BYTES + Math.max(idLength, 0);
+    }
+
+    private static byte[] bytes(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int sizeOf(byte[] bytes) {
+        return Integer.BYTES + (bytes == null ? 0 : bytes.length);
+    }
+
+    private static void put(ByteBuffer buffer, byte[] bytes) {
+        if (bytes == null) {
+            buffer.putInt(NULL_LENGTH);
+        } else {
+            buffer.putInt(bytes.length);
+            buffer.put(bytes);
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package com.example.productcomparison.repository.storage;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Shared dictionary that assigns a dense {@code int} code to every distinct specification key and value.
+ * <p>
+ * Product specifications repeat the same handful of keys ({@code category}, {@code ram}, {@code storage}, ...)
+ * and many of the same values across the whole catalog. Encoding them once here lets each product keep a
+ * small {@code int[]} of codes, see {@link EncodedSpecifications}, instead of its own map of strings, and turns
+ * key comparisons into integer comparisons. Every string also gets the code of its lower-case form, so
+ * case-insensitive value comparisons are integer comparisons too.
+ * </p>
+ *
+ * <h2>Reclaiming codes:</h2>
+ * <p>
+ * Codes are never reused, because immutable snapshots may still hold products that use them. Instead, the
+ * repository counts the products that use every code ({@link EncodedSpecifications#retain()} and
+ * {@link EncodedSpecifications#release()}), and once most codes are unused, {@link #startGeneration()} starts
+ * over with an empty set of codes and the repository re-encodes its products with it. Products that still use
+ * the previous generation keep it alive, and keep decoding correctly, until they are garbage collected.
+ * </p>
+ * <p>
+ * Lookups are lock-free and inserts are serialized, so the dictionary can be shared by every writer.
+ * </p>
+ */
+@Component
+public class SpecificationDictionary {
+
+    /** Code of a {@code null} key or value. */
+    public static final int NULL_CODE = -1;
+
+    /** Returned by {@link #find(String)} for strings that have no code. */
+    public static final int ABSENT = -2;
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    /** Smaller dictionaries are not worth re-encoding the catalog for. */
+    private static final int MIN_COMPACTION_SIZE = 1024;
+
+    private volatile Generation generation = new Generation();
+
+    /**
+     * Returns the code of the string, assigning a new one if it has not been seen yet.
+     *
+     * @param value string to encode, may be {@code null}
+     * @return the code, or {@link #NULL_CODE} for {@code null}
+     */
+    public int encode(String value) {
+        return generation.encode(value);
+    }
+
+    /**
+     * Returns the code of the string without assigning one.
+     *
+     * @param value string to look up, may be {@code null}
+     * @return the code, {@link #NULL_CODE} for {@code null}, or {@link #ABSENT} if the string has no code
+     */
+    public int find(String value) {
+        return generation.find(value);
+    }
+
+    /**
+     * @param code code returned by {@link #encode(String)}
+     * @return the string of the code, {@code null} for {@link #NULL_CODE}
+     */
+    public String decode(int code) {
+        return generation.decode(code);
+    }
+
+    /**
+     * @return the number of distinct strings encoded since the current generation started
+     */
+    public int size() {
+        return generation.size();
+    }
+
+    /**
+     * @return the number of codes of the current generation used by at least one retained product
+     */
+    public int liveSize() {
+        return generation.liveSize();
+    }
+
+    /**
+     * @return whether the current generation is large and mostly unused, so that re-encoding the catalog with
+     *         {@link #startGeneration()} would free most of it
+     */
+    public boolean needsCompaction() {
+        Generation current = generation;
+        synchronized (current) {
+            return current.size >= MIN_COMPACTION_SIZE && current.size - current.live > current.live;
+        }
+    }
+
+    /**
+     * Starts a new, empty generation of codes. Specifications encoded before keep working with the previous
+     * generation; {@link EncodedSpecifications#of} re-encodes them with the new one.
+     */
+    public void startGeneration() {
+        generation = new Generation();
+    }
+
+    Generation generation() {
+        return generation;
+    }
+
+    /**
+     * The codes assigned since the dictionary was created or last compacted. Never changes a code once assigned.
+     */
+    static final class Generation {
+
+        private final ConcurrentHashMap<String, Integer> codes = new ConcurrentHashMap<>();
+        /** Code of every lower-case form, in a code space of its own. */
+        private final ConcurrentHashMap<String, Integer> foldedCodes = new ConcurrentHashMap<>();
+        private volatile String[] strings = new String[INITIAL_CAPACITY];
+        private volatile int[] folded = new int[INITIAL_CAPACITY];
+        /** Retained products using each code. Guarded by this generation. */
+        private int[] references = new int[INITIAL_CAPACITY];
+        private int size;
+        private int live;
+
+        int encode(String value) {
+            if (value == null) {
+                return NULL_CODE;
+            }
+            Integer code = codes.get(value);
+            return code != null ? code : insert(value);
+        }
+
+        int find(String value) {
+            if (value == null) {
+                return NULL_CODE;
+            }
+            Integer code = codes.get(value);
+            return code != null ? code : ABSENT;
+        }
+
+        String decode(int code) {
+            return code == NULL_CODE ? null : strings[code];
+        }
+
+        /**
+         * @return the code of the lower-case form of the code's string, {@link #NULL_CODE} for {@code null}
+         */
+        int fold(int code) {
+            return code == NULL_CODE ? NULL_CODE : folded[code];
+        }
+
+        /**
+         * @return the code {@link #fold(int)} returns for strings equal to {@code value} ignoring case, or
+         *         {@link #ABSENT} if no such string has a code
+         */
+        int findFolded(String value) {
+            if (value == null) {
+                return NULL_CODE;
+            }
+            Integer code = foldedCodes.get(value.toLowerCase(Locale.ROOT));
+            return code != null ? code : ABSENT;
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        synchronized int liveSize() {
+            return live;
+        }
+
+        synchronized void retain(int[] used) {
+            for (int code : used) {
+                if (code >= 0 && references[code]++ == 0) {
+                    live++;
+                }
+            }
+        }
+
+        synchronized void release(int[] used) {
+            for (int code : used) {
+                if (code >= 0 && references[code] > 0 && --references[code] == 0) {
+                    live--;
+                }
+            }
+        }
+
+        private synchronized int insert(String value) {
+            Integer existing = codes.get(value);
+            if (existing != null) {
+                return existing;
+            }
+            String[] currentStrings = strings;
+            int[] currentFolded = folded;
+            if (size == currentStrings.length) {
+                currentStrings = Arrays.copyOf(currentStrings, size * 2);
+                currentFolded = Arrays.copyOf(currentFolded, size * 2);
+                references = Arrays.copyOf(references, size * 2);
+            }
+            currentStrings[size] = value;
+            String lowerCase = value.toLowerCase(Locale.ROOT);
+            Integer foldedCode = foldedCodes.get(lowerCase);
+            if (foldedCode == null) {
+                foldedCode = foldedCodes.size();
+                foldedCodes.put(lowerCase, foldedCode);
+            }
+            currentFolded[size] = foldedCode;
+            // Publish the slots before the code becomes visible to lock-free readers.
+            folded = currentFolded;
+            strings = currentStrings;
+            codes.put(value, size);
+            return size++;
+        }
+    }
+}
@@ -0,0 +1,594 @@
+package com.example.productcomparison.repository.storage;
+
+import com.example.productcomparison.config.ConditionalOnLocalCatalog;
+import com.example.productcomparison.exception.repository.ProductDataAccessException;
+import com.example.productcomparison.model.Product;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of product mutations, replayed on startup so that writes survive a restart.
+ * <p>
+ * Every entry is framed as an {@code int} payload length, the CRC32 of the payload ({@code int}) and the payload:
+ * the operation ({@code byte}), the log sequence number ({@code long}) and either a product encoded with
+ * {@link ProductRecordCodec} or the ID of a deleted product. Entries are numbered from 1 without gaps.
+ * A torn or corrupt entry at the end of a file, left by a crash in the middle of a write, is cut off on replay.
+ * </p>
+ *
+ * <h2>Group commit:</h2>
+ * <p>
+ * {@link #appendPut(Product)} and {@link #appendDelete(String)} only copy the entry into an in-memory buffer and
+ * return its sequence number. A single flusher thread swaps the buffer out, writes it and forces it to disk;
+ * entries appended while a force is in progress go out together with the next one. Writers call
+ * {@link #awaitDurable(long)} after releasing their own locks, so concurrent writers share one {@code fsync}
+ * instead of queueing one each.
+ * </p>
+ *
+ * <h2>Durability modes:</h2>
+ * <ul>
+ *   <li>{@link Durability#BATCH} - {@link #awaitDurable(long)} returns once the entry has been forced to disk</li>
+ *   <li>{@link Durability#INTERVAL} - the log is written and forced every {@code product.wal.flush-interval-ms};
+ *   writes made in the last interval can be lost on a crash</li>
+ *   <li>{@link Durability#NONE} - the log is written without forcing it; the operating system decides when it
+ *   reaches the disk</li>
+ * </ul>
+ *
+ * <h2>Files:</h2>
+ * <p>
+ * Files live in {@code product.wal.directory} and are named after the first sequence number they contain.
+ * Every start replays the existing files in order and then appends to a new file. The log is disabled when no
+ * directory is configured; every method is then a no-op.
+ * </p>
+ * <p>
+ * {@link #roll()} switches appends to a new file and {@link #deleteBefore(long)} drops the files before it,
+ * which lets a checkpoint cut off the prefix of the log it has written to a snapshot. Replaying an entry
+ * that is already part of the snapshot is harmless, since every entry carries the full new state of its product.
+ * </p>
+ * <p>
+ * If writing the log fails, the failure is reported to every waiting writer and every later append, so the
+ * catalog stops accepting changes it cannot persist.
+ * </p>
+ */
+@Component
+@ConditionalOnLocalCatalog
+@Slf4j
+public class WriteAheadLog {
+
+    /**
+     * When appended entries are forced to disk.
+     */
+    public enum Durability {
+        BATCH, INTERVAL, NONE
+    }
+
+    /**
+     * Receives product mutations: the entries of the log on replay, or the changes of the catalog as they are made.
+     */
+    public interface MutationHandler {
+
+        void put(Product product);
+
+        void delete(String id);
+    }
+
+    private static final String FILE_PREFIX = "wal-";
+    private static final String FILE_SUFFIX = ".log";
+    private static final byte PUT = 1;
+    private static final byte DELETE = 2;
+    private static final int FRAME_HEADER_BYTES = 2 * Integer.BYTES;
+    private static final int INITIAL_BUFFER_SIZE = 1 << 16;
+
+    @Value("${product.wal.directory:}")
+    private String directory;
+
+    @Value("${product.wal.durability:BATCH}")
+    private Durability durability = Durability.BATCH;
+
+    @Value("${product.wal.flush-interval-ms:100}")
+    private long flushIntervalMs = 100;
+
+    private final Object monitor = new Object();
+
+    /** Entries appended since the flusher last swapped buffers. Guarded by {@link #monitor}. */
+    private ByteBuffer pending = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+    private ByteBuffer flushing = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+    private long lastSequence;
+    private long durableSequence;
+    private IOException failure;
+    private boolean closed;
+    private boolean rollRequested;
+    private long activeFileStart;
+
+    /** Replaced under {@link #monitor}; written to only by the flusher. */
+    private FileChannel channel;
+    private volatile long activeFileBytes;
+    private Thread flusher;
+
+    /**
+     * @return whether a log directory is configured
+     */
+    public boolean isEnabled() {
+        return directory != null && !directory.isBlank();
+    }
+
+    /**
+     * Replays every entry of the existing log files in order. Must be called before {@link #open()}.
+     * <p>
+     * Only the newest file can end with an entry torn by a crash, which is cut off. A damaged entry in an older
+     * file, or a file that does not continue where the previous one ended, fails the replay and leaves the
+     * files as they are; only the files before the first one may have been dropped by a checkpoint.
+     * </p>
+     *
+     * @param handler receives the entries
+     * @return the number of entries replayed
+     * @throws ProductDataAccessException if the log cannot be read, or is damaged before its last entry
+     */
+    public long replay(MutationHandler handler) {
+        if (!isEnabled()) {
+            return 0;
+        }
+        long replayed = 0;
+        try {
+            List<Path> files = files();
+            for (int i = 0; i < files.size(); i++) {
+                Path file = files.get(i);
+                long firstSequence = firstSequence(file);
+                if (i == 0) {
+                    // Files before the first one may have been dropped by a checkpoint.
+                    lastSequence = Math.max(lastSequence, firstSequence - 1);
+                } else if (firstSequence != lastSequence + 1) {
+                    throw new IOException("Write-ahead log file " + file + " starts at entry " + firstSequence
+                            + " but the previous file ends at entry " + lastSequence);
+                }
+                replayed += replay(file, handler, i == files.size() - 1);
+            }
+        } catch (IOException e) {
+            throw new ProductDataAccessException("Failed to replay write-ahead log in " + directory, e);
+        }
+        synchronized (monitor) {
+            durableSequence = lastSequence;
+        }
+        log.info("Replayed {} write-ahead log entries from {}", replayed, directory);
+        return replayed;
+    }
+
+    /**
+     * Opens a new log file for appending and starts the flusher.
+     *
+     * @throws ProductDataAccessException if the file cannot be created
+     */
+    public void open() {
+        if (!isEnabled()) {
+            return;
+        }
+        synchronized (monitor) {
+            if (channel != null) {
+                return;
+            }
+            try {
+                Files.createDirectories(Path.of(directory));
+                channel = openFile(lastSequence + 1);
+                activeFileStart = lastSequence + 1;
+                activeFileBytes = channel.size();
+            } catch (IOException e) {
+                throw new ProductDataAccessException("Failed to open write-ahead log in " + directory, e);
+            }
+            closed = false;
+            flusher = new Thread(this::flushLoop, "wal-flusher");
+            flusher.setDaemon(true);
+            flusher.start();
+        }
+        log.info("Write-ahead log open in {} with {} durability", directory, durability);
+    }
+
+    /**
+     * Appends the new state of a saved or updated product.
+     *
+     * @return the sequence number of the entry, to pass to {@link #awaitDurable(long)}
+     * @throws ProductDataAccessException if the log has failed or is not open
+     */
+    public long appendPut(Product product) {
+        if (!isEnabled()) {
+            return 0;
+        }
+        byte[] record = ProductRecordCodec.encode(product);
+        return append(PUT, record.length, buffer -> buffer.put(record));
+    }
+
+    /**
+     * Appends the deletion of a product.
+     *
+     * @return the sequence number of the entry, to pass to {@link #awaitDurable(long)}
+     * @throws ProductDataAccessException if the log has failed or is not open
+     */
+    public long appendDelete(String id) {
+        if (!isEnabled()) {
+            return 0;
+        }
+        return append(DELETE, ProductRecordCodec.sizeOf(id), buffer -> ProductRecordCodec.writeString(buffer, id));
+    }
+
+    /**
+     * Waits until the entry is as durable as the configured {@link Durability} promises.
+     * Only {@link Durability#BATCH} actually waits.
+     *
+     * @param sequence sequence number returned by an append
+     * @throws ProductDataAccessException if the log failed before the entry was written
+     */
+    public void awaitDurable(long sequence) {
+        if (!waitsForDurability()) {
+            return;
+        }
+        synchronized (monitor) {
+            boolean interrupted = false;
+            while (durableSequence < sequence && failure == null && channel != null) {
+                try {
+                    monitor.wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            if (durableSequence < sequence) {
+                throw new ProductDataAccessException("Write-ahead log entry " + sequence + " was not persisted",
+                        failure);
+            }
+        }
+    }
+
+    /**
+     * Makes the flusher write out every appended entry and continue in a new file.
+     * Returns once the switch is done. Every entry before the returned sequence number is in an older file.
+     *
+     * @return the sequence number the new file starts at
+     * @throws ProductDataAccessException if the log has failed
+     */
+    public long roll() {
+        synchronized (monitor) {
+            if (!isEnabled() || channel == null) {
+                return lastSequence + 1;
+            }
+            rollRequested = true;
+            monitor.notifyAll();
+            boolean interrupted = false;
+            while (rollRequested && failure == null && channel != null) {
+                try {
+                    monitor.wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            if (rollRequested) {
+                throw new ProductDataAccessException("Failed to roll write-ahead log in " + directory, failure);
+            }
+            return activeFileStart;
+        }
+    }
+
+    /**
+     * Deletes the files that only hold entries before {@code sequence}, typically the value returned by
+     * {@link #roll()} once everything before it has been checkpointed.
+     *
+     * @return the number of files deleted
+     * @throws ProductDataAccessException if a file cannot be deleted
+     */
+    public int deleteBefore(long sequence) {
+        if (!isEnabled()) {
+            return 0;
+        }
+        long activeStart;
+        synchronized (monitor) {
+            activeStart = channel == null ? Long.MAX_VALUE : activeFileStart;
+        }
+        List<Path> files;
+        try {
+            files = files();
+        } catch (IOException e) {
+            throw new ProductDataAccessException("Failed to list write-ahead log files in " + directory, e);
+        }
+        int deleted = 0;
+        for (int i = 0; i + 1 < files.size(); i++) {
+            // A file ends where the next one starts.
+            long nextStart = firstSequence(files.get(i + 1));
+            if (nextStart <= sequence && firstSequence(files.get(i)) < activeStart) {
+                try {
+                    Files.delete(files.get(i));
+                    deleted++;
+                } catch (IOException e) {
+                    throw new ProductDataAccessException("Failed to delete write-ahead log file " + files.get(i), e);
+                }
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * @return bytes written to the current file so far
+     */
+    public long activeFileBytes() {
+        return activeFileBytes;
+    }
+
+    /**
+     * @return whether {@link #awaitDurable(long)} waits for the flusher, in which case an appended entry can
+     *         still fail to be persisted after the append returned
+     */
+    public boolean waitsForDurability() {
+        return isEnabled() && durability == Durability.BATCH;
+    }
+
+    /**
+     * @return the sequence number of the last entry the flusher has written out; every later entry is lost if
+     *         the log fails
+     */
+    public long durableSequence() {
+        synchronized (monitor) {
+            return durableSequence;
+        }
+    }
+
+    /**
+     * @return the sequence number of the last appended or replayed entry
+     */
+    public long lastSequence() {
+        synchronized (monitor) {
+            return lastSequence;
+        }
+    }
+
+    /**
+     * Flushes every appended entry, stops the flusher and closes the log file.
+     */
+    @PreDestroy
+    public void close() {
+        Thread thread;
+        synchronized (monitor) {
+            if (channel == null || closed) {
+                return;
+            }
+            closed = true;
+            thread = flusher;
+            monitor.notifyAll();
+        }
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (monitor) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.warn("Failed to close write-ahead log in {}", directory, e);
+            }
+            channel = null;
+            monitor.notifyAll();
+        }
+    }
+
+    private long append(byte operation, int bodySize, Consumer<ByteBuffer> body) {
+        int payloadSize = 1 + Long.BYTES + bodySize;
+        synchronized (monitor) {
+            if (failure != null) {
+                throw new ProductDataAccessException("Write-ahead log in " + directory + " has failed", failure);
+            }
+            if (channel == null || closed) {
+                throw new ProductDataAccessException("Write-ahead log in " + directory + " is not open");
+            }
+            ensureCapacity(FRAME_HEADER_BYTES + payloadSize);
+            long sequence = lastSequence + 1;
+            int start = pending.position();
+            pending.position(start + FRAME_HEADER_BYTES);
+            pending.put(operation).putLong(sequence);
+            body.accept(pending);
+
+            CRC32 checksum = new CRC32();
+            checksum.update(pending.array(), start + FRAME_HEADER_BYTES, payloadSize);
+            pending.putInt(start, payloadSize).putInt(start + Integer.BYTES, (int) checksum.getValue());
+
+            lastSequence = sequence;
+            if (durability != Durability.INTERVAL) {
+                monitor.notifyAll();
+            }
+            return sequence;
+        }
+    }
+
+    private void ensureCapacity(int bytes) {
+        if (pending.remaining() < bytes) {
+            ByteBuffer larger = ByteBuffer.allocate(Math.max(pending.capacity() * 2, pending.position() + bytes));
+            pending.flip();
+            larger.put(pending);
+            pending = larger;
+        }
+    }
+
+    private void flushLoop() {
+        try {
+            boolean last;
+            do {
+                ByteBuffer batch;
+                long sequence;
+                boolean roll;
+                synchronized (monitor) {
+                    waitForWork();
+                    last = closed;
+                    roll = rollRequested && !last;
+                    batch = pending;
+                    pending = flushing.clear();
+                    flushing = batch;
+                    sequence = lastSequence;
+                }
+                int written = batch.flip().remaining();
+                while (batch.hasRemaining()) {
+                    channel.write(batch);
+                }
+                activeFileBytes += written;
+                if (written > 0 && (durability != Durability.NONE || last)) {
+                    channel.force(false);
+                }
+                FileChannel previous = null;
+                FileChannel next = roll && sequence + 1 != activeFileStart ? openFile(sequence + 1) : null;
+                synchronized (monitor) {
+                    durableSequence = sequence;
+                    if (next != null) {
+                        previous = channel;
+                        channel = next;
+                        activeFileBytes = 0;
+                    }
+                    if (roll) {
+                        activeFileStart = sequence + 1;
+                        rollRequested = false;
+                    }
+                    monitor.notifyAll();
+                }
+                if (previous != null) {
+                    previous.close();
+                }
+            } while (!last);
+        } catch (IOException e) {
+            log.error("Write-ahead log in {} failed; further writes will be rejected", directory, e);
+            synchronized (monitor) {
+                failure = e;
+                monitor.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Blocks the flusher until there is something to write, or for one interval in {@link Durability#INTERVAL} mode.
+     */
+    private void waitForWork() {
+        try {
+            if (durability == Durability.INTERVAL) {
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+                for (long remaining; !closed && !rollRequested && (remaining = deadline - System.nanoTime()) > 0; ) {
+                    TimeUnit.NANOSECONDS.timedWait(monitor, remaining);
+                }
+            } else {
+                while (!closed && !rollRequested && pending.position() == 0) {
+                    monitor.wait();
+                }
+            }
+        } catch (InterruptedException e) {
+            // Nothing interrupts the flusher on purpose; flush what is there and carry on until close().
+        }
+    }
+
+    /**
+     * @param newest whether this is the last file, the only one a crash can leave with a torn entry at its end
+     */
+    private long replay(Path file, MutationHandler handler, boolean newest) throws IOException {
+        if (Files.size(file) == 0) {
+            // Left by a start that never wrote anything.
+            Files.delete(file);
+            return 0;
+        }
+        long replayed = 0;
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            if (in.size() > Integer.MAX_VALUE) {
+                throw new IOException("Write-ahead log file is too large to replay: " + file);
+            }
+            ByteBuffer content = ByteBuffer.allocate((int) in.size());
+            while (content.hasRemaining() && in.read(content) >= 0) {
+                // Read the whole file.
+            }
+            content.flip();
+
+            int position = 0;
+            while (position < content.limit()) {
+                int payloadSize = content.limit() - position >= FRAME_HEADER_BYTES ? content.getInt(position) : -1;
+                int payloadStart = position + FRAME_HEADER_BYTES;
+                if (payloadSize < 1 + Long.BYTES || payloadSize > content.limit() - payloadStart
+                        || !checksumMatches(content, payloadStart, payloadSize, content.getInt(position + Integer.BYTES))) {
+                    if (!newest) {
+                        throw new IOException("Damaged write-ahead log entry at byte " + position + " of " + file
+                                + ", which is followed by newer log files");
+                    }
+                    log.warn("Cutting off torn write-ahead log entry at byte {} of {}", position, file);
+                    in.truncate(position);
+                    break;
+                }
+                ByteBuffer payload = content.slice(payloadStart, payloadSize);
+                byte operation = payload.get();
+                long sequence = payload.getLong();
+                if (sequence != lastSequence + 1) {
+                    throw new IOException("Write-ahead log entry " + sequence + " in " + file
+                            + " does not follow entry " + lastSequence);
+                }
+                if (operation == PUT) {
+                    handler.put(ProductRecordCodec.decode(payload));
+                } else if (operation == DELETE) {
+                    handler.delete(ProductRecordCodec.readString(payload));
+                } else {
+                    throw new IOException("Unknown write-ahead log operation " + operation + " in " + file);
+                }
+                lastSequence = sequence;
+                replayed++;
+                position = payloadStart + payloadSize;
+            }
+        }
+        return replayed;
+    }
+
+    private static boolean checksumMatches(ByteBuffer content, int start, int length, int expected) {
+        CRC32 checksum = new CRC32();
+        checksum.update(content.slice(start, length));
+        return (int) checksum.getValue() == expected;
+    }
+
+    private List<Path> files() throws IOException {
+        Path root = Path.of(directory);
+        if (!Files.isDirectory(root)) {
+            return List.of();
+        }
+        try (Stream<Path> entries = Files.list(root)) {
+            List<Path> files = new ArrayList<>(entries
+                    .filter(path -> path.getFileName().toString().startsWith(FILE_PREFIX))
+                    .filter(path -> path.getFileName().toString().endsWith(FILE_SUFFIX))
+                    .toList());
+            // Names are zero-padded sequence numbers, so lexical order is log order.
+            files.sort(null);
+            return files;
+        }
+    }
+
+    private FileChannel openFile(long firstSequence) throws IOException {
+        Path file = Path.of(directory, String.format("%s%020d%s", FILE_PREFIX, firstSequence, FILE_SUFFIX));
+        FileChannel channel =
+                FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        try {
+            // Entries forced to the file are only durable once its directory entry is.
+            CatalogFile.forceDirectory(file.toAbsolutePath().getParent());
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        return channel;
+    }
+
+    private static long firstSequence(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(FILE_PREFIX.length(), name.length() - FILE_SUFFIX.length()));
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.productcomparison.service;
+
+import com.example.productcomparison.exception.ErrorResponse;
+import com.example.productcomparison.exception.service.PartitionRequestException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Calls the product API of one catalog node for {@link RoutingProductService}.
+ * <p>
+ * Every call is asynchronous and completes exceptionally after the configured timeout. A node that rejects
+ * the request with a 4xx status completes it with {@link PartitionRequestException}; a node that cannot be
+ * reached, times out, refuses the router's token or fails with a 5xx status completes it with any other exception.
+ * </p>
+ */
+public class CatalogNodeClient {
+
+    private static final String PRODUCTS = "/api/products";
+
+    private final String baseUrl;
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+    private final Supplier<String> token;
+    private final long timeoutMs;
+
+    public CatalogNodeClient(String baseUrl, HttpClient httpClient, ObjectMapper objectMapper,
+                             Supplier<String> token, long timeoutMs) {
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.httpClient = httpClient;
+        this.objectMapper = objectMapper;
+        this.token = token;
+        this.timeoutMs = timeoutMs;
+    }
+
+    public String baseUrl() {
+        return baseUrl;
+    }
+
+    /**
+     * Reads {@code /api/products} followed by {@code path}.
+     */
+    public <T> CompletableFuture<T> get(String path, TypeReference<T> type) {
+        return send(request(path).GET(), type);
+    }
+
+    /**
+     * Like {@link #get}, but completes with an empty result when the node answers 404.
+     */
+    public <T> CompletableFuture<Optional<T>> find(String path, TypeReference<T> type) {
+        return get(path, type)
+                .thenApply(Optional::ofNullable)
+                .exceptionallyCompose(failure -> {
+                    Throwable cause = RoutingProductService.unwrap(failure);
+                    if (cause instanceof PartitionRequestException rejected && rejected.getStatus() == 404) {
+                        return CompletableFuture.completedFuture(Optional.empty());
+                    }
+                    return CompletableFuture.failedFuture(cause);
+                });
+    }
+
+    public <T> CompletableFuture<T> post(String path, Object body, TypeReference<T> type) {
+        return send(request(path).header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(json(body))), type);
+    }
+
+    public <T> CompletableFuture<T> put(String path, Object body, TypeReference<T> type) {
+        return send(request(path).header("Content-Type", "application/json")
+                .PUT(HttpRequest.BodyPublishers.ofByteArray(json(body))), type);
+    }
+
+    public CompletableFuture<Void> delete(String path) {
+        return send(request(path).DELETE(), null);
+    }
+
+    /**
+     * Encodes a path segment or query parameter value.
+     */
+    public static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8).replace("+", "%20");
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + PRODUCTS + path))
+                .timeout(Duration.ofMillis(timeoutMs))
+                .header("Accept", "application/json")
+                .header("Authorization", "Bearer " + token.get());
+    }
+
+    private <T> CompletableFuture<T> send(HttpRequest.Builder request, TypeReference<T> type) {
+        return httpClient.sendAsync(request.build(), HttpResponse.BodyHandlers.ofByteArray())
+                .orTimeout(timeoutMs, TimeUnit.MILLISECONDS)
+                .thenApply(response -> read(response, type));
+    }
+
+    private <T> T read(HttpResponse<byte[]> response, TypeReference<T> type) {
+        int status = response.statusCode();
+        try {
+            if (status >= 200 && status < 300) {
+                if (type == null || response.body().length == 0) {
+                    return null;
+                }
+                return objectMapper.readValue(response.body(), type);
+            }
+            // 401 and 403 mean the nodes do not share jwt.secret-key, not that the request is wrong
+            if (status >= 400 && status < 500 && status != 401 && status != 403) {
+                throw new PartitionRequestException(baseUrl, status, errorOf(response.body()));
+            }
+            throw new IOException("Catalog node " + baseUrl + " answered " + status);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private ErrorResponse errorOf(byte[] body) {
+        try {
+            return body.length == 0 ? null : objectMapper.readValue(body, ErrorResponse.class);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private byte[] json(Object body) {
+        try {
+            return objectMapper.writeValueAsBytes(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
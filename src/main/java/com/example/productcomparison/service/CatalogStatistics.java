@@ -0,0 +1,194 @@
+package com.example.productcomparison.service;
+
+import com.example.productcomparison.model.Product;
+import com.example.productcomparison.repository.CatalogSnapshot;
+import com.example.productcomparison.repository.index.CategoryIndex;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Per-field statistics of one catalog version, used by {@link QueryPlanner} to estimate how many products
+ * each predicate of a query matches without running it.
+ * <p>
+ * Prices and ratings are kept sorted, so the number of products in a range is two binary searches away.
+ * Categories and specification values are counted by value, ignoring case as the filters do. Names are
+ * summarized by how many names contain each trigram: a name containing the query contains all of its
+ * trigrams, so the rarest one bounds the number of matches.
+ * </p>
+ * <p>
+ * Instances are immutable and describe the catalog at {@link #version()}.
+ * </p>
+ */
+public final class CatalogStatistics {
+
+    private final long version;
+    private final int size;
+    private final double[] prices;
+    private final double[] ratings;
+    private final Map<String, Integer> categories = new HashMap<>();
+    private final Map<String, Map<String, Integer>> specifications = new HashMap<>();
+    private final Map<String, Integer> nameTrigrams = new HashMap<>();
+
+    private CatalogStatistics(CatalogSnapshot snapshot) {
+        this.version = snapshot.getVersion();
+        this.size = snapshot.size();
+        this.prices = new double[size];
+        this.ratings = new double[size];
+        Set<String> trigrams = new HashSet<>();
+        int row = 0;
+        for (Product product : snapshot.getProducts()) {
+            prices[row] = product.getPrice();
+            ratings[row] = product.getRating();
+            row++;
+            Map<String, String> specs = product.getSpecifications();
+            if (specs != null) {
+                specs.forEach((key, value) -> {
+                    if (key != null && value != null) {
+                        specifications.computeIfAbsent(key, k -> new HashMap<>())
+                                .merge(normalize(value), 1, Integer::sum);
+                    }
+                });
+                String category = specs.get(CategoryIndex.CATEGORY_KEY);
+                if (category != null && !category.isEmpty()) {
+                    categories.merge(normalize(category), 1, Integer::sum);
+                }
+            }
+            if (product.getName() != null) {
+                trigrams.clear();
+                addTrigrams(product.getName().toLowerCase(), trigrams);
+                trigrams.forEach(trigram -> nameTrigrams.merge(trigram, 1, Integer::sum));
+            }
+        }
+        Arrays.sort(prices);
+        Arrays.sort(ratings);
+    }
+
+    /**
+     * Computes the statistics of a catalog snapshot, in O(n log n).
+     */
+    public static CatalogStatistics of(CatalogSnapshot snapshot) {
+        return new CatalogStatistics(snapshot);
+    }
+
+    /**
+     * @return catalog version the statistics were computed at
+     */
+    public long version() {
+        return version;
+    }
+
+    /**
+     * @return number of products in the catalog
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return number of products priced between {@code min} and {@code max}, both inclusive
+     */
+    public long countPriceBetween(double min, double max) {
+        return countBetween(prices, min, max);
+    }
+
+    /**
+     * @return number of products rated {@code min} or higher
+     */
+    public long countRatingAtLeast(double min) {
+        return countBetween(ratings, min, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * @return number of products in the category, ignoring case
+     */
+    public long countCategory(String category) {
+        return categories.getOrDefault(normalize(category), 0);
+    }
+
+    /**
+     * @return number of products with the specification value, ignoring the case of the value
+     */
+    public long countSpecification(String key, String value) {
+        Map<String, Integer> values = specifications.get(key);
+        return values == null ? 0 : values.getOrDefault(normalize(value), 0);
+    }
+
+    /**
+     * @return upper bound of the number of products whose name contains {@code text}, ignoring case;
+     * the catalog size for texts shorter than three characters
+     */
+    public long estimateNameContaining(String text) {
+        Set<String> trigrams = new HashSet<>();
+        addTrigrams(text.toLowerCase(), trigrams);
+        long estimate = size;
+        for (String trigram : trigrams) {
+            estimate = Math.min(estimate, nameTrigrams.getOrDefault(trigram, 0));
+        }
+        return estimate;
+    }
+
+    /**
+     * @return number of trigrams in {@code text}, which is what the name index intersects
+     */
+    public static int trigramCount(String text) {
+        Set<String> trigrams = new HashSet<>();
+        addTrigrams(text.toLowerCase(), trigrams);
+        return trigrams.size();
+    }
+
+    private static long countBetween(double[] sorted, double min, double max) {
+        if (min > max) {
+            return 0;
+        }
+        return Math.max(0, upperBound(sorted, max) - lowerBound(sorted, min));
+    }
+
+    /**
+     * @return index of the first value greater than or equal to {@code value}
+     */
+    private static int lowerBound(double[] sorted, double value) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid] < value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @return index of the first value greater than {@code value}
+     */
+    private static int upperBound(double[] sorted, double value) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid] <= value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static void addTrigrams(String text, Set<String> trigrams) {
+        for (int i = 0; i + 3 <= text.length(); i++) {
+            trigrams.add(text.substring(i, i + 3));
+        }
+    }
+
+    private static String normalize(String value) {
+        return value.toLowerCase(Locale.ROOT);
+    }
+}
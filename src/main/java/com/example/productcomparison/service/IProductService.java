@@ -1,6 +1,10 @@
 package com.example.productcomparison.service;
 
+import com.example.productcomparison.model.MutationResult;
 import com.example.productcomparison.model.Product;
+import com.example.productcomparison.model.ProductMutation;
+import com.example.productcomparison.model.ProductQuery;
+import com.example.productcomparison.model.ProductQueryResult;
 
 import java.util.List;
 
@@ -10,7 +14,10 @@ import java.util.List;
  * Dependency Inversion Principle (DIP).
  */
 public interface IProductService {
-    
+
+    /** Most items accepted by {@link #applyBatch(List)} and IDs by {@link #findExistingIds(List)} in one call. */
+    int MAX_BATCH_SIZE = 10_000;
+
     List<Product> getAllProducts();
 
     Product createProduct(Product product);
@@ -21,8 +28,24 @@ public interface IProductService {
 
     void deleteProduct(String id);
 
+    /**
+     * Applies a batch of creates, updates and deletes, each of which succeeds or fails on its own.
+     *
+     * @param mutations the batch, at most {@value #MAX_BATCH_SIZE} items
+     * @return the outcome of every item, in request order
+     */
+    List<MutationResult> applyBatch(List<ProductMutation> mutations);
+
     Product getProductById(String id);
 
+    /**
+     * Tells which of the given IDs belong to a product, so that many IDs can be checked in one call.
+     *
+     * @param ids the IDs to check, at most {@value #MAX_BATCH_SIZE}
+     * @return the IDs that belong to a product, in request order
+     */
+    List<String> findExistingIds(List<String> ids);
+
     List<Product> searchByName(String query);
 
     List<Product> filterByPriceRange(double minPrice, double maxPrice);
@@ -42,4 +65,14 @@ public interface IProductService {
     List<Product> getTopRatedProducts(int limit);
 
     List<Product> findBySpecification(String specKey, String specValue);
+
+    /**
+     * Finds the products matching every predicate of the query, in one pass planned from the most
+     * selective predicate.
+     *
+     * @param query   the predicates, order and limit
+     * @param explain whether to return the chosen plan and its estimated cost with the products
+     * @return the matching products, and the plan in explain mode
+     */
+    ProductQueryResult query(ProductQuery query, boolean explain);
 }
@@ -1,15 +1,25 @@
 package com.example.productcomparison.service;
 
+import com.example.productcomparison.config.ConditionalOnLocalCatalog;
 import com.example.productcomparison.exception.service.*;
+import com.example.productcomparison.model.MutationResult;
 import com.example.productcomparison.model.Product;
+import com.example.productcomparison.model.ProductMutation;
+import com.example.productcomparison.model.ProductQuery;
+import com.example.productcomparison.model.ProductQueryResult;
+import com.example.productcomparison.repository.CatalogPartition;
 import com.example.productcomparison.repository.IProductRepository;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
-import java.util.Comparator;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Supplier;
 
 /**
  * Implementation of IProductService containing business logic.
@@ -20,6 +30,7 @@ import java.util.List;
  */
 
 @Service
+@ConditionalOnLocalCatalog
 @RequiredArgsConstructor
 @Slf4j
 public class ProductService implements IProductService {
@@ -30,6 +41,12 @@ public class ProductService implements IProductService {
     @NonNull
     private final AIProductGenerator aiProductGenerator;
 
+    private final QueryPlanner queryPlanner;
+
+    private final QueryResultCache queryResultCache;
+
+    private final CatalogPartition catalogPartition;
+
     @Override
     public List<Product> getAllProducts() {
         return productRepository.findAll();
@@ -44,14 +61,27 @@ public class ProductService implements IProductService {
                 .orElseThrow(() -> new ProductNotFoundException(id));
     }
 
+    @Override
+    public List<String> findExistingIds(List<String> ids) {
+        if (ids.size() > MAX_BATCH_SIZE) {
+            throw new InvalidParameterException("ids", ids.size(),
+                    "Cannot check more than " + MAX_BATCH_SIZE + " IDs at once. Please split them");
+        }
+        return ids.stream()
+                .filter(id -> id != null && productRepository.findById(id).isPresent())
+                .toList();
+    }
+
     @Override
     public Product createProduct(Product product) {
+        catalogPartition.requireOwned(product);
         return productRepository.save(product);
     }
 
     @Override
     public Product generateRandomProduct() {
         Product randomProduct = aiProductGenerator.generateRandomProduct();
+        catalogPartition.requireOwned(randomProduct);
         return productRepository.save(randomProduct);
     }
 
@@ -60,6 +90,7 @@ public class ProductService implements IProductService {
         if (id.trim().isEmpty()) {
             throw new InvalidParameterException("id", id, "Product ID cannot be empty");
         }
+        catalogPartition.requireOwned(product);
         return productRepository.update(id, product);
     }
 
@@ -71,16 +102,61 @@ public class ProductService implements IProductService {
         productRepository.deleteById(id);
     }
 
+    @Override
+    public List<MutationResult> applyBatch(List<ProductMutation> mutations) {
+        if (mutations.isEmpty()) {
+            throw new InvalidParameterException("batch", mutations.size(), "Batch cannot be empty");
+        }
+        if (mutations.size() > MAX_BATCH_SIZE) {
+            throw new InvalidParameterException("batch", mutations.size(),
+                    "Batch cannot contain more than " + MAX_BATCH_SIZE + " items. Please split it");
+        }
+        if (!catalogPartition.isNode()) {
+            return productRepository.applyBatch(mutations);
+        }
+        return applyOwnedBatch(mutations);
+    }
+
+    /**
+     * Applies the items of a batch that stay within the categories of this catalog node, and fails the creates
+     * and updates of products of other categories.
+     */
+    private List<MutationResult> applyOwnedBatch(List<ProductMutation> mutations) {
+        MutationResult[] results = new MutationResult[mutations.size()];
+        List<ProductMutation> owned = new ArrayList<>(mutations.size());
+        List<Integer> positions = new ArrayList<>(mutations.size());
+        for (int i = 0; i < mutations.size(); i++) {
+            ProductMutation mutation = mutations.get(i);
+            if (mutation.getOp() != ProductMutation.Operation.DELETE && mutation.getProduct() != null) {
+                try {
+                    catalogPartition.requireOwned(mutation.getProduct());
+                } catch (CategoryNotOwnedException e) {
+                    results[i] = MutationResult.failed(i, mutation, e);
+                    continue;
+                }
+            }
+            owned.add(mutation);
+            positions.add(i);
+        }
+        if (!owned.isEmpty()) {
+            List<MutationResult> applied = productRepository.applyBatch(owned);
+            for (int j = 0; j < applied.size(); j++) {
+                MutationResult result = applied.get(j);
+                result.setIndex(positions.get(j));
+                results[positions.get(j)] = result;
+            }
+        }
+        return List.of(results);
+    }
+
     @Override
     public List<Product> searchByName(String query) {
         if (query.trim().isEmpty()) {
             throw new InvalidParameterException("query", query, "Search query cannot be empty");
         }
 
-        String lowerQuery = query.toLowerCase();
-        return productRepository.findAll().stream()
-                .filter(p -> p.getName().toLowerCase().contains(lowerQuery))
-                .toList();
+        return cached("searchByName", () -> productRepository.findByNameContaining(query),
+                query.toLowerCase());
     }
 
     @Override
@@ -96,9 +172,8 @@ public class ProductService implements IProductService {
                     "Minimum price cannot be greater than maximum price");
         }
 
-        return productRepository.findAll().stream()
-                .filter(p -> p.getPrice() >= minPrice && p.getPrice() <= maxPrice)
-                .toList();
+        return cached("filterByPriceRange", () -> productRepository.findByPriceRange(minPrice, maxPrice),
+                minPrice, maxPrice);
     }
 
     @Override
@@ -107,9 +182,7 @@ public class ProductService implements IProductService {
             throw new InvalidRatingException(minRating);
         }
 
-        return productRepository.findAll().stream()
-                .filter(p -> p.getRating() >= minRating)
-                .toList();
+        return cached("filterByRating", () -> productRepository.findByMinRating(minRating), minRating);
     }
 
     @Override
@@ -118,19 +191,11 @@ public class ProductService implements IProductService {
             throw new InvalidParameterException("category", category, "Category cannot be empty");
         }
 
-        List<Product> results = productRepository.findAll().stream()
-                .filter(p -> p.getSpecifications() != null)
-                .filter(p -> category.equalsIgnoreCase(p.getSpecifications().get("category")))
-                .toList();
-
+        // The category index only keeps categories that have products, so no results means no category
+        List<Product> results = cached("filterByCategory", () -> productRepository.findByCategory(category),
+                category.toLowerCase(Locale.ROOT));
         if (results.isEmpty()) {
-            List<String> existingCategories = getAllCategories();
-            boolean categoryExists = existingCategories.stream()
-                    .anyMatch(cat -> cat.equalsIgnoreCase(category));
-
-            if (!categoryExists) {
-                throw new CategoryNotFoundException(category);
-            }
+            throw new CategoryNotFoundException(category);
         }
 
         return results;
@@ -138,13 +203,7 @@ public class ProductService implements IProductService {
 
     @Override
     public List<String> getAllCategories() {
-        return productRepository.findAll().stream()
-                .filter(p -> p.getSpecifications() != null)
-                .map(p -> p.getSpecifications().get("category"))
-                .filter(cat -> cat != null && !cat.isEmpty())
-                .distinct()
-                .sorted()
-                .toList();
+        return cached("getAllCategories", productRepository::findAllCategories);
     }
 
     @Override
@@ -164,24 +223,12 @@ public class ProductService implements IProductService {
 
     @Override
     public List<Product> sortByPrice(boolean ascending) {
-        Comparator<Product> comparator = Comparator.comparingDouble(Product::getPrice);
-        if (!ascending) {
-            comparator = comparator.reversed();
-        }
-        return productRepository.findAll().stream()
-                .sorted(comparator)
-                .toList();
+        return cached("sortByPrice", () -> productRepository.findAllOrderedByPrice(ascending), ascending);
     }
 
     @Override
     public List<Product> sortByRating(boolean ascending) {
-        Comparator<Product> comparator = Comparator.comparingDouble(Product::getRating);
-        if (!ascending) {
-            comparator = comparator.reversed();
-        }
-        return productRepository.findAll().stream()
-                .sorted(comparator)
-                .toList();
+        return cached("sortByRating", () -> productRepository.findAllOrderedByRating(ascending), ascending);
     }
 
     @Override
@@ -194,10 +241,7 @@ public class ProductService implements IProductService {
                     "Limit cannot exceed 100. Please use a smaller value");
         }
 
-        return productRepository.findAll().stream()
-                .sorted(Comparator.comparingDouble(Product::getRating).reversed())
-                .limit(limit)
-                .toList();
+        return cached("getTopRatedProducts", () -> productRepository.findTopRated(limit), limit);
     }
 
     @Override
@@ -209,9 +253,38 @@ public class ProductService implements IProductService {
             throw new InvalidParameterException("value", specValue, "Specification value cannot be empty");
         }
 
-        return productRepository.findAll().stream()
-                .filter(p -> p.getSpecifications() != null)
-                .filter(p -> specValue.equalsIgnoreCase(p.getSpecifications().get(specKey)))
-                .toList();
+        return cached("findBySpecification", () -> productRepository.findBySpecification(specKey, specValue),
+                specKey, specValue.toLowerCase(Locale.ROOT));
+    }
+
+    @Override
+    public ProductQueryResult query(ProductQuery query, boolean explain) {
+        if (explain) {
+            // The plan reports what this execution read, so it is not answered from the cache
+            return queryPlanner.execute(query, true);
+        }
+        return cached("query", () -> queryPlanner.execute(query, false), normalize(query));
+    }
+
+    /**
+     * Answers a read from {@link QueryResultCache}, as long as no write happened since it was cached.
+     *
+     * @param parameters the parameters of the read, lower-cased where the repository ignores case
+     */
+    private <T> T cached(String method, Supplier<T> read, Object... parameters) {
+        return queryResultCache.get(method, List.of(parameters), read);
+    }
+
+    private static ProductQuery normalize(ProductQuery query) {
+        Map<String, String> specifications = new LinkedHashMap<>();
+        if (query.getSpecifications() != null) {
+            query.getSpecifications().forEach((key, value) ->
+                    specifications.put(key, value == null ? null : value.toLowerCase(Locale.ROOT)));
+        }
+        return query.toBuilder()
+                .category(query.getCategory() == null ? null : query.getCategory().toLowerCase(Locale.ROOT))
+                .specifications(specifications)
+                .name(query.getName() == null ? null : query.getName().toLowerCase())
+                .build();
     }
 }
\ No newline at end of file
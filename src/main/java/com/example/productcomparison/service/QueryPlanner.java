@@ -0,0 +1,398 @@
+package com.example.productcomparison.service;
+
+import com.example.productcomparison.config.ConditionalOnLocalCatalog;
+import com.example.productcomparison.exception.service.InvalidParameterException;
+import com.example.productcomparison.exception.service.InvalidPriceRangeException;
+import com.example.productcomparison.exception.service.InvalidRatingException;
+import com.example.productcomparison.model.Product;
+import com.example.productcomparison.model.ProductQuery;
+import com.example.productcomparison.model.ProductQueryResult;
+import com.example.productcomparison.model.QueryPlan;
+import com.example.productcomparison.repository.IProductRepository;
+import com.example.productcomparison.repository.index.CategoryIndex;
+import com.example.productcomparison.repository.storage.EncodedSpecifications;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Cost-based planner for {@link ProductQuery}: answers a conjunction of predicates with one indexed read of
+ * the repository instead of one per predicate.
+ * <p>
+ * Every predicate can be answered by an index of the repository: price ranges, minimum ratings, categories,
+ * specification values and name text. The planner estimates from {@link CatalogStatistics} how many products
+ * each of them matches, and considers reading the candidates through each index, through the top rated
+ * products when the query is only a top-N by rating, or by scanning the whole catalog. The cost of a plan
+ * is the number of products it reads, plus one per predicate checked on each of them, plus
+ * {@code n log2 n} to sort the {@code n} expected results unless the index already returns them in the
+ * requested order. The cheapest plan is executed: its candidates are read, checked against the remaining
+ * predicates, sorted and limited, stopping early once the limit is reached when no sort is needed.
+ * </p>
+ *
+ * <h2>Statistics:</h2>
+ * <p>
+ * Statistics are computed from a snapshot of the catalog and reused until the catalog version changes,
+ * but at most every {@code product.query.statistics-refresh-ms} under a steady stream of writes. Only the
+ * first query waits for them; once they are out of date, queries keep planning with them while a single
+ * background thread computes the new ones. Stale statistics only make a plan more expensive than it could be;
+ * results are always exact, since every predicate not answered by the chosen index is checked.
+ * </p>
+ *
+ * @see CatalogStatistics
+ */
+@Component
+@ConditionalOnLocalCatalog
+@Slf4j
+public class QueryPlanner {
+
+    static final int MAX_LIMIT = 10_000;
+
+    /** Cost of reading the posting list or range of an index before reading its products. */
+    private static final double PROBE_COST = 1.0;
+
+    private static final String FULL_SCAN = "FULL_SCAN";
+    private static final String TOP_RATED = "TOP_RATED";
+
+    private final IProductRepository productRepository;
+    private final long statisticsRefreshNanos;
+
+    private final ExecutorService statisticsRefresher = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "query-statistics");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+
+    private volatile CatalogStatistics statistics;
+    private volatile long statisticsNanos;
+
+    public QueryPlanner(IProductRepository productRepository,
+                        @Value("${product.query.statistics-refresh-ms:1000}") long statisticsRefreshMs) {
+        this.productRepository = productRepository;
+        this.statisticsRefreshNanos = TimeUnit.MILLISECONDS.toNanos(statisticsRefreshMs);
+    }
+
+    @PreDestroy
+    public void stop() {
+        statisticsRefresher.shutdownNow();
+    }
+
+    /**
+     * Answers the query with the cheapest plan.
+     *
+     * @param query   the predicates, order and limit
+     * @param explain whether to return the plan with the results
+     * @return the matching products, and the plan in explain mode
+     * @throws InvalidParameterException  if a text predicate is blank or the limit is out of range
+     * @throws InvalidPriceRangeException if the price range is negative or inverted
+     * @throws InvalidRatingException     if the minimum rating is not between 0 and 5
+     */
+    public ProductQueryResult execute(ProductQuery query, boolean explain) {
+        validate(query);
+        CatalogStatistics stats = statistics();
+        List<AccessPath> paths = accessPaths(query, stats);
+        List<Predicate<Product>> allFilters = paths.stream()
+                .filter(path -> path.filter() != null)
+                .map(AccessPath::filter)
+                .toList();
+        double expectedResults = expectedResults(paths, stats);
+
+        List<Plan> plans = new ArrayList<>(paths.size());
+        for (AccessPath path : paths) {
+            plans.add(cost(query, path, paths, expectedResults));
+        }
+        plans.sort(Comparator.comparingDouble(Plan::cost));
+        Plan chosen = plans.get(0);
+
+        List<Predicate<Product>> filters = new ArrayList<>(allFilters);
+        if (chosen.path().filter() != null) {
+            filters.remove(chosen.path().filter());
+        }
+        int limit = query.getLimit() == null ? Integer.MAX_VALUE : query.getLimit();
+        List<Product> candidates = chosen.path().read().get();
+        List<Product> products = new ArrayList<>();
+        long examined = 0;
+        for (Product candidate : candidates) {
+            if (chosen.ordered() && products.size() >= limit) {
+                break;
+            }
+            examined++;
+            if (matchesAll(candidate, filters)) {
+                products.add(candidate);
+            }
+        }
+        if (!chosen.ordered()) {
+            products.sort(comparator(query));
+        }
+        if (products.size() > limit) {
+            products = new ArrayList<>(products.subList(0, limit));
+        }
+
+        ProductQueryResult.ProductQueryResultBuilder result = ProductQueryResult.builder()
+                .count(products.size())
+                .products(products);
+        if (explain) {
+            result.plan(explainPlan(query, chosen, plans, paths, examined, stats));
+        }
+        return result.build();
+    }
+
+    private void validate(ProductQuery query) {
+        Double minPrice = query.getMinPrice();
+        Double maxPrice = query.getMaxPrice();
+        if (minPrice != null || maxPrice != null) {
+            double min = minPrice == null ? 0 : minPrice;
+            double max = maxPrice == null ? Double.MAX_VALUE : maxPrice;
+            if (min < 0) {
+                throw new InvalidPriceRangeException(min, max, "Minimum price cannot be negative");
+            }
+            if (max < 0) {
+                throw new InvalidPriceRangeException(min, max, "Maximum price cannot be negative");
+            }
+            if (min > max) {
+                throw new InvalidPriceRangeException(min, max, "Minimum price cannot be greater than maximum price");
+            }
+        }
+        if (query.getMinRating() != null && (query.getMinRating() < 0 || query.getMinRating() > 5)) {
+            throw new InvalidRatingException(query.getMinRating());
+        }
+        if (query.getCategory() != null && query.getCategory().trim().isEmpty()) {
+            throw new InvalidParameterException("category", query.getCategory(), "Category cannot be empty");
+        }
+        if (query.getName() != null && query.getName().trim().isEmpty()) {
+            throw new InvalidParameterException("name", query.getName(), "Search text cannot be empty");
+        }
+        if (query.getSpecifications() != null) {
+            query.getSpecifications().forEach((key, value) -> {
+                if (key == null || key.trim().isEmpty() || value == null || value.trim().isEmpty()) {
+                    throw new InvalidParameterException("spec", key + ":" + value,
+                            "Specification key and value cannot be empty");
+                }
+            });
+        }
+        if (query.getLimit() != null && (query.getLimit() <= 0 || query.getLimit() > MAX_LIMIT)) {
+            throw new InvalidParameterException("limit", query.getLimit(),
+                    "Limit must be between 1 and " + MAX_LIMIT);
+        }
+    }
+
+    /**
+     * Lists the ways to read the candidates: one per predicate, plus the full scan and, for a plain top-N by
+     * rating, the top rated products.
+     */
+    private List<AccessPath> accessPaths(ProductQuery query, CatalogStatistics stats) {
+        List<AccessPath> paths = new ArrayList<>();
+        int size = stats.size();
+        if (query.getMinPrice() != null || query.getMaxPrice() != null) {
+            double min = query.getMinPrice() == null ? 0 : query.getMinPrice();
+            double max = query.getMaxPrice() == null ? Double.MAX_VALUE : query.getMaxPrice();
+            long rows = stats.countPriceBetween(min, max);
+            paths.add(new AccessPath("PRICE_RANGE", "price between " + min + " and " + max,
+                    rows, PROBE_COST + rows, ProductQuery.Sort.PRICE, true,
+                    product -> product.getPrice() >= min && product.getPrice() <= max,
+                    () -> productRepository.findByPriceRange(min, max)));
+        }
+        if (query.getMinRating() != null) {
+            double min = query.getMinRating();
+            long rows = stats.countRatingAtLeast(min);
+            paths.add(new AccessPath("MIN_RATING", "rating at least " + min,
+                    rows, PROBE_COST + rows, ProductQuery.Sort.RATING, false,
+                    product -> product.getRating() >= min,
+                    () -> productRepository.findByMinRating(min)));
+        }
+        if (query.getCategory() != null) {
+            String category = query.getCategory();
+            long rows = stats.countCategory(category);
+            Predicate<Map<String, String>> inCategory =
+                    EncodedSpecifications.matcher(CategoryIndex.CATEGORY_KEY, category);
+            paths.add(new AccessPath("CATEGORY", "category = " + category,
+                    rows, PROBE_COST + rows, null, false,
+                    product -> inCategory.test(product.getSpecifications()),
+                    () -> productRepository.findByCategory(category)));
+        }
+        if (query.getSpecifications() != null) {
+            for (Map.Entry<String, String> spec : query.getSpecifications().entrySet()) {
+                String key = spec.getKey();
+                String value = spec.getValue();
+                long rows = stats.countSpecification(key, value);
+                Predicate<Map<String, String>> hasValue = EncodedSpecifications.matcher(key, value);
+                paths.add(new AccessPath("SPECIFICATION", key + " = " + value,
+                        rows, PROBE_COST + rows, null, false,
+                        product -> hasValue.test(product.getSpecifications()),
+                        () -> productRepository.findBySpecification(key, value)));
+            }
+        }
+        if (query.getName() != null) {
+            String text = query.getName().toLowerCase();
+            int trigrams = CatalogStatistics.trigramCount(text);
+            long rows = stats.estimateNameContaining(text);
+            // Texts without trigrams are answered by scanning every name
+            double cost = trigrams == 0 ? size : PROBE_COST * trigrams + rows * trigrams;
+            paths.add(new AccessPath("NAME", "name contains '" + query.getName() + "'",
+                    rows, cost, null, false,
+                    product -> product.getName() != null && product.getName().toLowerCase().contains(text),
+                    () -> productRepository.findByNameContaining(query.getName())));
+        }
+        if (paths.isEmpty() && query.getSort() == ProductQuery.Sort.RATING && !query.isAscending()
+                && query.getLimit() != null) {
+            int limit = query.getLimit();
+            paths.add(new AccessPath(TOP_RATED, null, Math.min(limit, size), PROBE_COST + Math.min(limit, size),
+                    ProductQuery.Sort.RATING, false, null, () -> productRepository.findTopRated(limit)));
+        }
+        paths.add(new AccessPath(FULL_SCAN, null, size, size, null, false, null, productRepository::findAll));
+        return paths;
+    }
+
+    /**
+     * Expected number of results before the limit, assuming the predicates are independent.
+     */
+    private static double expectedResults(List<AccessPath> paths, CatalogStatistics stats) {
+        double expected = stats.size();
+        for (AccessPath path : paths) {
+            if (path.filter() != null && stats.size() > 0) {
+                expected *= (double) path.rows() / stats.size();
+            }
+        }
+        return expected;
+    }
+
+    private static Plan cost(ProductQuery query, AccessPath path, List<AccessPath> paths, double expectedResults) {
+        long checks = paths.stream().filter(other -> other.filter() != null && other != path).count();
+        boolean ordered = query.getSort() == null
+                || query.getSort() == path.order() && query.isAscending() == path.ascending();
+        double cost = path.cost() + (double) path.rows() * checks;
+        if (!ordered) {
+            double sorted = Math.min(expectedResults, path.rows());
+            cost += sorted * (Math.log(sorted + 1) / Math.log(2));
+        }
+        return new Plan(path, cost, ordered);
+    }
+
+    private QueryPlan explainPlan(ProductQuery query, Plan chosen, List<Plan> plans, List<AccessPath> paths,
+                                  long examined, CatalogStatistics stats) {
+        List<String> filters = paths.stream()
+                .filter(path -> path.filter() != null && path != chosen.path())
+                .map(AccessPath::description)
+                .toList();
+        List<QueryPlan.Alternative> alternatives = plans.stream()
+                .map(plan -> new QueryPlan.Alternative(plan.path().name(), plan.path().rows(), round(plan.cost())))
+                .toList();
+        String accessPath = chosen.path().description() == null
+                ? chosen.path().name()
+                : chosen.path().name() + " (" + chosen.path().description() + ")";
+        return QueryPlan.builder()
+                .accessPath(accessPath)
+                .estimatedRows(chosen.path().rows())
+                .estimatedCost(round(chosen.cost()))
+                .filters(filters)
+                .order(describeOrder(query, chosen))
+                .examinedRows(examined)
+                .statisticsVersion(stats.version())
+                .alternatives(alternatives)
+                .build();
+    }
+
+    private static String describeOrder(ProductQuery query, Plan chosen) {
+        if (query.getSort() == null) {
+            return "unsorted";
+        }
+        String order = query.getSort().name().toLowerCase() + (query.isAscending() ? " asc" : " desc");
+        return chosen.ordered() ? order + ", from the access path" : "sort by " + order;
+    }
+
+    private static Comparator<Product> comparator(ProductQuery query) {
+        Comparator<Product> order = query.getSort() == ProductQuery.Sort.PRICE
+                ? Comparator.comparingDouble(Product::getPrice)
+                : Comparator.comparingDouble(Product::getRating);
+        return query.isAscending() ? order : order.reversed();
+    }
+
+    private static boolean matchesAll(Product product, List<Predicate<Product>> filters) {
+        for (Predicate<Product> filter : filters) {
+            if (!filter.test(product)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static double round(double cost) {
+        return Math.round(cost * 10) / 10.0;
+    }
+
+    /**
+     * Returns the current statistics, starting a background refresh if they are out of date.
+     * Only waits for them to be computed if there are none yet.
+     */
+    private CatalogStatistics statistics() {
+        CatalogStatistics current = statistics;
+        if (current == null) {
+            synchronized (this) {
+                current = statistics;
+                if (current == null) {
+                    current = computeStatistics();
+                }
+            }
+        } else if (!isFresh(current) && refreshing.compareAndSet(false, true)) {
+            try {
+                statisticsRefresher.execute(this::refreshStatistics);
+            } catch (RejectedExecutionException e) {
+                // Shutting down: keep planning with the current statistics.
+                refreshing.set(false);
+            }
+        }
+        return current;
+    }
+
+    private void refreshStatistics() {
+        try {
+            computeStatistics();
+        } catch (RuntimeException e) {
+            log.warn("Could not refresh query statistics; planning with the previous ones", e);
+        } finally {
+            refreshing.set(false);
+        }
+    }
+
+    private CatalogStatistics computeStatistics() {
+        CatalogStatistics computed = CatalogStatistics.of(productRepository.snapshot());
+        statistics = computed;
+        statisticsNanos = System.nanoTime();
+        log.debug("Computed query statistics of {} products at catalog version {}",
+                computed.size(), computed.version());
+        return computed;
+    }
+
+    private boolean isFresh(CatalogStatistics current) {
+        return current != null && (current.version() == productRepository.catalogVersion()
+                || System.nanoTime() - statisticsNanos < statisticsRefreshNanos);
+    }
+
+    /**
+     * One way of reading candidate products, with the predicate it answers, if any.
+     *
+     * @param order     field the products are read in order of, if any
+     * @param ascending whether that order is ascending
+     * @param filter    the predicate this path answers, checked on candidates read another way
+     */
+    private record AccessPath(String name, String description, long rows, double cost,
+                              ProductQuery.Sort order, boolean ascending,
+                              Predicate<Product> filter, Supplier<List<Product>> read) {
+    }
+
+    private record Plan(AccessPath path, double cost, boolean ordered) {
+    }
+}
@@ -0,0 +1,192 @@
+package com.example.productcomparison.service;
+
+import com.example.productcomparison.config.ConditionalOnLocalCatalog;
+import com.example.productcomparison.model.ProductQueryResult;
+import com.example.productcomparison.repository.IProductRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Remembers the results of the read-only product queries of {@link ProductService}, so that repeated
+ * filters, sorts and searches are answered without running them again.
+ * <p>
+ * Results are keyed by the query method and its normalized parameters, and tagged with the catalog version
+ * ({@link IProductRepository#catalogVersion()}) they were computed at. Every write increases the version,
+ * which invalidates every cached result at once without touching them: a result is only returned while its
+ * version is the current one, and is recomputed and replaced otherwise. The version is read before the
+ * query runs, so a result that raced with a write is tagged with the older version and never served.
+ * Queries run outside the cache, so a slow query never blocks other keys; concurrent misses of the same query may
+ * each run it, and the result of the latest version is kept. Lists, and the products of a
+ * {@link ProductQueryResult}, are cached as unmodifiable copies, and every caller gets its own
+ * {@link ProductQueryResult}, so a caller cannot change what other callers are served.
+ * </p>
+ *
+ * <h2>Memory:</h2>
+ * <p>
+ * Cached results share their products with the catalog, so an entry costs about one reference per product
+ * it lists. The cache is bounded by that count, {@code product.query.cache.maximum-products}; outdated
+ * results are not removed eagerly, they are replaced when requested again or evicted as the least likely to
+ * be requested by Caffeine's W-TinyLFU policy.
+ * </p>
+ *
+ * <h2>Metrics:</h2>
+ * <p>
+ * Hits and misses are counted by the {@code catalog.query-cache.requests} meter, tagged {@code result=hit}
+ * or {@code result=miss}, with their ratio in {@code catalog.query-cache.hit-ratio}. The number of cached
+ * results and of products they list are published as {@code catalog.query-cache.entries} and
+ * {@code catalog.query-cache.products}.
+ * </p>
+ *
+ * <h2>Required configuration:</h2>
+ * <p>
+ * Enabled unless {@code product.query.cache.enabled=false}, in which case every query runs.
+ * </p>
+ */
+@Component
+@ConditionalOnLocalCatalog
+@Slf4j
+public class QueryResultCache {
+
+    private final IProductRepository productRepository;
+    private final Cache<Key, Entry> cache;
+    private final Counter hits;
+    private final Counter misses;
+
+    /**
+     * @param maximumProducts maximum number of products listed by the cached results together
+     */
+    public QueryResultCache(IProductRepository productRepository, MeterRegistry meterRegistry,
+                            @Value("${product.query.cache.enabled:true}") boolean enabled,
+                            @Value("${product.query.cache.maximum-products:1000000}") long maximumProducts) {
+        if (maximumProducts <= 0) {
+            throw new IllegalArgumentException(
+                    "product.query.cache.maximum-products must be positive, was " + maximumProducts);
+        }
+        this.productRepository = productRepository;
+        this.cache = enabled
+                ? Caffeine.newBuilder().maximumWeight(maximumProducts).weigher(QueryResultCache::weigh).build()
+                : null;
+        this.hits = Counter.builder("catalog.query-cache.requests")
+                .description("Product queries answered by the query result cache")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder("catalog.query-cache.requests")
+                .description("Product queries answered by the query result cache")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        Gauge.builder("catalog.query-cache.hit-ratio", this, QueryResultCache::hitRatio)
+                .description("Share of product queries answered from the query result cache")
+                .register(meterRegistry);
+        Gauge.builder("catalog.query-cache.entries", this, QueryResultCache::size)
+                .description("Query results in the query result cache")
+                .register(meterRegistry);
+        Gauge.builder("catalog.query-cache.products", this, QueryResultCache::weightedSize)
+                .description("Products listed by the results in the query result cache")
+                .baseUnit("products")
+                .register(meterRegistry);
+        if (enabled) {
+            log.info("Caching query results listing up to {} products", maximumProducts);
+        }
+    }
+
+    /**
+     * Returns the result of the query at the current catalog version, running it only if it is not cached.
+     *
+     * @param method     name of the query, such as the {@link ProductService} method answering it
+     * @param parameters parameters of the query, normalized so that queries with the same results are equal
+     * @param query      runs the query; called at most once
+     * @return the result; lists, and the products of a {@link ProductQueryResult}, are unmodifiable whenever
+     *         the cache is enabled
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(String method, List<?> parameters, Supplier<T> query) {
+        if (cache == null) {
+            return query.get();
+        }
+        Key key = new Key(method, parameters);
+        long version = productRepository.catalogVersion();
+        Entry cached = cache.getIfPresent(key);
+        if (cached != null && cached.version() == version) {
+            hits.increment();
+            return (T) handOut(cached.result());
+        }
+        misses.increment();
+        Object result = unmodifiable(query.get());
+        // Keep whichever result was computed at the later version, if another miss cached one meanwhile
+        cache.asMap().merge(key, new Entry(version, result),
+                (current, computed) -> current.version() >= computed.version() ? current : computed);
+        return (T) handOut(result);
+    }
+
+    private static Object unmodifiable(Object result) {
+        if (result instanceof List<?> list) {
+            return List.copyOf(list);
+        }
+        if (result instanceof ProductQueryResult queryResult && queryResult.getProducts() != null) {
+            return queryResult.toBuilder().products(List.copyOf(queryResult.getProducts())).build();
+        }
+        return result;
+    }
+
+    /**
+     * Copies the mutable holder of a cached {@link ProductQueryResult}, which shares the unmodifiable product
+     * list; lists are unmodifiable already.
+     */
+    private static Object handOut(Object result) {
+        if (result instanceof ProductQueryResult queryResult) {
+            return queryResult.toBuilder().build();
+        }
+        return result;
+    }
+
+    /**
+     * @return share of requests answered from the cache since startup, 0 before the first request
+     */
+    public double hitRatio() {
+        double requests = hits.count() + misses.count();
+        return requests == 0 ? 0 : hits.count() / requests;
+    }
+
+    /**
+     * @return the number of cached results, including outdated ones not evicted yet
+     */
+    public long size() {
+        return cache == null ? 0 : cache.estimatedSize();
+    }
+
+    /**
+     * @return the number of products listed by the cached results together
+     */
+    public long weightedSize() {
+        if (cache == null) {
+            return 0;
+        }
+        return cache.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0)).orElse(0L);
+    }
+
+    private static int weigh(Key key, Entry entry) {
+        Object result = entry.result();
+        if (result instanceof List<?> list) {
+            return 1 + list.size();
+        }
+        if (result instanceof ProductQueryResult queryResult && queryResult.getProducts() != null) {
+            return 1 + queryResult.getProducts().size();
+        }
+        return 1;
+    }
+
+    private record Key(String method, List<?> parameters) {
+    }
+
+    private record Entry(long version, Object result) {
+    }
+}
@@ -0,0 +1,265 @@
+package com.example.productcomparison.service;
+
+import com.example.productcomparison.config.ConditionalOnLocalCatalog;
+import com.example.productcomparison.config.JwtUtil;
+import com.example.productcomparison.model.CatalogChange;
+import com.example.productcomparison.model.ChangeFeed;
+import com.example.productcomparison.model.MutationResult;
+import com.example.productcomparison.model.Product;
+import com.example.productcomparison.model.ProductMutation;
+import com.example.productcomparison.model.ReplicationSnapshot;
+import com.example.productcomparison.repository.IProductRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the local catalog a copy of a replication leader's, by tailing its change stream over HTTP.
+ * <p>
+ * On start, and whenever the leader reports that the follower cannot resume the stream (the leader restarted,
+ * or the follower fell further behind than the leader keeps), the whole catalog is copied from
+ * {@code /api/replication/snapshot} and applied as the difference to the local catalog. In between,
+ * {@code /api/replication/changes} is polled and new changes are applied in order as one batch per page, so
+ * readers of this instance see the leader's writes in the same order, a poll interval later.
+ * </p>
+ * <p>
+ * Changes are applied through {@link IProductRepository}, so any repository type can follow. Write endpoints of
+ * a follower are rejected by {@link com.example.productcomparison.config.FollowerWriteInterceptor}, so the leader
+ * stays the only writer. Requests to the leader are authenticated with a token signed with {@code jwt.secret-key},
+ * which the leader and its followers share.
+ * </p>
+ *
+ * <h2>Required configuration:</h2>
+ * <p>
+ * Enabled with {@code product.replication.role=follower}. {@code product.replication.leader-url} is the base
+ * URL of the leader, such as {@code http://catalog-leader:8080}; {@code product.replication.poll-interval-ms}
+ * and {@code product.replication.batch-size} set how often and how many changes are read.
+ * </p>
+ *
+ * @see com.example.productcomparison.repository.CatalogChangeLog
+ */
+@Component
+@ConditionalOnProperty(name = "product.replication.role", havingValue = "follower")
+@ConditionalOnLocalCatalog
+@Slf4j
+public class ReplicationFollower {
+
+    static final String REPLICATION_USER = "replication-follower";
+    static final String REPLICATION_ROLE = "ROLE_REPLICATION";
+
+    private final IProductRepository productRepository;
+    private final ObjectMapper objectMapper;
+    private final JwtUtil jwtUtil;
+    private final HttpClient httpClient;
+
+    @Value("${product.replication.leader-url:}")
+    private String leaderUrl;
+
+    @Value("${product.replication.poll-interval-ms:500}")
+    private long pollIntervalMs = 500;
+
+    @Value("${product.replication.batch-size:1000}")
+    private int batchSize = 1000;
+
+    private ScheduledExecutorService scheduler;
+
+    /** Stream position of the local catalog. Guarded by {@code this}. */
+    private String epoch;
+    private long appliedSequence;
+
+    public ReplicationFollower(IProductRepository productRepository, ObjectMapper objectMapper, JwtUtil jwtUtil) {
+        this.productRepository = productRepository;
+        this.objectMapper = objectMapper;
+        this.jwtUtil = jwtUtil;
+        this.httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+    }
+
+    @PostConstruct
+    public void start() {
+        if (leaderUrl == null || leaderUrl.isBlank()) {
+            throw new IllegalStateException("product.replication.leader-url must be set when following a leader");
+        }
+        leaderUrl = leaderUrl.endsWith("/") ? leaderUrl.substring(0, leaderUrl.length() - 1) : leaderUrl;
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replication-follower");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::poll, 0, pollIntervalMs, TimeUnit.MILLISECONDS);
+        log.info("Following the catalog of {} every {} ms", leaderUrl, pollIntervalMs);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * Applies the leader's changes since the last poll, copying the whole catalog first if the stream cannot be
+     * resumed or a previous poll could not apply its changes. Failures are logged, never thrown, so that
+     * polling carries on.
+     *
+     * @return the number of changes applied, or -1 if the leader could not be read
+     */
+    public synchronized int poll() {
+        try {
+            if (epoch == null) {
+                resync();
+            }
+            int applied = 0;
+            ChangeFeed feed;
+            do {
+                feed = get("/api/replication/changes?after=" + appliedSequence + "&limit=" + batchSize,
+                        ChangeFeed.class);
+                if (feed.isResyncRequired() || !feed.getEpoch().equals(epoch)) {
+                    log.info("Cannot resume the change stream of {} after {}; copying the catalog again",
+                            leaderUrl, appliedSequence);
+                    resync();
+                    return applied;
+                }
+                apply(feed.getChanges());
+                applied += feed.getChanges().size();
+            } while (appliedSequence < feed.getLastSequence() && !feed.getChanges().isEmpty());
+            return applied;
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to follow the change stream of {} after {}: {}",
+                    leaderUrl, appliedSequence, e.getMessage());
+            return -1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return -1;
+        }
+    }
+
+    /**
+     * @return the sequence number of the leader's last change applied locally
+     */
+    public synchronized long appliedSequence() {
+        return appliedSequence;
+    }
+
+    private void resync() throws IOException, InterruptedException {
+        ReplicationSnapshot snapshot = get("/api/replication/snapshot", ReplicationSnapshot.class);
+        // Until the copy is applied in full the local catalog matches no position of the stream
+        epoch = null;
+        Map<String, Product> local = new HashMap<>();
+        for (Product product : productRepository.findAll()) {
+            local.put(product.getId(), product);
+        }
+        List<ProductMutation> mutations = new ArrayList<>();
+        for (Product product : snapshot.getProducts()) {
+            Product current = local.remove(product.getId());
+            if (current == null) {
+                mutations.add(mutation(ProductMutation.Operation.CREATE, product.getId(), product));
+            } else if (!current.equals(product)) {
+                mutations.add(mutation(ProductMutation.Operation.UPDATE, product.getId(), product));
+            }
+        }
+        for (String id : local.keySet()) {
+            mutations.add(mutation(ProductMutation.Operation.DELETE, id, null));
+        }
+        applyBatch(mutations);
+        epoch = snapshot.getEpoch();
+        appliedSequence = snapshot.getSequence();
+        log.info("Copied the catalog of {} at sequence {}: {} products changed",
+                leaderUrl, appliedSequence, mutations.size());
+    }
+
+    /**
+     * Applies changes in stream order. PUTs become creates or updates depending on whether the product
+     * exists locally at that point of the batch, and DELETEs of products that are already gone are skipped.
+     * <p>
+     * The position only moves past the changes once all of them are applied. A batch that failed in part left
+     * the local catalog between two positions of the stream, so the catalog is copied again on the next poll.
+     * </p>
+     */
+    private void apply(List<CatalogChange> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        Map<String, Boolean> exists = new HashMap<>();
+        List<ProductMutation> mutations = new ArrayList<>(changes.size());
+        for (CatalogChange change : changes) {
+            String id = change.getId();
+            boolean present = exists.computeIfAbsent(id, key -> productRepository.findById(key).isPresent());
+            if (change.getOp() == CatalogChange.Operation.DELETE) {
+                if (present) {
+                    mutations.add(mutation(ProductMutation.Operation.DELETE, id, null));
+                }
+                exists.put(id, false);
+            } else {
+                mutations.add(mutation(present ? ProductMutation.Operation.UPDATE : ProductMutation.Operation.CREATE,
+                        id, change.getProduct()));
+                exists.put(id, true);
+            }
+        }
+        try {
+            applyBatch(mutations);
+        } catch (RuntimeException e) {
+            epoch = null;
+            throw e;
+        }
+        appliedSequence = changes.get(changes.size() - 1).getSequence();
+    }
+
+    /**
+     * @throws IllegalStateException if any of the mutations was not applied
+     */
+    private void applyBatch(List<ProductMutation> mutations) {
+        if (mutations.isEmpty()) {
+            return;
+        }
+        Set<String> failed = new HashSet<>();
+        for (MutationResult result : productRepository.applyBatch(mutations)) {
+            if (!result.isApplied()) {
+                failed.add(result.getId() + " (" + result.getErrorCode() + ")");
+            }
+        }
+        if (!failed.isEmpty()) {
+            throw new IllegalStateException(String.format(
+                    "Could not apply %d replicated changes: %s", failed.size(), failed));
+        }
+    }
+
+    private static ProductMutation mutation(ProductMutation.Operation op, String id, Product product) {
+        return ProductMutation.builder().op(op).id(id).product(product).build();
+    }
+
+    private <T> T get(String path, Class<T> type) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(leaderUrl + path))
+                .timeout(Duration.ofSeconds(30))
+                .header("Authorization", "Bearer " + jwtUtil.generateToken(REPLICATION_USER, REPLICATION_ROLE))
+                .GET()
+                .build();
+        HttpResponse<InputStream> response = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+        try (InputStream body = response.body()) {
+            if (response.statusCode() != 200) {
+                throw new IOException("Leader answered " + response.statusCode() + " to " + path);
+            }
+            return objectMapper.readValue(body, type);
+        }
+    }
+}
@@ -0,0 +1,737 @@
+package com.example.productcomparison.service;
+
+import com.example.productcomparison.config.CatalogRoutingConfig;
+import com.example.productcomparison.config.JwtUtil;
+import com.example.productcomparison.exception.repository.ProductAlreadyExistsException;
+import com.example.productcomparison.exception.service.InvalidParameterException;
+import com.example.productcomparison.exception.service.PartitionMoveException;
+import com.example.productcomparison.exception.service.PartitionRequestException;
+import com.example.productcomparison.exception.service.PartitionUnavailableException;
+import com.example.productcomparison.exception.service.ProductNotFoundException;
+import com.example.productcomparison.model.BatchResponse;
+import com.example.productcomparison.model.MutationResult;
+import com.example.productcomparison.model.Product;
+import com.example.productcomparison.model.ProductMutation;
+import com.example.productcomparison.model.ProductQuery;
+import com.example.productcomparison.model.ProductQueryResult;
+import com.example.productcomparison.model.QueryPlan;
+import com.example.productcomparison.repository.CatalogPartition;
+import com.example.productcomparison.repository.index.CategoryIndex;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static com.example.productcomparison.repository.SortedMerge.concatenate;
+import static com.example.productcomparison.repository.SortedMerge.merge;
+
+/**
+ * Routing layer for a catalog partitioned by category across several instances ("nodes").
+ * <p>
+ * Every category belongs to one node: the one it is assigned to in {@code product.routing.categories}, or
+ * otherwise the one its lower-cased name hashes to, as decided by {@link CatalogPartition}. Products without a
+ * category belong to the first node. Each node is an ordinary instance of this application started with its
+ * {@code product.routing.node-index}, so that it only loads and accepts the products of its categories; this
+ * service answers the product API by calling the nodes' own product API over HTTP, with a token signed with
+ * the {@code jwt.secret-key} they share. The token is signed once and reused for
+ * {@code product.routing.token-refresh-ms}.
+ * </p>
+ *
+ * <h2>Routing:</h2>
+ * <ul>
+ *   <li>Category filters, category specification filters, queries with a category and creates go to the node
+ *       owning the category.</li>
+ *   <li>Searches, filters, other queries, sorts and the top rated products are scattered to every node in
+ *       parallel. Ordered results are gathered with a k-way merge of the nodes' sorted results, stopping
+ *       after {@code limit} products for the top rated ones and queries, as in
+ *       {@link com.example.productcomparison.repository.ShardedProductRepository}.</li>
+ *   <li>IDs do not tell the owning node, so lookups, updates and deletes by ID ask every node, and so do
+ *       creates with an ID, single or batched, to refuse an ID another node holds. The creates of a batch are
+ *       checked with one {@code POST /api/products/exists} request per node. An update that changes the
+ *       category to one owned by another node moves the product there: it is created on the new node, then
+ *       removed from the old one, and removed from the new node again if the old one refuses.</li>
+ *   <li>Batch items are grouped into one batch per node; deletes are sent to every node and succeed where
+ *       the product is. Batch updates must stay within their node; move products with a single update.</li>
+ * </ul>
+ *
+ * <h2>Failures:</h2>
+ * <p>
+ * Every call to a node times out after {@code product.routing.timeout-ms}. When a node rejects a request,
+ * such as an invalid product, its error is returned as is. When some nodes of a scattered query cannot be
+ * reached, time out or fail, the results of the others are returned if
+ * {@code product.routing.allow-partial-results} is set, and counted in the {@code catalog.routing.partial-results}
+ * meter; otherwise, or when no node answered, the request fails with 503. Lookups by ID never report a product
+ * as missing while a node that could hold it is unavailable, and creates are not sent while such a node could
+ * hold their ID. A move whose old node does not answer, or that can be neither completed nor undone, fails
+ * with {@link PartitionMoveException}, naming the two nodes that may now both hold the product. Two concurrent
+ * creates of the same ID in categories of different nodes are not serialized and can both succeed.
+ * </p>
+ *
+ * <h2>Required configuration:</h2>
+ * <p>
+ * Enabled with {@code product.routing.enabled=true} and the base URLs of the nodes in
+ * {@code product.routing.nodes}. The router holds no products of its own: no repository, catalog file or
+ * write-ahead log is created on it.
+ * </p>
+ *
+ * @see CatalogRoutingConfig
+ * @see CatalogNodeClient
+ */
+@Service
+@Primary
+@ConditionalOnProperty(name = "product.routing.enabled", havingValue = "true")
+@Slf4j
+public class RoutingProductService implements IProductService {
+
+    static final String ROUTER_USER = "catalog-router";
+    static final String ROUTER_ROLE = "ROLE_ADMIN";
+
+    private static final TypeReference<Product> PRODUCT = new TypeReference<>() {
+    };
+    private static final TypeReference<List<Product>> PRODUCTS = new TypeReference<>() {
+    };
+    private static final TypeReference<List<String>> CATEGORIES = new TypeReference<>() {
+    };
+    private static final TypeReference<List<String>> IDS = new TypeReference<>() {
+    };
+    private static final TypeReference<BatchResponse> BATCH = new TypeReference<>() {
+    };
+    private static final TypeReference<ProductQueryResult> QUERY_RESULT = new TypeReference<>() {
+    };
+
+    private static final Comparator<Product> BY_PRICE = Comparator.comparingDouble(Product::getPrice);
+    private static final Comparator<Product> BY_RATING = Comparator.comparingDouble(Product::getRating);
+
+    private static final String PARTITION_UNAVAILABLE = "CATALOG_PARTITION_UNAVAILABLE";
+
+    private final List<CatalogNodeClient> nodes;
+    private final CatalogPartition partition;
+    private final boolean allowPartialResults;
+    private final AIProductGenerator aiProductGenerator;
+    private final MeterRegistry meterRegistry;
+
+    public RoutingProductService(CatalogRoutingConfig config, CatalogPartition partition,
+                                 AIProductGenerator aiProductGenerator, JwtUtil jwtUtil, ObjectMapper objectMapper,
+                                 MeterRegistry meterRegistry) {
+        List<String> urls = partition.nodes();
+        if (urls.isEmpty()) {
+            throw new IllegalStateException("product.routing.nodes must list the catalog nodes to route to");
+        }
+        HttpClient httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(config.getTimeoutMs()))
+                .build();
+        RouterToken token = new RouterToken(jwtUtil, config.getTokenRefreshMs());
+        List<CatalogNodeClient> clients = new ArrayList<>(urls.size());
+        for (String node : urls) {
+            clients.add(new CatalogNodeClient(node, httpClient, objectMapper, token, config.getTimeoutMs()));
+        }
+        this.nodes = List.copyOf(clients);
+        this.partition = partition;
+        this.allowPartialResults = config.isAllowPartialResults();
+        this.aiProductGenerator = aiProductGenerator;
+        this.meterRegistry = meterRegistry;
+        log.info("Routing the catalog across {} nodes: {}", nodes.size(), urls);
+    }
+
+    /**
+     * @return the base URL of the node that owns the category
+     */
+    public String nodeForCategory(String category) {
+        return ownerOf(category).baseUrl();
+    }
+
+    @Override
+    public List<Product> getAllProducts() {
+        return concatenate(scatter("list", node -> node.get("", PRODUCTS)));
+    }
+
+    @Override
+    public Product createProduct(Product product) {
+        if (product.getId() != null && locate(product.getId()).isPresent()) {
+            throw new ProductAlreadyExistsException(product.getId());
+        }
+        return call(ownerOf(product), node -> node.post("", product, PRODUCT));
+    }
+
+    @Override
+    public Product generateRandomProduct() {
+        return createProduct(aiProductGenerator.generateRandomProduct());
+    }
+
+    @Override
+    public Product updateProduct(String id, Product product) {
+        requireId(id);
+        Located current = locate(id).orElseThrow(() -> new ProductNotFoundException(id));
+        Product updated = product.toBuilder().id(id).build();
+        CatalogNodeClient owner = ownerOf(updated);
+        if (owner == current.node()) {
+            return call(owner, node -> node.put("/" + CatalogNodeClient.encode(id), updated, PRODUCT));
+        }
+        // The new category belongs to another node: create the product there before removing the old copy
+        Product moved = call(owner, node -> node.post("", updated, PRODUCT));
+        try {
+            call(current.node(), node -> node.delete("/" + CatalogNodeClient.encode(id)));
+        } catch (PartitionRequestException e) {
+            // Already deleted meanwhile: the new copy is the only one
+            if (e.getStatus() != 404) {
+                throw undoMove(id, current.node(), owner, e);
+            }
+        } catch (PartitionUnavailableException e) {
+            // The old copy may be gone even though the node did not answer, so the new one has to stay
+            throw new PartitionMoveException(id, List.of(current.node().baseUrl(), owner.baseUrl()), e);
+        }
+        log.info("Moved product {} from {} to {}", id, current.node().baseUrl(), owner.baseUrl());
+        return moved;
+    }
+
+    /**
+     * Removes the new copy of a product whose old node refused to remove the old copy, so that it stays on one node.
+     *
+     * @return the failure to report: the removal failure when the move was undone, and otherwise a
+     *         {@link PartitionMoveException} naming both nodes
+     */
+    private RuntimeException undoMove(String id, CatalogNodeClient from, CatalogNodeClient to,
+                                      RuntimeException failure) {
+        try {
+            call(to, node -> node.delete("/" + CatalogNodeClient.encode(id)));
+            log.warn("Moving product {} from {} to {} failed, removed the new copy: {}",
+                    id, from.baseUrl(), to.baseUrl(), failure.getMessage());
+            return failure;
+        } catch (RuntimeException e) {
+            PartitionMoveException moveFailure =
+                    new PartitionMoveException(id, List.of(from.baseUrl(), to.baseUrl()), failure);
+            moveFailure.addSuppressed(e);
+            return moveFailure;
+        }
+    }
+
+    @Override
+    public void deleteProduct(String id) {
+        requireId(id);
+        Located current = locate(id).orElseThrow(() -> new ProductNotFoundException(id));
+        call(current.node(), node -> node.delete("/" + CatalogNodeClient.encode(id)));
+    }
+
+    @Override
+    public List<MutationResult> applyBatch(List<ProductMutation> mutations) {
+        if (mutations.isEmpty()) {
+            throw new InvalidParameterException("batch", mutations.size(), "Batch cannot be empty");
+        }
+        if (mutations.size() > MAX_BATCH_SIZE) {
+            throw new InvalidParameterException("batch", mutations.size(),
+                    "Batch cannot contain more than " + MAX_BATCH_SIZE + " items. Please split it");
+        }
+        MutationResult[] results = new MutationResult[mutations.size()];
+        // The owner of a created product only knows its own IDs: ask every other node which ones it holds first
+        Map<Integer, Integer> checkedCreates = new HashMap<>();
+        List<Set<String>> checks = new ArrayList<>(nodes.size());
+        for (int n = 0; n < nodes.size(); n++) {
+            checks.add(new LinkedHashSet<>());
+        }
+        Map<String, Integer> createdOn = new HashMap<>();
+        for (int i = 0; i < mutations.size(); i++) {
+            ProductMutation mutation = mutations.get(i);
+            try {
+                mutation.validate();
+            } catch (IllegalArgumentException e) {
+                results[i] = MutationResult.failed(i, mutation, e);
+                continue;
+            }
+            String id = mutation.targetId();
+            if (mutation.getOp() == ProductMutation.Operation.CREATE && id != null) {
+                int owner = partition.ownerOf(mutation.getProduct());
+                Integer first = createdOn.putIfAbsent(id, owner);
+                if (first != null && first != owner) {
+                    results[i] = MutationResult.failed(i, mutation, new ProductAlreadyExistsException(id));
+                } else {
+                    checkedCreates.put(i, owner);
+                    for (int n = 0; n < nodes.size(); n++) {
+                        if (n != owner) {
+                            checks.get(n).add(id);
+                        }
+                    }
+                }
+            }
+        }
+        ExistingIds existing = checkExistence(checks);
+
+        List<List<Integer>> positions = new ArrayList<>(nodes.size());
+        for (int n = 0; n < nodes.size(); n++) {
+            positions.add(new ArrayList<>());
+        }
+        for (int i = 0; i < mutations.size(); i++) {
+            ProductMutation mutation = mutations.get(i);
+            if (results[i] != null) {
+                continue;
+            }
+            if (checkedCreates.containsKey(i)) {
+                results[i] = existingCopy(i, mutation, checkedCreates.get(i), existing);
+                if (results[i] != null) {
+                    continue;
+                }
+            }
+            if (mutation.getOp() == ProductMutation.Operation.DELETE) {
+                for (List<Integer> node : positions) {
+                    node.add(i);
+                }
+            } else {
+                positions.get(nodes.indexOf(ownerOf(mutation.getProduct()))).add(i);
+            }
+        }
+
+        List<CompletableFuture<BatchResponse>> pending = new ArrayList<>(nodes.size());
+        for (int n = 0; n < nodes.size(); n++) {
+            List<ProductMutation> batch = positions.get(n).stream().map(mutations::get).toList();
+            pending.add(batch.isEmpty() ? null : nodes.get(n).post("/batch", batch, BATCH));
+        }
+        for (int n = 0; n < nodes.size(); n++) {
+            if (pending.get(n) == null) {
+                continue;
+            }
+            List<Integer> items = positions.get(n);
+            try {
+                List<MutationResult> answered = pending.get(n).join().getResults();
+                for (int j = 0; j < items.size(); j++) {
+                    combine(results, items.get(j), answered.get(j));
+                }
+            } catch (CompletionException e) {
+                Throwable cause = unwrap(e);
+                String errorCode = errorCodeOf(cause);
+                String message = String.format("Catalog node %s failed: %s", nodes.get(n).baseUrl(), cause.getMessage());
+                for (int item : items) {
+                    combine(results, item, MutationResult.failed(item, mutations.get(item), errorCode, message));
+                }
+            }
+        }
+        return List.of(results);
+    }
+
+    /**
+     * Asks every node which of the IDs listed for it it holds, with one request per node sent to all nodes
+     * before any is waited for.
+     */
+    private ExistingIds checkExistence(List<Set<String>> checks) {
+        List<CompletableFuture<List<String>>> pending = new ArrayList<>(nodes.size());
+        for (int n = 0; n < nodes.size(); n++) {
+            List<String> ids = List.copyOf(checks.get(n));
+            pending.add(ids.isEmpty() ? null : nodes.get(n).post("/exists", ids, IDS));
+        }
+        List<Set<String>> held = new ArrayList<>(nodes.size());
+        Throwable[] failures = new Throwable[nodes.size()];
+        for (int n = 0; n < nodes.size(); n++) {
+            if (pending.get(n) == null) {
+                held.add(Set.of());
+                continue;
+            }
+            try {
+                held.add(new HashSet<>(pending.get(n).join()));
+            } catch (CompletionException e) {
+                held.add(Set.of());
+                failures[n] = unwrap(e);
+            }
+        }
+        return new ExistingIds(held, failures);
+    }
+
+    /**
+     * @return the failure of a batch create whose ID another node holds, or could hold because it did not
+     *         answer, or {@code null} when no other node has the ID
+     */
+    private MutationResult existingCopy(int index, ProductMutation mutation, int owner, ExistingIds existing) {
+        String id = mutation.targetId();
+        for (int n = 0; n < nodes.size(); n++) {
+            if (n == owner) {
+                continue;
+            }
+            Throwable failure = existing.failures()[n];
+            if (failure != null) {
+                return MutationResult.failed(index, mutation, errorCodeOf(failure), String.format(
+                        "Catalog node %s could not be checked for product %s: %s",
+                        nodes.get(n).baseUrl(), id, failure.getMessage()));
+            }
+            if (existing.held().get(n).contains(id)) {
+                return MutationResult.failed(index, mutation, new ProductAlreadyExistsException(id));
+            }
+        }
+        return null;
+    }
+
+    private static String errorCodeOf(Throwable cause) {
+        return cause instanceof PartitionRequestException rejected && rejected.getErrorCode() != null
+                ? rejected.getErrorCode() : PARTITION_UNAVAILABLE;
+    }
+
+    /**
+     * Keeps the outcome of an item that was sent to several nodes: applied where any node applied it, and
+     * otherwise the failure of a node that could not apply it for another reason than not having the product.
+     */
+    private static void combine(MutationResult[] results, int index, MutationResult result) {
+        result.setIndex(index);
+        MutationResult current = results[index];
+        if (current == null
+                || !current.isApplied() && (result.isApplied() || "PRODUCT_NOT_FOUND".equals(current.getErrorCode()))) {
+            results[index] = result;
+        }
+    }
+
+    @Override
+    public Product getProductById(String id) {
+        requireId(id);
+        return locate(id).map(Located::product).orElseThrow(() -> new ProductNotFoundException(id));
+    }
+
+    @Override
+    public List<String> findExistingIds(List<String> ids) {
+        if (ids.size() > MAX_BATCH_SIZE) {
+            throw new InvalidParameterException("ids", ids.size(),
+                    "Cannot check more than " + MAX_BATCH_SIZE + " IDs at once. Please split them");
+        }
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        List<Set<String>> checks = new ArrayList<>(nodes.size());
+        for (int n = 0; n < nodes.size(); n++) {
+            checks.add(new LinkedHashSet<>(ids));
+        }
+        // Like a lookup by ID, an ID is never reported missing while a node that could hold it did not answer
+        ExistingIds existing = checkExistence(checks);
+        List<String> unavailable = new ArrayList<>();
+        Throwable failure = null;
+        for (int n = 0; n < nodes.size(); n++) {
+            Throwable cause = existing.failures()[n];
+            if (cause instanceof PartitionRequestException rejected) {
+                throw rejected;
+            }
+            if (cause != null) {
+                failure = cause;
+                unavailable.add(nodes.get(n).baseUrl());
+            }
+        }
+        if (!unavailable.isEmpty()) {
+            throw new PartitionUnavailableException(unavailable, failure);
+        }
+        return ids.stream().filter(id -> existing.held().stream().anyMatch(held -> held.contains(id))).toList();
+    }
+
+    @Override
+    public List<Product> searchByName(String query) {
+        return concatenate(scatter("search", node ->
+                node.get("/search?q=" + CatalogNodeClient.encode(query), PRODUCTS)));
+    }
+
+    @Override
+    public List<Product> filterByPriceRange(double minPrice, double maxPrice) {
+        return merge(scatter("price filter", node ->
+                        node.get("/filter/price?min=" + minPrice + "&max=" + maxPrice, PRODUCTS)),
+                BY_PRICE, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<Product> filterByRating(double minRating) {
+        return merge(scatter("rating filter", node -> node.get("/filter/rating?min=" + minRating, PRODUCTS)),
+                BY_RATING.reversed(), Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<Product> filterByCategory(String category) {
+        return call(ownerOf(category), node ->
+                node.get("/filter/category/" + CatalogNodeClient.encode(category), PRODUCTS));
+    }
+
+    @Override
+    public List<String> getAllCategories() {
+        TreeSet<String> categories = new TreeSet<>();
+        scatter("categories", node -> node.get("/categories", CATEGORIES)).forEach(categories::addAll);
+        return new ArrayList<>(categories);
+    }
+
+    @Override
+    public List<Product> compareProducts(List<String> productIds) {
+        if (productIds.isEmpty()) {
+            throw new InvalidParameterException("ids", productIds, "Product IDs list cannot be empty");
+        }
+        if (productIds.size() > 10) {
+            throw new InvalidParameterException("ids", productIds,
+                    "Cannot compare more than 10 products at once");
+        }
+        productIds.forEach(RoutingProductService::requireId);
+        // Every lookup is sent before any is waited for
+        List<List<CompletableFuture<Optional<Product>>>> lookups = productIds.stream().map(this::lookup).toList();
+        List<Product> products = new ArrayList<>(productIds.size());
+        for (int i = 0; i < productIds.size(); i++) {
+            String id = productIds.get(i);
+            products.add(resolve(lookups.get(i)).map(Located::product)
+                    .orElseThrow(() -> new ProductNotFoundException(id)));
+        }
+        return products;
+    }
+
+    @Override
+    public List<Product> sortByPrice(boolean ascending) {
+        return merge(scatter("price sort", node -> node.get("/sort/price?order=" + order(ascending), PRODUCTS)),
+                ascending ? BY_PRICE : BY_PRICE.reversed(), Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<Product> sortByRating(boolean ascending) {
+        return merge(scatter("rating sort", node -> node.get("/sort/rating?order=" + order(ascending), PRODUCTS)),
+                ascending ? BY_RATING : BY_RATING.reversed(), Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<Product> getTopRatedProducts(int limit) {
+        return merge(scatter("top rated", node -> node.get("/top?limit=" + limit, PRODUCTS)),
+                BY_RATING.reversed(), limit);
+    }
+
+    @Override
+    public List<Product> findBySpecification(String specKey, String specValue) {
+        String path = "/filter/spec?key=" + CatalogNodeClient.encode(specKey)
+                + "&value=" + CatalogNodeClient.encode(specValue);
+        if (CategoryIndex.CATEGORY_KEY.equals(specKey)) {
+            return call(ownerOf(specValue), node -> node.get(path, PRODUCTS));
+        }
+        return concatenate(scatter("specification filter", node -> node.get(path, PRODUCTS)));
+    }
+
+    @Override
+    public ProductQueryResult query(ProductQuery query, boolean explain) {
+        String path = "/query?" + queryString(query, explain);
+        String category = query.getCategory() != null ? query.getCategory()
+                : query.getSpecifications() == null ? null : query.getSpecifications().get(CategoryIndex.CATEGORY_KEY);
+        List<ProductQueryResult> answers = category != null
+                ? List.of(call(ownerOf(category), node -> node.get(path, QUERY_RESULT)))
+                : scatter("composite", node -> node.get(path, QUERY_RESULT));
+
+        List<List<Product>> partials = answers.stream().map(ProductQueryResult::getProducts).toList();
+        int limit = query.getLimit() == null ? Integer.MAX_VALUE : query.getLimit();
+        List<Product> products;
+        if (query.getSort() == null) {
+            products = concatenate(partials);
+            if (products.size() > limit) {
+                products = new ArrayList<>(products.subList(0, limit));
+            }
+        } else {
+            Comparator<Product> order = query.getSort() == ProductQuery.Sort.PRICE ? BY_PRICE : BY_RATING;
+            products = merge(partials, query.isAscending() ? order : order.reversed(), limit);
+        }
+
+        ProductQueryResult.ProductQueryResultBuilder result = ProductQueryResult.builder()
+                .count(products.size())
+                .products(products);
+        if (explain) {
+            List<QueryPlan> partitions = answers.stream().map(ProductQueryResult::getPlan).toList();
+            result.plan(QueryPlan.builder()
+                    .accessPath(category != null ? "ROUTE (category = " + category + ")" : "SCATTER")
+                    .estimatedRows(partitions.stream().mapToLong(QueryPlan::getEstimatedRows).sum())
+                    .estimatedCost(partitions.stream().mapToDouble(QueryPlan::getEstimatedCost).sum())
+                    .order(query.getSort() == null ? "concatenate" : "merge the sorted results of the nodes")
+                    .partitions(partitions)
+                    .build());
+        }
+        return result.build();
+    }
+
+    private static String queryString(ProductQuery query, boolean explain) {
+        List<String> parameters = new ArrayList<>();
+        addParameter(parameters, "minPrice", query.getMinPrice());
+        addParameter(parameters, "maxPrice", query.getMaxPrice());
+        addParameter(parameters, "minRating", query.getMinRating());
+        addParameter(parameters, "category", query.getCategory());
+        if (query.getSpecifications() != null) {
+            query.getSpecifications().forEach((key, value) -> addParameter(parameters, "spec", key + ":" + value));
+        }
+        addParameter(parameters, "name", query.getName());
+        if (query.getSort() != null) {
+            addParameter(parameters, "sort", query.getSort().name().toLowerCase(Locale.ROOT));
+            addParameter(parameters, "order", order(query.isAscending()));
+        }
+        addParameter(parameters, "limit", query.getLimit());
+        addParameter(parameters, "explain", explain);
+        return String.join("&", parameters);
+    }
+
+    private static void addParameter(List<String> parameters, String name, Object value) {
+        if (value != null) {
+            parameters.add(name + "=" + CatalogNodeClient.encode(String.valueOf(value)));
+        }
+    }
+
+    private CatalogNodeClient ownerOf(Product product) {
+        return nodes.get(partition.ownerOf(product));
+    }
+
+    private CatalogNodeClient ownerOf(String category) {
+        return nodes.get(partition.ownerOf(category));
+    }
+
+    /**
+     * Runs the call on every node in parallel and returns the answers in node order, leaving out the nodes that
+     * could not answer when partial results are allowed.
+     */
+    private <T> List<T> scatter(String query, Function<CatalogNodeClient, CompletableFuture<T>> call) {
+        List<CompletableFuture<T>> pending = new ArrayList<>(nodes.size());
+        for (CatalogNodeClient node : nodes) {
+            pending.add(call.apply(node));
+        }
+        List<T> answers = new ArrayList<>(nodes.size());
+        List<String> unavailable = new ArrayList<>();
+        Throwable failure = null;
+        for (int n = 0; n < nodes.size(); n++) {
+            try {
+                answers.add(pending.get(n).join());
+            } catch (CompletionException e) {
+                failure = unwrap(e);
+                if (failure instanceof PartitionRequestException rejected) {
+                    throw rejected;
+                }
+                unavailable.add(nodes.get(n).baseUrl());
+            }
+        }
+        if (!unavailable.isEmpty()) {
+            if (!allowPartialResults || answers.isEmpty()) {
+                throw new PartitionUnavailableException(unavailable, failure);
+            }
+            log.warn("Answering the {} query without catalog nodes {}: {}", query, unavailable, failure.getMessage());
+            for (String node : unavailable) {
+                Counter.builder("catalog.routing.partial-results")
+                        .description("Queries answered without a catalog node that did not respond")
+                        .tag("node", node)
+                        .register(meterRegistry)
+                        .increment();
+            }
+        }
+        return answers;
+    }
+
+    private <T> T call(CatalogNodeClient node, Function<CatalogNodeClient, CompletableFuture<T>> call) {
+        try {
+            return call.apply(node).join();
+        } catch (CompletionException e) {
+            Throwable cause = unwrap(e);
+            if (cause instanceof PartitionRequestException rejected) {
+                throw rejected;
+            }
+            throw new PartitionUnavailableException(List.of(node.baseUrl()), cause);
+        }
+    }
+
+    private Optional<Located> locate(String id) {
+        return resolve(lookup(id));
+    }
+
+    private List<CompletableFuture<Optional<Product>>> lookup(String id) {
+        String path = "/" + CatalogNodeClient.encode(id);
+        List<CompletableFuture<Optional<Product>>> lookups = new ArrayList<>(nodes.size());
+        for (CatalogNodeClient node : nodes) {
+            lookups.add(node.find(path, PRODUCT));
+        }
+        return lookups;
+    }
+
+    /**
+     * Returns the first node that has the product. The product is only reported missing when every node said so.
+     */
+    private Optional<Located> resolve(List<CompletableFuture<Optional<Product>>> lookups) {
+        List<String> unavailable = new ArrayList<>();
+        Throwable failure = null;
+        for (int n = 0; n < nodes.size(); n++) {
+            try {
+                Optional<Product> product = lookups.get(n).join();
+                if (product.isPresent()) {
+                    return Optional.of(new Located(nodes.get(n), product.get()));
+                }
+            } catch (CompletionException e) {
+                failure = unwrap(e);
+                if (failure instanceof PartitionRequestException rejected) {
+                    throw rejected;
+                }
+                unavailable.add(nodes.get(n).baseUrl());
+            }
+        }
+        if (!unavailable.isEmpty()) {
+            throw new PartitionUnavailableException(unavailable, failure);
+        }
+        return Optional.empty();
+    }
+
+    private static void requireId(String id) {
+        if (id.trim().isEmpty()) {
+            throw new InvalidParameterException("id", id, "Product ID cannot be empty");
+        }
+    }
+
+    private static String order(boolean ascending) {
+        return ascending ? "asc" : "desc";
+    }
+
+    static Throwable unwrap(Throwable failure) {
+        Throwable cause = failure;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException)
+                && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+
+    private record Located(CatalogNodeClient node, Product product) {
+    }
+
+    /**
+     * Answers of the nodes asked which IDs they hold: the IDs each one holds, and the failure of each one that
+     * could not answer.
+     */
+    private record ExistingIds(List<Set<String>> held, Throwable[] failures) {
+    }
+
+    /**
+     * Token the router presents to the nodes, signed once and reused until it is {@code refreshMs} old, instead
+     * of being signed for every call.
+     */
+    private static final class RouterToken implements Supplier<String> {
+
+        private final JwtUtil jwtUtil;
+        private final long refreshNanos;
+        private String token;
+        private long signedAt;
+
+        private RouterToken(JwtUtil jwtUtil, long refreshMs) {
+            this.jwtUtil = jwtUtil;
+            this.refreshNanos = TimeUnit.MILLISECONDS.toNanos(refreshMs);
+        }
+
+        @Override
+        public synchronized String get() {
+            long now = System.nanoTime();
+            if (token == null || now - signedAt >= refreshNanos) {
+                token = jwtUtil.generateToken(ROUTER_USER, ROUTER_ROLE);
+                signedAt = now;
+            }
+            return token;
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.example.productcomparison.integration;
+
+import com.example.productcomparison.ProductComparisonApplication;
+import com.example.productcomparison.model.Product;
+import com.example.productcomparison.repository.CatalogChangeLog;
+import com.example.productcomparison.repository.IProductRepository;
+import com.example.productcomparison.service.ReplicationFollower;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs a replication leader on a random port and a follower of it in a second application context.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "product.replication.role=leader",
+        "product.replication.change-log-capacity=" + ReplicationIntegrationTest.CHANGE_LOG_CAPACITY
+})
+@DisplayName("Replication Integration Tests")
+public class ReplicationIntegrationTest {
+
+    static final int CHANGE_LOG_CAPACITY = 4;
+    private static final long TIMEOUT_MS = 10_000;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private AuthIntegrationTestHelper authHelper;
+
+    @Autowired
+    private IProductRepository leaderRepository;
+
+    @Autowired
+    private CatalogChangeLog changeLog;
+
+    private ConfigurableApplicationContext follower;
+
+    @BeforeEach
+    void startFollower() {
+        follower = new SpringApplicationBuilder(ProductComparisonApplication.class)
+                .properties(
+                        "server.port=0",
+                        "product.replication.role=follower",
+                        "product.replication.leader-url=http://localhost:" + port,
+                        "product.replication.poll-interval-ms=50",
+                        "product.replication.batch-size=2")
+                .run();
+    }
+
+    @AfterEach
+    void stopFollower() {
+        follower.close();
+    }
+
+    @Test
+    @DisplayName("Should converge on the creates, updates and deletes written to the leader")
+    void follower_ConvergesOnLeaderWrites() {
+        // Act
+        assertEquals(HttpStatus.CREATED, write(HttpMethod.POST, "/api/products", product("replica-1", 100.0)));
+        assertEquals(HttpStatus.CREATED, write(HttpMethod.POST, "/api/products", product("replica-2", 200.0)));
+        assertEquals(HttpStatus.OK, write(HttpMethod.PUT, "/api/products/replica-1", product("replica-1", 150.0)));
+        assertEquals(HttpStatus.NO_CONTENT, write(HttpMethod.DELETE, "/api/products/replica-2", null));
+
+        // Assert
+        awaitConvergence();
+        Product replicated = follower.getBean(IProductRepository.class).findById("replica-1").orElseThrow();
+        assertEquals(150.0, replicated.getPrice());
+        assertTrue(follower.getBean(IProductRepository.class).findById("replica-2").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should copy the catalog again once the changes it missed have left the leader's change log")
+    void follower_ResyncsAfterChangeLogWraps() {
+        // Arrange
+        awaitConvergence();
+        ReplicationFollower replication = follower.getBean(ReplicationFollower.class);
+        replication.stop();
+        long position = replication.appliedSequence();
+        for (int i = 0; i < CHANGE_LOG_CAPACITY + 3; i++) {
+            assertEquals(HttpStatus.CREATED,
+                    write(HttpMethod.POST, "/api/products", product("wrapped-" + i, 10.0 + i)));
+        }
+        assertTrue(changeLog.changesAfter(position, 10).isResyncRequired());
+
+        // Act
+        replication.poll();
+
+        // Assert
+        assertEquals(changeLog.lastSequence(), replication.appliedSequence());
+        assertEquals(sorted(leaderRepository.findAll()), sorted(follower.getBean(IProductRepository.class).findAll()));
+    }
+
+    private HttpStatus write(HttpMethod method, String path, Map<String, Object> body) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.AUTHORIZATION, authHelper.getAdminBearerToken());
+        ResponseEntity<String> response = restTemplate.exchange(path, method, new HttpEntity<>(body, headers),
+                String.class);
+        return HttpStatus.valueOf(response.getStatusCode().value());
+    }
+
+    private static Map<String, Object> product(String id, double price) {
+        return Map.of(
+                "id", id,
+                "name", "Replicated " + id,
+                "price", price,
+                "rating", 4.0,
+                "specifications", Map.of("category", "Laptops"));
+    }
+
+    private void awaitConvergence() {
+        IProductRepository followerRepository = follower.getBean(IProductRepository.class);
+        ReplicationFollower replication = follower.getBean(ReplicationFollower.class);
+        await(() -> replication.appliedSequence() == changeLog.lastSequence()
+                && sorted(leaderRepository.findAll()).equals(sorted(followerRepository.findAll())));
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("The follower did not converge on the leader within " + TIMEOUT_MS + " ms");
+            }
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail("Interrupted while waiting for the follower");
+            }
+        }
+    }
+
+    private static List<Product> sorted(List<Product> products) {
+        return products.stream().sorted(Comparator.comparing(Product::getId)).toList();
+    }
+}
@@ -0,0 +1,181 @@
+package com.example.productcomparison.unit.config;
+
+import com.example.productcomparison.config.CatalogETagInterceptor;
+import com.example.productcomparison.repository.IProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.OptionalLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("CatalogETagInterceptor Unit Tests")
+class CatalogETagInterceptorTest {
+
+    @Mock
+    private IProductRepository productRepository;
+
+    private CatalogETagInterceptor interceptor;
+    private HandlerMethod handler;
+    private MockHttpServletResponse response;
+
+    @BeforeEach
+    void setUp() throws NoSuchMethodException {
+        interceptor = new CatalogETagInterceptor(productRepository);
+        handler = new HandlerMethod(new Object(), Object.class.getMethod("toString"));
+        response = new MockHttpServletResponse();
+    }
+
+    @Test
+    @DisplayName("Should tag catalog endpoints with the catalog version")
+    void preHandle_CatalogEndpoint() throws IOException {
+        // Arrange
+        when(productRepository.catalogVersion()).thenReturn(7L);
+
+        // Act
+        String etag = exchange(get("/api/products"), 200);
+
+        // Assert
+        assertEquals(200, response.getStatus());
+        assertTrue(etag.matches("\"[0-9a-z]+-7\""));
+    }
+
+    @Test
+    @DisplayName("Should not tag error responses")
+    void beforeBodyWrite_ErrorResponse() throws IOException {
+        // Arrange
+        when(productRepository.catalogVersion()).thenReturn(7L);
+
+        // Act
+        String etag = exchange(get("/api/products/filter/price"), 400);
+
+        // Assert
+        assertEquals(400, response.getStatus());
+        assertNull(etag);
+    }
+
+    @Test
+    @DisplayName("Should answer 304 without reaching the controller when the ETag matches")
+    void preHandle_NotModified() throws IOException {
+        // Arrange
+        when(productRepository.catalogVersion()).thenReturn(7L);
+        String etag = exchange(get("/api/products/categories"), 200);
+        MockHttpServletRequest request = get("/api/products/categories");
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, etag);
+        response = new MockHttpServletResponse();
+
+        // Act
+        boolean proceed = interceptor.preHandle(request, response, handler);
+
+        // Assert
+        assertFalse(proceed);
+        assertEquals(304, response.getStatus());
+        assertEquals(etag, response.getHeader(HttpHeaders.ETAG));
+    }
+
+    @Test
+    @DisplayName("Should proceed with a new ETag once the catalog version moves on")
+    void preHandle_Modified() throws IOException {
+        // Arrange
+        when(productRepository.catalogVersion()).thenReturn(7L, 8L);
+        MockHttpServletRequest request = get("/api/products");
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, exchange(get("/api/products"), 200));
+
+        // Act
+        String etag = exchange(request, 200);
+
+        // Assert
+        assertEquals(200, response.getStatus());
+        assertTrue(etag.endsWith("-8\""));
+    }
+
+    @Test
+    @DisplayName("Should tag a single product with its own version")
+    void preHandle_ProductEndpoint() throws IOException {
+        // Arrange
+        when(productRepository.productVersion("laptop-001")).thenReturn(OptionalLong.of(3L));
+
+        // Act
+        String etag = exchange(product("laptop-001"), 200);
+
+        // Assert
+        assertTrue(etag.endsWith("-3\""));
+        verify(productRepository, never()).catalogVersion();
+    }
+
+    @Test
+    @DisplayName("Should not tag unknown products")
+    void preHandle_UnknownProduct() {
+        // Arrange
+        when(productRepository.productVersion("missing")).thenReturn(OptionalLong.empty());
+
+        // Act
+        boolean proceed = interceptor.preHandle(product("missing"), response, handler);
+
+        // Assert
+        assertTrue(proceed);
+        assertNull(response.getHeader(HttpHeaders.ETAG));
+    }
+
+    @Test
+    @DisplayName("Should leave writes untouched")
+    void preHandle_IgnoresWrites() {
+        // Arrange
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/products");
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "*");
+
+        // Act
+        boolean proceed = interceptor.preHandle(request, response, handler);
+
+        // Assert
+        assertTrue(proceed);
+        assertNull(response.getHeader(HttpHeaders.ETAG));
+        verifyNoInteractions(productRepository);
+    }
+
+    /**
+     * Runs the request through the interceptor and, when it reaches the controller, writes a body with the
+     * given status; returns the ETag the client receives.
+     */
+    private String exchange(MockHttpServletRequest request, int status) throws IOException {
+        response = new MockHttpServletResponse();
+        if (interceptor.preHandle(request, response, handler)) {
+            response.setStatus(status);
+            ServletServerHttpResponse serverResponse = new ServletServerHttpResponse(response);
+            interceptor.beforeBodyWrite("body", handler.getReturnType(), MediaType.APPLICATION_JSON,
+                    MappingJackson2HttpMessageConverter.class, new ServletServerHttpRequest(request), serverResponse);
+            serverResponse.flush();
+        }
+        return response.getHeader(HttpHeaders.ETAG);
+    }
+
+    private MockHttpServletRequest get(String path) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, path);
+        return request;
+    }
+
+    private MockHttpServletRequest product(String id) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/products/" + id);
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/products/{id}");
+        request.setAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE, Map.of("id", id));
+        return request;
+    }
+}
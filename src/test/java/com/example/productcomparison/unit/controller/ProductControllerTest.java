@@ -1,8 +1,13 @@
 package com.example.productcomparison.unit.controller;
 
 import com.example.productcomparison.controller.ProductController;
+import com.example.productcomparison.exception.service.InvalidParameterException;
+import com.example.productcomparison.model.BatchResponse;
+import com.example.productcomparison.model.MutationResult;
 import com.example.productcomparison.model.Product;
+import com.example.productcomparison.model.ProductMutation;
 import com.example.productcomparison.service.IProductService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -10,6 +15,9 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.http.ResponseEntity;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -34,7 +42,7 @@ class ProductControllerTest {
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
-        controller = new ProductController(productService);
+        controller = new ProductController(productService, new ObjectMapper());
     }
 
     // ==================== listProducts Tests ====================
@@ -333,4 +341,85 @@ class ProductControllerTest {
         assertEquals(1, response.getBody().size());
         verify(productService, times(1)).findBySpecification("processor", "Intel i7");
     }
+
+    // ==================== findExistingIds Tests ====================
+
+    @Test
+    @DisplayName("findExistingIds should return the IDs the service found")
+    void findExistingIds_ReturnsExistingIds() {
+        when(productService.findExistingIds(List.of("1", "2"))).thenReturn(List.of("2"));
+
+        ResponseEntity<List<String>> response = controller.findExistingIds(List.of("1", "2"));
+
+        assertEquals(200, response.getStatusCodeValue());
+        assertEquals(List.of("2"), response.getBody());
+    }
+
+    // ==================== applyBatch Tests ====================
+
+    @Test
+    @DisplayName("applyBatch should summarize the per-item results")
+    void applyBatch_ReturnsResults() {
+        ProductMutation create = ProductMutation.builder().op(ProductMutation.Operation.CREATE)
+                .product(Product.builder().id("1").name("P1").build()).build();
+        ProductMutation delete = ProductMutation.builder().op(ProductMutation.Operation.DELETE).id("2").build();
+        List<ProductMutation> mutations = List.of(create, delete);
+
+        when(productService.applyBatch(mutations)).thenReturn(List.of(
+                MutationResult.applied(0, create),
+                MutationResult.failed(1, delete, "PRODUCT_NOT_FOUND", "Product not found: 2")));
+
+        ResponseEntity<BatchResponse> response = controller.applyBatch(mutations);
+
+        assertEquals(200, response.getStatusCodeValue());
+        assertNotNull(response.getBody());
+        assertEquals(1, response.getBody().getApplied());
+        assertEquals(1, response.getBody().getFailed());
+        assertEquals("1", response.getBody().getResults().get(0).getId());
+    }
+
+    @Test
+    @DisplayName("applyBatchNdjson should read one mutation per line")
+    void applyBatchNdjson_ParsesLines() throws IOException {
+        String body = """
+                {"op":"create","product":{"id":"1","name":"P1","price":10.0,"rating":4.0}}
+                {"op":"UPDATE","id":"1","product":{"name":"P1 v2","price":12.0,"rating":4.0}}
+
+                {"op":"delete","id":"1"}
+                """;
+        when(productService.applyBatch(anyList())).thenAnswer(invocation -> {
+            List<ProductMutation> mutations = invocation.getArgument(0);
+            return List.of(MutationResult.applied(0, mutations.get(0)));
+        });
+
+        controller.applyBatchNdjson(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+
+        verify(productService).applyBatch(argThat(mutations -> mutations.size() == 3
+                && mutations.get(0).getOp() == ProductMutation.Operation.CREATE
+                && "1".equals(mutations.get(0).getProduct().getId())
+                && "P1 v2".equals(mutations.get(1).getProduct().getName())
+                && mutations.get(2).getOp() == ProductMutation.Operation.DELETE));
+    }
+
+    @Test
+    @DisplayName("applyBatchNdjson should reject a malformed line")
+    void applyBatchNdjson_MalformedLine_ThrowsException() {
+        String body = "{\"op\":\"delete\",\"id\":\"1\"}\n{\"op\":";
+
+        assertThrows(InvalidParameterException.class, () -> controller.applyBatchNdjson(
+                new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8))));
+        verifyNoInteractions(productService);
+    }
+
+    @Test
+    @DisplayName("applyBatchNdjson should stop reading at the first item over the batch size limit")
+    void applyBatchNdjson_Oversized_ThrowsException() {
+        String body = "{\"op\":\"delete\",\"id\":\"1\"}\n".repeat(10_001) + "{\"op\":";
+
+        InvalidParameterException exception = assertThrows(InvalidParameterException.class,
+                () -> controller.applyBatchNdjson(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8))));
+
+        assertEquals("more than 10000", exception.getParameterValue());
+        verifyNoInteractions(productService);
+    }
 }
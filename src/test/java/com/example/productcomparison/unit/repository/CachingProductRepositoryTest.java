@@ -0,0 +1,202 @@
+package com.example.productcomparison.unit.repository;
+
+import com.example.productcomparison.config.CatalogRoutingConfig;
+import com.example.productcomparison.exception.service.ProductNotFoundException;
+import com.example.productcomparison.model.MutationResult;
+import com.example.productcomparison.model.Product;
+import com.example.productcomparison.model.ProductDTO;
+import com.example.productcomparison.model.ProductMutation;
+import com.example.productcomparison.repository.CachingProductRepository;
+import com.example.productcomparison.repository.CatalogPartition;
+import com.example.productcomparison.repository.IProductRepository;
+import com.example.productcomparison.repository.ProductCatalogLoader;
+import com.example.productcomparison.repository.ProductDataSource;
+import com.example.productcomparison.repository.ProductMapper;
+import com.example.productcomparison.repository.ProductRepository;
+import com.example.productcomparison.repository.ProductValidator;
+import com.example.productcomparison.repository.storage.SpecificationDictionary;
+import com.example.productcomparison.repository.storage.WriteAheadLog;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("CachingProductRepository Unit Tests")
+class CachingProductRepositoryTest {
+
+    @Mock
+    private IProductRepository delegate;
+
+    private SimpleMeterRegistry meterRegistry;
+    private CachingProductRepository productRepository;
+
+    private Product product1;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        productRepository = new CachingProductRepository(delegate, meterRegistry, 100);
+
+        product1 = Product.builder()
+                .id("1")
+                .name("Product 1")
+                .price(100.0)
+                .rating(4.5)
+                .build();
+    }
+
+    @Test
+    @DisplayName("Should answer repeated lookups from memory and record hits and misses")
+    void findById_CachesHotProducts() {
+        // Arrange
+        when(delegate.productVersion("1")).thenReturn(OptionalLong.of(3L));
+        when(delegate.findById("1")).thenReturn(Optional.of(product1));
+
+        // Act
+        Optional<Product> first = productRepository.findById("1");
+        Optional<Product> second = productRepository.findById("1");
+        OptionalLong version = productRepository.productVersion("1");
+
+        // Assert
+        assertEquals(product1, first.orElseThrow());
+        assertSame(first.orElseThrow(), second.orElseThrow());
+        assertEquals(3L, version.orElseThrow());
+        verify(delegate, times(1)).findById("1");
+        assertEquals(2, productRepository.stats().hitCount());
+        assertEquals(1, productRepository.stats().missCount());
+        assertEquals(1, productRepository.size());
+        assertEquals(2.0, meterRegistry.get("cache.gets").tags("cache", "products", "result", "hit")
+                .functionCounter().count());
+    }
+
+    @Test
+    @DisplayName("Should not cache absent products")
+    void findById_AbsentNotCached() {
+        // Arrange
+        when(delegate.productVersion("missing")).thenReturn(OptionalLong.empty());
+
+        // Act & Assert
+        assertTrue(productRepository.findById("missing").isEmpty());
+        assertTrue(productRepository.productVersion("missing").isEmpty());
+        assertTrue(productRepository.findById(" ").isEmpty());
+        verify(delegate, times(2)).productVersion("missing");
+        verify(delegate, never()).findById(any());
+        assertEquals(0, productRepository.size());
+    }
+
+    @Test
+    @DisplayName("Should reload a product after it is updated or deleted")
+    void writes_InvalidateProduct() {
+        // Arrange
+        Product renamed = product1.toBuilder().name("Renamed").build();
+        when(delegate.productVersion("1")).thenReturn(OptionalLong.of(3L), OptionalLong.of(4L), OptionalLong.empty());
+        when(delegate.findById("1")).thenReturn(Optional.of(product1), Optional.of(renamed));
+        when(delegate.update("1", renamed)).thenReturn(renamed);
+        productRepository.findById("1");
+
+        // Act
+        productRepository.update("1", renamed);
+        Optional<Product> afterUpdate = productRepository.findById("1");
+        productRepository.deleteById("1");
+        Optional<Product> afterDelete = productRepository.findById("1");
+
+        // Assert
+        assertEquals("Renamed", afterUpdate.orElseThrow().getName());
+        assertTrue(afterDelete.isEmpty());
+        verify(delegate).deleteById("1");
+    }
+
+    @Test
+    @DisplayName("Should invalidate a product even when the write fails")
+    void writes_InvalidateOnFailure() {
+        // Arrange
+        when(delegate.productVersion("1")).thenReturn(OptionalLong.of(3L));
+        when(delegate.findById("1")).thenReturn(Optional.of(product1));
+        productRepository.findById("1");
+        doThrow(new ProductNotFoundException("1")).when(delegate).deleteById("1");
+
+        // Act
+        assertThrows(ProductNotFoundException.class, () -> productRepository.deleteById("1"));
+        productRepository.findById("1");
+
+        // Assert
+        verify(delegate, times(2)).findById("1");
+    }
+
+    @Test
+    @DisplayName("Should invalidate every product a batch touches")
+    void applyBatch_InvalidatesTargets() {
+        // Arrange
+        when(delegate.productVersion("1")).thenReturn(OptionalLong.of(3L));
+        when(delegate.findById("1")).thenReturn(Optional.of(product1));
+        productRepository.findById("1");
+        List<ProductMutation> mutations = List.of(
+                ProductMutation.builder().op(ProductMutation.Operation.DELETE).id("1").build(),
+                ProductMutation.builder().op(ProductMutation.Operation.CREATE).build());
+        when(delegate.applyBatch(anyList())).thenReturn(List.of(
+                MutationResult.applied(0, mutations.get(0)),
+                MutationResult.failed(1, mutations.get(1), "PRODUCT_VALIDATION_ERROR", "Product is required")));
+
+        // Act
+        productRepository.applyBatch(mutations);
+
+        // Assert
+        assertEquals(0, productRepository.size());
+    }
+
+    @Test
+    @DisplayName("Should drop products a reload of the catalog changes behind the cache")
+    void reload_InvalidatesChangedProducts() {
+        // Arrange
+        ProductDataSource productDataSource = mock(ProductDataSource.class);
+        ProductMapper productMapper = mock(ProductMapper.class);
+        ProductValidator productValidator = new ProductValidator();
+        doAnswer(invocation -> {
+            Consumer<ProductDTO> consumer = invocation.getArgument(1);
+            consumer.accept(ProductDTO.builder().id("1").build());
+            return 1L;
+        }).when(productDataSource).streamProductsFromJson(anyString(), any());
+        Product renamed = product1.toBuilder().name("Renamed").build();
+        when(productMapper.toDomain(any(ProductDTO.class))).thenReturn(product1, renamed);
+        ProductRepository catalog = new ProductRepository(
+                new ProductCatalogLoader(productDataSource, productMapper, productValidator,
+                        new CatalogPartition(new CatalogRoutingConfig())),
+                productMapper, productValidator, new SpecificationDictionary(), new WriteAheadLog());
+        ReflectionTestUtils.setField(catalog, "jsonFilePath", "classpath:data/products.json");
+        catalog.init();
+        CachingProductRepository cached = new CachingProductRepository(catalog, meterRegistry, 100);
+        cached.findById("1");
+        long versionBefore = cached.productVersion("1").orElseThrow();
+
+        // Act
+        catalog.reload();
+
+        // Assert
+        assertEquals("Renamed", cached.findById("1").orElseThrow().getName());
+        assertTrue(cached.productVersion("1").orElseThrow() > versionBefore);
+        assertEquals(2, cached.stats().missCount());
+    }
+
+    @Test
+    @DisplayName("Should reject a non-positive maximum size")
+    void constructor_InvalidMaximumSize() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new CachingProductRepository(delegate, meterRegistry, 0));
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.productcomparison.unit.repository;
+
+import com.example.productcomparison.exception.repository.ProductDataAccessException;
+import com.example.productcomparison.model.CatalogChange;
+import com.example.productcomparison.model.ChangeFeed;
+import com.example.productcomparison.model.Product;
+import com.example.productcomparison.model.ReplicationSnapshot;
+import com.example.productcomparison.repository.CatalogChangeLog;
+import com.example.productcomparison.repository.CatalogSnapshot;
+import com.example.productcomparison.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("CatalogChangeLog Unit Tests")
+class CatalogChangeLogTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    private CatalogChangeLog changeLog;
+
+    private Product product1;
+
+    @BeforeEach
+    void setUp() {
+        changeLog = new CatalogChangeLog(productRepository, 3);
+
+        product1 = Product.builder()
+                .id("1")
+                .name("Product 1")
+                .price(100.0)
+                .rating(4.5)
+                .build();
+    }
+
+    @Test
+    @DisplayName("Should register with the repository on start")
+    void start_RegistersListener() {
+        // Act
+        changeLog.start();
+
+        // Assert
+        verify(productRepository).addChangeListener(changeLog);
+    }
+
+    @Test
+    @DisplayName("Should number changes and return them in order from a position")
+    void changesAfter_ReturnsChangesInOrder() {
+        // Arrange
+        changeLog.put(product1);
+        changeLog.delete("1");
+
+        // Act
+        ChangeFeed all = changeLog.changesAfter(0, 10);
+        ChangeFeed page = changeLog.changesAfter(0, 1);
+        ChangeFeed upToDate = changeLog.changesAfter(2, 10);
+
+        // Assert
+        assertFalse(all.isResyncRequired());
+        assertEquals(2, all.getLastSequence());
+        assertEquals(changeLog.epoch(), all.getEpoch());
+        assertEquals(List.of(1L, 2L), all.getChanges().stream().map(CatalogChange::getSequence).toList());
+        assertEquals(CatalogChange.Operation.PUT, all.getChanges().get(0).getOp());
+        assertEquals(product1, all.getChanges().get(0).getProduct());
+        assertEquals(CatalogChange.Operation.DELETE, all.getChanges().get(1).getOp());
+        assertEquals("1", all.getChanges().get(1).getId());
+        assertEquals(1, page.getChanges().size());
+        assertTrue(upToDate.getChanges().isEmpty());
+        assertFalse(upToDate.isResyncRequired());
+    }
+
+    @Test
+    @DisplayName("Should ask for a resync once changes have left the ring")
+    void changesAfter_ResyncWhenOverwritten() {
+        // Arrange
+        for (int i = 0; i < 5; i++) {
+            changeLog.put(product1);
+        }
+
+        // Act
+        ChangeFeed tooOld = changeLog.changesAfter(1, 10);
+        ChangeFeed oldestKept = changeLog.changesAfter(2, 10);
+        ChangeFeed ahead = changeLog.changesAfter(6, 10);
+
+        // Assert
+        assertTrue(tooOld.isResyncRequired());
+        assertTrue(tooOld.getChanges().isEmpty());
+        assertFalse(oldestKept.isResyncRequired());
+        assertEquals(List.of(3L, 4L, 5L), oldestKept.getChanges().stream().map(CatalogChange::getSequence).toList());
+        assertTrue(ahead.isResyncRequired());
+    }
+
+    @Test
+    @DisplayName("Should copy the catalog together with the current sequence number")
+    @SuppressWarnings("unchecked")
+    void snapshot_ReadsConsistently() {
+        // Arrange
+        changeLog.put(product1);
+        when(productRepository.readConsistently(any())).thenAnswer(invocation ->
+                ((Supplier<ReplicationSnapshot>) invocation.getArgument(0)).get());
+        when(productRepository.snapshot()).thenReturn(new CatalogSnapshot(7L, List.of(product1)));
+
+        // Act
+        ReplicationSnapshot snapshot = changeLog.snapshot();
+
+        // Assert
+        assertEquals(changeLog.epoch(), snapshot.getEpoch());
+        assertEquals(1, snapshot.getSequence());
+        assertEquals(List.of(product1), snapshot.getProducts());
+    }
+
+    @Test
+    @DisplayName("Should reject a non-positive capacity")
+    void constructor_InvalidCapacity() {
+        assertThrows(ProductDataAccessException.class, () -> new CatalogChangeLog(productRepository, 0));
+    }
+}
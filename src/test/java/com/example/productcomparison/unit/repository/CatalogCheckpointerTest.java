@@ -0,0 +1,113 @@
+package com.example.productcomparison.unit.repository;
+
+import com.example.productcomparison.exception.repository.ProductDataAccessException;
+import com.example.productcomparison.repository.CatalogCheckpointer;
+import com.example.productcomparison.repository.ProductRepository;
+import com.example.productcomparison.repository.storage.WriteAheadLog;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("CatalogCheckpointer Unit Tests")
+class CatalogCheckpointerTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private WriteAheadLog writeAheadLog;
+
+    private SimpleMeterRegistry meterRegistry;
+    private CatalogCheckpointer checkpointer;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        checkpointer = new CatalogCheckpointer(productRepository, writeAheadLog, meterRegistry);
+        ReflectionTestUtils.setField(checkpointer, "logSizeMb", 1L);
+    }
+
+    @Test
+    @DisplayName("Should checkpoint once the log passes the size threshold and record metrics")
+    void checkpointIfDue_LogFull() {
+        // Arrange
+        when(writeAheadLog.lastSequence()).thenReturn(10L);
+        when(writeAheadLog.activeFileBytes()).thenReturn(2L * 1024 * 1024);
+        when(productRepository.checkpoint()).thenReturn(new ProductRepository.Checkpoint(4L, 2048L));
+
+        // Act
+        boolean checkpointed = checkpointer.checkpointIfDue();
+
+        // Assert
+        assertTrue(checkpointed);
+        assertEquals(1, meterRegistry.get("catalog.checkpoint.duration").timer().count());
+        assertEquals(2048.0, meterRegistry.get("catalog.checkpoint.size").summary().totalAmount());
+        assertEquals(2.0 * 1024 * 1024, meterRegistry.get("catalog.wal.size").gauge().value());
+    }
+
+    @Test
+    @DisplayName("Should not checkpoint before the interval passes while the log is small")
+    void checkpointIfDue_NotDue() {
+        // Arrange
+        when(writeAheadLog.lastSequence()).thenReturn(10L);
+        when(writeAheadLog.activeFileBytes()).thenReturn(100L);
+
+        // Act & Assert
+        assertFalse(checkpointer.checkpointIfDue());
+        verify(productRepository, never()).checkpoint();
+    }
+
+    @Test
+    @DisplayName("Should checkpoint after the interval only when something was logged")
+    void checkpointIfDue_IntervalPassed() {
+        // Arrange
+        ReflectionTestUtils.setField(checkpointer, "intervalSeconds", 0L);
+        when(writeAheadLog.lastSequence()).thenReturn(10L);
+        when(writeAheadLog.activeFileBytes()).thenReturn(100L);
+        when(productRepository.checkpoint()).thenReturn(new ProductRepository.Checkpoint(4L, 2048L));
+
+        // Act & Assert
+        assertTrue(checkpointer.checkpointIfDue());
+        assertFalse(checkpointer.checkpointIfDue());
+        verify(productRepository, times(1)).checkpoint();
+    }
+
+    @Test
+    @DisplayName("Should count a failed checkpoint and try again on the next run")
+    void checkpointIfDue_Failure() {
+        // Arrange
+        when(writeAheadLog.lastSequence()).thenReturn(10L);
+        when(writeAheadLog.activeFileBytes()).thenReturn(2L * 1024 * 1024);
+        when(productRepository.checkpoint())
+                .thenThrow(new ProductDataAccessException("disk full"))
+                .thenReturn(new ProductRepository.Checkpoint(4L, 2048L));
+
+        // Act & Assert
+        assertFalse(checkpointer.checkpointIfDue());
+        assertEquals(1.0, meterRegistry.get("catalog.checkpoint.failures").counter().count());
+        assertTrue(checkpointer.checkpointIfDue());
+    }
+
+    @Test
+    @DisplayName("Should not schedule checkpoints without a write-ahead log")
+    void start_Disabled() {
+        // Arrange
+        when(writeAheadLog.isEnabled()).thenReturn(false);
+
+        // Act
+        checkpointer.start();
+        checkpointer.stop();
+
+        // Assert
+        verify(productRepository, never()).checkpoint();
+    }
+}
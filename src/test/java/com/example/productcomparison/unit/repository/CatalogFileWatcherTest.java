@@ -0,0 +1,116 @@
+package com.example.productcomparison.unit.repository;
+
+import com.example.productcomparison.exception.repository.ProductDataAccessException;
+import com.example.productcomparison.repository.CatalogFileWatcher;
+import com.example.productcomparison.repository.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("CatalogFileWatcher Unit Tests")
+class CatalogFileWatcherTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @TempDir
+    Path tempDir;
+
+    private Path jsonFile;
+    private CatalogFileWatcher watcher;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        jsonFile = tempDir.resolve("products.json");
+        Files.writeString(jsonFile, "[]");
+        watcher = new CatalogFileWatcher(productRepository, new DefaultResourceLoader());
+        ReflectionTestUtils.setField(watcher, "jsonFilePath", jsonFile.toUri().toString());
+        ReflectionTestUtils.setField(watcher, "enabled", true);
+        // Polls are driven by the tests.
+        ReflectionTestUtils.setField(watcher, "pollIntervalMs", 3_600_000L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        watcher.stop();
+    }
+
+    @Test
+    @DisplayName("Should not reload while the file is unchanged")
+    void checkForChanges_Unchanged() {
+        // Arrange
+        watcher.start();
+
+        // Act & Assert
+        assertFalse(watcher.checkForChanges());
+        assertFalse(watcher.checkForChanges());
+        verifyNoInteractions(productRepository);
+    }
+
+    @Test
+    @DisplayName("Should reload once a change has settled for one poll")
+    void checkForChanges_ReloadsAfterChangeSettles() throws IOException {
+        // Arrange
+        watcher.start();
+        modify("[{\"id\":\"1\"}]");
+
+        // Act & Assert
+        assertFalse(watcher.checkForChanges());
+        assertTrue(watcher.checkForChanges());
+        assertFalse(watcher.checkForChanges());
+        verify(productRepository, times(1)).reload();
+    }
+
+    @Test
+    @DisplayName("Should not retry a failed reload until the file changes again")
+    void checkForChanges_FailedReload() throws IOException {
+        // Arrange
+        when(productRepository.reload()).thenThrow(new ProductDataAccessException("Malformed JSON"));
+        watcher.start();
+        modify("[{");
+
+        // Act
+        watcher.checkForChanges();
+        boolean reloaded = watcher.checkForChanges();
+
+        // Assert
+        assertFalse(reloaded);
+        assertFalse(watcher.checkForChanges());
+        verify(productRepository, times(1)).reload();
+    }
+
+    @Test
+    @DisplayName("Should not watch a source that is not a file on disk")
+    void start_NotAFile() {
+        // Arrange
+        ReflectionTestUtils.setField(watcher, "jsonFilePath", "classpath:missing-products.json");
+
+        // Act
+        watcher.start();
+
+        // Assert
+        assertNull(ReflectionTestUtils.getField(watcher, "scheduler"));
+    }
+
+    private void modify(String content) throws IOException {
+        Files.writeString(jsonFile, content);
+        Files.setLastModifiedTime(jsonFile, FileTime.from(Instant.now().plusSeconds(60)));
+    }
+}
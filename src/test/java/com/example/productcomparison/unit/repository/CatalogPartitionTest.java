@@ -0,0 +1,90 @@
+package com.example.productcomparison.unit.repository;
+
+import com.example.productcomparison.config.CatalogRoutingConfig;
+import com.example.productcomparison.exception.service.CategoryNotOwnedException;
+import com.example.productcomparison.model.Product;
+import com.example.productcomparison.repository.CatalogPartition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("CatalogPartition Unit Tests")
+class CatalogPartitionTest {
+
+    private CatalogRoutingConfig config;
+
+    @BeforeEach
+    void setUp() {
+        config = new CatalogRoutingConfig();
+        config.setNodes(List.of("http://catalog-0:8080", "http://catalog-1:8080", "http://catalog-2:8080"));
+        config.setCategories(Map.of("Laptops", 2));
+    }
+
+    private static Product inCategory(String category) {
+        return Product.builder().id("p").name("Product").price(10.0).rating(4.0)
+                .specifications(category == null ? Map.of() : Map.of("category", category)).build();
+    }
+
+    @Test
+    @DisplayName("Should assign categories explicitly, by hash otherwise, and products without one to the first node")
+    void ownerOf_AssignedHashedAndMissing() {
+        // Arrange
+        CatalogPartition partition = new CatalogPartition(config);
+
+        // Act & Assert
+        assertEquals(2, partition.ownerOf("laptops"));
+        assertEquals(Math.floorMod("phones".hashCode(), 3), partition.ownerOf("Phones"));
+        assertEquals(0, partition.ownerOf(inCategory(null)));
+        assertEquals(partition.ownerOf("Phones"), partition.ownerOf(inCategory("Phones")));
+    }
+
+    @Test
+    @DisplayName("Should own every category when this instance is not a catalog node")
+    void owns_NotANode_OwnsEverything() {
+        // Arrange
+        CatalogPartition partition = new CatalogPartition(new CatalogRoutingConfig());
+
+        // Act & Assert
+        assertFalse(partition.isNode());
+        assertTrue(partition.owns(inCategory("Laptops")));
+        assertDoesNotThrow(() -> partition.requireOwned(inCategory("Phones")));
+    }
+
+    @Test
+    @DisplayName("Should only own the categories of its position on a catalog node")
+    void owns_Node_OnlyItsCategories() {
+        // Arrange
+        config.setNodeIndex(2);
+        CatalogPartition partition = new CatalogPartition(config);
+
+        // Act & Assert
+        assertTrue(partition.isNode());
+        assertTrue(partition.owns(inCategory("LAPTOPS")));
+        assertFalse(partition.owns(inCategory(null)));
+        CategoryNotOwnedException exception = assertThrows(CategoryNotOwnedException.class,
+                () -> partition.requireOwned(inCategory(null)));
+        assertEquals(0, exception.getOwner());
+    }
+
+    @Test
+    @DisplayName("Should refuse a node position outside the nodes, or set on the router")
+    void constructor_InvalidNodeIndex() {
+        // Arrange
+        CatalogRoutingConfig outOfRange = new CatalogRoutingConfig();
+        outOfRange.setNodes(config.getNodes());
+        outOfRange.setNodeIndex(3);
+        CatalogRoutingConfig router = new CatalogRoutingConfig();
+        router.setEnabled(true);
+        router.setNodes(config.getNodes());
+        router.setNodeIndex(0);
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> new CatalogPartition(outOfRange));
+        assertThrows(IllegalStateException.class, () -> new CatalogPartition(router));
+    }
+}
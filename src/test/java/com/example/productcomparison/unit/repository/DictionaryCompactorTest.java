@@ -0,0 +1,60 @@
+package com.example.productcomparison.unit.repository;
+
+import com.example.productcomparison.exception.repository.ProductDataAccessException;
+import com.example.productcomparison.repository.DictionaryCompactor;
+import com.example.productcomparison.repository.DictionaryEncodedRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("DictionaryCompactor Unit Tests")
+class DictionaryCompactorTest {
+
+    @Mock
+    private ObjectProvider<DictionaryEncodedRepository> repositories;
+
+    @Mock
+    private DictionaryEncodedRepository compacting;
+
+    @Mock
+    private DictionaryEncodedRepository failing;
+
+    @Test
+    @DisplayName("Should ask every repository to compact and keep going when one fails")
+    void compactIfNeeded_CompactsEveryRepository() {
+        // Arrange
+        when(repositories.orderedStream()).thenReturn(Stream.of(failing, compacting));
+        when(failing.compactDictionary()).thenThrow(new ProductDataAccessException("Compaction failed"));
+        when(compacting.compactDictionary()).thenReturn(true, false);
+        DictionaryCompactor compactor = new DictionaryCompactor(repositories);
+
+        // Act & Assert
+        assertEquals(1, compactor.compactIfNeeded());
+        assertEquals(0, compactor.compactIfNeeded());
+        verify(failing, times(2)).compactDictionary();
+    }
+
+    @Test
+    @DisplayName("Should not schedule anything without a dictionary-encoded repository")
+    void start_NoRepositories() {
+        // Arrange
+        when(repositories.orderedStream()).thenReturn(Stream.empty());
+        DictionaryCompactor compactor = new DictionaryCompactor(repositories);
+
+        // Act
+        compactor.start();
+        compactor.stop();
+
+        // Assert
+        assertEquals(0, compactor.compactIfNeeded());
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.productcomparison.unit.repository;
+
+import com.example.productcomparison.exception.repository.ProductDataAccessException;
+import com.example.productcomparison.exception.repository.ReadOnlyCatalogException;
+import com.example.productcomparison.model.Product;
+import com.example.productcomparison.repository.MappedProductRepository;
+import com.example.productcomparison.repository.storage.CatalogFile;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("MappedProductRepository Unit Tests")
+class MappedProductRepositoryTest {
+
+    @TempDir
+    Path tempDir;
+
+    private MappedProductRepository productRepository;
+
+    private Product laptop;
+    private Product phone;
+    private Product tablet;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        laptop = Product.builder().id("1").name("UltraBook Pro").price(1200.0).rating(4.5)
+                .specifications(Map.of("category", "Laptops", "ram", "16GB")).build();
+        phone = Product.builder().id("2").name("Phone X").price(800.0).rating(4.8)
+                .specifications(Map.of("category", "Phones")).build();
+        tablet = Product.builder().id("3").name("Tab Pro").price(500.0).rating(4.5).build();
+
+        Path file = tempDir.resolve("catalog.snapshot");
+        CatalogFile.write(file, 12L, List.of(laptop, phone, tablet));
+
+        productRepository = new MappedProductRepository();
+        ReflectionTestUtils.setField(productRepository, "catalogFilePath", file.toString());
+        ReflectionTestUtils.setField(productRepository, "verifyChecksum", true);
+        productRepository.init();
+    }
+
+    @Test
+    @DisplayName("Should serve the mapped catalog at the version it was written with")
+    void testInit_MapsCatalog() {
+        assertEquals(List.of(laptop, phone, tablet), productRepository.findAll());
+        assertEquals(12L, productRepository.snapshot().getVersion());
+        assertEquals(phone, productRepository.findById("2").orElseThrow());
+        assertTrue(productRepository.findById("4").isEmpty());
+        assertTrue(productRepository.findById(" ").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should fail to start without a catalog file")
+    void testInit_MissingFile() {
+        MappedProductRepository repository = new MappedProductRepository();
+        ReflectionTestUtils.setField(repository, "catalogFilePath", tempDir.resolve("missing").toString());
+
+        assertThrows(ProductDataAccessException.class, repository::init);
+    }
+
+    @Test
+    @DisplayName("Should fail to start when no catalog file is configured")
+    void testInit_NotConfigured() {
+        MappedProductRepository repository = new MappedProductRepository();
+        ReflectionTestUtils.setField(repository, "catalogFilePath", "");
+
+        assertThrows(ProductDataAccessException.class, repository::init);
+    }
+
+    @Test
+    @DisplayName("Should fail to start on a corrupt file when checksums are verified")
+    void testInit_CorruptFile() throws IOException {
+        Path file = tempDir.resolve("corrupt.snapshot");
+        CatalogFile.write(file, 1L, List.of(laptop));
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length / 2] ^= 0x01;
+        Files.write(file, bytes);
+        MappedProductRepository repository = new MappedProductRepository();
+        ReflectionTestUtils.setField(repository, "catalogFilePath", file.toString());
+        ReflectionTestUtils.setField(repository, "verifyChecksum", true);
+
+        assertThrows(ProductDataAccessException.class, repository::init);
+    }
+
+    @Test
+    @DisplayName("Should answer category and specification queries")
+    void testFindBySpecifications() {
+        assertEquals(List.of(laptop), productRepository.findByCategory("laptops"));
+        assertEquals(List.of(laptop), productRepository.findBySpecification("ram", "16gb"));
+        assertEquals(List.of(), productRepository.findBySpecification("weight", "1kg"));
+        assertEquals(List.of("Laptops", "Phones"), productRepository.findAllCategories());
+    }
+
+    @Test
+    @DisplayName("Should order and filter by price and rating like the in-memory repository")
+    void testNumericQueries() {
+        assertEquals(List.of(tablet, phone), productRepository.findByPriceRange(100.0, 1000.0));
+        assertEquals(List.of(laptop, phone, tablet), productRepository.findAllOrderedByPrice(false));
+        assertEquals(List.of(phone, laptop, tablet), productRepository.findByMinRating(4.5));
+        assertEquals(List.of(laptop, tablet, phone), productRepository.findAllOrderedByRating(true));
+        assertEquals(List.of(phone, laptop), productRepository.findTopRated(2));
+        assertEquals(List.of(), productRepository.findTopRated(0));
+    }
+
+    @Test
+    @DisplayName("Should find products by name")
+    void testFindByNameContaining() {
+        assertEquals(List.of(laptop, tablet), productRepository.findByNameContaining("PRO"));
+    }
+
+    @Test
+    @DisplayName("Should reject every write")
+    void testWrites_ReadOnly() {
+        Product product = Product.builder().id("4").name("Mouse").price(20.0).build();
+
+        ReadOnlyCatalogException exception =
+                assertThrows(ReadOnlyCatalogException.class, () -> productRepository.save(product));
+        assertEquals("4", exception.getProductId());
+        assertThrows(ReadOnlyCatalogException.class, () -> productRepository.update("1", product));
+        assertThrows(ReadOnlyCatalogException.class, () -> productRepository.deleteById("1"));
+        assertEquals(3, productRepository.findAll().size());
+    }
+}
@@ -0,0 +1,280 @@
+package com.example.productcomparison.unit.repository;
+
+import com.example.productcomparison.config.CatalogRoutingConfig;
+import com.example.productcomparison.exception.repository.ProductAlreadyExistsException;
+import com.example.productcomparison.exception.repository.ProductDataAccessException;
+import com.example.productcomparison.exception.repository.ProductValidationException;
+import com.example.productcomparison.exception.service.ProductNotFoundException;
+import com.example.productcomparison.model.MutationResult;
+import com.example.productcomparison.model.Product;
+import com.example.productcomparison.model.ProductDTO;
+import com.example.productcomparison.model.ProductMutation;
+import com.example.productcomparison.repository.CatalogPartition;
+import com.example.productcomparison.repository.CatalogSnapshot;
+import com.example.productcomparison.repository.OffHeapProductRepository;
+import com.example.productcomparison.repository.ProductCatalogLoader;
+import com.example.productcomparison.repository.ProductDataSource;
+import com.example.productcomparison.repository.ProductMapper;
+import com.example.productcomparison.repository.ProductValidator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("OffHeapProductRepository Unit Tests")
+class OffHeapProductRepositoryTest {
+
+    @Mock
+    private ProductDataSource productDataSource;
+
+    @Spy
+    private ProductMapper productMapper;
+
+    @Spy
+    private ProductValidator productValidator;
+
+    private OffHeapProductRepository productRepository;
+
+    private ProductDTO productDTO1;
+    private Product product1;
+
+    @BeforeEach
+    void setUp() {
+        ProductCatalogLoader productCatalogLoader =
+                new ProductCatalogLoader(productDataSource, productMapper, productValidator,
+                        new CatalogPartition(new CatalogRoutingConfig()));
+        productRepository = new OffHeapProductRepository(productCatalogLoader, productMapper, productValidator);
+        ReflectionTestUtils.setField(productRepository, "jsonFilePath", "classpath:data/products.json");
+        ReflectionTestUtils.setField(productRepository, "segmentSizeMb", 1);
+
+        productDTO1 = ProductDTO.builder()
+                .id("1")
+                .name("Product 1")
+                .price(100.0)
+                .rating(4.5)
+                .build();
+
+        product1 = Product.builder()
+                .id("1")
+                .name("Product 1")
+                .price(100.0)
+                .rating(4.5)
+                .build();
+    }
+
+    @Test
+    @DisplayName("Should load the initial catalog off-heap and decode it on read")
+    void testInit_Success() {
+        // Arrange
+        stubProducts(productDTO1);
+        when(productMapper.toDomain(any(ProductDTO.class))).thenReturn(product1);
+
+        // Act
+        productRepository.init();
+
+        // Assert
+        assertEquals(List.of(product1), productRepository.findAll());
+        assertEquals(product1, productRepository.findById("1").orElseThrow());
+    }
+
+    @Test
+    @DisplayName("Should reject an invalid segment size")
+    void testInit_InvalidSegmentSize() {
+        // Arrange
+        ReflectionTestUtils.setField(productRepository, "segmentSizeMb", 0);
+
+        // Act & Assert
+        assertThrows(ProductDataAccessException.class, () -> productRepository.init());
+        verifyNoInteractions(productDataSource);
+    }
+
+    @Test
+    @DisplayName("Should save, update and delete products with the same errors as the in-memory repository")
+    void testCrud() {
+        // Arrange
+        initEmpty();
+        when(productMapper.toDto(any(Product.class))).thenReturn(productDTO1);
+
+        // Act
+        productRepository.save(product1);
+        productRepository.update("1", product1.toBuilder().name("Renamed").build());
+
+        // Assert
+        assertEquals("Renamed", productRepository.findById("1").orElseThrow().getName());
+        assertThrows(ProductAlreadyExistsException.class, () -> productRepository.save(product1));
+        assertThrows(ProductNotFoundException.class, () -> productRepository.update("2", product1));
+
+        productRepository.deleteById("1");
+        assertTrue(productRepository.findById("1").isEmpty());
+        assertThrows(ProductNotFoundException.class, () -> productRepository.deleteById("1"));
+    }
+
+    @Test
+    @DisplayName("Should throw ProductValidationException when validation fails")
+    void testSave_ValidationFails() {
+        // Arrange
+        initEmpty();
+        when(productMapper.toDto(any(Product.class))).thenReturn(productDTO1);
+        doThrow(new IllegalArgumentException("Invalid product"))
+                .when(productValidator).validateDto(any(ProductDTO.class));
+
+        // Act & Assert
+        assertThrows(ProductValidationException.class, () -> productRepository.save(product1));
+    }
+
+    @Test
+    @DisplayName("Should answer price and rating queries sorted by the same keys as the in-memory repository")
+    void testNumericQueries() {
+        // Arrange
+        initEmpty();
+        when(productMapper.toDto(any(Product.class))).thenReturn(productDTO1);
+        productRepository.save(product1.toBuilder().id("1").price(50.0).rating(4.9).build());
+        productRepository.save(product1.toBuilder().id("2").price(150.0).rating(3.0).build());
+        productRepository.save(product1.toBuilder().id("3").price(250.0).rating(4.0).build());
+
+        // Act
+        productRepository.update("2", product1.toBuilder().price(400.0).rating(5.0).build());
+
+        // Assert
+        assertEquals(List.of("1", "3"), ids(productRepository.findByPriceRange(0.0, 300.0)));
+        assertEquals(List.of("2", "3", "1"), ids(productRepository.findAllOrderedByPrice(false)));
+        assertEquals(List.of("2", "1"), ids(productRepository.findTopRated(2)));
+        assertEquals(List.of("2", "1", "3"), ids(productRepository.findByMinRating(4.0)));
+        assertEquals(List.of("3", "1", "2"), ids(productRepository.findAllOrderedByRating(true)));
+    }
+
+    @Test
+    @DisplayName("Should match categories, specifications and names like the in-memory repository")
+    void testTextQueries() {
+        // Arrange
+        initEmpty();
+        when(productMapper.toDto(any(Product.class))).thenReturn(productDTO1);
+        productRepository.save(product1.toBuilder().id("1").name("UltraBook Pro 15")
+                .specifications(Map.of("category", "Laptops", "ram", "16GB")).build());
+        productRepository.save(product1.toBuilder().id("2").name("Gaming Mouse")
+                .specifications(Map.of("category", "Mice")).build());
+
+        // Act & Assert
+        assertEquals(List.of("1"), ids(productRepository.findByCategory("LAPTOPS")));
+        assertEquals(List.of("Laptops", "Mice"), productRepository.findAllCategories());
+        assertEquals(List.of("1"), ids(productRepository.findBySpecification("ram", "16gb")));
+        assertTrue(productRepository.findBySpecification("RAM", "16GB").isEmpty());
+        assertEquals(List.of("2"), ids(productRepository.findByNameContaining("mouse")));
+    }
+
+    @Test
+    @DisplayName("Should share one snapshot between writes and publish a new version on write")
+    void testSnapshot_VersionedAndShared() {
+        // Arrange
+        initEmpty();
+        when(productMapper.toDto(any(Product.class))).thenReturn(productDTO1);
+        productRepository.save(product1);
+        CatalogSnapshot first = productRepository.snapshot();
+
+        // Act
+        productRepository.save(product1.toBuilder().id("2").build());
+        CatalogSnapshot second = productRepository.snapshot();
+
+        // Assert
+        assertSame(second, productRepository.snapshot());
+        assertEquals(1, first.size());
+        assertEquals(2, second.size());
+        assertTrue(second.getVersion() > first.getVersion());
+    }
+
+    @Test
+    @DisplayName("Should apply a batch item by item and publish it as one version")
+    void testApplyBatch_PublishesOnce() {
+        // Arrange
+        initEmpty();
+        when(productMapper.toDto(any(Product.class))).thenReturn(productDTO1);
+        productRepository.save(product1.toBuilder().id("3").build());
+        long versionBefore = productRepository.catalogVersion();
+        List<ProductMutation> mutations = List.of(
+                create(product1.toBuilder().id("1").price(300.0).build()),
+                create(product1.toBuilder().id("2").price(100.0).build()),
+                create(product1.toBuilder().id("1").build()),
+                ProductMutation.builder().op(ProductMutation.Operation.UPDATE).id("2")
+                        .product(product1.toBuilder().name("Renamed").price(500.0).build()).build(),
+                ProductMutation.builder().op(ProductMutation.Operation.DELETE).id("3").build(),
+                ProductMutation.builder().op(ProductMutation.Operation.DELETE).id("4").build(),
+                ProductMutation.builder().op(ProductMutation.Operation.UPDATE).id("1").build());
+
+        // Act
+        List<MutationResult> results = productRepository.applyBatch(mutations);
+
+        // Assert
+        assertEquals(List.of(true, true, false, true, true, false, false),
+                results.stream().map(MutationResult::isApplied).toList());
+        assertEquals("PRODUCT_ALREADY_EXISTS", results.get(2).getErrorCode());
+        assertEquals("PRODUCT_NOT_FOUND", results.get(5).getErrorCode());
+        assertEquals("PRODUCT_VALIDATION_ERROR", results.get(6).getErrorCode());
+        assertEquals(versionBefore + 1, productRepository.catalogVersion());
+        assertEquals(versionBefore + 1, productRepository.snapshot().getVersion());
+        assertEquals("Renamed", productRepository.findById("2").orElseThrow().getName());
+        assertEquals(List.of("2", "1"), ids(productRepository.findAllOrderedByPrice(false)));
+    }
+
+    @Test
+    @DisplayName("Should reject batch items with a negative price or a rating above 5")
+    void testApplyBatch_RejectsInvalidPriceAndRating() {
+        // Arrange
+        initEmpty();
+        when(productMapper.toDto(any(Product.class))).thenReturn(productDTO1);
+        productRepository.save(product1);
+        long versionBefore = productRepository.catalogVersion();
+        List<ProductMutation> mutations = List.of(
+                create(product1.toBuilder().id("2").price(-1.0).build()),
+                create(product1.toBuilder().id("3").rating(9.0).build()),
+                ProductMutation.builder().op(ProductMutation.Operation.UPDATE).id("1")
+                        .product(product1.toBuilder().price(-5.0).build()).build());
+
+        // Act
+        List<MutationResult> results = productRepository.applyBatch(mutations);
+
+        // Assert
+        assertEquals(List.of("PRODUCT_VALIDATION_ERROR", "PRODUCT_VALIDATION_ERROR", "PRODUCT_VALIDATION_ERROR"),
+                results.stream().map(MutationResult::getErrorCode).toList());
+        assertEquals(versionBefore, productRepository.catalogVersion());
+        assertTrue(productRepository.findById("2").isEmpty());
+        assertTrue(productRepository.findById("3").isEmpty());
+        assertEquals(100.0, productRepository.findById("1").orElseThrow().getPrice());
+    }
+
+    private ProductMutation create(Product product) {
+        return ProductMutation.builder().op(ProductMutation.Operation.CREATE).product(product).build();
+    }
+
+    private void initEmpty() {
+        stubProducts();
+        productRepository.init();
+    }
+
+    private void stubProducts(ProductDTO... dtos) {
+        doAnswer(invocation -> {
+            Consumer<ProductDTO> consumer = invocation.getArgument(1);
+            for (ProductDTO dto : dtos) {
+                consumer.accept(dto);
+            }
+            return (long) dtos.length;
+        }).when(productDataSource).streamProductsFromJson(anyString(), any());
+    }
+
+    private List<String> ids(List<Product> products) {
+        return products.stream().map(Product::getId).toList();
+    }
+}
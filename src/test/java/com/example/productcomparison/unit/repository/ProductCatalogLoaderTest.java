@@ -0,0 +1,235 @@
+package com.example.productcomparison.unit.repository;
+
+import com.example.productcomparison.config.CatalogRoutingConfig;
+import com.example.productcomparison.exception.repository.DataSourceInitializationException;
+import com.example.productcomparison.exception.repository.ProductDataAccessException;
+import com.example.productcomparison.model.Product;
+import com.example.productcomparison.model.ProductDTO;
+import com.example.productcomparison.repository.CatalogPartition;
+import com.example.productcomparison.repository.ProductCatalogLoader;
+import com.example.productcomparison.repository.ProductDataSource;
+import com.example.productcomparison.repository.ProductMapper;
+import com.example.productcomparison.repository.ProductValidator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ProductCatalogLoader Unit Tests")
+class ProductCatalogLoaderTest {
+
+    private static final int PRODUCT_COUNT = 1_000;
+
+    @Mock
+    private ProductDataSource productDataSource;
+
+    @Mock
+    private ProductMapper productMapper;
+
+    @Mock
+    private ProductValidator productValidator;
+
+    private ProductCatalogLoader productCatalogLoader;
+
+    @BeforeEach
+    void setUp() {
+        productCatalogLoader = new ProductCatalogLoader(productDataSource, productMapper, productValidator,
+                new CatalogPartition(new CatalogRoutingConfig()));
+        ReflectionTestUtils.setField(productCatalogLoader, "batchSize", 16);
+        ReflectionTestUtils.setField(productCatalogLoader, "queueCapacity", 2);
+    }
+
+    @ParameterizedTest(name = "workers = {0}")
+    @ValueSource(ints = {1, 4})
+    @DisplayName("Should insert valid products in file order on the calling thread and count the skipped ones")
+    void load_KeepsFileOrderAndCounts(int workers) {
+        // Arrange
+        ReflectionTestUtils.setField(productCatalogLoader, "workers", workers);
+        stubProducts(PRODUCT_COUNT);
+        when(productMapper.toDomain(any(ProductDTO.class))).thenAnswer(invocation -> {
+            ProductDTO dto = invocation.getArgument(0);
+            if (dto.getId().endsWith("7")) {
+                throw new IllegalArgumentException("Mapping failed");
+            }
+            return Product.builder().id(dto.getId()).price(dto.getPrice()).build();
+        });
+        when(productValidator.validateProduct(any(Product.class)))
+                .thenAnswer(invocation -> invocation.<Product>getArgument(0).getPrice() >= 0);
+        Thread caller = Thread.currentThread();
+        List<String> inserted = new ArrayList<>();
+
+        // Act
+        int loaded = productCatalogLoader.load("classpath:products.json", product -> {
+            assertSame(caller, Thread.currentThread());
+            inserted.add(product.getId());
+        });
+
+        // Assert
+        List<String> expected = IntStream.range(0, PRODUCT_COUNT)
+                .filter(i -> i % 10 != 7 && i % 3 != 0)
+                .mapToObj(String::valueOf)
+                .toList();
+        assertEquals(expected, inserted);
+        assertEquals(expected.size(), loaded);
+    }
+
+    @ParameterizedTest(name = "workers = {0}")
+    @ValueSource(ints = {1, 4})
+    @DisplayName("Should skip null entries of the source and load the products around them")
+    void load_SkipsNullEntries(int workers) {
+        // Arrange
+        ReflectionTestUtils.setField(productCatalogLoader, "workers", workers);
+        doAnswer(invocation -> {
+            Consumer<ProductDTO> consumer = invocation.getArgument(1);
+            consumer.accept(ProductDTO.builder().id("1").price(1.0).build());
+            consumer.accept(null);
+            consumer.accept(ProductDTO.builder().id("2").price(2.0).build());
+            return 3L;
+        }).when(productDataSource).streamProductsFromJson(anyString(), any());
+        when(productMapper.toDomain(any(ProductDTO.class))).thenAnswer(invocation ->
+                Product.builder().id(invocation.<ProductDTO>getArgument(0).getId()).build());
+        when(productValidator.validateProduct(any(Product.class))).thenReturn(true);
+        List<String> inserted = new ArrayList<>();
+
+        // Act
+        int loaded = productCatalogLoader.load("classpath:products.json", product -> inserted.add(product.getId()));
+
+        // Assert
+        assertEquals(List.of("1", "2"), inserted);
+        assertEquals(2, loaded);
+        verify(productMapper, never()).toDomain(isNull());
+    }
+
+    @ParameterizedTest(name = "workers = {0}")
+    @ValueSource(ints = {1, 4})
+    @DisplayName("Should only load the categories a catalog node owns")
+    void load_CatalogNodeKeepsOwnCategories(int workers) {
+        // Arrange
+        CatalogRoutingConfig config = new CatalogRoutingConfig();
+        config.setNodes(List.of("http://catalog-0:8080", "http://catalog-1:8080"));
+        config.setCategories(Map.of("laptops", 0, "phones", 1));
+        config.setNodeIndex(1);
+        ProductCatalogLoader nodeLoader = new ProductCatalogLoader(productDataSource, productMapper, productValidator,
+                new CatalogPartition(config));
+        ReflectionTestUtils.setField(nodeLoader, "workers", workers);
+        ReflectionTestUtils.setField(nodeLoader, "batchSize", 16);
+        stubProducts(PRODUCT_COUNT);
+        when(productMapper.toDomain(any(ProductDTO.class))).thenAnswer(invocation -> {
+            ProductDTO dto = invocation.getArgument(0);
+            String category = Integer.parseInt(dto.getId()) % 2 == 0 ? "Laptops" : "Phones";
+            return Product.builder().id(dto.getId()).price(dto.getPrice())
+                    .specifications(Map.of("category", category)).build();
+        });
+        when(productValidator.validateProduct(any(Product.class))).thenReturn(true);
+        List<String> inserted = new ArrayList<>();
+
+        // Act
+        int loaded = nodeLoader.load("classpath:products.json", product -> inserted.add(product.getId()));
+
+        // Assert
+        List<String> expected = IntStream.range(0, PRODUCT_COUNT)
+                .filter(i -> i % 2 == 1)
+                .mapToObj(String::valueOf)
+                .toList();
+        assertEquals(expected, inserted);
+        assertEquals(expected.size(), loaded);
+    }
+
+    @Test
+    @DisplayName("Should stop parsing while a slow batch holds back the ones after it")
+    void load_SlowBatchBoundsParsedBatches() throws Exception {
+        // Arrange
+        ReflectionTestUtils.setField(productCatalogLoader, "workers", 4);
+        AtomicInteger streamed = new AtomicInteger();
+        doAnswer(invocation -> {
+            Consumer<ProductDTO> consumer = invocation.getArgument(1);
+            for (int i = 0; i < PRODUCT_COUNT; i++) {
+                streamed.incrementAndGet();
+                consumer.accept(ProductDTO.builder().id(String.valueOf(i)).price(1.0).build());
+            }
+            return (long) PRODUCT_COUNT;
+        }).when(productDataSource).streamProductsFromJson(anyString(), any());
+        CountDownLatch firstBatchReleased = new CountDownLatch(1);
+        when(productMapper.toDomain(any(ProductDTO.class))).thenAnswer(invocation -> {
+            ProductDTO dto = invocation.getArgument(0);
+            if (dto.getId().equals("0")) {
+                firstBatchReleased.await();
+            }
+            return Product.builder().id(dto.getId()).price(dto.getPrice()).build();
+        });
+        when(productValidator.validateProduct(any(Product.class))).thenReturn(true);
+
+        // Act
+        CompletableFuture<Integer> loaded = CompletableFuture.supplyAsync(
+                () -> productCatalogLoader.load("classpath:products.json", product -> { }));
+        Thread.sleep(300);
+        int streamedWhileBlocked = streamed.get();
+        firstBatchReleased.countDown();
+
+        // Assert: queue capacity (2) plus one batch per worker (4) in flight, and the batch being filled
+        assertTrue(streamedWhileBlocked <= (2 + 4 + 1) * 16, "streamed " + streamedWhileBlocked);
+        assertEquals(PRODUCT_COUNT, loaded.get(10, TimeUnit.SECONDS));
+    }
+
+    @ParameterizedTest(name = "workers = {0}")
+    @ValueSource(ints = {1, 4})
+    @DisplayName("Should wrap data source failures in ProductDataAccessException")
+    void load_DataSourceFailure(int workers) {
+        // Arrange
+        ReflectionTestUtils.setField(productCatalogLoader, "workers", workers);
+        doThrow(new DataSourceInitializationException("File not found"))
+                .when(productDataSource).streamProductsFromJson(anyString(), any());
+
+        // Act & Assert
+        assertThrows(ProductDataAccessException.class,
+                () -> productCatalogLoader.load("classpath:products.json", product -> { }));
+    }
+
+    @ParameterizedTest(name = "workers = {0}")
+    @ValueSource(ints = {1, 4})
+    @DisplayName("Should propagate unexpected mapping failures")
+    void load_UnexpectedMapperFailure(int workers) {
+        // Arrange
+        ReflectionTestUtils.setField(productCatalogLoader, "workers", workers);
+        stubProducts(PRODUCT_COUNT);
+        when(productMapper.toDomain(any(ProductDTO.class))).thenThrow(new IllegalStateException("Unexpected error"));
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class,
+                () -> productCatalogLoader.load("classpath:products.json", product -> { }));
+    }
+
+    /**
+     * Streams products "0".."count-1"; every third one has a negative price.
+     */
+    private void stubProducts(int count) {
+        doAnswer(invocation -> {
+            Consumer<ProductDTO> consumer = invocation.getArgument(1);
+            for (int i = 0; i < count; i++) {
+                consumer.accept(ProductDTO.builder().id(String.valueOf(i)).price(i % 3 == 0 ? -1.0 : i).build());
+            }
+            return (long) count;
+        }).when(productDataSource).streamProductsFromJson(anyString(), any());
+    }
+}
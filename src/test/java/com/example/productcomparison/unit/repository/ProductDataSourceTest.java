@@ -3,13 +3,11 @@ package com.example.productcomparison.unit.repository;
 import com.example.productcomparison.exception.repository.DataSourceInitializationException;
 import com.example.productcomparison.model.ProductDTO;
 import com.example.productcomparison.repository.ProductDataSource;
-import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.ArgumentMatchers;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.core.io.Resource;
@@ -18,10 +16,10 @@ import org.springframework.core.io.ResourceLoader;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
-import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.when;
 
@@ -53,21 +51,21 @@ class ProductDataSourceTest {
     @DisplayName("loadProducts should return a list of products")
     void loadProducts_ReturnsListOfProductsFromJsonFromJsonFromJson() throws IOException {
         // Arrange
-        String jsonContent = "[{\"id\":\"1\",\"name\":\"Product 1\"}]";
+        String jsonContent = "[{\"id\":\"1\",\"name\":\"Product 1\"}, {\"id\":\"2\",\"name\":\"Product 2\"}]";
         InputStream inputStream = new ByteArrayInputStream(jsonContent.getBytes());
-        List<ProductDTO> expectedProducts = List.of(new ProductDTO());
+        ProductDataSource parsingDataSource = new ProductDataSource(new ObjectMapper(), resourceLoader);
 
         when(resourceLoader.getResource(anyString())).thenReturn(resource);
         when(resource.exists()).thenReturn(true);
         when(resource.getInputStream()).thenReturn(inputStream);
-        when(objectMapper.readValue(any(InputStream.class), ArgumentMatchers.<TypeReference<List<ProductDTO>>>any())).thenReturn(expectedProducts);
 
         // Act
-        List<ProductDTO> actualProducts = productDataSource.loadProductsFromJson("classpath:products.json");
+        List<ProductDTO> actualProducts = parsingDataSource.loadProductsFromJson("classpath:products.json");
 
         // Assert
         assertNotNull(actualProducts);
-        assertEquals(expectedProducts, actualProducts);
+        assertEquals(List.of("1", "2"), actualProducts.stream().map(ProductDTO::getId).toList());
+        assertEquals("Product 1", actualProducts.get(0).getName());
     }
 
     @Test
@@ -96,17 +94,16 @@ class ProductDataSourceTest {
         String filePath = "classpath:products.json";
         String invalidJsonContent = "invalid-json";
         InputStream inputStream = new ByteArrayInputStream(invalidJsonContent.getBytes());
+        ProductDataSource parsingDataSource = new ProductDataSource(new ObjectMapper(), resourceLoader);
 
         when(resourceLoader.getResource(anyString())).thenReturn(resource);
         when(resource.exists()).thenReturn(true);
         when(resource.getInputStream()).thenReturn(inputStream);
-        when(objectMapper.readValue(any(InputStream.class), ArgumentMatchers.<TypeReference<List<ProductDTO>>>any()))
-                .thenThrow(new IOException("JSON parsing error"));
 
         // Act
         DataSourceInitializationException exception = assertThrows(
                 DataSourceInitializationException.class,
-                () -> productDataSource.loadProductsFromJson(filePath)
+                () -> parsingDataSource.loadProductsFromJson(filePath)
         );
 
         // Assert
@@ -147,4 +144,61 @@ class ProductDataSourceTest {
         assertEquals(INVALID_PATH_ERROR, exception.getMessage());
     }
 
-}
\ No newline at end of file
+    @Test
+    @DisplayName("streamProductsFromJson should hand each product to the consumer in file order, nulls included")
+    void streamProductsFromJson_streamsProductsInOrder() throws IOException {
+        // Arrange
+        String jsonContent = "[{\"id\":\"1\",\"name\":\"Product 1\",\"price\":10.5,"
+                + "\"specifications\":{\"category\":\"Laptops\"}}, null, {\"id\":\"2\",\"name\":\"Product 2\"}]";
+        ProductDataSource streamingDataSource = new ProductDataSource(new ObjectMapper(), resourceLoader);
+        when(resourceLoader.getResource(anyString())).thenReturn(resource);
+        when(resource.exists()).thenReturn(true);
+        when(resource.getInputStream()).thenReturn(new ByteArrayInputStream(jsonContent.getBytes()));
+        List<ProductDTO> received = new ArrayList<>();
+
+        // Act
+        long count = streamingDataSource.streamProductsFromJson("classpath:products.json", received::add);
+
+        // Assert
+        assertEquals(3, count);
+        assertEquals(3, received.size());
+        assertEquals("1", received.get(0).getId());
+        assertNull(received.get(1));
+        assertEquals("2", received.get(2).getId());
+        assertEquals(10.5, received.get(0).getPrice());
+        assertEquals("Laptops", received.get(0).getSpecifications().get("category"));
+    }
+
+    @Test
+    @DisplayName("streamProductsFromJson should throw DataSourceInitializationException when the root is not an array")
+    void streamProductsFromJson_whenRootIsNotAnArray_throwsDataSourceInitializationException() throws IOException {
+        // Arrange
+        ProductDataSource streamingDataSource = new ProductDataSource(new ObjectMapper(), resourceLoader);
+        when(resourceLoader.getResource(anyString())).thenReturn(resource);
+        when(resource.exists()).thenReturn(true);
+        when(resource.getInputStream()).thenReturn(new ByteArrayInputStream("{\"id\":\"1\"}".getBytes()));
+
+        // Act & Assert
+        assertThrows(DataSourceInitializationException.class,
+                () -> streamingDataSource.streamProductsFromJson("classpath:products.json", dto -> { }));
+    }
+
+    @Test
+    @DisplayName("streamProductsFromJson should throw DataSourceInitializationException on malformed or truncated JSON")
+    void streamProductsFromJson_whenJsonIsTruncated_throwsDataSourceInitializationException() throws IOException {
+        // Arrange
+        ProductDataSource streamingDataSource = new ProductDataSource(new ObjectMapper(), resourceLoader);
+        when(resourceLoader.getResource(anyString())).thenReturn(resource);
+        when(resource.exists()).thenReturn(true);
+        when(resource.getInputStream()).thenReturn(new ByteArrayInputStream("[{\"id\":\"1\"},".getBytes()));
+        List<ProductDTO> received = new ArrayList<>();
+
+        // Act
+        DataSourceInitializationException exception = assertThrows(DataSourceInitializationException.class,
+                () -> streamingDataSource.streamProductsFromJson("classpath:products.json", received::add));
+
+        // Assert
+        assertEquals(1, received.size());
+        assertTrue(exception.getMessage().contains("classpath:products.json"));
+    }
+}
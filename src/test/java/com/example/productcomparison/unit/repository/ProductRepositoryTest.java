@@ -1,29 +1,52 @@
 package com.example.productcomparison.unit.repository;
 
+import com.example.productcomparison.config.CatalogRoutingConfig;
 import com.example.productcomparison.exception.repository.*;
 import com.example.productcomparison.exception.service.ProductNotFoundException;
+import com.example.productcomparison.model.MutationResult;
 import com.example.productcomparison.model.Product;
 import com.example.productcomparison.model.ProductDTO;
+import com.example.productcomparison.model.ProductMutation;
+import com.example.productcomparison.repository.CatalogPartition;
+import com.example.productcomparison.repository.CatalogSnapshot;
+import com.example.productcomparison.repository.ProductCatalogLoader;
 import com.example.productcomparison.repository.ProductDataSource;
 import com.example.productcomparison.repository.ProductMapper;
 import com.example.productcomparison.repository.ProductRepository;
 import com.example.productcomparison.repository.ProductValidator;
+import com.example.productcomparison.repository.storage.CatalogFile;
+import com.example.productcomparison.repository.storage.EncodedSpecifications;
+import com.example.productcomparison.repository.storage.SpecificationDictionary;
+import com.example.productcomparison.repository.storage.WriteAheadLog;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.NullAndEmptySource;
 import org.junit.jupiter.params.provider.ValueSource;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.test.util.ReflectionTestUtils;
 
-import java.util.Collections;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -43,7 +66,6 @@ class ProductRepositoryTest {
     @Spy
     private ProductValidator productValidator;
 
-    @InjectMocks
     private ProductRepository productRepository;
 
     private ProductDTO productDTO1;
@@ -51,6 +73,13 @@ class ProductRepositoryTest {
 
     @BeforeEach
     void setUp() {
+        ProductCatalogLoader productCatalogLoader =
+                new ProductCatalogLoader(productDataSource, productMapper, productValidator,
+                        new CatalogPartition(new CatalogRoutingConfig()));
+        productRepository = new ProductRepository(
+                productCatalogLoader, productMapper, productValidator, new SpecificationDictionary(),
+                new WriteAheadLog());
+
         productDTO1 = ProductDTO.builder()
                 .id("1")
                 .name("Product 1")
@@ -71,7 +100,7 @@ class ProductRepositoryTest {
     void testInit_Success() {
         // Arrange
         ReflectionTestUtils.setField(productRepository, "jsonFilePath", "classpath:data/products.json");
-        when(productDataSource.loadProductsFromJson(anyString())).thenReturn(List.of(productDTO1));
+        stubProducts(productDTO1);
         when(productMapper.toDomain(any(ProductDTO.class))).thenReturn(product1);
 
         // Act
@@ -80,7 +109,7 @@ class ProductRepositoryTest {
         // Assert
         List<Product> products = productRepository.findAll();
         assertEquals(1, products.size());
-        verify(productDataSource).loadProductsFromJson(anyString());
+        verify(productDataSource).streamProductsFromJson(anyString(), any());
     }
 
     @Test
@@ -88,7 +117,7 @@ class ProductRepositoryTest {
     void testInit_EmptyList() {
         // Arrange
         ReflectionTestUtils.setField(productRepository, "jsonFilePath", "classpath:data/products.json");
-        when(productDataSource.loadProductsFromJson(anyString())).thenReturn(Collections.emptyList());
+        stubProducts();
 
         // Act
         productRepository.init();
@@ -103,8 +132,8 @@ class ProductRepositoryTest {
     void testInit_DataSourceException() {
         // Arrange
         ReflectionTestUtils.setField(productRepository, "jsonFilePath", "invalid-path.json");
-        when(productDataSource.loadProductsFromJson(anyString()))
-                .thenThrow(new DataSourceInitializationException("File not found"));
+        doThrow(new DataSourceInitializationException("File not found"))
+                .when(productDataSource).streamProductsFromJson(anyString(), any());
 
         // Act & Assert
         assertThrows(ProductDataAccessException.class, () -> productRepository.init());
@@ -116,7 +145,7 @@ class ProductRepositoryTest {
         // Arrange
         ReflectionTestUtils.setField(productRepository, "jsonFilePath", "classpath:data/products.json");
         Product invalidProduct = Product.builder().id("2").name("Invalid").price(-10.0).build();
-        when(productDataSource.loadProductsFromJson(anyString())).thenReturn(List.of(productDTO1));
+        stubProducts(productDTO1);
         when(productMapper.toDomain(any(ProductDTO.class))).thenReturn(invalidProduct);
 
         // Act
@@ -132,7 +161,7 @@ class ProductRepositoryTest {
     void testInit_MapperException() {
         // Arrange
         ReflectionTestUtils.setField(productRepository, "jsonFilePath", "classpath:data/products.json");
-        when(productDataSource.loadProductsFromJson(anyString())).thenReturn(List.of(productDTO1));
+        stubProducts(productDTO1);
         when(productMapper.toDomain(any(ProductDTO.class))).thenThrow(new IllegalArgumentException("Mapping failed"));
 
         // Act
@@ -148,7 +177,8 @@ class ProductRepositoryTest {
     void testInit_UnexpectedException() {
         // Arrange
         ReflectionTestUtils.setField(productRepository, "jsonFilePath", "classpath:data/products.json");
-        when(productDataSource.loadProductsFromJson(anyString())).thenThrow(new RuntimeException("Unexpected error"));
+        doThrow(new RuntimeException("Unexpected error"))
+                .when(productDataSource).streamProductsFromJson(anyString(), any());
 
         // Act & Assert
         assertThrows(ProductDataAccessException.class, () -> productRepository.init());
@@ -159,7 +189,7 @@ class ProductRepositoryTest {
     void testFindAll_Success() {
         // Arrange
         ReflectionTestUtils.setField(productRepository, "jsonFilePath", "classpath:data/products.json");
-        when(productDataSource.loadProductsFromJson(anyString())).thenReturn(List.of(productDTO1));
+        stubProducts(productDTO1);
         when(productMapper.toDomain(any(ProductDTO.class))).thenReturn(product1);
         productRepository.init();
 
@@ -177,7 +207,7 @@ class ProductRepositoryTest {
     void testFindById_Success() {
         // Arrange
         ReflectionTestUtils.setField(productRepository, "jsonFilePath", "classpath:data/products.json");
-        when(productDataSource.loadProductsFromJson(anyString())).thenReturn(List.of(productDTO1));
+        stubProducts(productDTO1);
         when(productMapper.toDomain(any(ProductDTO.class))).thenReturn(product1);
         productRepository.init();
 
@@ -194,7 +224,7 @@ class ProductRepositoryTest {
     void testFindById_NotFound() {
         // Arrange
         ReflectionTestUtils.setField(productRepository, "jsonFilePath", "classpath:data/products.json");
-        when(productDataSource.loadProductsFromJson(anyString())).thenReturn(Collections.emptyList());
+        stubProducts();
         productRepository.init();
 
         // Act
@@ -350,11 +380,11 @@ class ProductRepositoryTest {
     }
 
     @Test
-    @DisplayName("Should handle null product list during initialization")
+    @DisplayName("Should skip null product entries during initialization")
     void testInit_NullProductList() {
         // Arrange
         ReflectionTestUtils.setField(productRepository, "jsonFilePath", "classpath:data/products.json");
-        when(productDataSource.loadProductsFromJson(anyString())).thenReturn(null);
+        stubProducts((ProductDTO) null);
 
         // Act
         productRepository.init();
@@ -383,4 +413,647 @@ class ProductRepositoryTest {
         assertNotNull(exception);
         assertTrue(exception.getMessage().contains("Unexpected error during product deletion"));
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Should find products by category ignoring case")
+    void testFindByCategory_IgnoresCase() {
+        // Arrange
+        when(productMapper.toDto(any(Product.class))).thenReturn(productDTO1);
+        productRepository.save(withCategory("1", "Laptops"));
+        productRepository.save(withCategory("2", "Mice"));
+
+        // Act
+        List<Product> result = productRepository.findByCategory("LAPTOPS");
+
+        // Assert
+        assertEquals(1, result.size());
+        assertEquals("1", result.get(0).getId());
+        assertTrue(productRepository.findByCategory("Unknown").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should move product between categories on update")
+    void testUpdate_MovesCategory() {
+        // Arrange
+        when(productMapper.toDto(any(Product.class))).thenReturn(productDTO1);
+        productRepository.save(withCategory("1", "Laptops"));
+
+        // Act
+        productRepository.update("1", withCategory("1", "Tablets"));
+
+        // Assert
+        assertTrue(productRepository.findByCategory("Laptops").isEmpty());
+        assertEquals(1, productRepository.findByCategory("tablets").size());
+        assertEquals(List.of("Tablets"), productRepository.findAllCategories());
+    }
+
+    @Test
+    @DisplayName("Should drop category when its last product is deleted")
+    void testDeleteById_RemovesCategory() {
+        // Arrange
+        when(productMapper.toDto(any(Product.class))).thenReturn(productDTO1);
+        productRepository.save(withCategory("1", "Laptops"));
+        productRepository.save(withCategory("2", "Laptops"));
+        productRepository.save(withCategory("3", "Cameras"));
+
+        // Act
+        productRepository.deleteById("1");
+        productRepository.deleteById("3");
+
+        // Assert
+        assertEquals(List.of("Laptops"), productRepository.findAllCategories());
+        assertEquals(1, productRepository.findByCategory("laptops").size());
+    }
+
+    @Test
+    @DisplayName("Should keep price range results in sync with updates and deletes")
+    void testFindByPriceRange_TracksWrites() {
+        // Arrange
+        when(productMapper.toDto(any(Product.class))).thenReturn(productDTO1);
+        productRepository.save(product1.toBuilder().id("1").price(50.0).build());
+        productRepository.save(product1.toBuilder().id("2").price(150.0).build());
+        productRepository.save(product1.toBuilder().id("3").price(250.0).build());
+
+        // Act
+        productRepository.update("2", product1.toBuilder().price(400.0).build());
+        productRepository.deleteById("3");
+
+        // Assert
+        assertEquals(List.of("1"), ids(productRepository.findByPriceRange(0.0, 300.0)));
+        assertEquals(List.of("2"), ids(productRepository.findByPriceRange(400.0, 400.0)));
+        assertEquals(List.of("2", "1"), ids(productRepository.findAllOrderedByPrice(false)));
+    }
+
+    @Test
+    @DisplayName("Should reposition products in the rating order on update and delete")
+    void testFindTopRated_TracksWrites() {
+        // Arrange
+        when(productMapper.toDto(any(Product.class))).thenReturn(productDTO1);
+        productRepository.save(product1.toBuilder().id("1").rating(4.9).build());
+        productRepository.save(product1.toBuilder().id("2").rating(3.0).build());
+        productRepository.save(product1.toBuilder().id("3").rating(4.0).build());
+
+        // Act
+        productRepository.update("2", product1.toBuilder().rating(5.0).build());
+        productRepository.deleteById("1");
+
+        // Assert
+        assertEquals(List.of("2"), ids(productRepository.findTopRated(1)));
+        assertEquals(List.of("2", "3"), ids(productRepository.findByMinRating(4.0)));
+        assertEquals(List.of("3", "2"), ids(productRepository.findAllOrderedByRating(true)));
+    }
+
+    @Test
+    @DisplayName("Should find products by specification and follow updates")
+    void testFindBySpecification_TracksWrites() {
+        // Arrange
+        when(productMapper.toDto(any(Product.class))).thenReturn(productDTO1);
+        productRepository.save(product1.toBuilder().id("1").specifications(Map.of("ram", "16GB")).build());
+        productRepository.save(product1.toBuilder().id("2").specifications(Map.of("ram", "8GB")).build());
+
+        // Act
+        productRepository.update("2", product1.toBuilder().specifications(Map.of("ram", "16gb")).build());
+
+        // Assert
+        assertEquals(List.of("1", "2"), ids(productRepository.findBySpecification("ram", "16GB")));
+        assertTrue(productRepository.findBySpecification("ram", "8GB").isEmpty());
+        assertTrue(productRepository.findBySpecification("RAM", "16GB").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should search product names ignoring case and follow renames")
+    void testFindByNameContaining_TracksWrites() {
+        // Arrange
+        when(productMapper.toDto(any(Product.class))).thenReturn(productDTO1);
+        productRepository.save(product1.toBuilder().id("1").name("UltraBook Pro 15").build());
+        productRepository.save(product1.toBuilder().id("2").name("Gaming Mouse").build());
+
+        // Act
+        productRepository.update("2", product1.toBuilder().name("Gaming Mouse Pro").build());
+
+        // Assert
+        assertEquals(List.of("1", "2"), ids(productRepository.findByNameContaining("PRO")));
+        assertEquals(List.of("2"), ids(productRepository.findByNameContaining("mouse p")));
+        assertTrue(productRepository.findByNameContaining("keyboard").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should share one immutable snapshot between writes and publish a new version on write")
+    void testSnapshot_VersionedAndShared() {
+        // Arrange
+        when(productMapper.toDto(any(Product.class))).thenReturn(productDTO1);
+        productRepository.save(product1);
+        CatalogSnapshot first = productRepository.snapshot();
+
+        // Act
+        List<Product> products = productRepository.findAll();
+        productRepository.save(product1.toBuilder().id("2").build());
+        CatalogSnapshot second = productRepository.snapshot();
+
+        // Assert
+        assertSame(first.getProducts(), products);
+        assertEquals(1, first.size());
+        assertEquals(2, second.size());
+        assertTrue(second.getVersion() > first.getVersion());
+        assertThrows(UnsupportedOperationException.class, () -> products.add(product1));
+    }
+
+    @Test
+    @DisplayName("Should publish each write's snapshot while earlier snapshots keep their products")
+    void testSnapshot_PublishedOnWriteWithoutChangingEarlierOnes() {
+        // Arrange
+        when(productMapper.toDto(any(Product.class))).thenReturn(productDTO1);
+        productRepository.save(product1);
+        productRepository.save(product1.toBuilder().id("2").build());
+        CatalogSnapshot beforeChanges = productRepository.snapshot();
+
+        // Act
+        productRepository.update("1", product1.toBuilder().name("Renamed").build());
+        CatalogSnapshot afterUpdate = productRepository.snapshot();
+        productRepository.deleteById("2");
+        CatalogSnapshot afterDelete = productRepository.snapshot();
+
+        // Assert
+        assertEquals(List.of("1", "2"), ids(beforeChanges.getProducts()));
+        assertEquals("Product 1", beforeChanges.getProducts().get(0).getName());
+        assertEquals(List.of("1", "2"), ids(afterUpdate.getProducts()));
+        assertEquals("Renamed", afterUpdate.getProducts().get(0).getName());
+        assertEquals(List.of("1"), ids(afterDelete.getProducts()));
+        assertEquals(productRepository.catalogVersion(), afterDelete.getVersion());
+    }
+
+    @Test
+    @DisplayName("Should store specifications dictionary-encoded without changing their contents")
+    void testSave_EncodesSpecifications() {
+        // Arrange
+        when(productMapper.toDto(any(Product.class))).thenReturn(productDTO1);
+        Map<String, String> specifications = new HashMap<>(Map.of("category", "Laptops", "ram", "16GB"));
+
+        // Act
+        productRepository.save(product1.toBuilder().specifications(specifications).build());
+        specifications.put("ram", "32GB");
+
+        // Assert
+        Map<String, String> stored = productRepository.findById("1").orElseThrow().getSpecifications();
+        assertInstanceOf(EncodedSpecifications.class, stored);
+        assertEquals(Map.of("category", "Laptops", "ram", "16GB"), stored);
+        assertEquals(List.of("1"), ids(productRepository.findBySpecification("ram", "16gb")));
+    }
+
+    @Test
+    @DisplayName("Should re-encode the catalog with a fresh dictionary once most codes are unused")
+    void testCompactDictionary_ReencodesCatalog() {
+        // Arrange
+        SpecificationDictionary dictionary = new SpecificationDictionary();
+        ProductRepository repository = new ProductRepository(
+                new ProductCatalogLoader(productDataSource, productMapper, productValidator,
+                        new CatalogPartition(new CatalogRoutingConfig())),
+                productMapper, productValidator, dictionary, new WriteAheadLog());
+        when(productMapper.toDto(any(Product.class))).thenReturn(productDTO1);
+        for (int i = 0; i < 1100; i++) {
+            repository.save(product1.toBuilder().id("p" + i)
+                    .specifications(Map.of("category", "Laptops", "model", "model-" + i)).build());
+        }
+        for (int i = 10; i < 1100; i++) {
+            repository.deleteById("p" + i);
+        }
+
+        // Act
+        boolean compacted = repository.compactDictionary();
+
+        // Assert
+        assertTrue(compacted);
+        assertFalse(repository.compactDictionary());
+        assertEquals(13, dictionary.size());
+        assertEquals(13, dictionary.liveSize());
+        assertEquals(List.of("p3"), ids(repository.findBySpecification("model", "MODEL-3")));
+        assertEquals("model-3", repository.findById("p3").orElseThrow().getSpecifications().get("model"));
+        assertEquals(10, repository.findByCategory("laptops").size());
+    }
+
+    @Test
+    @DisplayName("Should write a binary snapshot after loading JSON and load it on the next start")
+    void testInit_WritesAndLoadsSnapshot(@TempDir Path tempDir) {
+        // Arrange
+        Path snapshotFile = tempDir.resolve("catalog.snapshot");
+        ReflectionTestUtils.setField(productRepository, "jsonFilePath", "classpath:data/products.json");
+        ReflectionTestUtils.setField(productRepository, "snapshotFilePath", snapshotFile.toString());
+        stubProducts(productDTO1);
+        when(productMapper.toDomain(any(ProductDTO.class)))
+                .thenReturn(product1.toBuilder().specifications(Map.of("category", "Laptops")).build());
+        productRepository.init();
+
+        ProductRepository restarted = new ProductRepository(
+                new ProductCatalogLoader(productDataSource, productMapper, productValidator,
+                        new CatalogPartition(new CatalogRoutingConfig())),
+                productMapper, productValidator, new SpecificationDictionary(), new WriteAheadLog());
+        ReflectionTestUtils.setField(restarted, "jsonFilePath", "classpath:data/products.json");
+        ReflectionTestUtils.setField(restarted, "snapshotFilePath", snapshotFile.toString());
+
+        // Act
+        restarted.init();
+
+        // Assert
+        assertTrue(Files.exists(snapshotFile));
+        assertEquals(productRepository.findAll(), restarted.findAll());
+        assertEquals(List.of("1"), ids(restarted.findByCategory("laptops")));
+        verify(productDataSource, times(1)).streamProductsFromJson(anyString(), any());
+    }
+
+    @Test
+    @DisplayName("Should fall back to JSON and rewrite the snapshot when it is corrupt")
+    void testInit_CorruptSnapshotFallsBackToJson(@TempDir Path tempDir) throws IOException {
+        // Arrange
+        Path snapshotFile = tempDir.resolve("catalog.snapshot");
+        Files.writeString(snapshotFile, "this is not a binary catalog snapshot");
+        ReflectionTestUtils.setField(productRepository, "jsonFilePath", "classpath:data/products.json");
+        ReflectionTestUtils.setField(productRepository, "snapshotFilePath", snapshotFile.toString());
+        stubProducts(productDTO1);
+        when(productMapper.toDomain(any(ProductDTO.class))).thenReturn(product1);
+
+        // Act
+        productRepository.init();
+
+        // Assert
+        assertEquals(List.of("1"), ids(productRepository.findAll()));
+        List<Product> fromSnapshot = new ArrayList<>();
+        assertDoesNotThrow(() -> CatalogFile.read(snapshotFile, fromSnapshot::add));
+        assertEquals(List.of("1"), ids(fromSnapshot));
+    }
+
+    @Test
+    @DisplayName("Should replay logged writes on top of the JSON catalog after a restart")
+    void testInit_ReplaysWriteAheadLog(@TempDir Path tempDir) {
+        // Arrange
+        stubProducts(productDTO1);
+        when(productMapper.toDomain(any(ProductDTO.class))).thenReturn(product1);
+        when(productMapper.toDto(any(Product.class))).thenReturn(productDTO1);
+        doNothing().when(productValidator).validateDto(any(ProductDTO.class));
+        WriteAheadLog writeAheadLog = writeAheadLog(tempDir);
+        ProductRepository first = repositoryWithLog(writeAheadLog);
+        first.init();
+        first.save(product1.toBuilder().id("2").build());
+        first.update("1", product1.toBuilder().name("Renamed").build());
+        first.deleteById("2");
+        first.save(product1.toBuilder().id("3").specifications(Map.of("category", "Laptops")).build());
+        writeAheadLog.close();
+
+        ProductRepository restarted = repositoryWithLog(writeAheadLog(tempDir));
+
+        // Act
+        restarted.init();
+
+        // Assert
+        assertEquals("Renamed", restarted.findById("1").orElseThrow().getName());
+        assertTrue(restarted.findById("2").isEmpty());
+        assertEquals(List.of("3"), ids(restarted.findByCategory("laptops")));
+        assertEquals(2, restarted.findAll().size());
+    }
+
+    @Test
+    @DisplayName("Should undo and report changes the write-ahead log failed to persist")
+    void testSave_UndoesUnpersistedChange(@TempDir Path tempDir) throws IOException {
+        // Arrange
+        stubProducts(productDTO1);
+        when(productMapper.toDomain(any(ProductDTO.class))).thenReturn(product1);
+        when(productMapper.toDto(any(Product.class))).thenReturn(productDTO1);
+        doNothing().when(productValidator).validateDto(any(ProductDTO.class));
+        WriteAheadLog writeAheadLog = writeAheadLog(tempDir);
+        ProductRepository repository = repositoryWithLog(writeAheadLog);
+        repository.init();
+        List<String> changes = new ArrayList<>();
+        repository.addChangeListener(new WriteAheadLog.MutationHandler() {
+            @Override
+            public void put(Product product) {
+                changes.add("put " + product.getId());
+            }
+
+            @Override
+            public void delete(String id) {
+                changes.add("delete " + id);
+            }
+        });
+        repository.save(product1.toBuilder().id("2").build());
+        long version = repository.catalogVersion();
+        // Closing the file under the flusher makes its next write fail.
+        ((FileChannel) ReflectionTestUtils.getField(writeAheadLog, "channel")).close();
+
+        // Act
+        ProductSaveException failure = assertThrows(ProductSaveException.class,
+                () -> repository.save(product1.toBuilder().id("3").build()));
+
+        // Assert
+        assertInstanceOf(ProductDataAccessException.class, failure.getCause());
+        assertTrue(repository.findById("3").isEmpty());
+        assertEquals(List.of("1", "2"), ids(repository.findAll()).stream().sorted().toList());
+        assertEquals(List.of("put 2", "put 3", "delete 3"), changes);
+        assertEquals(version + 2, repository.catalogVersion());
+        assertThrows(ProductUpdateException.class, () -> repository.update("1", product1));
+        assertThrows(ProductDeleteException.class, () -> repository.deleteById("2"));
+        assertTrue(repository.findById("2").isPresent());
+    }
+
+    @Test
+    @DisplayName("Should checkpoint into the snapshot, drop the covered log and recover from both")
+    void testCheckpoint_TruncatesWriteAheadLog(@TempDir Path tempDir) throws IOException {
+        // Arrange
+        Path snapshotFile = tempDir.resolve("catalog.snapshot");
+        Path logDirectory = tempDir.resolve("wal");
+        stubProducts(productDTO1);
+        when(productMapper.toDomain(any(ProductDTO.class))).thenReturn(product1);
+        when(productMapper.toDto(any(Product.class))).thenReturn(productDTO1);
+        doNothing().when(productValidator).validateDto(any(ProductDTO.class));
+        WriteAheadLog writeAheadLog = writeAheadLog(logDirectory);
+        ProductRepository first = repositoryWithLog(writeAheadLog);
+        ReflectionTestUtils.setField(first, "snapshotFilePath", snapshotFile.toString());
+        first.init();
+        first.save(product1.toBuilder().id("2").build());
+        first.save(product1.toBuilder().id("3").build());
+
+        // Act
+        ProductRepository.Checkpoint checkpoint = first.checkpoint();
+        first.deleteById("2");
+        writeAheadLog.close();
+
+        // Assert
+        assertEquals(Files.size(snapshotFile), checkpoint.bytes());
+        try (Stream<Path> files = Files.list(logDirectory)) {
+            assertEquals(1, files.count());
+        }
+        ProductRepository restarted = repositoryWithLog(writeAheadLog(logDirectory));
+        ReflectionTestUtils.setField(restarted, "snapshotFilePath", snapshotFile.toString());
+        restarted.init();
+        assertEquals(List.of("1", "3"), ids(restarted.findAll()).stream().sorted().toList());
+        verify(productDataSource, times(1)).streamProductsFromJson(anyString(), any());
+    }
+
+    @Test
+    @DisplayName("Should abort a checkpoint and keep the change out of the snapshot when the log fails to persist it")
+    void testCheckpoint_AbortsWhenLogFailsAfterCapture(@TempDir Path tempDir) throws Exception {
+        // Arrange
+        Path snapshotFile = tempDir.resolve("catalog.snapshot");
+        stubProducts(productDTO1);
+        when(productMapper.toDomain(any(ProductDTO.class))).thenReturn(product1);
+        when(productMapper.toDto(any(Product.class))).thenReturn(productDTO1);
+        WriteAheadLog writeAheadLog = mock(WriteAheadLog.class);
+        ProductRepository repository = repositoryWithLog(writeAheadLog);
+        ReflectionTestUtils.setField(repository, "snapshotFilePath", snapshotFile.toString());
+        repository.init();
+
+        when(writeAheadLog.waitsForDurability()).thenReturn(true);
+        when(writeAheadLog.appendPut(any(Product.class))).thenReturn(1L);
+        when(writeAheadLog.lastSequence()).thenReturn(1L);
+        CountDownLatch published = new CountDownLatch(1);
+        CountDownLatch captured = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            if (Thread.currentThread().getName().equals("saver")) {
+                // The save has been published and waits for the flusher, which has not written it yet.
+                published.countDown();
+                captured.await(5, TimeUnit.SECONDS);
+            } else {
+                captured.countDown();
+            }
+            throw new ProductDataAccessException("Disk full");
+        }).when(writeAheadLog).awaitDurable(1L);
+        AtomicReference<RuntimeException> saveFailure = new AtomicReference<>();
+        Thread saver = new Thread(() -> {
+            try {
+                repository.save(product1.toBuilder().id("2").build());
+            } catch (RuntimeException e) {
+                saveFailure.set(e);
+            }
+        }, "saver");
+        saver.start();
+        assertTrue(published.await(5, TimeUnit.SECONDS));
+
+        // Act
+        assertThrows(ProductDataAccessException.class, repository::checkpoint);
+        saver.join(TimeUnit.SECONDS.toMillis(5));
+
+        // Assert
+        assertInstanceOf(ProductSaveException.class, saveFailure.get());
+        assertTrue(repository.findById("2").isEmpty());
+        List<Product> fromSnapshot = new ArrayList<>();
+        CatalogFile.read(snapshotFile, fromSnapshot::add);
+        assertEquals(List.of("1"), ids(fromSnapshot));
+        verify(writeAheadLog, times(1)).deleteBefore(anyLong());
+    }
+
+    @Test
+    @DisplayName("Should refuse to checkpoint without a snapshot file")
+    void testCheckpoint_NotConfigured() {
+        assertFalse(productRepository.isCheckpointEnabled());
+        assertThrows(ProductDataAccessException.class, () -> productRepository.checkpoint());
+    }
+
+    @Test
+    @DisplayName("Should apply only what changed in the source on reload, as one new version")
+    void testReload_AppliesDiff() {
+        // Arrange
+        Product laptop = withCategory("1", "Laptops");
+        Product phone = withCategory("2", "Phones");
+        Product tablet = withCategory("3", "Tablets");
+        Product renamedPhone = phone.toBuilder().name("Phone 2").build();
+        Product watch = withCategory("4", "Watches");
+        ReflectionTestUtils.setField(productRepository, "jsonFilePath", "classpath:data/products.json");
+        stubProducts(productDTO1, productDTO1, productDTO1);
+        when(productMapper.toDomain(any(ProductDTO.class)))
+                .thenReturn(laptop, phone, tablet, laptop, renamedPhone, watch);
+        productRepository.init();
+        long versionBefore = productRepository.snapshot().getVersion();
+
+        // Act
+        ProductRepository.Reload reload = productRepository.reload();
+
+        // Assert
+        assertEquals(new ProductRepository.Reload(1, 1, 1, versionBefore + 1), reload);
+        assertTrue(reload.changed());
+        assertEquals(List.of("1", "2", "4"), ids(productRepository.findAll()).stream().sorted().toList());
+        assertEquals("Phone 2", productRepository.findById("2").orElseThrow().getName());
+        assertTrue(productRepository.findByCategory("tablets").isEmpty());
+        assertEquals(List.of("4"), ids(productRepository.findByCategory("watches")));
+    }
+
+    @Test
+    @DisplayName("Should count only the changes still pending once the reload holds the lock")
+    void testReload_CountsChangesAppliedMeanwhile() {
+        // Arrange
+        Product laptop = withCategory("1", "Laptops");
+        Product phone = withCategory("2", "Phones");
+        Product tablet = withCategory("3", "Tablets");
+        ReflectionTestUtils.setField(productRepository, "jsonFilePath", "classpath:data/products.json");
+        stubProducts(productDTO1, productDTO1, productDTO1);
+        when(productMapper.toDomain(any(ProductDTO.class))).thenReturn(laptop);
+        productRepository.init();
+        when(productMapper.toDto(any(Product.class))).thenReturn(productDTO1);
+        when(productMapper.toDomain(any(ProductDTO.class))).thenReturn(laptop, phone).thenAnswer(invocation -> {
+            // A writer adds the phone after the reload compared it, before the reload takes the lock.
+            productRepository.save(phone);
+            return tablet;
+        });
+        long versionBefore = productRepository.snapshot().getVersion();
+
+        // Act
+        ProductRepository.Reload reload = productRepository.reload();
+
+        // Assert
+        assertEquals(new ProductRepository.Reload(1, 0, 0, versionBefore + 2), reload);
+        assertEquals(List.of("1", "2", "3"), ids(productRepository.findAll()).stream().sorted().toList());
+    }
+
+    @Test
+    @DisplayName("Should keep the catalog version when the reloaded source is unchanged")
+    void testReload_Unchanged() {
+        // Arrange
+        ReflectionTestUtils.setField(productRepository, "jsonFilePath", "classpath:data/products.json");
+        stubProducts(productDTO1);
+        when(productMapper.toDomain(any(ProductDTO.class))).thenReturn(product1);
+        productRepository.init();
+        long versionBefore = productRepository.snapshot().getVersion();
+
+        // Act
+        ProductRepository.Reload reload = productRepository.reload();
+
+        // Assert
+        assertFalse(reload.changed());
+        assertEquals(versionBefore, reload.catalogVersion());
+        assertEquals(versionBefore, productRepository.snapshot().getVersion());
+    }
+
+    @Test
+    @DisplayName("Should apply a batch item by item and publish it as one version")
+    void testApplyBatch_PublishesOnce() {
+        // Arrange
+        ReflectionTestUtils.setField(productRepository, "jsonFilePath", "classpath:data/products.json");
+        stubProducts();
+        productRepository.init();
+        when(productMapper.toDto(any(Product.class))).thenReturn(productDTO1);
+        long versionBefore = productRepository.snapshot().getVersion();
+        List<ProductMutation> mutations = List.of(
+                create(product1.toBuilder().id("1").price(300.0).build()),
+                create(product1.toBuilder().id("2").price(100.0).build()),
+                create(product1.toBuilder().id("1").build()),
+                ProductMutation.builder().op(ProductMutation.Operation.UPDATE).id("2")
+                        .product(product1.toBuilder().name("Renamed").price(500.0).build()).build(),
+                ProductMutation.builder().op(ProductMutation.Operation.DELETE).id("3").build(),
+                create(product1.toBuilder().id("4").price(-1.0).build()),
+                ProductMutation.builder().op(ProductMutation.Operation.UPDATE).id("1").build());
+
+        // Act
+        List<MutationResult> results = productRepository.applyBatch(mutations);
+
+        // Assert
+        assertEquals(List.of(true, true, false, true, false, false, false),
+                results.stream().map(MutationResult::isApplied).toList());
+        assertEquals("PRODUCT_ALREADY_EXISTS", results.get(2).getErrorCode());
+        assertEquals("PRODUCT_NOT_FOUND", results.get(4).getErrorCode());
+        assertEquals("PRODUCT_VALIDATION_ERROR", results.get(5).getErrorCode());
+        assertEquals("PRODUCT_VALIDATION_ERROR", results.get(6).getErrorCode());
+        assertEquals(versionBefore + 1, productRepository.snapshot().getVersion());
+        assertEquals("Renamed", productRepository.findById("2").orElseThrow().getName());
+        assertEquals(List.of("2", "1"), ids(productRepository.findAllOrderedByPrice(false)));
+        assertTrue(productRepository.findById("4").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should never show a lookup running during a batch only part of the batch")
+    void testApplyBatch_ConcurrentLookupSeesAllOrNothing() throws InterruptedException {
+        // Arrange
+        when(productMapper.toDto(any(Product.class))).thenReturn(productDTO1);
+        int count = 2_000;
+        List<ProductMutation> creates = new ArrayList<>();
+        List<ProductMutation> updates = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            creates.add(create(product1.toBuilder().id("p" + i).build()));
+            updates.add(ProductMutation.builder().op(ProductMutation.Operation.UPDATE).id("p" + i)
+                    .product(product1.toBuilder().price(200.0).build()).build());
+        }
+        productRepository.applyBatch(creates);
+        String last = "p" + (count - 1);
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicInteger partialReads = new AtomicInteger();
+        CountDownLatch reading = new CountDownLatch(1);
+        Thread reader = new Thread(() -> {
+            while (!done.get()) {
+                // The batch updates p0 first and the last product at the end
+                boolean firstUpdated = productRepository.findById("p0").orElseThrow().getPrice() == 200.0;
+                boolean lastUpdated = productRepository.findById(last).orElseThrow().getPrice() == 200.0;
+                if (firstUpdated && !lastUpdated) {
+                    partialReads.incrementAndGet();
+                }
+                reading.countDown();
+            }
+        });
+        reader.start();
+        assertTrue(reading.await(5, TimeUnit.SECONDS));
+
+        // Act
+        productRepository.applyBatch(updates);
+        done.set(true);
+        reader.join(5_000);
+
+        // Assert
+        assertEquals(0, partialReads.get());
+        assertEquals(200.0, productRepository.findById(last).orElseThrow().getPrice());
+    }
+
+    @Test
+    @DisplayName("Should version each product with the catalog version that last changed it")
+    void testProductVersion_TracksWrites() {
+        // Arrange
+        when(productMapper.toDto(any(Product.class))).thenReturn(productDTO1);
+        productRepository.save(product1);
+        productRepository.save(product1.toBuilder().id("2").build());
+        long createdAt = productRepository.catalogVersion();
+
+        // Act
+        productRepository.update("1", product1.toBuilder().name("Renamed").build());
+
+        // Assert
+        assertEquals(productRepository.snapshot().getVersion(), productRepository.catalogVersion());
+        assertEquals(createdAt + 1, productRepository.catalogVersion());
+        assertEquals(createdAt + 1, productRepository.productVersion("1").orElseThrow());
+        assertEquals(createdAt, productRepository.productVersion("2").orElseThrow());
+        assertTrue(productRepository.productVersion("missing").isEmpty());
+    }
+
+    private ProductMutation create(Product product) {
+        return ProductMutation.builder().op(ProductMutation.Operation.CREATE).product(product).build();
+    }
+
+    private void stubProducts(ProductDTO... dtos) {
+        doAnswer(invocation -> {
+            Consumer<ProductDTO> consumer = invocation.getArgument(1);
+            for (ProductDTO dto : dtos) {
+                consumer.accept(dto);
+            }
+            return (long) dtos.length;
+        }).when(productDataSource).streamProductsFromJson(anyString(), any());
+    }
+
+    private WriteAheadLog writeAheadLog(Path directory) {
+        WriteAheadLog writeAheadLog = new WriteAheadLog();
+        ReflectionTestUtils.setField(writeAheadLog, "directory", directory.toString());
+        return writeAheadLog;
+    }
+
+    private ProductRepository repositoryWithLog(WriteAheadLog writeAheadLog) {
+        ProductRepository repository = new ProductRepository(
+                new ProductCatalogLoader(productDataSource, productMapper, productValidator,
+                        new CatalogPartition(new CatalogRoutingConfig())),
+                productMapper, productValidator, new SpecificationDictionary(), writeAheadLog);
+        ReflectionTestUtils.setField(repository, "jsonFilePath", "classpath:data/products.json");
+        return repository;
+    }
+
+    private List<String> ids(List<Product> products) {
+        return products.stream().map(Product::getId).toList();
+    }
+
+    private Product withCategory(String id, String category) {
+        return product1.toBuilder()
+                .id(id)
+                .specifications(Map.of("category", category))
+                .build();
+    }
+}
@@ -0,0 +1,353 @@
+package com.example.productcomparison.unit.repository;
+
+import com.example.productcomparison.config.CatalogRoutingConfig;
+import com.example.productcomparison.exception.repository.ProductAlreadyExistsException;
+import com.example.productcomparison.exception.repository.ProductDataAccessException;
+import com.example.productcomparison.exception.repository.ProductValidationException;
+import com.example.productcomparison.exception.service.ProductNotFoundException;
+import com.example.productcomparison.model.MutationResult;
+import com.example.productcomparison.model.Product;
+import com.example.productcomparison.model.ProductDTO;
+import com.example.productcomparison.model.ProductMutation;
+import com.example.productcomparison.repository.CatalogPartition;
+import com.example.productcomparison.repository.CatalogSnapshot;
+import com.example.productcomparison.repository.ProductCatalogLoader;
+import com.example.productcomparison.repository.ProductDataSource;
+import com.example.productcomparison.repository.ProductMapper;
+import com.example.productcomparison.repository.ProductValidator;
+import com.example.productcomparison.repository.ShardedProductRepository;
+import com.example.productcomparison.repository.storage.SpecificationDictionary;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ShardedProductRepository Unit Tests")
+class ShardedProductRepositoryTest {
+
+    @Mock
+    private ProductDataSource productDataSource;
+
+    @Spy
+    private ProductMapper productMapper;
+
+    @Spy
+    private ProductValidator productValidator;
+
+    private ShardedProductRepository productRepository;
+
+    private ProductDTO productDTO1;
+    private Product product1;
+
+    @BeforeEach
+    void setUp() {
+        ProductCatalogLoader productCatalogLoader =
+                new ProductCatalogLoader(productDataSource, productMapper, productValidator,
+                        new CatalogPartition(new CatalogRoutingConfig()));
+        productRepository = new ShardedProductRepository(
+                productCatalogLoader, productMapper, productValidator, new SpecificationDictionary());
+        ReflectionTestUtils.setField(productRepository, "jsonFilePath", "classpath:data/products.json");
+        ReflectionTestUtils.setField(productRepository, "shardCount", 4);
+        // Scatter every query to the pool, however small the catalog.
+        ReflectionTestUtils.setField(productRepository, "parallelThreshold", 0);
+
+        productDTO1 = ProductDTO.builder()
+                .id("1")
+                .name("Product 1")
+                .price(100.0)
+                .rating(4.5)
+                .build();
+
+        product1 = Product.builder()
+                .id("1")
+                .name("Product 1")
+                .price(100.0)
+                .rating(4.5)
+                .build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        productRepository.shutdown();
+    }
+
+    @Test
+    @DisplayName("Should load the initial catalog into the configured number of shards")
+    void testInit_Success() {
+        // Arrange
+        stubProducts(productDTO1);
+        when(productMapper.toDomain(any(ProductDTO.class))).thenReturn(product1);
+
+        // Act
+        productRepository.init();
+
+        // Assert
+        assertEquals(4, productRepository.shardCount());
+        assertEquals(List.of(product1), productRepository.findAll());
+        assertEquals(product1, productRepository.findById("1").orElseThrow());
+    }
+
+    @Test
+    @DisplayName("Should reject a negative shard count")
+    void testInit_InvalidShardCount() {
+        // Arrange
+        ReflectionTestUtils.setField(productRepository, "shardCount", -1);
+
+        // Act & Assert
+        assertThrows(ProductDataAccessException.class, () -> productRepository.init());
+        verifyNoInteractions(productDataSource);
+    }
+
+    @Test
+    @DisplayName("Should save, update and delete products with the same errors as the in-memory repository")
+    void testCrud() {
+        // Arrange
+        initEmpty();
+        when(productMapper.toDto(any(Product.class))).thenReturn(productDTO1);
+
+        // Act
+        productRepository.save(product1);
+        productRepository.update("1", product1.toBuilder().name("Renamed").build());
+
+        // Assert
+        assertEquals("Renamed", productRepository.findById("1").orElseThrow().getName());
+        assertThrows(ProductAlreadyExistsException.class, () -> productRepository.save(product1));
+        assertThrows(ProductNotFoundException.class, () -> productRepository.update("2", product1));
+
+        productRepository.deleteById("1");
+        assertTrue(productRepository.findById("1").isEmpty());
+        assertThrows(ProductNotFoundException.class, () -> productRepository.deleteById("1"));
+    }
+
+    @Test
+    @DisplayName("Should throw ProductValidationException when validation fails")
+    void testSave_ValidationFails() {
+        // Arrange
+        initEmpty();
+        when(productMapper.toDto(any(Product.class))).thenReturn(productDTO1);
+        doThrow(new IllegalArgumentException("Invalid product"))
+                .when(productValidator).validateDto(any(ProductDTO.class));
+
+        // Act & Assert
+        assertThrows(ProductValidationException.class, () -> productRepository.save(product1));
+    }
+
+    @Test
+    @DisplayName("Should merge price and rating queries from every shard in order")
+    void testNumericQueries() {
+        // Arrange
+        initEmpty();
+        when(productMapper.toDto(any(Product.class))).thenReturn(productDTO1);
+        for (int i = 0; i < 40; i++) {
+            productRepository.save(product1.toBuilder().id("p" + i).price((i * 37) % 100).rating((i * 7) % 50 / 10.0)
+                    .build());
+        }
+        List<Product> all = productRepository.findAll();
+
+        // Act & Assert
+        assertEquals(sortedPrices(all, false), prices(productRepository.findAllOrderedByPrice(true)));
+        assertEquals(sortedPrices(all, true), prices(productRepository.findAllOrderedByPrice(false)));
+        assertEquals(sortedPrices(all.stream().filter(p -> p.getPrice() >= 20 && p.getPrice() <= 60).toList(), false),
+                prices(productRepository.findByPriceRange(20.0, 60.0)));
+        assertEquals(sortedRatings(all, true).subList(0, 5), ratings(productRepository.findTopRated(5)));
+        assertEquals(sortedRatings(all.stream().filter(p -> p.getRating() >= 3.0).toList(), true),
+                ratings(productRepository.findByMinRating(3.0)));
+        assertEquals(sortedRatings(all, false), ratings(productRepository.findAllOrderedByRating(true)));
+        assertTrue(productRepository.findTopRated(0).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should match categories, specifications and names across shards")
+    void testTextQueries() {
+        // Arrange
+        initEmpty();
+        when(productMapper.toDto(any(Product.class))).thenReturn(productDTO1);
+        for (int i = 0; i < 10; i++) {
+            productRepository.save(product1.toBuilder().id("l" + i).name("UltraBook Pro " + i)
+                    .specifications(Map.of("category", "Laptops", "ram", "16GB")).build());
+        }
+        productRepository.save(product1.toBuilder().id("m").name("Gaming Mouse")
+                .specifications(Map.of("category", "Mice")).build());
+
+        // Act & Assert
+        assertEquals(10, productRepository.findByCategory("LAPTOPS").size());
+        assertEquals(List.of("Laptops", "Mice"), productRepository.findAllCategories());
+        assertEquals(10, productRepository.findBySpecification("ram", "16gb").size());
+        assertTrue(productRepository.findBySpecification("RAM", "16GB").isEmpty());
+        assertEquals(List.of("m"), ids(productRepository.findByNameContaining("mouse")));
+    }
+
+    @Test
+    @DisplayName("Should share one snapshot between writes and publish a new version on write")
+    void testSnapshot_VersionedAndShared() {
+        // Arrange
+        initEmpty();
+        when(productMapper.toDto(any(Product.class))).thenReturn(productDTO1);
+        productRepository.save(product1);
+        CatalogSnapshot first = productRepository.snapshot();
+
+        // Act
+        productRepository.save(product1.toBuilder().id("2").build());
+        CatalogSnapshot second = productRepository.snapshot();
+
+        // Assert
+        assertSame(second, productRepository.snapshot());
+        assertEquals(1, first.size());
+        assertEquals(2, second.size());
+        assertTrue(second.getVersion() > first.getVersion());
+    }
+
+    @Test
+    @DisplayName("Should count the codes every shard uses and re-encode them once most are unused")
+    void testCompactDictionary_ReencodesShards() {
+        // Arrange
+        SpecificationDictionary dictionary = new SpecificationDictionary();
+        productRepository = new ShardedProductRepository(
+                new ProductCatalogLoader(productDataSource, productMapper, productValidator,
+                        new CatalogPartition(new CatalogRoutingConfig())),
+                productMapper, productValidator, dictionary);
+        ReflectionTestUtils.setField(productRepository, "jsonFilePath", "classpath:data/products.json");
+        ReflectionTestUtils.setField(productRepository, "shardCount", 4);
+        initEmpty();
+        when(productMapper.toDto(any(Product.class))).thenReturn(productDTO1);
+        for (int i = 0; i < 1100; i++) {
+            productRepository.save(product1.toBuilder().id("p" + i)
+                    .specifications(Map.of("category", "Laptops", "model", "model-" + i)).build());
+        }
+        for (int i = 10; i < 1100; i++) {
+            productRepository.deleteById("p" + i);
+        }
+        assertEquals(13, dictionary.liveSize());
+
+        // Act
+        boolean compacted = productRepository.compactDictionary();
+
+        // Assert
+        assertTrue(compacted);
+        assertFalse(productRepository.compactDictionary());
+        assertEquals(13, dictionary.size());
+        assertEquals(13, dictionary.liveSize());
+        assertEquals(List.of("p3"), ids(productRepository.findBySpecification("model", "MODEL-3")));
+        assertEquals("model-3", productRepository.findById("p3").orElseThrow().getSpecifications().get("model"));
+        assertEquals(10, productRepository.findByCategory("laptops").size());
+    }
+
+    @Test
+    @DisplayName("Should apply a batch item by item and publish it as one version")
+    void testApplyBatch_PublishesOnce() {
+        // Arrange
+        initEmpty();
+        when(productMapper.toDto(any(Product.class))).thenReturn(productDTO1);
+        productRepository.save(product1.toBuilder().id("3").build());
+        long versionBefore = productRepository.catalogVersion();
+        List<ProductMutation> mutations = List.of(
+                create(product1.toBuilder().id("1").price(300.0).build()),
+                create(product1.toBuilder().id("2").price(100.0).build()),
+                create(product1.toBuilder().id("1").build()),
+                ProductMutation.builder().op(ProductMutation.Operation.UPDATE).id("2")
+                        .product(product1.toBuilder().name("Renamed").price(500.0).build()).build(),
+                ProductMutation.builder().op(ProductMutation.Operation.DELETE).id("3").build(),
+                ProductMutation.builder().op(ProductMutation.Operation.DELETE).id("4").build(),
+                ProductMutation.builder().op(ProductMutation.Operation.UPDATE).id("1").build());
+
+        // Act
+        List<MutationResult> results = productRepository.applyBatch(mutations);
+
+        // Assert
+        assertEquals(List.of(true, true, false, true, true, false, false),
+                results.stream().map(MutationResult::isApplied).toList());
+        assertEquals("PRODUCT_ALREADY_EXISTS", results.get(2).getErrorCode());
+        assertEquals("PRODUCT_NOT_FOUND", results.get(5).getErrorCode());
+        assertEquals("PRODUCT_VALIDATION_ERROR", results.get(6).getErrorCode());
+        assertEquals(versionBefore + 1, productRepository.catalogVersion());
+        assertEquals(versionBefore + 1, productRepository.snapshot().getVersion());
+        assertEquals("Renamed", productRepository.findById("2").orElseThrow().getName());
+        assertEquals(List.of("2", "1"), ids(productRepository.findAllOrderedByPrice(false)));
+    }
+
+    @Test
+    @DisplayName("Should reject batch items with a negative price or a rating above 5")
+    void testApplyBatch_RejectsInvalidPriceAndRating() {
+        // Arrange
+        initEmpty();
+        when(productMapper.toDto(any(Product.class))).thenReturn(productDTO1);
+        productRepository.save(product1);
+        long versionBefore = productRepository.catalogVersion();
+        List<ProductMutation> mutations = List.of(
+                create(product1.toBuilder().id("2").price(-1.0).build()),
+                create(product1.toBuilder().id("3").rating(9.0).build()),
+                ProductMutation.builder().op(ProductMutation.Operation.UPDATE).id("1")
+                        .product(product1.toBuilder().price(-5.0).build()).build());
+
+        // Act
+        List<MutationResult> results = productRepository.applyBatch(mutations);
+
+        // Assert
+        assertEquals(List.of("PRODUCT_VALIDATION_ERROR", "PRODUCT_VALIDATION_ERROR", "PRODUCT_VALIDATION_ERROR"),
+                results.stream().map(MutationResult::getErrorCode).toList());
+        assertEquals(versionBefore, productRepository.catalogVersion());
+        assertTrue(productRepository.findById("2").isEmpty());
+        assertTrue(productRepository.findById("3").isEmpty());
+        assertEquals(100.0, productRepository.findById("1").orElseThrow().getPrice());
+    }
+
+    private ProductMutation create(Product product) {
+        return ProductMutation.builder().op(ProductMutation.Operation.CREATE).product(product).build();
+    }
+
+    private void initEmpty() {
+        stubProducts();
+        productRepository.init();
+    }
+
+    private void stubProducts(ProductDTO... dtos) {
+        doAnswer(invocation -> {
+            Consumer<ProductDTO> consumer = invocation.getArgument(1);
+            for (ProductDTO dto : dtos) {
+                consumer.accept(dto);
+            }
+            return (long) dtos.length;
+        }).when(productDataSource).streamProductsFromJson(anyString(), any());
+    }
+
+    private List<String> ids(List<Product> products) {
+        return products.stream().map(Product::getId).toList();
+    }
+
+    private List<Double> prices(List<Product> products) {
+        return products.stream().map(Product::getPrice).toList();
+    }
+
+    private List<Double> ratings(List<Product> products) {
+        return products.stream().map(Product::getRating).toList();
+    }
+
+    private List<Double> sortedPrices(List<Product> products, boolean descending) {
+        List<Double> prices = new ArrayList<>(prices(products));
+        prices.sort(descending ? Comparator.reverseOrder() : Comparator.naturalOrder());
+        return prices;
+    }
+
+    private List<Double> sortedRatings(List<Product> products, boolean descending) {
+        List<Double> ratings = new ArrayList<>(ratings(products));
+        ratings.sort(descending ? Comparator.reverseOrder() : Comparator.naturalOrder());
+        return ratings;
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.productcomparison.unit.repository.index;
+
+import com.example.productcomparison.model.Product;
+import com.example.productcomparison.repository.index.CategoryIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("CategoryIndex Unit Tests")
+class CategoryIndexTest {
+
+    private CategoryIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new CategoryIndex();
+    }
+
+    @Test
+    @DisplayName("Should find product IDs by category ignoring case")
+    void findIds_IgnoresCase() {
+        index.add(product("1", "Laptops"));
+        index.add(product("2", "laptops"));
+        index.add(product("3", "Mice"));
+
+        assertEquals(Set.of("1", "2"), index.findIds("LAPTOPS"));
+        assertEquals(Set.of("3"), index.findIds("mice"));
+        assertTrue(index.findIds("Tablets").isEmpty());
+        assertTrue(index.findIds(null).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should list distinct category names in natural order")
+    void categories_AreDistinctAndSorted() {
+        index.add(product("1", "Mice"));
+        index.add(product("2", "Laptops"));
+        index.add(product("3", "Laptops"));
+
+        assertEquals(List.of("Laptops", "Mice"), index.categories());
+    }
+
+    @Test
+    @DisplayName("Should drop a category once its last product is removed")
+    void remove_DropsEmptyCategory() {
+        Product first = product("1", "Laptops");
+        Product second = product("2", "Laptops");
+        index.add(first);
+        index.add(second);
+
+        index.remove(first);
+        assertEquals(List.of("Laptops"), index.categories());
+
+        index.remove(second);
+        assertTrue(index.categories().isEmpty());
+        assertTrue(index.findIds("Laptops").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should ignore products without specifications or category")
+    void add_IgnoresProductsWithoutCategory() {
+        index.add(Product.builder().id("1").name("No specs").build());
+        index.add(Product.builder().id("2").name("Empty").specifications(Map.of("category", "")).build());
+
+        assertTrue(index.categories().isEmpty());
+    }
+
+    private Product product(String id, String category) {
+        return Product.builder()
+                .id(id)
+                .name("Product " + id)
+                .specifications(Map.of("category", category))
+                .build();
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.productcomparison.unit.repository.index;
+
+import com.example.productcomparison.repository.index.NumericIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("NumericIndex Unit Tests")
+class NumericIndexTest {
+
+    private final double[] column = new double[8];
+    private NumericIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new NumericIndex(ordinal -> column[ordinal]);
+        put(0, 10.0);
+        put(1, 20.0);
+        put(2, 20.0);
+        put(3, 30.0);
+    }
+
+    @Test
+    @DisplayName("Should return an inclusive range in ascending order")
+    void range_IsInclusive() {
+        assertArrayEquals(new int[]{1, 2}, index.range(20.0, 20.0));
+        assertArrayEquals(new int[]{0, 1, 2, 3}, index.range(10.0, 30.0));
+        assertArrayEquals(new int[]{1, 2, 3}, index.range(15.0, Double.POSITIVE_INFINITY));
+    }
+
+    @Test
+    @DisplayName("Should return empty for inverted or NaN ranges")
+    void range_InvalidBounds_ReturnsEmpty() {
+        assertEquals(0, index.range(30.0, 10.0).length);
+        assertEquals(0, index.range(Double.NaN, 10.0).length);
+        assertEquals(0, index.range(0.0, Double.NaN).length);
+        assertEquals(0, index.range(31.0, 40.0).length);
+    }
+
+    @Test
+    @DisplayName("Should treat negative zero like zero")
+    void range_NegativeZero() {
+        put(4, -0.0);
+
+        assertArrayEquals(new int[]{4}, index.range(0.0, 0.0));
+    }
+
+    @Test
+    @DisplayName("Should order all entries in both directions")
+    void ordered_BothDirections() {
+        assertArrayEquals(new int[]{0, 1, 2, 3}, index.ordered(true));
+        assertArrayEquals(new int[]{3, 2, 1, 0}, index.ordered(false));
+        assertArrayEquals(new int[]{3, 2, 1}, index.atLeastDescending(15.0));
+    }
+
+    @Test
+    @DisplayName("Should reposition an entry when removed before its value changes")
+    void remove_ThenAdd_Repositions() {
+        index.remove(0);
+        put(0, 40.0);
+
+        assertArrayEquals(new int[]{0, 3}, index.top(2));
+        assertArrayEquals(new int[]{0, 3, 2, 1}, index.top(10));
+        assertEquals(4, index.size());
+    }
+
+    @Test
+    @DisplayName("Should rebuild the whole ordering from a bulk load")
+    void rebuild_SortsOnce() {
+        column[5] = 5.0;
+        column[6] = 25.0;
+
+        index.rebuild(new int[]{6, 0, 5, 3});
+
+        assertArrayEquals(new int[]{5, 0, 6, 3}, index.ordered(true));
+        assertEquals(4, index.size());
+    }
+
+    @Test
+    @DisplayName("Should stay ordered across many blocks of inserts, removals and rebuilds")
+    void addRemove_ManyEntries_MatchesSortedOrder() {
+        double[] prices = new double[5000];
+        NumericIndex large = new NumericIndex(ordinal -> prices[ordinal]);
+        Random random = new Random(42);
+        for (int ordinal = 0; ordinal < prices.length; ordinal++) {
+            prices[ordinal] = random.nextInt(1000);
+            large.add(ordinal);
+        }
+        for (int ordinal = 0; ordinal < prices.length; ordinal += 3) {
+            large.remove(ordinal);
+        }
+
+        int[] expected = IntStream.range(0, prices.length)
+                .filter(ordinal -> ordinal % 3 != 0)
+                .boxed()
+                .sorted(Comparator.comparingDouble((Integer ordinal) -> prices[ordinal])
+                        .thenComparingInt(Integer::intValue))
+                .mapToInt(Integer::intValue)
+                .toArray();
+        assertArrayEquals(expected, large.ordered(true));
+        assertEquals(expected.length, large.size());
+        assertArrayEquals(Arrays.stream(expected).filter(ordinal -> prices[ordinal] >= 100 && prices[ordinal] <= 200)
+                .toArray(), large.range(100, 200));
+        assertArrayEquals(Arrays.copyOfRange(large.ordered(false), 0, 700), large.top(700));
+
+        large.rebuild(expected);
+        assertArrayEquals(expected, large.ordered(true));
+    }
+
+    private void put(int ordinal, double value) {
+        column[ordinal] = value;
+        index.add(ordinal);
+    }
+}
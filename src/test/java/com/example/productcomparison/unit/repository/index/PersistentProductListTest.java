@@ -0,0 +1,105 @@
+package com.example.productcomparison.unit.repository.index;
+
+import com.example.productcomparison.model.Product;
+import com.example.productcomparison.repository.index.PersistentProductList;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("PersistentProductList Unit Tests")
+class PersistentProductListTest {
+
+    private PersistentProductList list;
+
+    @BeforeEach
+    void setUp() {
+        list = new PersistentProductList();
+    }
+
+    @Test
+    @DisplayName("Should replace a product with the same ID instead of adding it again")
+    void put_SameId_Replaces() {
+        list.put(product("1", "Laptop"));
+        list.put(product("1", "Renamed"));
+
+        List<Product> published = list.publish();
+
+        assertEquals(1, published.size());
+        assertEquals("Renamed", published.get(0).getName());
+    }
+
+    @Test
+    @DisplayName("Should keep published views unchanged by later writes")
+    void publish_ViewIsImmutable() {
+        for (int i = 0; i < 3000; i++) {
+            list.put(product(String.valueOf(i), "Product " + i));
+        }
+        List<Product> before = list.publish();
+
+        list.put(product("5", "Renamed"));
+        list.remove("0");
+        list.put(product("new", "New"));
+        List<Product> after = list.publish();
+
+        assertEquals(3000, before.size());
+        assertEquals("Product 5", find(before, "5").getName());
+        assertNotNull(find(before, "0"));
+        assertNull(find(before, "new"));
+        assertEquals(3000, after.size());
+        assertEquals("Renamed", find(after, "5").getName());
+        assertNull(find(after, "0"));
+        assertNotNull(find(after, "new"));
+        assertThrows(UnsupportedOperationException.class, () -> after.add(product("x", "X")));
+    }
+
+    @Test
+    @DisplayName("Should stay dense when products are removed from the middle")
+    void remove_MovesLastProduct() {
+        for (int i = 0; i < 2050; i++) {
+            list.put(product(String.valueOf(i), "Product " + i));
+        }
+
+        for (int i = 0; i < 2050; i += 2) {
+            list.remove(String.valueOf(i));
+        }
+        list.remove("missing");
+        List<Product> published = list.publish();
+
+        assertEquals(1025, list.size());
+        Set<String> ids = published.stream().map(Product::getId).collect(Collectors.toSet());
+        Set<String> expected = new HashSet<>();
+        for (int i = 1; i < 2050; i += 2) {
+            expected.add(String.valueOf(i));
+        }
+        assertEquals(expected, ids);
+        assertThrows(IndexOutOfBoundsException.class, () -> published.get(1025));
+    }
+
+    @Test
+    @DisplayName("Should empty the list without touching published views")
+    void clear_KeepsPublishedViews() {
+        list.put(product("1", "Laptop"));
+        List<Product> published = list.publish();
+
+        list.clear();
+
+        assertEquals(0, list.size());
+        assertTrue(list.publish().isEmpty());
+        assertEquals(1, published.size());
+    }
+
+    private Product find(List<Product> products, String id) {
+        return products.stream().filter(product -> product.getId().equals(id)).findFirst().orElse(null);
+    }
+
+    private Product product(String id, String name) {
+        return Product.builder().id(id).name(name).price(10.0).rating(4.0).build();
+    }
+}
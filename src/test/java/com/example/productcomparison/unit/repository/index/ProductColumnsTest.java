@@ -0,0 +1,82 @@
+package com.example.productcomparison.unit.repository.index;
+
+import com.example.productcomparison.model.Product;
+import com.example.productcomparison.repository.index.ProductColumns;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("ProductColumns Unit Tests")
+class ProductColumnsTest {
+
+    private ProductColumns columns;
+
+    @BeforeEach
+    void setUp() {
+        columns = new ProductColumns();
+    }
+
+    @Test
+    @DisplayName("Should store price and rating in primitive columns by ordinal")
+    void put_FillsColumns() {
+        int ordinal = columns.put(product("1", 99.5, 4.2));
+
+        assertEquals(99.5, columns.price(ordinal));
+        assertEquals(4.2, columns.rating(ordinal));
+        assertEquals("1", columns.row(ordinal).getId());
+        assertEquals(ordinal, columns.ordinalOf("1"));
+    }
+
+    @Test
+    @DisplayName("Should keep the ordinal when a product is replaced")
+    void put_SameId_KeepsOrdinal() {
+        int ordinal = columns.put(product("1", 10.0, 1.0));
+
+        assertEquals(ordinal, columns.put(product("1", 20.0, 2.0)));
+        assertEquals(20.0, columns.price(ordinal));
+        assertEquals(1, columns.size());
+    }
+
+    @Test
+    @DisplayName("Should recycle ordinals of removed products")
+    void remove_RecyclesOrdinal() {
+        int first = columns.put(product("1", 10.0, 1.0));
+        columns.put(product("2", 20.0, 2.0));
+
+        assertEquals(first, columns.remove("1"));
+        assertEquals(-1, columns.remove("1"));
+        assertEquals(-1, columns.ordinalOf("1"));
+        assertEquals(first, columns.put(product("3", 30.0, 3.0)));
+    }
+
+    @Test
+    @DisplayName("Should grow beyond the initial capacity and list live ordinals")
+    void put_Grows() {
+        for (int i = 0; i < 200; i++) {
+            columns.put(product("p" + i, i, 0.0));
+        }
+        columns.remove("p0");
+
+        assertEquals(199, columns.liveOrdinals().length);
+        assertEquals(199.0, columns.price(columns.ordinalOf("p199")));
+    }
+
+    @Test
+    @DisplayName("Should materialize rows in the requested order")
+    void rows_PreservesOrder() {
+        int a = columns.put(product("a", 1.0, 1.0));
+        int b = columns.put(product("b", 2.0, 2.0));
+
+        List<Product> rows = columns.rows(new int[]{b, a});
+
+        assertEquals(List.of("b", "a"), rows.stream().map(Product::getId).toList());
+    }
+
+    private Product product(String id, double price, double rating) {
+        return Product.builder().id(id).name(id).price(price).rating(rating).build();
+    }
+}
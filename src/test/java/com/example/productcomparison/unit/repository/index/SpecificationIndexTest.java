@@ -0,0 +1,52 @@
+package com.example.productcomparison.unit.repository.index;
+
+import com.example.productcomparison.model.Product;
+import com.example.productcomparison.repository.index.SpecificationIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("SpecificationIndex Unit Tests")
+class SpecificationIndexTest {
+
+    private SpecificationIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new SpecificationIndex();
+    }
+
+    @Test
+    @DisplayName("Should match keys exactly and values ignoring case")
+    void findIds_KeyExactValueIgnoringCase() {
+        index.add(product("1", Map.of("ram", "16GB DDR5", "storage", "512GB SSD")));
+        index.add(product("2", Map.of("ram", "16gb ddr5")));
+
+        assertEquals(Set.of("1", "2"), index.findIds("ram", "16GB DDR5"));
+        assertEquals(Set.of("1"), index.findIds("storage", "512gb ssd"));
+        assertTrue(index.findIds("RAM", "16GB DDR5").isEmpty());
+        assertTrue(index.findIds("ram", "32GB").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should remove postings and ignore products without specifications")
+    void remove_ClearsPostings() {
+        Product product = product("1", Map.of("ram", "16GB"));
+        index.add(product);
+        index.add(Product.builder().id("2").name("No specs").build());
+
+        index.remove(product);
+
+        assertTrue(index.findIds("ram", "16GB").isEmpty());
+        assertTrue(index.findIds(null, "16GB").isEmpty());
+    }
+
+    private Product product(String id, Map<String, String> specifications) {
+        return Product.builder().id(id).name("Product " + id).specifications(specifications).build();
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.productcomparison.unit.repository.index;
+
+import com.example.productcomparison.model.Product;
+import com.example.productcomparison.repository.index.TrigramIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("TrigramIndex Unit Tests")
+class TrigramIndexTest {
+
+    private TrigramIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new TrigramIndex();
+        index.add(product("1", "UltraBook Pro 15"));
+        index.add(product("2", "Gaming Mouse"));
+        index.add(product("3", "ProBook Air"));
+    }
+
+    @Test
+    @DisplayName("Should find case-insensitive substrings through trigram postings")
+    void search_LongQuery() {
+        assertEquals(List.of("1", "3"), sorted(index.search("BOOK")));
+        assertEquals(List.of("2"), index.search("ing mou"));
+        assertTrue(index.search("keyboard").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should reject candidates that share trigrams but not the substring")
+    void search_VerifiesCandidates() {
+        index.add(product("4", "abcXbcd"));
+
+        assertTrue(index.search("abcd").isEmpty());
+        assertEquals(List.of("4"), index.search("xbcd"));
+    }
+
+    @Test
+    @DisplayName("Should scan pre-normalized names for queries shorter than a trigram")
+    void search_ShortQuery() {
+        assertEquals(List.of("1", "3"), sorted(index.search("pR")));
+        assertEquals(List.of("1"), index.search("5"));
+    }
+
+    @Test
+    @DisplayName("Should stop matching a product after it is removed")
+    void remove_DropsPostings() {
+        index.remove(product("1", "UltraBook Pro 15"));
+
+        assertEquals(List.of("3"), index.search("book"));
+        assertTrue(index.search("ultra").isEmpty());
+    }
+
+    private List<String> sorted(List<String> ids) {
+        return ids.stream().sorted().toList();
+    }
+
+    private Product product(String id, String name) {
+        return Product.builder().id(id).name(name).build();
+    }
+}
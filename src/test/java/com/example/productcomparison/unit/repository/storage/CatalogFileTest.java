@@ -0,0 +1,84 @@
+package com.example.productcomparison.unit.repository.storage;
+
+import com.example.productcomparison.model.Product;
+import com.example.productcomparison.repository.storage.CatalogFile;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("CatalogFile Unit Tests")
+class CatalogFileTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Should round-trip products and the catalog version")
+    void writeRead_RoundTrip() throws IOException {
+        Map<String, String> specifications = new LinkedHashMap<>();
+        specifications.put("category", "Laptops");
+        specifications.put("ram", null);
+        List<Product> products = List.of(
+                Product.builder().id("1").name("UltraBook").description("Thin").price(999.0).rating(4.5)
+                        .specifications(specifications).build(),
+                Product.builder().id("2").name("Mouse").price(25.0).rating(4.0)
+                        .specifications(Map.of("category", "Laptops")).build(),
+                Product.builder().id("3").price(1.0).build());
+        Path file = tempDir.resolve("nested/catalog.snapshot");
+
+        CatalogFile.write(file, 7L, products);
+        List<Product> read = new ArrayList<>();
+        CatalogFile.Header header = CatalogFile.read(file, read::add);
+
+        assertEquals(products, read);
+        assertEquals(new CatalogFile.Header(7L, 3), header);
+        assertEquals(List.of("category", "ram"), List.copyOf(read.get(0).getSpecifications().keySet()));
+    }
+
+    @Test
+    @DisplayName("Should reject a corrupted file before handing out any product")
+    void read_ChecksumMismatch() throws IOException {
+        Path file = tempDir.resolve("catalog.snapshot");
+        CatalogFile.write(file, 1L, List.of(Product.builder().id("1").name("Mouse").price(25.0).build()));
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length / 2] ^= 0x01;
+        Files.write(file, bytes);
+
+        IOException exception = assertThrows(IOException.class,
+                () -> CatalogFile.read(file, product -> fail("No product should be read from a corrupt file")));
+        assertTrue(exception.getMessage().contains("checksum"));
+    }
+
+    @Test
+    @DisplayName("Should reject truncated files")
+    void read_Truncated() throws IOException {
+        Path file = tempDir.resolve("catalog.snapshot");
+        Files.write(file, new byte[8]);
+
+        assertThrows(IOException.class, () -> CatalogFile.read(file, product -> { }));
+    }
+
+    @Test
+    @DisplayName("Should replace an existing file without leaving temporary files behind")
+    void write_ReplacesExistingFile() throws IOException {
+        Path file = tempDir.resolve("catalog.snapshot");
+        CatalogFile.write(file, 1L, List.of(Product.builder().id("1").build()));
+
+        CatalogFile.write(file, 2L, List.of());
+
+        assertEquals(new CatalogFile.Header(2L, 0), CatalogFile.read(file, product -> { }));
+        try (var files = Files.list(tempDir)) {
+            assertEquals(List.of(file), files.toList());
+        }
+    }
+}
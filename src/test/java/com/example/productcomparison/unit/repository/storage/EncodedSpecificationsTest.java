@@ -0,0 +1,109 @@
+package com.example.productcomparison.unit.repository.storage;
+
+import com.example.productcomparison.repository.storage.EncodedSpecifications;
+import com.example.productcomparison.repository.storage.SpecificationDictionary;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("EncodedSpecifications Unit Tests")
+class EncodedSpecificationsTest {
+
+    private SpecificationDictionary dictionary;
+
+    @BeforeEach
+    void setUp() {
+        dictionary = new SpecificationDictionary();
+    }
+
+    @Test
+    @DisplayName("Should behave like the source map, keeping its iteration order")
+    void of_BehavesLikeSourceMap() {
+        Map<String, String> source = new LinkedHashMap<>();
+        source.put("ram", "16GB");
+        source.put("category", "Laptops");
+        source.put("note", null);
+
+        Map<String, String> encoded = EncodedSpecifications.of(source, dictionary);
+
+        assertEquals(source, encoded);
+        assertEquals(source.hashCode(), encoded.hashCode());
+        assertEquals(List.of("ram", "category", "note"), List.copyOf(encoded.keySet()));
+        assertEquals("Laptops", encoded.get("category"));
+        assertTrue(encoded.containsKey("note"));
+        assertNull(encoded.get("storage"));
+        assertNull(encoded.get(42));
+    }
+
+    @Test
+    @DisplayName("Should share one code per distinct key and value across products")
+    void of_SharesCodes() {
+        EncodedSpecifications.of(Map.of("category", "Laptops", "ram", "16GB"), dictionary);
+        EncodedSpecifications.of(Map.of("category", "Laptops", "ram", "8GB"), dictionary);
+
+        assertEquals(5, dictionary.size());
+        assertEquals(dictionary.find("Laptops"), dictionary.encode("Laptops"));
+        assertEquals(SpecificationDictionary.ABSENT, dictionary.find("Tablets"));
+    }
+
+    @Test
+    @DisplayName("Should be immutable and not re-encode an already encoded map")
+    void of_ImmutableAndIdempotent() {
+        EncodedSpecifications encoded = EncodedSpecifications.of(new HashMap<>(Map.of("ram", "16GB")), dictionary);
+
+        assertSame(encoded, EncodedSpecifications.of(encoded, dictionary));
+        assertThrows(UnsupportedOperationException.class, () -> encoded.put("ram", "32GB"));
+    }
+
+    @Test
+    @DisplayName("Should match values ignoring case by comparing codes")
+    void matcher_IgnoresCase() {
+        EncodedSpecifications laptop =
+                EncodedSpecifications.of(Map.of("category", "Laptops", "ram", "16GB"), dictionary);
+        Map<String, String> note = new HashMap<>();
+        note.put("note", null);
+        EncodedSpecifications withNull = EncodedSpecifications.of(note, dictionary);
+
+        assertTrue(EncodedSpecifications.matcher("category", "laptops").test(laptop));
+        assertTrue(EncodedSpecifications.matcher("ram", "16gb").test(laptop));
+        assertFalse(EncodedSpecifications.matcher("ram", "8GB").test(laptop));
+        assertFalse(EncodedSpecifications.matcher("Category", "Laptops").test(laptop));
+        assertFalse(EncodedSpecifications.matcher("note", "x").test(withNull));
+        assertTrue(EncodedSpecifications.matcher("ram", "16gb").test(Map.of("ram", "16GB")));
+        assertFalse(EncodedSpecifications.matcher("ram", "16gb").test(null));
+    }
+
+    @Test
+    @DisplayName("Should start a new generation once most codes are unused, keeping old maps readable")
+    void startGeneration_ReclaimsUnusedCodes() {
+        List<EncodedSpecifications> retained = new ArrayList<>();
+        for (int i = 0; i < 1024; i++) {
+            EncodedSpecifications encoded = EncodedSpecifications.of(Map.of("model", "model-" + i), dictionary);
+            encoded.retain();
+            retained.add(encoded);
+        }
+        assertFalse(dictionary.needsCompaction());
+        for (int i = 0; i < 1000; i++) {
+            retained.get(i).release();
+        }
+        assertEquals(25, dictionary.liveSize());
+        assertTrue(dictionary.needsCompaction());
+
+        dictionary.startGeneration();
+        EncodedSpecifications reencoded = EncodedSpecifications.of(retained.get(1023), dictionary);
+
+        assertEquals(0, dictionary.size());
+        assertEquals("model-0", retained.get(0).get("model"));
+        assertNotSame(retained.get(1023), reencoded);
+        assertEquals(retained.get(1023), reencoded);
+        assertEquals(2, dictionary.size());
+    }
+}
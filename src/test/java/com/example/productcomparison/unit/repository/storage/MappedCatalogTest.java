@@ -0,0 +1,124 @@
+package com.example.productcomparison.unit.repository.storage;
+
+import com.example.productcomparison.model.Product;
+import com.example.productcomparison.repository.storage.CatalogFile;
+import com.example.productcomparison.repository.storage.MappedCatalog;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("MappedCatalog Unit Tests")
+class MappedCatalogTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Should serve products by position and ID from the mapped file")
+    void open_FindsProducts() throws IOException {
+        List<Product> products = products(50);
+        Path file = write(products);
+
+        MappedCatalog catalog = MappedCatalog.open(file, true);
+
+        assertEquals(new CatalogFile.Header(3L, 50), catalog.header());
+        assertEquals(products, catalog.products());
+        assertEquals(products.get(17), catalog.find("p-17"));
+        assertTrue(catalog.contains("p-0"));
+        assertNull(catalog.find("missing"));
+        assertNull(catalog.find(null));
+    }
+
+    @Test
+    @DisplayName("Should split large files into regions at record boundaries")
+    void open_SeveralRegions() throws IOException {
+        List<Product> products = products(200);
+        Path file = write(products);
+
+        MappedCatalog catalog = MappedCatalog.open(file, false, 1024);
+
+        assertTrue(catalog.regionCount() > 1);
+        assertEquals(products, catalog.products());
+        for (Product product : products) {
+            assertEquals(product, catalog.find(product.getId()));
+        }
+    }
+
+    @Test
+    @DisplayName("Should match specifications on dictionary codes")
+    void forEachWithSpecification_MatchesCodes() throws IOException {
+        List<Product> products = products(30);
+        MappedCatalog catalog = MappedCatalog.open(write(products), false);
+
+        List<Product> phones = new ArrayList<>();
+        catalog.forEachWithSpecification("category", "phones"::equalsIgnoreCase, phones::add);
+
+        assertEquals(products.stream().filter(product -> product.getSpecifications() != null
+                && "Phones".equals(product.getSpecifications().get("category"))).toList(), phones);
+        assertEquals(List.of("Laptops", "Phones"), catalog.specificationValues("category"));
+        assertEquals(List.of(), catalog.specificationValues("weight"));
+    }
+
+    @Test
+    @DisplayName("Should decode only the products that pass the numeric filter")
+    void forEachMatching_FiltersEncodedValues() throws IOException {
+        List<Product> products = products(30);
+        MappedCatalog catalog = MappedCatalog.open(write(products), false);
+
+        List<Product> cheap = new ArrayList<>();
+        catalog.forEachMatching((price, rating) -> price < 10.0, cheap::add);
+
+        assertEquals(products.subList(0, 10), cheap);
+    }
+
+    @Test
+    @DisplayName("Should reject a file that is not a catalog file")
+    void open_NotACatalogFile() throws IOException {
+        Path file = tempDir.resolve("catalog.snapshot");
+        Files.write(file, new byte[64]);
+
+        IOException exception = assertThrows(IOException.class, () -> MappedCatalog.open(file, false));
+        assertTrue(exception.getMessage().contains("Not a catalog file"));
+    }
+
+    @Test
+    @DisplayName("Should reject a truncated file")
+    void open_Truncated() throws IOException {
+        Path file = write(products(10));
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 40));
+
+        assertThrows(IOException.class, () -> MappedCatalog.open(file, false));
+    }
+
+    private Path write(List<Product> products) throws IOException {
+        Path file = tempDir.resolve("catalog.snapshot");
+        CatalogFile.write(file, 3L, products);
+        return file;
+    }
+
+    private static List<Product> products(int count) {
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            products.add(Product.builder()
+                    .id("p-" + i)
+                    .name("Product " + i)
+                    .description(i % 2 == 0 ? "Description " + i : null)
+                    .price(i)
+                    .rating(i % 5)
+                    .specifications(i % 7 == 0 ? null : Map.of("category", i % 3 == 0 ? "Phones" : "Laptops"))
+                    .build());
+        }
+        return products;
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.productcomparison.unit.repository.storage;
+
+import com.example.productcomparison.model.Product;
+import com.example.productcomparison.repository.storage.OffHeapProductStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("OffHeapProductStore Unit Tests")
+class OffHeapProductStoreTest {
+
+    private OffHeapProductStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new OffHeapProductStore(256);
+    }
+
+    @Test
+    @DisplayName("Should store, replace and remove products by ID")
+    void putGetRemove() {
+        store.put(product("1", 10.0, 4.0));
+        store.put(product("2", 20.0, 3.0));
+        store.put(product("1", 15.0, 4.5));
+
+        assertEquals(2, store.size());
+        assertEquals(15.0, store.get("1").getPrice());
+        assertTrue(store.contains("2"));
+
+        assertTrue(store.remove("2"));
+        assertFalse(store.remove("2"));
+        assertFalse(store.contains("2"));
+        assertNull(store.get("2"));
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    @DisplayName("Should decode only the records that pass the numeric filter, in storage order")
+    void forEachMatching_FiltersBeforeDecoding() {
+        store.put(product("1", 10.0, 4.0));
+        store.put(product("2", 20.0, 3.0));
+        store.put(product("3", 30.0, 5.0));
+
+        List<String> ids = new ArrayList<>();
+        store.forEachMatching((price, rating) -> price >= 15.0, product -> ids.add(product.getId()));
+
+        assertEquals(List.of("2", "3"), ids);
+    }
+
+    @Test
+    @DisplayName("Should give records larger than a segment a segment of their own")
+    void put_OversizedRecord() {
+        Product large = product("big", 1.0, 1.0).toBuilder().description("x".repeat(1000)).build();
+
+        store.put(large);
+
+        assertEquals(large, store.get("big"));
+        assertTrue(store.reservedBytes() >= 1000);
+    }
+
+    @Test
+    @DisplayName("Should reclaim dead records by compacting and stay consistent under random writes")
+    void randomWrites_MatchReferenceMap() {
+        Map<String, Product> reference = new HashMap<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 20_000; i++) {
+            String id = "p" + random.nextInt(500);
+            if (random.nextInt(3) < 2) {
+                Product product = product(id, random.nextInt(1000), random.nextInt(6));
+                store.put(product);
+                reference.put(id, product);
+            } else {
+                assertEquals(reference.remove(id) != null, store.remove(id));
+            }
+        }
+
+        assertEquals(reference.size(), store.size());
+        reference.forEach((id, product) -> assertEquals(product, store.get(id)));
+        List<Product> scanned = new ArrayList<>();
+        store.forEach(scanned::add);
+        assertEquals(reference.size(), scanned.size());
+        assertTrue(store.deadBytes() <= Math.max(256, store.liveBytes()));
+    }
+
+    @Test
+    @DisplayName("Should reuse the segments emptied by a compaction for later writes")
+    void compact_ReusesSegments() {
+        for (int i = 0; i < 30; i++) {
+            store.put(product("p" + i, i, 4.0));
+        }
+        for (int i = 3; i < 30; i++) {
+            store.remove("p" + i);
+        }
+        store.compact();
+        long reserved = store.reservedBytes();
+
+        for (int i = 30; i < 33; i++) {
+            store.put(product("p" + i, i, 4.0));
+        }
+
+        assertEquals(reserved, store.reservedBytes());
+        assertEquals(6, store.size());
+        assertEquals(30.0, store.get("p30").getPrice());
+        assertEquals(2.0, store.get("p2").getPrice());
+    }
+
+    @Test
+    @DisplayName("Should reject segments too small to hold a record header")
+    void constructor_RejectsTinySegments() {
+        assertThrows(IllegalArgumentException.class, () -> new OffHeapProductStore(4));
+    }
+
+    private Product product(String id, double price, double rating) {
+        return Product.builder()
+                .id(id)
+                .name("Product " + id)
+                .price(price)
+                .rating(rating)
+                .specifications(Map.of("category", "Laptops"))
+                .build();
+    }
+}
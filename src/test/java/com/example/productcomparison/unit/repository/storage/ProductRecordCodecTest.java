@@ -0,0 +1,64 @@
+package com.example.productcomparison.unit.repository.storage;
+
+import com.example.productcomparison.model.Product;
+import com.example.productcomparison.repository.storage.ProductRecordCodec;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("ProductRecordCodec Unit Tests")
+class ProductRecordCodecTest {
+
+    @Test
+    @DisplayName("Should round-trip every product field, keeping specification order")
+    void encodeDecode_RoundTrip() {
+        Map<String, String> specifications = new LinkedHashMap<>();
+        specifications.put("category", "Cámaras");
+        specifications.put("resolution", "24MP");
+        Product product = Product.builder()
+                .id("42")
+                .name("Cámara réflex")
+                .imageUrl("https://example.com/42.png")
+                .description("Full frame")
+                .price(1299.99)
+                .rating(4.7)
+                .specifications(specifications)
+                .build();
+
+        Product decoded = ProductRecordCodec.decode(ByteBuffer.wrap(ProductRecordCodec.encode(product)));
+
+        assertEquals(product, decoded);
+        assertEquals(List.of("category", "resolution"), List.copyOf(decoded.getSpecifications().keySet()));
+    }
+
+    @Test
+    @DisplayName("Should keep null fields and a null specification map")
+    void encodeDecode_Nulls() {
+        Product product = Product.builder().id("1").price(10.0).rating(3.0).build();
+
+        Product decoded = ProductRecordCodec.decode(ByteBuffer.wrap(ProductRecordCodec.encode(product)));
+
+        assertEquals(product, decoded);
+        assertNull(decoded.getName());
+        assertNull(decoded.getSpecifications());
+    }
+
+    @Test
+    @DisplayName("Should read the ID, price and rating without decoding the record")
+    void readHeaderFields() {
+        byte[] record = ProductRecordCodec.encode(Product.builder().id("abc").name("Mouse").price(25.5).rating(4.1).build());
+        ByteBuffer buffer = ByteBuffer.allocate(record.length + 8);
+        buffer.position(8);
+        buffer.put(record);
+
+        assertEquals(25.5, ProductRecordCodec.priceAt(buffer, 8));
+        assertEquals(4.1, ProductRecordCodec.ratingAt(buffer, 8));
+        assertEquals("abc", ProductRecordCodec.readId(ByteBuffer.wrap(record)));
+    }
+}
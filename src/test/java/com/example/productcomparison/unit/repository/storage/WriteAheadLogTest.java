@@ -0,0 +1,256 @@
+package com.example.productcomparison.unit.repository.storage;
+
+import com.example.productcomparison.exception.repository.ProductDataAccessException;
+import com.example.productcomparison.model.Product;
+import com.example.productcomparison.repository.storage.WriteAheadLog;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("WriteAheadLog Unit Tests")
+class WriteAheadLogTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Should replay appended entries in order after a restart")
+    void appendReplay_RoundTrip() {
+        Product product = Product.builder().id("1").name("Laptop").price(999.0).rating(4.5)
+                .specifications(Map.of("category", "Laptops")).build();
+        WriteAheadLog writeAheadLog = writeAheadLog(WriteAheadLog.Durability.BATCH);
+        writeAheadLog.replay(new Recorder());
+        writeAheadLog.open();
+        writeAheadLog.awaitDurable(writeAheadLog.appendPut(product));
+        writeAheadLog.awaitDurable(writeAheadLog.appendDelete("2"));
+        writeAheadLog.close();
+
+        Recorder recorder = new Recorder();
+        WriteAheadLog restarted = writeAheadLog(WriteAheadLog.Durability.BATCH);
+
+        assertEquals(2, restarted.replay(recorder));
+        assertEquals(List.of("put:1", "delete:2"), recorder.entries);
+        assertEquals(product, recorder.products.get(0));
+        assertEquals(2, restarted.lastSequence());
+    }
+
+    @Test
+    @DisplayName("Should number entries across restarts and replay every file")
+    void replay_SeveralFiles() {
+        for (int start = 0; start < 3; start++) {
+            WriteAheadLog writeAheadLog = writeAheadLog(WriteAheadLog.Durability.BATCH);
+            writeAheadLog.replay(new Recorder());
+            writeAheadLog.open();
+            writeAheadLog.awaitDurable(writeAheadLog.appendDelete("id-" + start));
+            writeAheadLog.close();
+        }
+
+        Recorder recorder = new Recorder();
+        writeAheadLog(WriteAheadLog.Durability.BATCH).replay(recorder);
+
+        assertEquals(List.of("delete:id-0", "delete:id-1", "delete:id-2"), recorder.entries);
+    }
+
+    @Test
+    @DisplayName("Should cut off a torn entry at the end of the log and keep appending after it")
+    void replay_TornEntry() throws IOException {
+        WriteAheadLog writeAheadLog = writeAheadLog(WriteAheadLog.Durability.BATCH);
+        writeAheadLog.open();
+        writeAheadLog.awaitDurable(writeAheadLog.appendDelete("1"));
+        writeAheadLog.close();
+        Path file = logFiles().get(0);
+        long intactSize = Files.size(file);
+        Files.write(file, new byte[]{0, 0, 0, 40, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        Recorder recorder = new Recorder();
+        WriteAheadLog restarted = writeAheadLog(WriteAheadLog.Durability.BATCH);
+        restarted.replay(recorder);
+        restarted.open();
+        restarted.awaitDurable(restarted.appendDelete("2"));
+        restarted.close();
+
+        assertEquals(List.of("delete:1"), recorder.entries);
+        assertEquals(intactSize, Files.size(file));
+        Recorder afterRestart = new Recorder();
+        writeAheadLog(WriteAheadLog.Durability.BATCH).replay(afterRestart);
+        assertEquals(List.of("delete:1", "delete:2"), afterRestart.entries);
+    }
+
+    @Test
+    @DisplayName("Should fail the replay and keep the file when an entry is damaged before the newest file")
+    void replay_DamagedOlderFile() throws IOException {
+        WriteAheadLog writeAheadLog = writeAheadLog(WriteAheadLog.Durability.BATCH);
+        writeAheadLog.open();
+        writeAheadLog.awaitDurable(writeAheadLog.appendDelete("1"));
+        writeAheadLog.awaitDurable(writeAheadLog.appendDelete("2"));
+        writeAheadLog.roll();
+        writeAheadLog.awaitDurable(writeAheadLog.appendDelete("3"));
+        writeAheadLog.close();
+        Path first = logFiles().get(0);
+        byte[] content = Files.readAllBytes(first);
+        // Flip a bit in the last byte of the first entry's payload, so that its checksum no longer matches.
+        int firstEntryEnd = content.length / 2;
+        content[firstEntryEnd - 1] ^= 1;
+        Files.write(first, content);
+
+        WriteAheadLog restarted = writeAheadLog(WriteAheadLog.Durability.BATCH);
+
+        assertThrows(ProductDataAccessException.class, () -> restarted.replay(new Recorder()));
+        assertArrayEquals(content, Files.readAllBytes(first));
+        assertEquals(2, logFiles().size());
+    }
+
+    @Test
+    @DisplayName("Should fail the replay when a log file does not continue the previous one")
+    void replay_GapBetweenFiles() throws IOException {
+        WriteAheadLog writeAheadLog = writeAheadLog(WriteAheadLog.Durability.BATCH);
+        writeAheadLog.open();
+        writeAheadLog.awaitDurable(writeAheadLog.appendDelete("1"));
+        writeAheadLog.roll();
+        writeAheadLog.awaitDurable(writeAheadLog.appendDelete("2"));
+        writeAheadLog.roll();
+        writeAheadLog.awaitDurable(writeAheadLog.appendDelete("3"));
+        writeAheadLog.close();
+        Files.delete(logFiles().get(1));
+
+        WriteAheadLog restarted = writeAheadLog(WriteAheadLog.Durability.BATCH);
+
+        assertThrows(ProductDataAccessException.class, () -> restarted.replay(new Recorder()));
+    }
+
+    @Test
+    @DisplayName("Should make every concurrent write durable without losing or reordering entries")
+    void append_ConcurrentWriters() throws Exception {
+        WriteAheadLog writeAheadLog = writeAheadLog(WriteAheadLog.Durability.BATCH);
+        writeAheadLog.open();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int writer = 0; writer < 8; writer++) {
+                int id = writer;
+                writers.add(executor.submit(() -> {
+                    for (int i = 0; i < 50; i++) {
+                        writeAheadLog.awaitDurable(writeAheadLog.appendDelete(id + "-" + i));
+                    }
+                }));
+            }
+            for (Future<?> writer : writers) {
+                writer.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        writeAheadLog.close();
+
+        Recorder recorder = new Recorder();
+        assertEquals(400, writeAheadLog(WriteAheadLog.Durability.BATCH).replay(recorder));
+        assertEquals(400, recorder.entries.stream().distinct().count());
+    }
+
+    @Test
+    @DisplayName("Should write every entry on close when flushing on an interval")
+    void close_FlushesIntervalMode() {
+        WriteAheadLog writeAheadLog = writeAheadLog(WriteAheadLog.Durability.INTERVAL);
+        ReflectionTestUtils.setField(writeAheadLog, "flushIntervalMs", 60_000L);
+        writeAheadLog.open();
+        long sequence = writeAheadLog.appendDelete("1");
+        writeAheadLog.awaitDurable(sequence);
+        writeAheadLog.close();
+
+        Recorder recorder = new Recorder();
+        writeAheadLog(WriteAheadLog.Durability.INTERVAL).replay(recorder);
+
+        assertEquals(List.of("delete:1"), recorder.entries);
+    }
+
+    @Test
+    @DisplayName("Should roll to a new file and drop the files before it")
+    void roll_DeleteBefore() throws IOException {
+        WriteAheadLog writeAheadLog = writeAheadLog(WriteAheadLog.Durability.BATCH);
+        writeAheadLog.open();
+        writeAheadLog.awaitDurable(writeAheadLog.appendDelete("1"));
+        writeAheadLog.awaitDurable(writeAheadLog.appendDelete("2"));
+
+        long boundary = writeAheadLog.roll();
+        assertEquals(boundary, writeAheadLog.roll(), "Rolling an empty file keeps it");
+        writeAheadLog.awaitDurable(writeAheadLog.appendDelete("3"));
+
+        assertEquals(3, boundary);
+        assertEquals(2, logFiles().size());
+        assertEquals(1, writeAheadLog.deleteBefore(boundary));
+        writeAheadLog.close();
+
+        Recorder recorder = new Recorder();
+        WriteAheadLog restarted = writeAheadLog(WriteAheadLog.Durability.BATCH);
+        assertEquals(1, restarted.replay(recorder));
+        assertEquals(List.of("delete:3"), recorder.entries);
+        assertEquals(3, restarted.lastSequence());
+    }
+
+    @Test
+    @DisplayName("Should reject appends when the log is not open")
+    void append_NotOpen() {
+        WriteAheadLog writeAheadLog = writeAheadLog(WriteAheadLog.Durability.BATCH);
+
+        assertThrows(ProductDataAccessException.class, () -> writeAheadLog.appendDelete("1"));
+    }
+
+    @Test
+    @DisplayName("Should do nothing without a configured directory")
+    void disabled_NoOp() {
+        WriteAheadLog writeAheadLog = new WriteAheadLog();
+
+        writeAheadLog.open();
+        long sequence = writeAheadLog.appendDelete("1");
+        writeAheadLog.awaitDurable(sequence);
+
+        assertFalse(writeAheadLog.isEnabled());
+        assertEquals(0, writeAheadLog.replay(new Recorder()));
+        writeAheadLog.close();
+    }
+
+    private WriteAheadLog writeAheadLog(WriteAheadLog.Durability durability) {
+        WriteAheadLog writeAheadLog = new WriteAheadLog();
+        ReflectionTestUtils.setField(writeAheadLog, "directory", tempDir.toString());
+        ReflectionTestUtils.setField(writeAheadLog, "durability", durability);
+        return writeAheadLog;
+    }
+
+    private List<Path> logFiles() throws IOException {
+        try (Stream<Path> files = Files.list(tempDir)) {
+            return files.sorted().toList();
+        }
+    }
+
+    private static class Recorder implements WriteAheadLog.MutationHandler {
+
+        private final List<String> entries = new ArrayList<>();
+        private final List<Product> products = new ArrayList<>();
+
+        @Override
+        public void put(Product product) {
+            entries.add("put:" + product.getId());
+            products.add(product);
+        }
+
+        @Override
+        public void delete(String id) {
+            entries.add("delete:" + id);
+        }
+    }
+}
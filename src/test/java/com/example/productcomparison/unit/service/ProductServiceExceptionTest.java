@@ -6,9 +6,12 @@ import com.example.productcomparison.exception.service.InvalidPriceRangeExceptio
 import com.example.productcomparison.exception.service.InvalidRatingException;
 import com.example.productcomparison.exception.service.ProductNotFoundException;
 import com.example.productcomparison.model.Product;
+import com.example.productcomparison.repository.CatalogPartition;
 import com.example.productcomparison.repository.IProductRepository;
 import com.example.productcomparison.service.AIProductGenerator;
 import com.example.productcomparison.service.ProductService;
+import com.example.productcomparison.service.QueryResultCache;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -18,9 +21,11 @@ import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
@@ -34,9 +39,21 @@ class ProductServiceExceptionTest {
     @Mock
     private AIProductGenerator aiProductGenerator;
 
+    @Mock
+    private QueryResultCache queryResultCache;
+
+    @Mock
+    private CatalogPartition catalogPartition;
+
     @InjectMocks
     private ProductService productService;
 
+    @BeforeEach
+    void setUp() {
+        lenient().when(queryResultCache.get(anyString(), anyList(), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(2).get());
+    }
+
     private Product createValidProduct(String id, String name, double price, double rating) {
         return Product.builder()
                 .id(id)
@@ -1,13 +1,18 @@
 package com.example.productcomparison.unit.service;
 
 import com.example.productcomparison.exception.service.CategoryNotFoundException;
+import com.example.productcomparison.exception.service.CategoryNotOwnedException;
 import com.example.productcomparison.exception.service.InvalidParameterException;
 import com.example.productcomparison.exception.service.InvalidRatingException;
 import com.example.productcomparison.exception.service.ProductNotFoundException;
+import com.example.productcomparison.model.MutationResult;
 import com.example.productcomparison.model.Product;
+import com.example.productcomparison.model.ProductMutation;
+import com.example.productcomparison.repository.CatalogPartition;
 import com.example.productcomparison.repository.IProductRepository;
 import com.example.productcomparison.service.AIProductGenerator;
 import com.example.productcomparison.service.ProductService;
+import com.example.productcomparison.service.QueryResultCache;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -20,9 +25,12 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -35,6 +43,12 @@ class ProductServiceTest {
     @Mock
     private AIProductGenerator aiProductGenerator;
 
+    @Mock
+    private QueryResultCache queryResultCache;
+
+    @Mock
+    private CatalogPartition catalogPartition;
+
     @InjectMocks
     private ProductService productService;
 
@@ -43,6 +57,8 @@ class ProductServiceTest {
 
     @BeforeEach
     void setUp() {
+        lenient().when(queryResultCache.get(anyString(), anyList(), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(2).get());
         product1 = Product.builder().id("1").name("Laptop Pro").price(1200.0).rating(4.5).specifications(Map.of("category", "Laptops")).build();
         product2 = Product.builder().id("2").name("Gaming Mouse").price(75.0).rating(4.8).specifications(Map.of("category", "Mice")).build();
     }
@@ -149,6 +165,65 @@ class ProductServiceTest {
         assertThrows(InvalidParameterException.class, () -> productService.deleteProduct(" "));
     }
 
+    @Test
+    @DisplayName("applyBatch should pass the batch to the repository")
+    void applyBatch_ValidBatch_AppliesMutations() {
+        ProductMutation delete = ProductMutation.builder().op(ProductMutation.Operation.DELETE).id("1").build();
+        List<MutationResult> results = List.of(MutationResult.applied(0, delete));
+        when(productRepository.applyBatch(List.of(delete))).thenReturn(results);
+
+        assertEquals(results, productService.applyBatch(List.of(delete)));
+    }
+
+    @Test
+    @DisplayName("createProduct should refuse a product of a category another catalog node owns")
+    void createProduct_CategoryNotOwned_ThrowsException() {
+        doThrow(new CategoryNotOwnedException("Laptops", 0, 1)).when(catalogPartition).requireOwned(product1);
+
+        assertThrows(CategoryNotOwnedException.class, () -> productService.createProduct(product1));
+        verify(productRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("applyBatch on a catalog node should only pass the items of its own categories to the repository")
+    void applyBatch_CatalogNode_FailsItemsOfOtherCategories() {
+        ProductMutation foreign = ProductMutation.builder().op(ProductMutation.Operation.CREATE).product(product1).build();
+        ProductMutation owned = ProductMutation.builder().op(ProductMutation.Operation.CREATE).product(product2).build();
+        when(catalogPartition.isNode()).thenReturn(true);
+        doThrow(new CategoryNotOwnedException("Laptops", 0, 1)).when(catalogPartition).requireOwned(product1);
+        when(productRepository.applyBatch(List.of(owned))).thenReturn(List.of(MutationResult.applied(0, owned)));
+
+        List<MutationResult> results = productService.applyBatch(List.of(foreign, owned));
+
+        assertFalse(results.get(0).isApplied());
+        assertEquals("CATEGORY_NOT_OWNED", results.get(0).getErrorCode());
+        assertTrue(results.get(1).isApplied());
+        assertEquals(1, results.get(1).getIndex());
+    }
+
+    @Test
+    @DisplayName("applyBatch should reject empty and oversized batches")
+    void applyBatch_InvalidSize_ThrowsException() {
+        List<ProductMutation> oversized = Collections.nCopies(10_001,
+                ProductMutation.builder().op(ProductMutation.Operation.DELETE).id("1").build());
+
+        assertThrows(InvalidParameterException.class, () -> productService.applyBatch(List.of()));
+        assertThrows(InvalidParameterException.class, () -> productService.applyBatch(oversized));
+        verifyNoInteractions(productRepository);
+    }
+
+    @Test
+    @DisplayName("findExistingIds should keep the IDs the repository holds, in request order")
+    void findExistingIds_FiltersMissingIds() {
+        when(productRepository.findById("2")).thenReturn(Optional.of(product2));
+        when(productRepository.findById("3")).thenReturn(Optional.empty());
+        when(productRepository.findById("1")).thenReturn(Optional.of(product1));
+
+        assertEquals(List.of("2", "1"), productService.findExistingIds(List.of("2", "3", "1")));
+        assertThrows(InvalidParameterException.class,
+                () -> productService.findExistingIds(Collections.nCopies(10_001, "1")));
+    }
+
     @Test
     @DisplayName("searchByName should throw exception for empty query")
     void searchByName_EmptyQuery_ThrowsException() {
@@ -158,10 +233,96 @@ class ProductServiceTest {
     @Test
     @DisplayName("filterByCategory should throw exception for non-existent category")
     void filterByCategory_NonExistentCategory_ThrowsException() {
-        when(productRepository.findAll()).thenReturn(List.of(product1));
+        when(productRepository.findByCategory("Unknown")).thenReturn(List.of());
         assertThrows(CategoryNotFoundException.class, () -> productService.filterByCategory("Unknown"));
     }
 
+    @Test
+    @DisplayName("filterByCategory should return the products from the category lookup")
+    void filterByCategory_ExistingCategory_ReturnsProducts() {
+        when(productRepository.findByCategory("laptops")).thenReturn(List.of(product1));
+
+        List<Product> result = productService.filterByCategory("laptops");
+
+        assertEquals(List.of(product1), result);
+        verify(productRepository, never()).findAll();
+    }
+
+    @Test
+    @DisplayName("getAllCategories should delegate to the repository category lookup")
+    void getAllCategories_DelegatesToRepository() {
+        when(productRepository.findAllCategories()).thenReturn(List.of("Laptops", "Mice"));
+
+        assertEquals(List.of("Laptops", "Mice"), productService.getAllCategories());
+        verify(productRepository, never()).findAll();
+    }
+
+    @Test
+    @DisplayName("filterByPriceRange should use the repository price range lookup")
+    void filterByPriceRange_UsesPriceRangeLookup() {
+        when(productRepository.findByPriceRange(50.0, 100.0)).thenReturn(List.of(product2));
+
+        List<Product> result = productService.filterByPriceRange(50.0, 100.0);
+
+        assertEquals(List.of(product2), result);
+        verify(productRepository, never()).findAll();
+    }
+
+    @Test
+    @DisplayName("sortByPrice should return the repository price ordering")
+    void sortByPrice_UsesPriceOrdering() {
+        when(productRepository.findAllOrderedByPrice(false)).thenReturn(List.of(product1, product2));
+
+        List<Product> result = productService.sortByPrice(false);
+
+        assertEquals(List.of(product1, product2), result);
+        verify(productRepository, never()).findAll();
+    }
+
+    @Test
+    @DisplayName("getTopRatedProducts should read the top of the rating ordering")
+    void getTopRatedProducts_UsesTopRatedLookup() {
+        when(productRepository.findTopRated(1)).thenReturn(List.of(product2));
+
+        List<Product> result = productService.getTopRatedProducts(1);
+
+        assertEquals(List.of(product2), result);
+        verify(productRepository, never()).findAll();
+    }
+
+    @Test
+    @DisplayName("filterByRating should use the repository minimum rating lookup")
+    void filterByRating_UsesMinRatingLookup() {
+        when(productRepository.findByMinRating(4.6)).thenReturn(List.of(product2));
+
+        List<Product> result = productService.filterByRating(4.6);
+
+        assertEquals(List.of(product2), result);
+        verify(productRepository, never()).findAll();
+    }
+
+    @Test
+    @DisplayName("findBySpecification should use the repository specification lookup")
+    void findBySpecification_UsesSpecificationLookup() {
+        when(productRepository.findBySpecification("category", "mice")).thenReturn(List.of(product2));
+
+        List<Product> result = productService.findBySpecification("category", "mice");
+
+        assertEquals(List.of(product2), result);
+        verify(productRepository, never()).findAll();
+    }
+
+    @Test
+    @DisplayName("searchByName should use the repository name search")
+    void searchByName_UsesNameSearch() {
+        when(productRepository.findByNameContaining("Pro")).thenReturn(List.of(product1));
+
+        List<Product> result = productService.searchByName("Pro");
+
+        assertEquals(List.of(product1), result);
+        verify(productRepository, never()).findAll();
+    }
+
     @Test
     @DisplayName("compareProducts should throw exception for empty ID list")
     void compareProducts_EmptyList_ThrowsException() {
@@ -0,0 +1,203 @@
+package com.example.productcomparison.unit.service;
+
+import com.example.productcomparison.exception.service.InvalidParameterException;
+import com.example.productcomparison.exception.service.InvalidPriceRangeException;
+import com.example.productcomparison.exception.service.InvalidRatingException;
+import com.example.productcomparison.model.Product;
+import com.example.productcomparison.model.ProductQuery;
+import com.example.productcomparison.model.ProductQueryResult;
+import com.example.productcomparison.model.QueryPlan;
+import com.example.productcomparison.repository.CatalogSnapshot;
+import com.example.productcomparison.repository.IProductRepository;
+import com.example.productcomparison.service.QueryPlanner;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("QueryPlanner Unit Tests")
+class QueryPlannerTest {
+
+    @Mock
+    private IProductRepository productRepository;
+
+    private QueryPlanner queryPlanner;
+
+    private List<Product> catalog;
+    private Product phone;
+
+    @BeforeEach
+    void setUp() {
+        catalog = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            catalog.add(Product.builder().id("laptop-" + i).name("Laptop " + i).price(500.0 + i * 50)
+                    .rating(3.0 + (i % 5) * 0.4).specifications(Map.of("category", "Laptops")).build());
+        }
+        phone = Product.builder().id("phone-1").name("Phone").price(700.0).rating(4.6)
+                .specifications(Map.of("category", "Phones", "storage", "256GB")).build();
+        catalog.add(phone);
+
+        lenient().when(productRepository.snapshot()).thenReturn(new CatalogSnapshot(7L, List.copyOf(catalog)));
+        lenient().when(productRepository.catalogVersion()).thenReturn(7L);
+        queryPlanner = new QueryPlanner(productRepository, 1000);
+    }
+
+    @Test
+    @DisplayName("Should read the most selective index and check the other predicates on its candidates")
+    void execute_UsesMostSelectivePredicate() {
+        // Arrange
+        when(productRepository.findByCategory("phones")).thenReturn(List.of(phone));
+        ProductQuery query = ProductQuery.builder().category("phones").minPrice(600.0).maxPrice(800.0).build();
+
+        // Act
+        ProductQueryResult result = queryPlanner.execute(query, false);
+
+        // Assert
+        assertEquals(List.of(phone), result.getProducts());
+        assertEquals(1, result.getCount());
+        assertNull(result.getPlan());
+        verify(productRepository, never()).findByPriceRange(anyDouble(), anyDouble());
+        verify(productRepository, never()).findAll();
+    }
+
+    @Test
+    @DisplayName("Should filter out candidates failing the remaining predicates")
+    void execute_ChecksRemainingPredicates() {
+        // Arrange
+        when(productRepository.findByCategory("Phones")).thenReturn(List.of(phone));
+        ProductQuery query = ProductQuery.builder().category("Phones").maxPrice(600.0).build();
+
+        // Act
+        ProductQueryResult result = queryPlanner.execute(query, false);
+
+        // Assert
+        assertTrue(result.getProducts().isEmpty());
+        assertEquals(0, result.getCount());
+    }
+
+    @Test
+    @DisplayName("Should take the price order of a price range and stop reading at the limit")
+    void execute_OrderedAccessPathStopsAtLimit() {
+        // Arrange
+        List<Product> byPrice = catalog.stream()
+                .filter(product -> product.getPrice() <= 650.0)
+                .sorted(Comparator.comparingDouble(Product::getPrice))
+                .toList();
+        when(productRepository.findByPriceRange(0.0, 650.0)).thenReturn(byPrice);
+        ProductQuery query = ProductQuery.builder().maxPrice(650.0).sort(ProductQuery.Sort.PRICE)
+                .ascending(true).limit(2).build();
+
+        // Act
+        ProductQueryResult result = queryPlanner.execute(query, true);
+
+        // Assert
+        assertEquals(List.of("laptop-0", "laptop-1"), result.getProducts().stream().map(Product::getId).toList());
+        QueryPlan plan = result.getPlan();
+        assertTrue(plan.getAccessPath().startsWith("PRICE_RANGE"));
+        assertEquals("price asc, from the access path", plan.getOrder());
+        assertEquals(2L, plan.getExaminedRows());
+    }
+
+    @Test
+    @DisplayName("Should answer a plain top-N by rating from the top rated products")
+    void execute_TopRated() {
+        // Arrange
+        List<Product> top = catalog.stream()
+                .sorted(Comparator.comparingDouble(Product::getRating).reversed())
+                .limit(3)
+                .toList();
+        when(productRepository.findTopRated(3)).thenReturn(top);
+        ProductQuery query = ProductQuery.builder().sort(ProductQuery.Sort.RATING).ascending(false).limit(3).build();
+
+        // Act
+        ProductQueryResult result = queryPlanner.execute(query, true);
+
+        // Assert
+        assertEquals(top, result.getProducts());
+        assertEquals("TOP_RATED", result.getPlan().getAccessPath());
+        verify(productRepository, never()).findAll();
+    }
+
+    @Test
+    @DisplayName("Should explain the chosen plan with every alternative, cheapest first")
+    void execute_Explain() {
+        // Arrange
+        when(productRepository.findBySpecification("storage", "256gb")).thenReturn(List.of(phone));
+        ProductQuery query = ProductQuery.builder().specifications(Map.of("storage", "256gb")).minRating(3.0)
+                .sort(ProductQuery.Sort.RATING).ascending(false).build();
+
+        // Act
+        QueryPlan plan = queryPlanner.execute(query, true).getPlan();
+
+        // Assert
+        assertEquals("SPECIFICATION (storage = 256gb)", plan.getAccessPath());
+        assertEquals(1L, plan.getEstimatedRows());
+        assertEquals(List.of("rating at least 3.0"), plan.getFilters());
+        assertEquals(7L, plan.getStatisticsVersion());
+        assertEquals(List.of("SPECIFICATION", "MIN_RATING", "FULL_SCAN"),
+                plan.getAlternatives().stream().map(QueryPlan.Alternative::getAccessPath).toList());
+        assertEquals(plan.getEstimatedCost(), plan.getAlternatives().get(0).getEstimatedCost());
+    }
+
+    @Test
+    @DisplayName("Should reuse the statistics while the catalog version does not change")
+    void execute_ReusesStatistics() {
+        // Arrange
+        when(productRepository.findAll()).thenReturn(catalog);
+        ProductQuery query = ProductQuery.builder().build();
+
+        // Act
+        queryPlanner.execute(query, false);
+        queryPlanner.execute(query, false);
+
+        // Assert
+        verify(productRepository, times(1)).snapshot();
+    }
+
+    @Test
+    @DisplayName("Should plan with the stale statistics while new ones are computed in the background")
+    void execute_RefreshesStatisticsInBackground() {
+        // Arrange
+        QueryPlanner planner = new QueryPlanner(productRepository, 0);
+        when(productRepository.findAll()).thenReturn(catalog);
+        ProductQuery query = ProductQuery.builder().build();
+        assertEquals(7L, planner.execute(query, true).getPlan().getStatisticsVersion());
+        when(productRepository.snapshot()).thenReturn(new CatalogSnapshot(8L, List.copyOf(catalog)));
+        when(productRepository.catalogVersion()).thenReturn(8L);
+
+        // Act
+        QueryPlan stale = planner.execute(query, true).getPlan();
+
+        // Assert
+        assertEquals(7L, stale.getStatisticsVersion());
+        verify(productRepository, timeout(5000).times(2)).snapshot();
+        planner.stop();
+    }
+
+    @Test
+    @DisplayName("Should reject invalid ranges, ratings, texts and limits")
+    void execute_InvalidQuery() {
+        // Act & Assert
+        assertThrows(InvalidPriceRangeException.class, () ->
+                queryPlanner.execute(ProductQuery.builder().minPrice(900.0).maxPrice(100.0).build(), false));
+        assertThrows(InvalidRatingException.class, () ->
+                queryPlanner.execute(ProductQuery.builder().minRating(5.5).build(), false));
+        assertThrows(InvalidParameterException.class, () ->
+                queryPlanner.execute(ProductQuery.builder().name(" ").build(), false));
+        assertThrows(InvalidParameterException.class, () ->
+                queryPlanner.execute(ProductQuery.builder().limit(0).build(), false));
+        verify(productRepository, never()).snapshot();
+    }
+}
@@ -0,0 +1,203 @@
+package com.example.productcomparison.unit.service;
+
+import com.example.productcomparison.model.Product;
+import com.example.productcomparison.model.ProductQueryResult;
+import com.example.productcomparison.repository.IProductRepository;
+import com.example.productcomparison.service.QueryResultCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("QueryResultCache Unit Tests")
+class QueryResultCacheTest {
+
+    @Mock
+    private IProductRepository productRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private QueryResultCache cache;
+
+    private final AtomicInteger runs = new AtomicInteger();
+    private List<Product> laptops;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new QueryResultCache(productRepository, meterRegistry, true, 1000);
+        laptops = List.of(Product.builder().id("1").name("Laptop").price(900.0).rating(4.5).build());
+    }
+
+    private List<Product> findLaptops() {
+        runs.incrementAndGet();
+        return laptops;
+    }
+
+    @Test
+    @DisplayName("Should answer a repeated query from the cache while the catalog does not change")
+    void get_RepeatedQuery_Hit() {
+        // Arrange
+        when(productRepository.catalogVersion()).thenReturn(3L);
+
+        // Act
+        List<Product> first = cache.get("filterByCategory", List.of("laptops"), this::findLaptops);
+        List<Product> second = cache.get("filterByCategory", List.of("laptops"), this::findLaptops);
+
+        // Assert
+        assertSame(laptops, first);
+        assertSame(laptops, second);
+        assertEquals(1, runs.get());
+        assertEquals(1.0, meterRegistry.get("catalog.query-cache.requests").tag("result", "hit").counter().count());
+        assertEquals(1.0, meterRegistry.get("catalog.query-cache.requests").tag("result", "miss").counter().count());
+        assertEquals(0.5, cache.hitRatio());
+        assertEquals(0.5, meterRegistry.get("catalog.query-cache.hit-ratio").gauge().value());
+    }
+
+    @Test
+    @DisplayName("Should keep queries with different methods or parameters apart")
+    void get_DifferentQueries_Miss() {
+        // Arrange
+        when(productRepository.catalogVersion()).thenReturn(3L);
+
+        // Act
+        cache.get("filterByCategory", List.of("laptops"), this::findLaptops);
+        cache.get("filterByCategory", List.of("phones"), this::findLaptops);
+        cache.get("searchByName", List.of("laptops"), this::findLaptops);
+
+        // Assert
+        assertEquals(3, runs.get());
+        assertEquals(3, cache.size());
+    }
+
+    @Test
+    @DisplayName("Should run the query again after a write changed the catalog version")
+    void get_AfterWrite_Miss() {
+        // Arrange
+        when(productRepository.catalogVersion()).thenReturn(3L, 4L, 4L);
+
+        // Act
+        cache.get("sortByPrice", List.of(true), this::findLaptops);
+        cache.get("sortByPrice", List.of(true), this::findLaptops);
+        cache.get("sortByPrice", List.of(true), this::findLaptops);
+
+        // Assert
+        assertEquals(2, runs.get());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    @DisplayName("Should not serve a result computed while a write happened")
+    void get_WriteDuringQuery_NotServed() {
+        // Arrange
+        AtomicLong version = new AtomicLong(3);
+        when(productRepository.catalogVersion()).thenAnswer(invocation -> version.get());
+
+        // Act
+        cache.get("filterByRating", List.of(4.0), () -> {
+            version.incrementAndGet();
+            return findLaptops();
+        });
+        cache.get("filterByRating", List.of(4.0), this::findLaptops);
+        cache.get("filterByRating", List.of(4.0), this::findLaptops);
+
+        // Assert: the first result was tagged with the version read before the query ran
+        assertEquals(2, runs.get());
+    }
+
+    @Test
+    @DisplayName("Should keep the result of the later version when an older query finishes last")
+    void get_OlderResultFinishingLast_KeepsNewer() {
+        // Arrange
+        AtomicLong version = new AtomicLong(3);
+        when(productRepository.catalogVersion()).thenAnswer(invocation -> version.get());
+
+        // Act: a query at version 3 finishes after a write and a query at version 4
+        cache.get("filterByRating", List.of(4.0), () -> {
+            version.incrementAndGet();
+            cache.get("filterByRating", List.of(4.0), this::findLaptops);
+            return findLaptops();
+        });
+        cache.get("filterByRating", List.of(4.0), this::findLaptops);
+
+        // Assert
+        assertEquals(2, runs.get());
+        assertEquals(1.0, meterRegistry.get("catalog.query-cache.requests").tag("result", "hit").counter().count());
+    }
+
+    @Test
+    @DisplayName("Should cache an unmodifiable copy of a list result")
+    void get_ListResult_CachedAsCopy() {
+        // Arrange
+        when(productRepository.catalogVersion()).thenReturn(3L);
+        List<Product> mutable = new ArrayList<>(laptops);
+
+        // Act
+        List<Product> first = cache.get("sortByRating", List.of(false), () -> mutable);
+        mutable.clear();
+        List<Product> second = cache.get("sortByRating", List.of(false), () -> mutable);
+
+        // Assert
+        assertEquals(laptops, second);
+        assertSame(first, second);
+        assertThrows(UnsupportedOperationException.class, () -> first.add(laptops.get(0)));
+    }
+
+    @Test
+    @DisplayName("Should hand every caller its own query result over an unmodifiable copy of the products")
+    void get_QueryResult_CachedAsCopy() {
+        // Arrange
+        when(productRepository.catalogVersion()).thenReturn(3L);
+        List<Product> mutable = new ArrayList<>(laptops);
+        ProductQueryResult computed = ProductQueryResult.builder().count(1).products(mutable).build();
+
+        // Act
+        ProductQueryResult first = cache.get("query", List.of("laptops"), () -> computed);
+        first.setCount(0);
+        first.setProducts(List.of());
+        mutable.clear();
+        ProductQueryResult second = cache.get("query", List.of("laptops"), () -> computed);
+
+        // Assert
+        assertNotSame(first, second);
+        assertEquals(1, second.getCount());
+        assertEquals(laptops, second.getProducts());
+        assertThrows(UnsupportedOperationException.class, () -> second.getProducts().add(laptops.get(0)));
+    }
+
+    @Test
+    @DisplayName("Should run every query when disabled")
+    void get_Disabled_RunsEveryQuery() {
+        // Arrange
+        QueryResultCache disabled = new QueryResultCache(productRepository, new SimpleMeterRegistry(), false, 1000);
+
+        // Act
+        disabled.get("getAllCategories", List.of(), this::findLaptops);
+        disabled.get("getAllCategories", List.of(), this::findLaptops);
+
+        // Assert
+        assertEquals(2, runs.get());
+        assertEquals(0, disabled.size());
+        assertEquals(0, disabled.weightedSize());
+        verifyNoInteractions(productRepository);
+    }
+
+    @Test
+    @DisplayName("Should refuse a non-positive bound")
+    void constructor_InvalidMaximum() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class,
+                () -> new QueryResultCache(productRepository, new SimpleMeterRegistry(), true, 0));
+    }
+}
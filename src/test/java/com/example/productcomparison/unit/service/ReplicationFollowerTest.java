@@ -0,0 +1,223 @@
+package com.example.productcomparison.unit.service;
+
+import com.example.productcomparison.config.JwtUtil;
+import com.example.productcomparison.model.CatalogChange;
+import com.example.productcomparison.model.ChangeFeed;
+import com.example.productcomparison.model.MutationResult;
+import com.example.productcomparison.model.Product;
+import com.example.productcomparison.model.ProductMutation;
+import com.example.productcomparison.model.ReplicationSnapshot;
+import com.example.productcomparison.repository.IProductRepository;
+import com.example.productcomparison.service.ReplicationFollower;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ReplicationFollower Unit Tests")
+class ReplicationFollowerTest {
+
+    @Mock
+    private IProductRepository productRepository;
+
+    @Mock
+    private JwtUtil jwtUtil;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Deque<ReplicationSnapshot> snapshots = new ArrayDeque<>();
+    private final Deque<ChangeFeed> feeds = new ArrayDeque<>();
+    private final List<String> authorizations = new ArrayList<>();
+
+    private HttpServer leader;
+    private ReplicationFollower follower;
+
+    private Product product1;
+    private Product product2;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        leader = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        leader.createContext("/api/replication/snapshot", exchange -> respond(exchange, snapshots.poll()));
+        leader.createContext("/api/replication/changes", exchange -> respond(exchange, feeds.poll()));
+        leader.start();
+
+        follower = new ReplicationFollower(productRepository, objectMapper, jwtUtil);
+        ReflectionTestUtils.setField(follower, "leaderUrl", "http://localhost:" + leader.getAddress().getPort());
+        lenient().when(jwtUtil.generateToken(anyString(), anyString())).thenReturn("replication-token");
+
+        product1 = Product.builder().id("1").name("Product 1").price(100.0).rating(4.5).build();
+        product2 = Product.builder().id("2").name("Product 2").price(200.0).rating(3.5).build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        leader.stop(0);
+    }
+
+    private void respond(HttpExchange exchange, Object body) throws IOException {
+        authorizations.add(exchange.getRequestHeaders().getFirst("Authorization"));
+        byte[] json = body == null ? new byte[0] : objectMapper.writeValueAsBytes(body);
+        exchange.sendResponseHeaders(body == null ? 503 : 200, json.length == 0 ? -1 : json.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(json);
+        }
+    }
+
+    private List<List<ProductMutation>> appliedBatches(int times) {
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<ProductMutation>> captor = ArgumentCaptor.forClass(List.class);
+        verify(productRepository, times(times)).applyBatch(captor.capture());
+        return captor.getAllValues();
+    }
+
+    @Test
+    @DisplayName("Should copy the catalog as a difference on the first poll and then apply new changes")
+    void poll_CopiesThenTailsChanges() {
+        // Arrange
+        Product staleProduct1 = product1.toBuilder().name("Old name").build();
+        Product localOnly = Product.builder().id("3").name("Product 3").build();
+        snapshots.add(new ReplicationSnapshot("e1", 5L, List.of(product1, product2)));
+        feeds.add(new ChangeFeed("e1", 7L, false, List.of(
+                new CatalogChange(6L, CatalogChange.Operation.DELETE, "2", null),
+                new CatalogChange(7L, CatalogChange.Operation.PUT, "2", product2))));
+        when(productRepository.findAll()).thenReturn(List.of(staleProduct1, localOnly));
+        when(productRepository.findById("2")).thenReturn(Optional.of(product2));
+        when(productRepository.applyBatch(anyList())).thenReturn(List.of());
+
+        // Act
+        int applied = follower.poll();
+
+        // Assert
+        assertEquals(2, applied);
+        assertEquals(7L, follower.appliedSequence());
+        List<List<ProductMutation>> batches = appliedBatches(2);
+        assertEquals(List.of(ProductMutation.Operation.UPDATE, ProductMutation.Operation.CREATE,
+                        ProductMutation.Operation.DELETE),
+                batches.get(0).stream().map(ProductMutation::getOp).toList());
+        assertEquals(List.of("1", "2", "3"), batches.get(0).stream().map(ProductMutation::targetId).toList());
+        assertEquals(List.of(ProductMutation.Operation.DELETE, ProductMutation.Operation.CREATE),
+                batches.get(1).stream().map(ProductMutation::getOp).toList());
+        assertTrue(authorizations.stream().allMatch("Bearer replication-token"::equals));
+        verify(jwtUtil, times(2)).generateToken("replication-follower", "ROLE_REPLICATION");
+    }
+
+    @Test
+    @DisplayName("Should copy the catalog again when the leader has restarted")
+    void poll_ResyncsOnNewEpoch() {
+        // Arrange
+        snapshots.add(new ReplicationSnapshot("e1", 5L, List.of(product1)));
+        snapshots.add(new ReplicationSnapshot("e2", 1L, List.of(product2)));
+        feeds.add(new ChangeFeed("e1", 5L, false, List.of()));
+        feeds.add(new ChangeFeed("e2", 1L, false, List.of()));
+        when(productRepository.findAll()).thenReturn(List.of(), List.of(product1));
+        when(productRepository.applyBatch(anyList())).thenReturn(List.of());
+        follower.poll();
+
+        // Act
+        int applied = follower.poll();
+
+        // Assert
+        assertEquals(0, applied);
+        assertEquals(1L, follower.appliedSequence());
+        List<List<ProductMutation>> batches = appliedBatches(2);
+        assertEquals(List.of("2", "1"), batches.get(1).stream().map(ProductMutation::targetId).toList());
+    }
+
+    @Test
+    @DisplayName("Should skip deletes of absent products")
+    void poll_SkipsAbsentDeletes() {
+        // Arrange
+        snapshots.add(new ReplicationSnapshot("e1", 0L, List.of()));
+        feeds.add(new ChangeFeed("e1", 2L, false, List.of(
+                new CatalogChange(1L, CatalogChange.Operation.PUT, "1", product1),
+                new CatalogChange(2L, CatalogChange.Operation.DELETE, "9", null))));
+        when(productRepository.findAll()).thenReturn(List.of());
+        when(productRepository.findById(anyString())).thenReturn(Optional.empty());
+        ProductMutation create = ProductMutation.builder()
+                .op(ProductMutation.Operation.CREATE).id("1").product(product1).build();
+        when(productRepository.applyBatch(anyList())).thenReturn(List.of(MutationResult.applied(0, create)));
+
+        // Act
+        int applied = follower.poll();
+
+        // Assert
+        assertEquals(2, applied);
+        assertEquals(2L, follower.appliedSequence());
+        List<List<ProductMutation>> batches = appliedBatches(1);
+        assertEquals(List.of(create), batches.get(0));
+    }
+
+    @Test
+    @DisplayName("Should keep its position when changes fail and copy the catalog again on the next poll")
+    void poll_FailedChangesResync() {
+        // Arrange
+        snapshots.add(new ReplicationSnapshot("e1", 0L, List.of()));
+        snapshots.add(new ReplicationSnapshot("e1", 2L, List.of(product1)));
+        feeds.add(new ChangeFeed("e1", 2L, false, List.of(
+                new CatalogChange(1L, CatalogChange.Operation.PUT, "1", product1),
+                new CatalogChange(2L, CatalogChange.Operation.PUT, "2", product2))));
+        feeds.add(new ChangeFeed("e1", 2L, false, List.of()));
+        when(productRepository.findAll()).thenReturn(List.of());
+        when(productRepository.findById(anyString())).thenReturn(Optional.empty());
+        ProductMutation create = ProductMutation.builder()
+                .op(ProductMutation.Operation.CREATE).id("1").product(product1).build();
+        when(productRepository.applyBatch(anyList())).thenReturn(
+                List.of(MutationResult.failed(0, create, "PRODUCT_VALIDATION_ERROR", "Invalid product")),
+                List.of(MutationResult.applied(0, create)));
+
+        // Act
+        int failed = follower.poll();
+        long failedAt = follower.appliedSequence();
+        int resynced = follower.poll();
+
+        // Assert
+        assertEquals(-1, failed);
+        assertEquals(0L, failedAt);
+        assertEquals(0, resynced);
+        assertEquals(2L, follower.appliedSequence());
+        List<List<ProductMutation>> batches = appliedBatches(2);
+        assertEquals(List.of(create), batches.get(1));
+    }
+
+    @Test
+    @DisplayName("Should report a failed poll without throwing when the leader cannot be read")
+    void poll_LeaderUnavailable() {
+        // Act & Assert
+        assertEquals(-1, follower.poll());
+        assertEquals(0L, follower.appliedSequence());
+        verify(productRepository, never()).applyBatch(anyList());
+    }
+
+    @Test
+    @DisplayName("Should refuse to start without a leader URL")
+    void start_RequiresLeaderUrl() {
+        // Arrange
+        ReflectionTestUtils.setField(follower, "leaderUrl", " ");
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> follower.start());
+    }
+}
@@ -0,0 +1,433 @@
+package com.example.productcomparison.unit.service;
+
+import com.example.productcomparison.config.CatalogRoutingConfig;
+import com.example.productcomparison.config.JwtUtil;
+import com.example.productcomparison.exception.ErrorResponse;
+import com.example.productcomparison.exception.service.PartitionMoveException;
+import com.example.productcomparison.exception.service.PartitionRequestException;
+import com.example.productcomparison.exception.service.PartitionUnavailableException;
+import com.example.productcomparison.exception.service.ProductNotFoundException;
+import com.example.productcomparison.model.BatchResponse;
+import com.example.productcomparison.model.MutationResult;
+import com.example.productcomparison.model.Product;
+import com.example.productcomparison.model.ProductMutation;
+import com.example.productcomparison.repository.CatalogPartition;
+import com.example.productcomparison.service.AIProductGenerator;
+import com.example.productcomparison.service.RoutingProductService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("RoutingProductService Unit Tests")
+class RoutingProductServiceTest {
+
+    @Mock
+    private JwtUtil jwtUtil;
+
+    @Mock
+    private AIProductGenerator aiProductGenerator;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private SimpleMeterRegistry meterRegistry;
+    private CatalogRoutingConfig config;
+
+    private CatalogNode node0;
+    private CatalogNode node1;
+
+    private Product laptop;
+    private Product phone;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        node0 = new CatalogNode();
+        node1 = new CatalogNode();
+        meterRegistry = new SimpleMeterRegistry();
+        config = new CatalogRoutingConfig();
+        config.setEnabled(true);
+        config.setNodes(List.of(node0.url(), node1.url()));
+        config.setCategories(new HashMap<>(Map.of("laptops", 0, "phones", 1)));
+        config.setTimeoutMs(1000);
+        lenient().when(jwtUtil.generateToken(anyString(), anyString())).thenReturn("router-token");
+
+        laptop = Product.builder().id("laptop-1").name("Laptop").price(900.0).rating(4.1)
+                .specifications(Map.of("category", "Laptops")).build();
+        phone = Product.builder().id("phone-1").name("Phone").price(500.0).rating(4.6)
+                .specifications(Map.of("category", "Phones")).build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        node0.stop();
+        node1.stop();
+    }
+
+    private RoutingProductService router() {
+        return new RoutingProductService(config, new CatalogPartition(config), aiProductGenerator, jwtUtil,
+                objectMapper, meterRegistry);
+    }
+
+    private static Product rated(String id, double rating) {
+        return Product.builder().id(id).name(id).price(rating * 100).rating(rating).build();
+    }
+
+    @Test
+    @DisplayName("Should merge the sorted results of every node and stop after the limit")
+    void getTopRatedProducts_MergesNodes() {
+        // Arrange
+        node0.answer("GET /api/products/top?limit=3", 200, List.of(rated("a", 4.9), rated("b", 4.1)));
+        node1.answer("GET /api/products/top?limit=3", 200, List.of(rated("c", 4.5), rated("d", 3.0)));
+
+        // Act
+        List<Product> top = router().getTopRatedProducts(3);
+
+        // Assert
+        assertEquals(List.of("a", "c", "b"), top.stream().map(Product::getId).toList());
+        assertEquals(List.of("Bearer router-token"), node0.authorizations());
+        verify(jwtUtil, times(1)).generateToken("catalog-router", "ROLE_ADMIN");
+    }
+
+    @Test
+    @DisplayName("Should send single-category queries to the owning node only")
+    void filterByCategory_RoutesToOwner() {
+        // Arrange
+        node1.answer("GET /api/products/filter/category/Phones", 200, List.of(phone));
+        node1.answer("GET /api/products/filter/spec?key=category&value=Phones", 200, List.of(phone));
+
+        // Act
+        List<Product> byCategory = router().filterByCategory("Phones");
+        List<Product> bySpecification = router().findBySpecification("category", "Phones");
+
+        // Assert
+        assertEquals(List.of(phone), byCategory);
+        assertEquals(List.of(phone), bySpecification);
+        assertTrue(node0.requests().isEmpty());
+        assertEquals(node1.url(), router().nodeForCategory("PHONES"));
+    }
+
+    @Test
+    @DisplayName("Should answer with the nodes that responded in time and count the missing one")
+    void sortByPrice_PartialResultsOnTimeout() {
+        // Arrange
+        config.setTimeoutMs(200);
+        node0.answer("GET /api/products/sort/price?order=asc", 200, List.of(phone, laptop));
+        node1.answerSlowly("GET /api/products/sort/price?order=asc", 1000, List.of(rated("late", 1.0)));
+
+        // Act
+        List<Product> sorted = router().sortByPrice(true);
+
+        // Assert
+        assertEquals(List.of(phone, laptop), sorted);
+        assertEquals(1.0, meterRegistry.get("catalog.routing.partial-results").tag("node", node1.url())
+                .counter().count());
+    }
+
+    @Test
+    @DisplayName("Should fail with the unavailable nodes when partial results are not allowed")
+    void sortByPrice_UnavailableWithoutPartialResults() {
+        // Arrange
+        config.setAllowPartialResults(false);
+        node0.answer("GET /api/products/sort/price?order=desc", 200, List.of(laptop));
+        node1.stop();
+
+        // Act & Assert
+        PartitionUnavailableException exception =
+                assertThrows(PartitionUnavailableException.class, () -> router().sortByPrice(false));
+        assertEquals(List.of(node1.url()), exception.getNodes());
+    }
+
+    @Test
+    @DisplayName("Should pass on the error of a node that rejects the request")
+    void searchByName_RelaysRejection() {
+        // Arrange
+        ErrorResponse error = ErrorResponse.builder().status(400).message("Search query cannot be empty")
+                .errorCode("INVALID_PARAMETER").build();
+        node0.answer("GET /api/products/search?q=%20", 400, error);
+        node1.answer("GET /api/products/search?q=%20", 400, error);
+
+        // Act
+        PartitionRequestException exception =
+                assertThrows(PartitionRequestException.class, () -> router().searchByName(" "));
+
+        // Assert
+        assertEquals(400, exception.getStatus());
+        assertEquals("INVALID_PARAMETER", exception.getErrorCode());
+        assertEquals("Search query cannot be empty", exception.getMessage());
+    }
+
+    @Test
+    @DisplayName("Should find a product on whichever node holds it")
+    void getProductById_AsksEveryNode() {
+        // Arrange
+        node1.answer("GET /api/products/phone-1", 200, phone);
+
+        // Act & Assert
+        assertEquals(phone, router().getProductById("phone-1"));
+        assertThrows(ProductNotFoundException.class, () -> router().getProductById("missing"));
+    }
+
+    @Test
+    @DisplayName("Should not report a product missing while a node that could hold it is unavailable")
+    void getProductById_UnavailableNode() {
+        // Arrange
+        node1.stop();
+
+        // Act & Assert
+        assertThrows(PartitionUnavailableException.class, () -> router().getProductById("phone-1"));
+    }
+
+    @Test
+    @DisplayName("Should move a product to the node owning its new category")
+    void updateProduct_MovesBetweenNodes() {
+        // Arrange
+        Product moved = laptop.toBuilder().specifications(Map.of("category", "Phones")).build();
+        node0.answer("GET /api/products/laptop-1", 200, laptop);
+        node0.answer("DELETE /api/products/laptop-1", 204, null);
+        node1.answer("POST /api/products", 201, moved);
+
+        // Act
+        Product updated = router().updateProduct("laptop-1", moved);
+
+        // Assert
+        assertEquals(moved, updated);
+        assertTrue(node0.requests().contains("DELETE /api/products/laptop-1"));
+        assertTrue(node1.requests().contains("POST /api/products"));
+    }
+
+    @Test
+    @DisplayName("Should remove the new copy when the old node refuses to remove the moved product")
+    void updateProduct_UndoesRefusedMove() {
+        // Arrange
+        Product moved = laptop.toBuilder().specifications(Map.of("category", "Phones")).build();
+        node0.answer("GET /api/products/laptop-1", 200, laptop);
+        node0.answer("DELETE /api/products/laptop-1", 405,
+                ErrorResponse.builder().status(405).errorCode("CATALOG_READ_ONLY").build());
+        node1.answer("POST /api/products", 201, moved);
+        node1.answer("DELETE /api/products/laptop-1", 204, null);
+
+        // Act
+        PartitionRequestException exception =
+                assertThrows(PartitionRequestException.class, () -> router().updateProduct("laptop-1", moved));
+
+        // Assert
+        assertEquals("CATALOG_READ_ONLY", exception.getErrorCode());
+        assertTrue(node1.requests().contains("DELETE /api/products/laptop-1"));
+    }
+
+    @Test
+    @DisplayName("Should report both nodes when a failed move cannot be undone")
+    void updateProduct_ReportsProductOnBothNodes() {
+        // Arrange
+        Product moved = laptop.toBuilder().specifications(Map.of("category", "Phones")).build();
+        node0.answer("GET /api/products/laptop-1", 200, laptop);
+        node0.answer("DELETE /api/products/laptop-1", 405,
+                ErrorResponse.builder().status(405).errorCode("CATALOG_READ_ONLY").build());
+        node1.answer("POST /api/products", 201, moved);
+        node1.answer("DELETE /api/products/laptop-1", 500, null);
+
+        // Act
+        PartitionMoveException exception =
+                assertThrows(PartitionMoveException.class, () -> router().updateProduct("laptop-1", moved));
+
+        // Assert
+        assertEquals("laptop-1", exception.getProductId());
+        assertEquals(List.of(node0.url(), node1.url()), exception.getNodes());
+    }
+
+    @Test
+    @DisplayName("Should refuse batch creates of an ID another node holds, or that two items create on different nodes")
+    void applyBatch_CreateExistingOnOtherNode() {
+        // Arrange
+        Product laptopAsPhone = phone.toBuilder().id("laptop-1").build();
+        Product twice = rated("twice", 4.0).toBuilder().specifications(Map.of("category", "Laptops")).build();
+        List<ProductMutation> mutations = List.of(
+                ProductMutation.builder().op(ProductMutation.Operation.CREATE).product(laptopAsPhone).build(),
+                ProductMutation.builder().op(ProductMutation.Operation.CREATE).product(twice).build(),
+                ProductMutation.builder().op(ProductMutation.Operation.CREATE)
+                        .product(twice.toBuilder().specifications(Map.of("category", "Phones")).build()).build());
+        node0.answer("POST /api/products/exists", 200, List.of("laptop-1"));
+        node1.answer("POST /api/products/exists", 200, List.of());
+        node0.answer("POST /api/products/batch", 200, BatchResponse.of(List.of(
+                MutationResult.applied(0, mutations.get(1)))));
+
+        // Act
+        List<MutationResult> results = router().applyBatch(mutations);
+
+        // Assert
+        assertEquals("PRODUCT_ALREADY_EXISTS", results.get(0).getErrorCode());
+        assertTrue(results.get(1).isApplied());
+        assertEquals("PRODUCT_ALREADY_EXISTS", results.get(2).getErrorCode());
+        assertFalse(node1.requests().contains("POST /api/products/batch"));
+    }
+
+    @Test
+    @DisplayName("Should split a batch by node, send deletes everywhere and keep the request order")
+    void applyBatch_SplitsByNode() {
+        // Arrange
+        List<ProductMutation> mutations = List.of(
+                ProductMutation.builder().op(ProductMutation.Operation.CREATE).product(phone).build(),
+                ProductMutation.builder().op(ProductMutation.Operation.DELETE).id("laptop-1").build(),
+                ProductMutation.builder().op(ProductMutation.Operation.UPDATE).id("x").build());
+        node0.answer("POST /api/products/exists", 200, List.of());
+        node0.answer("POST /api/products/batch", 200, BatchResponse.of(List.of(
+                MutationResult.applied(0, mutations.get(1)))));
+        node1.answer("POST /api/products/batch", 200, BatchResponse.of(List.of(
+                MutationResult.applied(0, mutations.get(0)),
+                MutationResult.failed(1, mutations.get(1), "PRODUCT_NOT_FOUND", "Product not found"))));
+
+        // Act
+        List<MutationResult> results = router().applyBatch(mutations);
+
+        // Assert
+        assertEquals(List.of(0, 1, 2), results.stream().map(MutationResult::getIndex).toList());
+        assertTrue(results.get(0).isApplied());
+        assertEquals("phone-1", results.get(0).getId());
+        assertTrue(results.get(1).isApplied());
+        assertFalse(results.get(2).isApplied());
+        assertEquals("PRODUCT_VALIDATION_ERROR", results.get(2).getErrorCode());
+    }
+
+    @Test
+    @DisplayName("Should check the creates of a batch with one request per other node and reuse the router token")
+    void applyBatch_ChecksCreatesInBulk() {
+        // Arrange
+        List<ProductMutation> mutations = new ArrayList<>();
+        List<MutationResult> applied = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            ProductMutation create = ProductMutation.builder().op(ProductMutation.Operation.CREATE)
+                    .product(laptop.toBuilder().id("laptop-" + i).build()).build();
+            mutations.add(create);
+            applied.add(MutationResult.applied(i, create));
+        }
+        node1.answer("POST /api/products/exists", 200, List.of("laptop-7"));
+        node0.answer("POST /api/products/batch", 200, BatchResponse.of(applied.subList(0, 199)));
+
+        // Act
+        List<MutationResult> results = router().applyBatch(mutations);
+
+        // Assert
+        assertEquals(List.of("POST /api/products/exists"), node1.requests());
+        assertEquals(List.of("POST /api/products/batch"), node0.requests());
+        assertEquals("PRODUCT_ALREADY_EXISTS", results.get(7).getErrorCode());
+        assertEquals(199, results.stream().filter(MutationResult::isApplied).count());
+        verify(jwtUtil, times(1)).generateToken("catalog-router", "ROLE_ADMIN");
+    }
+
+    @Test
+    @DisplayName("Should fail the creates of a batch when a node that could hold their IDs cannot be checked")
+    void applyBatch_UncheckedNodeFailsCreates() {
+        // Arrange
+        List<ProductMutation> mutations = List.of(
+                ProductMutation.builder().op(ProductMutation.Operation.CREATE).product(laptop).build());
+        node1.stop();
+
+        // Act
+        List<MutationResult> results = router().applyBatch(mutations);
+
+        // Assert
+        assertFalse(results.get(0).isApplied());
+        assertEquals("CATALOG_PARTITION_UNAVAILABLE", results.get(0).getErrorCode());
+        assertTrue(node0.requests().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should refuse to start without nodes or with a category assigned to an unknown node")
+    void constructor_InvalidConfiguration() {
+        // Arrange
+        CatalogRoutingConfig noNodes = new CatalogRoutingConfig();
+        noNodes.setNodes(List.of(" "));
+        config.setCategories(Map.of("tablets", 2));
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () ->
+                new RoutingProductService(noNodes, new CatalogPartition(noNodes), aiProductGenerator, jwtUtil,
+                        objectMapper, meterRegistry));
+        assertThrows(IllegalStateException.class, this::router);
+    }
+
+    /**
+     * Stand-in for a catalog node on a local port, answering canned responses.
+     */
+    private final class CatalogNode {
+
+        private final HttpServer server;
+        private final Map<String, Object[]> answers = new HashMap<>();
+        private final List<String> requests = Collections.synchronizedList(new ArrayList<>());
+        private final List<String> authorizations = Collections.synchronizedList(new ArrayList<>());
+        private boolean stopped;
+
+        CatalogNode() throws IOException {
+            server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+            server.createContext("/", this::handle);
+            server.start();
+        }
+
+        String url() {
+            return "http://localhost:" + server.getAddress().getPort();
+        }
+
+        void answer(String request, int status, Object body) {
+            answers.put(request, new Object[]{status, body, 0L});
+        }
+
+        void answerSlowly(String request, long delayMs, Object body) {
+            answers.put(request, new Object[]{200, body, delayMs});
+        }
+
+        List<String> requests() {
+            return requests;
+        }
+
+        List<String> authorizations() {
+            return authorizations;
+        }
+
+        void stop() {
+            if (!stopped) {
+                stopped = true;
+                server.stop(0);
+            }
+        }
+
+        private void handle(HttpExchange exchange) throws IOException {
+            String query = exchange.getRequestURI().getRawQuery();
+            String request = exchange.getRequestMethod() + " " + exchange.getRequestURI().getRawPath()
+                    + (query == null ? "" : "?" + query);
+            requests.add(request);
+            authorizations.add(exchange.getRequestHeaders().getFirst("Authorization"));
+            Object[] answer = answers.getOrDefault(request,
+                    new Object[]{404, ErrorResponse.builder().status(404).errorCode("PRODUCT_NOT_FOUND").build(), 0L});
+            try {
+                Thread.sleep((long) answer[2]);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] json = answer[1] == null ? new byte[0] : objectMapper.writeValueAsBytes(answer[1]);
+            exchange.sendResponseHeaders((int) answer[0], json.length == 0 ? -1 : json.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(json);
+            }
+        }
+    }
+}